@@ -0,0 +1,111 @@
+package org.statemach.db.graphql;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.statemach.db.schema.DataType;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphQLResultShaperBenchmark {
+
+    static final DataType TYPE = DataType.unsupported("type");
+
+    @Param({ "1", "3" })
+    int depth;
+
+    @Param({ "4", "16" })
+    int columns;
+
+    Map<String, List<String>> paths;
+    List<ForeignKeyPath>      keys;
+    List<Map<String, Object>> rows;
+    GraphQLResultShaper       shaper;
+
+    @Setup
+    public void setup() {
+        List<ExtractValue>   values = List.empty();
+        List<ForeignKeyPath> keys   = List.empty();
+        for (int d = 0; d <= depth; d++) {
+            List<String> path = List.range(0, d).map(i -> "fk" + i);
+            for (int c = 0; c < columns; c++) {
+                values = values.append(ExtractValue.of(path.append("c" + c), TYPE));
+            }
+            if (d > 0) {
+                keys = keys.append(new ForeignKeyPath(path, List.of(ExtractValue.of(path.append("c0"), TYPE))));
+            }
+        }
+
+        List<ExtractValue> extracts = values;
+        this.paths = values.toMap(e -> new Tuple2<>(e.name, e.path));
+        this.keys = keys;
+        this.rows = List.range(0, 100)
+            .map(r -> extracts.toMap(e -> new Tuple2<>(e.name, (Object) (r % 10 == 0 && e.path.size() > 1 ? null : r))));
+        this.shaper = GraphQLResultShaper.of(paths, keys);
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        GraphQLResultShaper shaper = GraphQLResultShaper.of(paths, keys);
+        rows.forEach(r -> blackhole.consume(shaper.apply(r)));
+    }
+
+    @Benchmark
+    public void compiledApplyOnly(Blackhole blackhole) {
+        rows.forEach(r -> blackhole.consume(shaper.apply(r)));
+    }
+
+    @Benchmark
+    public void perRow(Blackhole blackhole) {
+        rows.forEach(r -> blackhole.consume(buildGraphQLResult(r, paths, keys)));
+    }
+
+    // Per row result building, as it was done before GraphQLResultShaper
+    static java.util.Map<String, Object> buildGraphQLResult(Map<String, Object> row,
+                                                            Map<String, List<String>> paths,
+                                                            List<ForeignKeyPath> keysPaths) {
+        List<List<String>> nullPaths = keysPaths
+            .filter(f -> f.extracts.find(e -> null == row.get(e.name).getOrNull()).isDefined())
+            .map(f -> f.path);
+
+        List<List<String>> topNullPaths = nullPaths
+            .filter(n -> nullPaths.find(p -> n != p && n.startsWith(p)).isEmpty());
+
+        java.util.Map<String, Object> result = new java.util.HashMap<>();
+
+        paths
+            .filter(t -> topNullPaths.find(n -> t._2.startsWith(n)).isEmpty())
+            .forEach(t -> putIntoMapTree(result, t._2, row.get(t._1).getOrNull()));
+
+        topNullPaths.forEach(p -> putIntoMapTree(result, p, null));
+        return result;
+    }
+
+    static void putIntoMapTree(java.util.Map<String, Object> tree, List<String> path, Object value) {
+        @SuppressWarnings("unchecked")
+        java.util.Map<String, Object> last = path
+            .dropRight(1)
+            .foldLeft(tree, (t, s) -> (java.util.Map<String, Object>) (t.computeIfAbsent(s, n -> new java.util.HashMap<>())));
+
+        last.put(path.last(), value);
+    }
+}
@@ -0,0 +1,33 @@
+package org.statemach.db.admin;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import org.statemach.util.Http;
+import org.statemach.util.Java;
+
+import com.sun.net.httpserver.HttpExchange;
+
+public class AdminToken {
+
+    static final String BEARER = "Bearer ";
+
+    final byte[] expected;
+
+    public AdminToken(String token) {
+        this.expected = (BEARER + token).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public boolean matches(HttpExchange exchange) {
+        // Constant time comparison does not leak how much of the token was guessed right
+        byte[] actual = Java.toStringOrEmpty(exchange.getRequestHeaders().getFirst(Http.Header.AUTHORIZATION))
+            .getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    public void check(HttpExchange exchange) {
+        if (!matches(exchange)) {
+            throw new Http.Error(Http.ErrorCode.UNAUTHORIZED, "Admin token is missing or invalid");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.statemach.db.admin;
+
+import java.io.IOException;
+
+import org.statemach.db.advisor.IndexAdvisor;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import io.vavr.collection.LinkedHashMap;
+
+public class IndexAdvisorHandler implements HttpHandler {
+
+    final AdminToken   token;
+    final IndexAdvisor advisor;
+
+    public IndexAdvisorHandler(AdminToken token, IndexAdvisor advisor) {
+        this.token = token;
+        this.advisor = advisor;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        token.check(exchange);
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            throw new Http.Error(Http.ErrorCode.METHOD_NOT_ALLOWED,
+                    "Method ${0} is not supported by index advisor endpoint",
+                    exchange.getRequestMethod());
+        }
+
+        Http.json(exchange, LinkedHashMap.of(
+                "missing", advisor.missing(),
+                "unused", advisor.unused()));
+    }
+}
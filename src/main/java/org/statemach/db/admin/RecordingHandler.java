@@ -0,0 +1,121 @@
+package org.statemach.db.admin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.statemach.util.Http;
+import org.statemach.util.Java;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+public class RecordingHandler implements HttpHandler {
+
+    static interface Parameter {
+        static final String SECONDS  = "seconds";
+        static final String SETTINGS = "settings";
+    }
+
+    static final String CONTENT_TYPE        = "application/octet-stream";
+    static final String CONTENT_DISPOSITION = "Content-Disposition";
+
+    static final long         DEFAULT_SECONDS  = 30;
+    static final String       DEFAULT_SETTINGS = "profile";
+    static final List<String> SETTINGS         = List.of("default", "profile");
+
+    final AdminToken    token;
+    final long          maxSeconds;
+    final AtomicBoolean running = new AtomicBoolean(false);
+
+    public RecordingHandler(AdminToken token, long maxSeconds) {
+        this.token = token;
+        this.maxSeconds = maxSeconds;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        // Token is checked before anything else, so endpoint does not reveal itself to anonymous callers
+        token.check(exchange);
+        if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            throw new Http.Error(Http.ErrorCode.METHOD_NOT_ALLOWED,
+                    "Method ${0} is not supported by recording endpoint",
+                    exchange.getRequestMethod());
+        }
+
+        Map<String, List<String>> params   = Http.queryParams(exchange);
+        long                      seconds  = seconds(params.get(Parameter.SECONDS).flatMap(List::headOption));
+        String                    settings = params.get(Parameter.SETTINGS)
+            .flatMap(List::headOption)
+            .getOrElse(DEFAULT_SETTINGS);
+        if (!SETTINGS.contains(settings)) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Recording settings '${0}' are not supported, expected one of ${1}",
+                    settings,
+                    SETTINGS.mkString(", "));
+        }
+
+        // Only one recording at a time, parallel recordings would only distort each other
+        if (!running.compareAndSet(false, true)) {
+            throw new Http.Error(Http.ErrorCode.CONFLICT, "Another recording is in progress");
+        }
+
+        Path file = null;
+        try {
+            file = Java.soft(() -> record(Duration.ofSeconds(seconds), settings));
+            exchange.getResponseHeaders().set(Http.Header.CONTENT_TYPE, CONTENT_TYPE);
+            exchange.getResponseHeaders().set(CONTENT_DISPOSITION,
+                    Java.format("attachment; filename=\"statemach-${0}.jfr\"", Instant.now().getEpochSecond()));
+            exchange.sendResponseHeaders(Http.ErrorCode.OK, Files.size(file));
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(file, out);
+            }
+        } finally {
+            running.set(false);
+            if (null != file) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    long seconds(Option<String> value) {
+        long seconds = value
+            .map(v -> Java.soft(() -> Long.parseLong(v), ex -> new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Recording duration '${0}' is not a number",
+                    v)))
+            .getOrElse(DEFAULT_SECONDS);
+        if (seconds < 1 || maxSeconds < seconds) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Recording duration ${0} is out of range 1..${1} seconds",
+                    seconds,
+                    maxSeconds);
+        }
+        return seconds;
+    }
+
+    Path record(Duration duration, String settings) throws Exception {
+        Path file = Files.createTempFile("statemach-", ".jfr");
+        try (Recording recording = new Recording(Configuration.getConfiguration(settings))) {
+            recording.setName("statemach-admin");
+            recording.start();
+            Thread.sleep(duration.toMillis());
+            recording.stop();
+            recording.dump(file);
+        } catch (Exception ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+        return file;
+    }
+}
@@ -0,0 +1,121 @@
+package org.statemach.db.admin;
+
+import java.io.IOException;
+
+import org.statemach.db.jdbc.JDBC;
+import org.statemach.db.jdbc.SqlDebug;
+import org.statemach.util.BufferedExchange;
+import org.statemach.util.Http;
+import org.statemach.util.Json;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+public class SqlDebugHandler implements HttpHandler {
+
+    static interface Mode {
+        static final String SQL     = "sql";
+        static final String EXPLAIN = "explain";
+    }
+
+    static final String       HEADER = "X-Debug-SQL";
+    static final String       PARAM  = "$debug";
+    static final List<String> MODES  = List.of(Mode.SQL, Mode.EXPLAIN);
+
+    static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    final AdminToken  token;
+    final JDBC        jdbc;
+    final HttpHandler next;
+
+    public SqlDebugHandler(AdminToken token, JDBC jdbc, HttpHandler next) {
+        this.token = token;
+        this.jdbc = jdbc;
+        this.next = next;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        Option<String> mode = mode(exchange);
+        if (mode.isEmpty()) {
+            next.handle(exchange);
+            return;
+        }
+
+        // SQL, binds and plans reveal data and schema details, so they are only shown to admins
+        token.check(exchange);
+        if (!MODES.contains(mode.get())) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Debug mode '${0}' is not supported, expected one of ${1}",
+                    mode.get(),
+                    MODES.mkString(", "));
+        }
+
+        // Request is executed as usual, its response is embedded into the report instead of being sent
+        BufferedExchange buffered = new BufferedExchange(exchange);
+        SqlDebug         debug    = SqlDebug.start();
+        long             start    = System.nanoTime();
+        int              status;
+        Object           response;
+        try {
+            next.handle(buffered);
+            status = buffered.getResponseCode();
+            response = parse(buffered.getBufferedBody());
+        } catch (Http.Error ex) {
+            status = ex.errorCode;
+            response = Http.ErrorResource.of(ex);
+        } catch (Exception ex) {
+            status = Http.ErrorCode.INTERNAL_SERVER_ERROR;
+            response = Http.ErrorResource.of(ex);
+        } finally {
+            debug.stop();
+        }
+        long duration = System.nanoTime() - start;
+
+        boolean explain = Mode.EXPLAIN.equals(mode.get());
+        Http.json(exchange, LinkedHashMap.of(
+                "status", status,
+                "durationMillis", duration / NANOS_PER_MILLI,
+                "statements", debug.getStatements().map(s -> report(s, explain)),
+                "response", response));
+    }
+
+    static Option<String> mode(HttpExchange exchange) {
+        return Option.of(exchange.getRequestHeaders().getFirst(HEADER))
+            .orElse(() -> Http.queryParams(exchange).get(PARAM).flatMap(List::headOption))
+            .map(String::trim)
+            .map(String::toLowerCase);
+    }
+
+    Map<String, Object> report(SqlDebug.Statement statement, boolean explain) {
+        Map<String, Object> result = LinkedHashMap.of(
+                "sql", statement.sql,
+                "binds", statement.binds.map(SqlDebugHandler::bind),
+                "rows", statement.rows,
+                "waitMillis", statement.waitNanos / NANOS_PER_MILLI,
+                "durationMillis", statement.durationNanos / NANOS_PER_MILLI);
+        return explain ? result.put("plan", plan(statement)) : result;
+    }
+
+    List<String> plan(SqlDebug.Statement statement) {
+        try {
+            return jdbc.explain(statement);
+        } catch (Exception ex) {
+            return List.of("unavailable: " + ex.getMessage());
+        }
+    }
+
+    static Object bind(Object value) {
+        // Driver specific values, like arrays, are not serializable as is
+        return null == value || value instanceof Number || value instanceof Boolean ? value : value.toString();
+    }
+
+    static Object parse(byte[] body) {
+        return 0 == body.length ? null : Json.parse(new String(body, java.nio.charset.StandardCharsets.UTF_8), Object.class);
+    }
+}
@@ -0,0 +1,58 @@
+package org.statemach.db.advisor;
+
+import java.util.Objects;
+
+import org.statemach.util.Java;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+public class AccessPattern {
+
+    public final String                        table;
+    public final List<String>                  filter;
+    public final List<Tuple2<String, Boolean>> order;
+
+    AccessPattern(String table, List<String> filter, List<Tuple2<String, Boolean>> order) {
+        this.table = table;
+        this.filter = filter;
+        this.order = order;
+    }
+
+    public static AccessPattern of(String table, List<String> filter, List<Tuple2<String, Boolean>> order) {
+        // Order of filter columns does not matter for the query, so they are normalized
+        return new AccessPattern(table, filter.distinct().sorted(), order);
+    }
+
+    public boolean isCoveredBy(List<String> indexColumns) {
+        // Equality columns can go in any order, sorting columns must follow them
+        List<String> sort = sortColumns().map(t -> t._1);
+        return filter.size() + sort.size() <= indexColumns.size()
+                && indexColumns.take(filter.size()).toSet().equals(filter.toSet())
+                && indexColumns.drop(filter.size()).take(sort.size()).equals(sort);
+    }
+
+    public List<Tuple2<String, Boolean>> indexColumns() {
+        return filter.map(c -> new Tuple2<>(c, true)).appendAll(sortColumns());
+    }
+
+    List<Tuple2<String, Boolean>> sortColumns() {
+        // Sorting by a column fixed with equality is a no-op
+        return order.filter(o -> !filter.contains(o._1));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(table, filter, order);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return Java.equalsByFields(this, other, t -> t.table, t -> t.filter, t -> t.order);
+    }
+
+    @Override
+    public String toString() {
+        return "AccessPattern@{table: " + table + ", filter: " + filter + ", order: " + order + "}";
+    }
+}
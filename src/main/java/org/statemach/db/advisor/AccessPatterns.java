@@ -0,0 +1,54 @@
+package org.statemach.db.advisor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+public class AccessPatterns {
+
+    public static class Statistics {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getNanos() {
+            return nanos.sum();
+        }
+    }
+
+    public static final AccessPatterns DISABLED = new AccessPatterns(0);
+
+    final int                                           capacity;
+    final ConcurrentHashMap<AccessPattern, Statistics> patterns = new ConcurrentHashMap<>();
+
+    public AccessPatterns(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public void record(String table, List<String> filter, List<Tuple2<String, Boolean>> order, long nanos) {
+        if (0 == capacity || (filter.isEmpty() && order.isEmpty())) {
+            return;
+        }
+
+        AccessPattern pattern    = AccessPattern.of(table, filter, order);
+        Statistics    statistics = patterns.get(pattern);
+        if (null == statistics) {
+            // Patterns are bounded by what clients send, so the map is capped to survive a scanner
+            if (capacity <= patterns.size()) {
+                return;
+            }
+            statistics = patterns.computeIfAbsent(pattern, p -> new Statistics());
+        }
+        statistics.count.increment();
+        statistics.nanos.add(nanos);
+    }
+
+    public List<Tuple2<AccessPattern, Statistics>> snapshot() {
+        return List.ofAll(patterns.entrySet()).map(e -> new Tuple2<>(e.getKey(), e.getValue()));
+    }
+}
@@ -0,0 +1,127 @@
+package org.statemach.db.advisor;
+
+import org.statemach.db.schema.IndexInfo;
+import org.statemach.db.sql.SchemaAccess;
+import org.statemach.util.Java;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+public class IndexAdvisor {
+
+    static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    static final String CREATE = "CREATE INDEX CONCURRENTLY ON ${0}.${1} (${2})";
+    static final String DROP   = "DROP INDEX CONCURRENTLY ${0}.${1}";
+
+    public static class Candidate {
+        public final String       table;
+        public final List<String> columns;
+        public final long         queries;
+        public final double       totalMillis;
+        public final long         rows;
+        public final double       benefit;
+        public final String       ddl;
+
+        Candidate(String table, List<String> columns, long queries, double totalMillis, long rows, double benefit, String ddl) {
+            this.table = table;
+            this.columns = columns;
+            this.queries = queries;
+            this.totalMillis = totalMillis;
+            this.rows = rows;
+            this.benefit = benefit;
+            this.ddl = ddl;
+        }
+
+        @Override
+        public String toString() {
+            return "Candidate@{table: " + table + ", columns: " + columns + ", benefit: " + benefit + "}";
+        }
+    }
+
+    public static class Unused {
+        public final String       index;
+        public final String       table;
+        public final List<String> columns;
+        public final long         sizeBytes;
+        public final long         tableWrites;
+        public final String       ddl;
+
+        Unused(String index, String table, List<String> columns, long sizeBytes, long tableWrites, String ddl) {
+            this.index = index;
+            this.table = table;
+            this.columns = columns;
+            this.sizeBytes = sizeBytes;
+            this.tableWrites = tableWrites;
+            this.ddl = ddl;
+        }
+
+        @Override
+        public String toString() {
+            return "Unused@{index: " + index + ", table: " + table + "}";
+        }
+    }
+
+    final SchemaAccess   schemaAccess;
+    final AccessPatterns patterns;
+    final long           minRows;
+
+    public IndexAdvisor(SchemaAccess schemaAccess, AccessPatterns patterns, long minRows) {
+        this.schemaAccess = schemaAccess;
+        this.patterns = patterns;
+        this.minRows = minRows;
+    }
+
+    public List<Candidate> missing() {
+        return missing(patterns.snapshot(), schemaAccess.getAllIndexes(), schemaAccess.getAllTableRowEstimates());
+    }
+
+    public List<Unused> unused() {
+        return unused(schemaAccess.getAllIndexes());
+    }
+
+    List<Candidate> missing(List<Tuple2<AccessPattern, AccessPatterns.Statistics>> observed,
+                            List<IndexInfo> indexes,
+                            Map<String, Long> rows) {
+        // Small tables are scanned faster than any index could be used
+        return observed
+            .filter(t -> minRows <= rows.get(t._1.table).getOrElse(0L))
+            .filter(t -> !indexes.exists(i -> i.table.equals(t._1.table) && t._1.isCoveredBy(i.columns)))
+            .groupBy(t -> new Tuple2<>(t._1.table, t._1.indexColumns()))
+            .map(g -> candidate(g._1._1, g._1._2, g._2.map(t -> t._2), rows.get(g._1._1).get()))
+            .toList()
+            .sortBy(c -> -c.benefit);
+    }
+
+    Candidate candidate(String table,
+                        List<Tuple2<String, Boolean>> columns,
+                        List<AccessPatterns.Statistics> statistics,
+                        long rows) {
+        long         queries     = statistics.map(AccessPatterns.Statistics::getCount).sum().longValue();
+        double       totalMillis = statistics.map(AccessPatterns.Statistics::getNanos).sum().longValue() / NANOS_PER_MILLI;
+        List<String> definition  = columns.map(c -> c._2 ? c._1 : c._1 + " DESC");
+
+        // Time spent on the pattern is what an index could save, and the saving grows with table size
+        return new Candidate(table,
+                definition,
+                queries,
+                totalMillis,
+                rows,
+                totalMillis * Math.log10(rows),
+                Java.format(CREATE, schemaAccess.getSchemaName(), table, definition.mkString(", ")));
+    }
+
+    List<Unused> unused(List<IndexInfo> indexes) {
+        // Unique and primary indexes enforce constraints, so they stay even when never scanned
+        return indexes
+            .filter(i -> !i.primary && !i.unique && 0 == i.scans)
+            .sortBy(i -> new Tuple2<>(-i.tableWrites, -i.sizeBytes))
+            .map(i -> new Unused(i.name,
+                    i.table,
+                    i.columns,
+                    i.sizeBytes,
+                    i.tableWrites,
+                    Java.format(DROP, schemaAccess.getSchemaName(), i.name)));
+    }
+}
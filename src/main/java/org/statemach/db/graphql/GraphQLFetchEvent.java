@@ -0,0 +1,23 @@
+package org.statemach.db.graphql;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.statemach.GraphQLFetch")
+@Label("GraphQL Fetch")
+@Category({ "Statemach", "GraphQL" })
+@StackTrace(false)
+public class GraphQLFetchEvent extends Event {
+
+    @Label("Table")
+    public String table;
+
+    @Label("Sub Query")
+    public boolean subQuery;
+
+    @Label("Rows")
+    public int rows;
+}
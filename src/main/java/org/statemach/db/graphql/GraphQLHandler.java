@@ -1,23 +1,36 @@
 package org.statemach.db.graphql;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
 
+import org.dataloader.DataLoaderRegistry;
+import org.statemach.db.advisor.AccessPatterns;
 import org.statemach.db.schema.Schema;
 import org.statemach.db.sql.DataAccess;
 import org.statemach.db.sql.SchemaAccess;
 import org.statemach.util.Http;
+import org.statemach.util.Java;
 import org.statemach.util.Json;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import graphql.ExecutionInput;
+import graphql.ExceptionWhileDataFetching;
 import graphql.ExecutionResult;
 import graphql.GraphQL;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
 import graphql.schema.GraphQLCodeRegistry;
 import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.SchemaPrinter;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
+import io.vavr.control.Option;
 
 public class GraphQLHandler implements HttpHandler {
 
@@ -33,36 +46,71 @@ public class GraphQLHandler implements HttpHandler {
         public String              operationName;
         public Map<String, Object> variables;
 
-        public ExecutionInput buildExecutionInput() {
+        public ExecutionInput buildExecutionInput(DataLoaderRegistry dataLoaders) {
             return ExecutionInput.newExecutionInput(query)
                 .operationName(operationName)
                 .variables(variables.toJavaMap())
+                .dataLoaderRegistry(dataLoaders)
                 .build();
         }
     }
 
-    final GraphQL graphQL;
+    static final String INTROSPECTION_PREFIX = "__";
+
+    final GraphQL                      graphQL;
+    final Supplier<DataLoaderRegistry> dataLoaders;
+    final String                       schemaDigest;
 
     GraphQLHandler(GraphQL graphQL) {
+        this(graphQL, DataLoaderRegistry::new, "");
+    }
+
+    GraphQLHandler(GraphQL graphQL, Supplier<DataLoaderRegistry> dataLoaders, String schemaDigest) {
         this.graphQL = graphQL;
+        this.dataLoaders = dataLoaders;
+        this.schemaDigest = schemaDigest;
     }
 
-    public static GraphQLHandler build(Schema schema, SchemaAccess schemaAccess, DataAccess dataAccess) {
-        GraphQLNaming   naming   = new GraphQLNaming();
-        GraphQLQuery    query    = GraphQLQuery.of(schema, naming, dataAccess);
-        GraphQLMutation mutation = GraphQLMutation.of(schema, naming, dataAccess);
-        GraphQLSchema   schemaQL = buildSchema(query, mutation);
-        GraphQL         graphQL  = GraphQL.newGraphQL(schemaQL).build();
+    public static GraphQLHandler build(Schema schema,
+                                       SchemaAccess schemaAccess,
+                                       DataAccess dataAccess,
+                                       long maxRows,
+                                       int maxDepth) {
+        return build(schema, schemaAccess, dataAccess, maxRows, maxDepth, 0, AccessPatterns.DISABLED);
+    }
+
+    public static GraphQLHandler build(Schema schema,
+                                       SchemaAccess schemaAccess,
+                                       DataAccess dataAccess,
+                                       long maxRows,
+                                       int maxDepth,
+                                       long estimatesRefreshMillis,
+                                       AccessPatterns patterns) {
+        GraphQLNaming    naming   = new GraphQLNaming();
+        GraphQLQuery     query    = GraphQLQuery.of(schema, naming, dataAccess, patterns);
+        GraphQLMutation  mutation = GraphQLMutation.of(schema, naming, dataAccess, query);
+        GraphQLQueryCost cost     = GraphQLQueryCost.of(schema,
+                naming,
+                schemaAccess.getAllTableRowEstimates(),
+                maxRows,
+                maxDepth)
+            .refreshEvery(schemaAccess::getAllTableRowEstimates, estimatesRefreshMillis);
+        GraphQLSchema    schemaQL = buildSchema(query, mutation);
+        GraphQL          graphQL  = GraphQL.newGraphQL(schemaQL)
+            .instrumentation(new ChainedInstrumentation(java.util.List.of(cost, new GraphQLTracing())))
+            .build();
 
         query.instrumentSchema(schemaAccess);
 
-        return new GraphQLHandler(graphQL);
+        String digest = Http.etag(new SchemaPrinter().print(schemaQL).getBytes(StandardCharsets.UTF_8));
+        return new GraphQLHandler(graphQL, query::buildDataLoaders, digest);
     }
 
     static GraphQLSchema buildSchema(GraphQLQuery query, GraphQLMutation mutation) {
         GraphQLCodeRegistry.Builder code = GraphQLCodeRegistry.newCodeRegistry();
         query.buildAllFetchers().forEach(t -> code.dataFetcher(t._1, t._2));
         mutation.buildAllFetchers().forEach(t -> code.dataFetcher(t._1, t._2));
+        code.typeResolver(GraphQLQuery.NODE_TYPE, query.buildNodeTypeResolver());
 
         return GraphQLSchema.newSchema()
             .query(query.buildQueryType())
@@ -112,8 +160,62 @@ public class GraphQLHandler implements HttpHandler {
     }
 
     void execute(HttpExchange exchange, Input input) {
-        ExecutionResult result = graphQL.execute(input.buildExecutionInput());
+        if (null != input.operationName && null != Http.ORIGIN.get()) {
+            Http.ORIGIN.set(Http.ORIGIN.get() + " " + input.operationName);
+        }
+
+        // Introspection result only changes with the schema, so it is answered before being executed again.
+        // Conditional POST that matches has to fail with 412 instead of 304, so only GET is validated
+        if ("GET".equalsIgnoreCase(exchange.getRequestMethod())
+                && isIntrospection(input)
+                && Java.soft(() -> Http.notModified(exchange, introspectionETag(input)))) {
+            return;
+        }
+
+        ExecutionResult result = graphQL.execute(input.buildExecutionInput(dataLoaders.get()));
+        rethrowUnavailable(result);
         Http.json(exchange, result.toSpecification());
     }
 
+    String introspectionETag(Input input) {
+        String request = schemaDigest + "\n" + input.query + "\n" + input.operationName + "\n" + input.variables;
+        return Http.etag(request.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static boolean isIntrospection(Input input) {
+        if (null == input.query || !(input.query.contains("__schema") || input.query.contains("__type"))) {
+            return false;
+        }
+
+        Document document;
+        try {
+            document = new Parser().parseDocument(input.query);
+        } catch (RuntimeException ex) {
+            return false;
+        }
+
+        List<OperationDefinition> operations = List.ofAll(document.getDefinitionsOfType(OperationDefinition.class));
+        Option<OperationDefinition> operation = Java.isEmpty(input.operationName)
+                ? operations.singleOption()
+                : operations.find(o -> input.operationName.equals(o.getName()));
+        return operation
+            .filter(o -> OperationDefinition.Operation.QUERY == o.getOperation())
+            .map(o -> List.ofAll(o.getSelectionSet().getSelections())
+                .forAll(f -> f instanceof Field && ((Field) f).getName().startsWith(INTROSPECTION_PREFIX)))
+            .getOrElse(false);
+    }
+
+    static void rethrowUnavailable(ExecutionResult result) {
+        // Shed load and exceeded deadline have to reach the client as HTTP status, rather than as partial data
+        Option<Http.Error> unavailable = List.ofAll(result.getErrors())
+            .filter(e -> e instanceof ExceptionWhileDataFetching)
+            .map(e -> ((ExceptionWhileDataFetching) e).getException())
+            .filter(e -> e instanceof Http.Error)
+            .map(e -> (Http.Error) e)
+            .find(e -> Http.ErrorCode.SERVICE_UNAVAILABLE == e.errorCode || Http.ErrorCode.GATEWAY_TIMEOUT == e.errorCode);
+        if (unavailable.isDefined()) {
+            throw unavailable.get();
+        }
+    }
+
 }
@@ -3,12 +3,19 @@ package org.statemach.db.graphql;
 import org.statemach.db.jdbc.Extract;
 import org.statemach.db.jdbc.Inject;
 import org.statemach.db.jdbc.Injector;
+import org.statemach.db.jdbc.Workload;
 import org.statemach.db.schema.ColumnInfo;
+import org.statemach.db.schema.ForeignKey;
 import org.statemach.db.schema.PrimaryKey;
 import org.statemach.db.schema.Schema;
 import org.statemach.db.schema.TableInfo;
 import org.statemach.db.sql.DataAccess;
+import org.statemach.db.sql.Condition;
+import org.statemach.db.sql.Insert;
+import org.statemach.db.sql.View;
+import org.statemach.util.Http;
 
+import graphql.Scalars;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.DataFetchingFieldSelectionSet;
@@ -17,6 +24,8 @@ import graphql.schema.GraphQLArgument;
 import graphql.schema.GraphQLFieldDefinition;
 import graphql.schema.GraphQLInputObjectField;
 import graphql.schema.GraphQLInputObjectType;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNonNull;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLType;
 import graphql.schema.SelectedField;
@@ -29,20 +38,31 @@ import io.vavr.control.Option;
 public class GraphQLMutation {
     static final String MUTATION_TYPE = "MutationType";
 
+    static interface Argument {
+        static final String FILTER = GraphQLQuery.Argument.FILTER;
+        static final String MAX    = "max";
+    }
+
     final Schema         schema;
     final GraphQLNaming  naming;
     final GraphQLMapping mapping;
     final DataAccess     dataAccess;
+    final GraphQLQuery   query;
 
-    GraphQLMutation(Schema schema, GraphQLNaming naming, GraphQLMapping mapping, DataAccess dataAccess) {
+    GraphQLMutation(Schema schema, GraphQLNaming naming, GraphQLMapping mapping, DataAccess dataAccess, GraphQLQuery query) {
         this.schema = schema;
         this.naming = naming;
         this.mapping = mapping;
         this.dataAccess = dataAccess;
+        this.query = query;
     }
 
     public static GraphQLMutation of(Schema schema, GraphQLNaming naming, DataAccess dataAccess) {
-        return new GraphQLMutation(schema, naming, GraphQLMapping.of(schema.vendor), dataAccess);
+        return of(schema, naming, dataAccess, GraphQLQuery.of(schema, naming, dataAccess));
+    }
+
+    public static GraphQLMutation of(Schema schema, GraphQLNaming naming, DataAccess dataAccess, GraphQLQuery query) {
+        return new GraphQLMutation(schema, naming, GraphQLMapping.of(schema.vendor), dataAccess, query);
     }
 
     public GraphQLObjectType buildMutationType() {
@@ -72,13 +92,17 @@ public class GraphQLMutation {
     public List<Tuple2<FieldCoordinates, DataFetcher<?>>> buildFetchers(TableInfo table) {
         return List.of(
                 new Tuple2<>(FieldCoordinates.coordinates(MUTATION_TYPE, naming.getInsertMutationName(table.name)),
-                        (DataFetcher<?>) (e -> fetchInsert(table, e))),
+                        (DataFetcher<?>) (e -> Workload.with(Workload.MUTATION, () -> fetchInsert(table, e)))),
                 new Tuple2<>(FieldCoordinates.coordinates(MUTATION_TYPE, naming.getUpsertMutationName(table.name)),
-                        (DataFetcher<?>) (e -> fetchUpsert(table, e))),
+                        (DataFetcher<?>) (e -> Workload.with(Workload.MUTATION, () -> fetchUpsert(table, e)))),
                 new Tuple2<>(FieldCoordinates.coordinates(MUTATION_TYPE, naming.getUpdateMutationName(table.name)),
-                        (DataFetcher<?>) (e -> fetchUpdate(table, e))),
+                        (DataFetcher<?>) (e -> Workload.with(Workload.MUTATION, () -> fetchUpdate(table, e)))),
                 new Tuple2<>(FieldCoordinates.coordinates(MUTATION_TYPE, naming.getDeleteMutationName(table.name)),
-                        (DataFetcher<?>) (e -> fetchDelete(table, e))));
+                        (DataFetcher<?>) (e -> Workload.with(Workload.MUTATION, () -> fetchDelete(table, e)))),
+                new Tuple2<>(FieldCoordinates.coordinates(MUTATION_TYPE, naming.getUpdateWhereMutationName(table.name)),
+                        (DataFetcher<?>) (e -> Workload.with(Workload.MUTATION, () -> fetchUpdateWhere(table, e)))),
+                new Tuple2<>(FieldCoordinates.coordinates(MUTATION_TYPE, naming.getDeleteWhereMutationName(table.name)),
+                        (DataFetcher<?>) (e -> Workload.with(Workload.MUTATION, () -> fetchDeleteWhere(table, e)))));
     }
 
     List<GraphQLFieldDefinition> buildMutationFields(TableInfo table) {
@@ -86,7 +110,9 @@ public class GraphQLMutation {
                 buildInsertMutation(table),
                 buildUpsertMutation(table),
                 buildUpdateMutation(table),
-                buildDeleteMutation(table));
+                buildDeleteMutation(table),
+                buildUpdateWhereMutation(table),
+                buildDeleteWhereMutation(table));
     }
 
     GraphQLFieldDefinition buildInsertMutation(TableInfo table) {
@@ -130,6 +156,37 @@ public class GraphQLMutation {
             .build();
     }
 
+    GraphQLFieldDefinition buildUpdateWhereMutation(TableInfo table) {
+        return GraphQLFieldDefinition.newFieldDefinition()
+            .name(naming.getUpdateWhereMutationName(table.name))
+            .type(GraphQLList.list(naming.getMutateTypeRef(table.name)))
+            .arguments(buildFilterArguments(table))
+            .argument(GraphQLArgument.newArgument()
+                .name(table.name)
+                .type(naming.getUpdateTypeRef(table.name)))
+            .build();
+    }
+
+    GraphQLFieldDefinition buildDeleteWhereMutation(TableInfo table) {
+        return GraphQLFieldDefinition.newFieldDefinition()
+            .name(naming.getDeleteWhereMutationName(table.name))
+            .type(GraphQLList.list(naming.getMutateTypeRef(table.name)))
+            .arguments(buildFilterArguments(table))
+            .build();
+    }
+
+    java.util.List<GraphQLArgument> buildFilterArguments(TableInfo table) {
+        return java.util.List.of(
+                GraphQLArgument.newArgument()
+                    .name(Argument.FILTER)
+                    .type(GraphQLNonNull.nonNull(naming.getFilterTypeRef(table.name)))
+                    .build(),
+                GraphQLArgument.newArgument()
+                    .name(Argument.MAX)
+                    .type(GraphQLNonNull.nonNull(Scalars.GraphQLInt))
+                    .build());
+    }
+
     java.util.List<GraphQLArgument> buildPrimaryKeyArguments(TableInfo table) {
         return table.primary.get().columns
             .map(n -> table.columns.get(n).get())
@@ -175,6 +232,24 @@ public class GraphQLMutation {
                 .filter(this::isInsertableColumn)
                 .map(c -> buildMutableField(table, c))
                 .toJavaList())
+            .fields(getNestedKeys(table)
+                .map(this::buildNestedField)
+                .toJavaList())
+            .build();
+    }
+
+    List<ForeignKey> getNestedKeys(TableInfo table) {
+        // Child rows can be inserted together with their parent, only when there is an insert type for them
+        return table.incoming.values()
+            .filter(f -> schema.tables.get(f.fromTable).exists(t -> t.primary.isDefined()))
+            .toList()
+            .sortBy(f -> f.name);
+    }
+
+    GraphQLInputObjectField buildNestedField(ForeignKey foreignKey) {
+        return GraphQLInputObjectField.newInputObjectField()
+            .name(naming.getReverseName(foreignKey.name))
+            .type(GraphQLList.list(naming.getInsertTypeRef(foreignKey.fromTable)))
             .build();
     }
 
@@ -204,9 +279,9 @@ public class GraphQLMutation {
     }
 
     java.util.Map<String, Object> fetchInsert(TableInfo table, DataFetchingEnvironment environment) throws Exception {
-        Map<String, Inject> entity = getEntity(table, environment);
+        Insert insert = getInsert(table, environment.getArgument(table.name));
 
-        return dataAccess.insert(table.name, entity, returnFields(table, environment)).toJavaMap();
+        return dataAccess.insert(insert, returnFields(table, environment)).toJavaMap();
     }
 
     java.util.Map<String, Object> fetchUpsert(TableInfo table, DataFetchingEnvironment environment) throws Exception {
@@ -228,6 +303,46 @@ public class GraphQLMutation {
         return dataAccess.delete(table.name, pk, returnFields(table, environment)).get().toJavaMap();
     }
 
+    java.util.List<java.util.Map<String, Object>> fetchUpdateWhere(TableInfo table,
+                                                                   DataFetchingEnvironment environment) throws Exception {
+        View<String>        keys   = filterKeys(table, environment);
+        Map<String, Inject> entity = getEntity(table, environment);
+
+        return dataAccess.updateWhere(table.name, keys, environment.getArgument(Argument.MAX), entity, returnFields(table, environment))
+            .map(Map::toJavaMap)
+            .toJavaList();
+    }
+
+    java.util.List<java.util.Map<String, Object>> fetchDeleteWhere(TableInfo table,
+                                                                   DataFetchingEnvironment environment) throws Exception {
+        View<String> keys = filterKeys(table, environment);
+
+        return dataAccess.deleteWhere(table.name, keys, environment.getArgument(Argument.MAX), returnFields(table, environment))
+            .map(Map::toJavaMap)
+            .toJavaList();
+    }
+
+    View<String> filterKeys(TableInfo table, DataFetchingEnvironment environment) {
+        Integer max = environment.getArgument(Argument.MAX);
+        if (max < 1 || DataAccess.MAX_CHANGED_ROWS < max) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Argument ${0} should be from 1 to ${1}, got ${2}",
+                    Argument.MAX,
+                    DataAccess.MAX_CHANGED_ROWS,
+                    max);
+        }
+
+        // Empty filter matches every row, so it is never taken as a bulk change
+        View<String> keys = query.buildFilterView(table, environment.getArgument(Argument.FILTER));
+        if (Condition.NONE == keys.where) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Argument ${0} should have at least one condition to change rows of ${1} table",
+                    Argument.FILTER,
+                    table.name);
+        }
+        return keys;
+    }
+
     Map<String, Inject> primaryKey(TableInfo table, DataFetchingEnvironment environment) {
         return table.primary.get().columns.map(c -> columnInject(table, c, environment)).toMap(t -> t);
     }
@@ -243,6 +358,20 @@ public class GraphQLMutation {
             .toLinkedMap(t -> t);
     }
 
+    @SuppressWarnings("unchecked")
+    Insert getInsert(TableInfo table, java.util.Map<String, Object> entity) {
+        Map<String, Object> fields = HashMap.ofAll(entity);
+        return new Insert(table.name,
+                fields.filterKeys(table.columns::containsKey)
+                    .flatMap(t -> getInject(table, t._1, t._2))
+                    .toLinkedMap(t -> t),
+                getNestedKeys(table).flatMap(f -> fields.get(naming.getReverseName(f.name))
+                    .flatMap(Option::of)
+                    .map(l -> List.ofAll((java.util.List<java.util.Map<String, Object>>) l))
+                    .getOrElse(List.empty())
+                    .map(c -> new Tuple2<>(f, getInsert(schema.tables.get(f.fromTable).get(), c)))));
+    }
+
     Option<Tuple2<String, Inject>> getInject(TableInfo table, String columnName, Object value) {
         ColumnInfo       column   = table.columns.get(columnName).get();
         Injector<Object> injector = column.type.injectJsonValue;
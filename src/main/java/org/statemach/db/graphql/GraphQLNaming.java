@@ -20,6 +20,7 @@ public class GraphQLNaming {
         static final String UPDATE = "_update";
         static final String DELETE = "_delete";
         static final String MUTATE = "_mutate";
+        static final String WHERE  = "_where";
 
         static final String REVERSE = "_reverse";
 
@@ -92,6 +93,14 @@ public class GraphQLNaming {
         return Prefix.DELETE + tableName;
     }
 
+    public String getUpdateWhereMutationName(String tableName) {
+        return Prefix.UPDATE + tableName + Suffix.WHERE;
+    }
+
+    public String getDeleteWhereMutationName(String tableName) {
+        return Prefix.DELETE + tableName + Suffix.WHERE;
+    }
+
     public String getReverseName(String foreignKeyName) {
         return foreignKeyName + Suffix.REVERSE;
     }
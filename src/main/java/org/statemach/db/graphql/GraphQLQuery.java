@@ -1,6 +1,14 @@
 package org.statemach.db.graphql;
 
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderRegistry;
+import org.statemach.db.advisor.AccessPatterns;
 import org.statemach.db.jdbc.Extract;
+import org.statemach.db.jdbc.Workload;
 import org.statemach.db.schema.ColumnInfo;
 import org.statemach.db.schema.CompositeType;
 import org.statemach.db.schema.DataType;
@@ -8,6 +16,7 @@ import org.statemach.db.schema.ForeignKey;
 import org.statemach.db.schema.PrimaryKey;
 import org.statemach.db.schema.Schema;
 import org.statemach.db.schema.TableInfo;
+import org.statemach.db.sql.Condition;
 import org.statemach.db.sql.DataAccess;
 import org.statemach.db.sql.From;
 import org.statemach.db.sql.Join;
@@ -16,14 +25,26 @@ import org.statemach.db.sql.SchemaAccess;
 import org.statemach.db.sql.Select;
 import org.statemach.db.sql.TableLike;
 import org.statemach.db.sql.View;
+import org.statemach.util.Deadline;
+import org.statemach.util.Http;
 import org.statemach.util.Java;
 import org.statemach.util.NodeLinkTree;
+import org.statemach.util.Span;
+import org.statemach.util.Tracer;
 
+import graphql.Scalars;
 import graphql.schema.DataFetcher;
 import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLArgument;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNonNull;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeReference;
+import graphql.schema.TypeResolver;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
@@ -37,13 +58,47 @@ public class GraphQLQuery {
         static final String LIMIT  = "limit";
         static final String ORDER  = "order";
         static final String SKIP   = "skip";
+        static final String ID     = "id";
+        static final String IDS    = "ids";
     }
 
+    static class NodeKey {
+        final NodeId                        id;
+        final String                        shape;
+        final DataFetchingFieldSelectionSet selection;
+
+        NodeKey(NodeId id, String shape, DataFetchingFieldSelectionSet selection) {
+            this.id = id;
+            this.shape = shape;
+            this.selection = selection;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, shape);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return Java.equalsByFields(this, other, t -> t.id, t -> t.shape);
+        }
+    }
+
+    static final Integer DEFAULT_LIMIT = 10;
+
     static final String QUERY_TYPE     = "QueryType";
     static final String ID_COLUMN_NAME = "id";
 
     static final String CTE_FILTER_NAME = "filter";
 
+    static final String NODE_TYPE   = "Node";
+    static final String NODE_ID     = "nodeId";
+    static final String NODE        = "node";
+    static final String NODES       = "nodes";
+    static final String NODE_LOADER = "node";
+    static final String NODE_TABLE  = "__node_table";
+    static final int    NODES_LIMIT = 100;
+
     final Schema              schema;
     final DataAccess          dataAccess;
     final SQLBuilder          sqlBuilder;
@@ -51,6 +106,8 @@ public class GraphQLQuery {
     final GraphQLQueryExtract extract;
     final GraphQLQueryFilter  filter;
     final GraphQLQueryOrder   order;
+    final GraphQLQueryRewrite rewrite;
+    final AccessPatterns      patterns;
 
     GraphQLQuery(Schema schema,
                  DataAccess dataAccess,
@@ -58,7 +115,9 @@ public class GraphQLQuery {
                  GraphQLNaming naming,
                  GraphQLQueryExtract extract,
                  GraphQLQueryFilter filter,
-                 GraphQLQueryOrder order) {
+                 GraphQLQueryOrder order,
+                 GraphQLQueryRewrite rewrite,
+                 AccessPatterns patterns) {
         this.schema = schema;
         this.dataAccess = dataAccess;
         this.sqlBuilder = sqlBuilder;
@@ -66,9 +125,15 @@ public class GraphQLQuery {
         this.extract = extract;
         this.filter = filter;
         this.order = order;
+        this.rewrite = rewrite;
+        this.patterns = patterns;
     }
 
     public static GraphQLQuery of(Schema schema, GraphQLNaming naming, DataAccess dataAccess) {
+        return of(schema, naming, dataAccess, AccessPatterns.DISABLED);
+    }
+
+    public static GraphQLQuery of(Schema schema, GraphQLNaming naming, DataAccess dataAccess, AccessPatterns patterns) {
         GraphQLMapping mapping = GraphQLMapping.of(schema.vendor);
 
         return new GraphQLQuery(schema,
@@ -77,7 +142,9 @@ public class GraphQLQuery {
                 naming,
                 new GraphQLQueryExtract(schema, naming, mapping),
                 new GraphQLQueryFilter(schema, dataAccess.builder(), naming, mapping),
-                new GraphQLQueryOrder(schema, naming));
+                new GraphQLQueryOrder(schema, naming),
+                new GraphQLQueryRewrite(schema, naming),
+                patterns);
     }
 
     public void instrumentSchema(SchemaAccess schemaAccess) {
@@ -118,17 +185,54 @@ public class GraphQLQuery {
             .fields(schema.tables.keySet()
                 .map(t -> extract.buildQueryField(t, t))
                 .toJavaList())
+            .field(GraphQLFieldDefinition.newFieldDefinition()
+                .name(NODE)
+                .type(GraphQLTypeReference.typeRef(NODE_TYPE))
+                .argument(GraphQLArgument.newArgument()
+                    .name(Argument.ID)
+                    .type(GraphQLNonNull.nonNull(Scalars.GraphQLID))))
+            .field(GraphQLFieldDefinition.newFieldDefinition()
+                .name(NODES)
+                .type(GraphQLNonNull.nonNull(GraphQLList.list(GraphQLTypeReference.typeRef(NODE_TYPE))))
+                .argument(GraphQLArgument.newArgument()
+                    .name(Argument.IDS)
+                    .type(GraphQLNonNull.nonNull(GraphQLList.list(GraphQLNonNull.nonNull(Scalars.GraphQLID))))))
             .build();
     }
 
     public List<GraphQLType> buildAddtionalTypes() {
         return extract.buildAllTypes()
+            .append(extract.buildNodeType())
             .appendAll(filter.buildAllTypes())
             .appendAll(order.buildAllTypes());
     }
 
     public List<Tuple2<FieldCoordinates, DataFetcher<?>>> buildAllFetchers() {
-        return buildQueryFetchers();
+        return buildQueryFetchers()
+            .appendAll(buildNodeFetchers());
+    }
+
+    List<Tuple2<FieldCoordinates, DataFetcher<?>>> buildNodeFetchers() {
+        return schema.tables.values()
+            .filter(t -> t.primary.isDefined())
+            .map(t -> new Tuple2<FieldCoordinates, DataFetcher<?>>(
+                    FieldCoordinates.coordinates(naming.getExtractTypeName(t.name), NODE_ID),
+                    e -> NodeId.of(t, e.getSource()).encode()))
+            .toList()
+            .append(new Tuple2<>(FieldCoordinates.coordinates(QUERY_TYPE, NODE), this::fetchNode))
+            .append(new Tuple2<>(FieldCoordinates.coordinates(QUERY_TYPE, NODES), this::fetchNodes));
+    }
+
+    public TypeResolver buildNodeTypeResolver() {
+        return e -> {
+            java.util.Map<String, Object> row = e.getObject();
+            return e.getSchema().getObjectType(naming.getExtractTypeName((String) row.get(NODE_TABLE)));
+        };
+    }
+
+    public DataLoaderRegistry buildDataLoaders() {
+        // Loader lives for one request, so its cache never serves a row changed by another request
+        return new DataLoaderRegistry().register(NODE_LOADER, DataLoader.newDataLoader(this::loadNodes));
     }
 
     List<Tuple2<FieldCoordinates, DataFetcher<?>>> buildQueryFetchers() {
@@ -144,11 +248,113 @@ public class GraphQLQuery {
     }
 
     Object fetchQuery(TableInfo table, DataFetchingEnvironment environment) throws Exception {
-        return fetchQueryCommon(GraphQLField.of(environment), table, Option.none(), Option.none())
-            .toJavaList();
+        // Sub-queries run on the same thread, so they stay in the lane of the top level query
+        GraphQLField field = GraphQLField.of(environment);
+        Integer      limit = Java.ifNull((Integer) field.getArgument(Argument.LIMIT), DEFAULT_LIMIT);
+        return Workload.with(Workload.query(limit),
+                () -> fetchQueryCommon(field, table, Option.none(), Option.none()).toJavaList());
+    }
+
+    Object fetchNode(DataFetchingEnvironment environment) {
+        NodeId id = NodeId.decode(schema, environment.getArgument(Argument.ID));
+        return environment.<NodeKey, Object>getDataLoader(NODE_LOADER)
+            .load(new NodeKey(id, nodeShape(id, environment.getSelectionSet()), environment.getSelectionSet()));
+    }
+
+    Object fetchNodes(DataFetchingEnvironment environment) {
+        List<String> ids = List.ofAll(environment.<java.util.List<String>>getArgument(Argument.IDS));
+        if (NODES_LIMIT < ids.size()) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "No more than ${0} ids can be requested by ${1} at once",
+                    NODES_LIMIT,
+                    NODES);
+        }
+
+        List<NodeKey> keys = ids
+            .map(i -> NodeId.decode(schema, i))
+            .map(i -> new NodeKey(i, nodeShape(i, environment.getSelectionSet()), environment.getSelectionSet()));
+        return environment.<NodeKey, Object>getDataLoader(NODE_LOADER).loadMany(keys.toJavaList());
+    }
+
+    String nodeShape(NodeId id, DataFetchingFieldSelectionSet selection) {
+        // Nodes of the same table with the same selection are fetched together, wherever they are requested
+        return extract.nodeFields(id.table, selection)
+            .flatMap(f -> List.of(f).appendAll(f.getSelectionSet().getFields()))
+            .map(f -> f.getQualifiedName() + f.getArguments())
+            .mkString(",");
+    }
+
+    CompletionStage<java.util.List<Object>> loadNodes(java.util.List<NodeKey> keys) {
+        try {
+            Map<NodeKey, Object> rows = Workload.with(Workload.LOOKUP, () -> List.ofAll(keys)
+                .groupBy(k -> new Tuple2<>(k.id.table, k.shape))
+                .values()
+                .flatMap(this::fetchNodeGroup)
+                .toMap(t -> t));
+            return CompletableFuture.completedFuture(List.ofAll(keys).map(k -> rows.get(k).getOrNull()).toJavaList());
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    List<Tuple2<NodeKey, Object>> fetchNodeGroup(List<NodeKey> keys) {
+        try (Span span = Tracer.start("graphql.node")) {
+            TableInfo table = schema.tables.get(keys.head().id.table).get();
+            span.attribute("db.table", table.name);
+
+            ExtractPortion     selects = extract.parseNode(table, keys.head().selection);
+            List<ExtractValue> values  = rewrite.rewriteExtracts(table, selects.values);
+            List<List<String>> ids     = keys.map(k -> k.id.key).distinct();
+
+            NodeLinkTree<String, TableInfo, ForeignKeyJoin> preparedJoins = extract.buildJoins(NodeLinkTree.of(table), values);
+            View<Tuple2<String, Extract<?>>>                view          = buildExtractView(preparedJoins,
+                    Option.none(),
+                    Option.none(),
+                    values,
+                    List.empty(),
+                    List.empty(),
+                    new Tuple2<>(0L, ids.size()));
+            View<Tuple2<String, Extract<?>>>                byIds         = new View<>(view.name,
+                    view.joins,
+                    buildNodeCondition(view.joins.getNode().alias, table, ids),
+                    view.order,
+                    view.select,
+                    view.distinct,
+                    view.skip,
+                    view.limit);
+
+            List<java.util.Map<String, Object>>         rows   = shape(dataAccess.query(List.empty(), byIds), selects);
+            Map<NodeId, java.util.Map<String, Object>> byNode = rows
+                .toMap(r -> new Tuple2<>(NodeId.of(table, r), r));
+            return keys.map(k -> new Tuple2<>(k, byNode.get(k.id).map(r -> withNodeTable(r, table)).getOrNull()));
+        }
+    }
+
+    Condition buildNodeCondition(String alias, TableInfo table, List<List<String>> ids) {
+        List<ColumnInfo> pk = table.primary.get().columns.map(c -> table.columns.get(c).get());
+        if (1 == pk.size()) {
+            ColumnInfo column = pk.head();
+            return sqlBuilder.inStringArray(Select.of(alias, column.name), column.type, ids.map(List::head));
+        }
+        return sqlBuilder.or(ids.map(id -> sqlBuilder.and(pk.zip(id)
+            .map(t -> sqlBuilder.equal(Select.of(alias, t._1.name), t._1.type.injectStringValue.prepare(t._2))))));
+    }
+
+    static Object withNodeTable(java.util.Map<String, Object> row, TableInfo table) {
+        row.put(NODE_TABLE, table.name);
+        return row;
     }
 
     List<Map<String, Object>> fetchSubQuery(List<Map<String, Object>> result, SubQuery q) {
+        // Remaining sub-queries are dropped as soon as the request runs out of time
+        Deadline.current().check();
+        try (Span span = Tracer.start("graphql.subquery")) {
+            span.attribute("graphql.field", q.name).attribute("db.table", q.table.name);
+            return runSubQuery(result, q);
+        }
+    }
+
+    List<Map<String, Object>> runSubQuery(List<Map<String, Object>> result, SubQuery q) {
         List<String>                 parent                = q.path.dropRight(1);
         List<Tuple2<String, String>> toColumnAndResultName = q.incoming.matchingColumns
             .map(m -> new Tuple2<>(m.to, ExtractValue.nameOf(parent.append(m.to))));
@@ -176,16 +382,41 @@ public class GraphQLQuery {
                                                          TableInfo table,
                                                          Option<List<String>> extraColumn,
                                                          Option<Tuple2<ForeignKey, Set<Map<String, Object>>>> foreignKeyWithIds) {
-        ExtractPortion selects = extract.parse(table, field.getSelectionSet(), extraColumn);
-        List<Filter>   filters = filter.parse(table, field.getArgument(Argument.FILTER));
+        try (Span span = Tracer.start("graphql.fetch")) {
+            GraphQLFetchEvent event = new GraphQLFetchEvent();
+            event.begin();
+            span.attribute("db.table", table.name);
+            List<java.util.Map<String, Object>> result = runQueryCommon(field, table, extraColumn, foreignKeyWithIds);
+            if (event.shouldCommit()) {
+                event.table = table.name;
+                event.subQuery = foreignKeyWithIds.isDefined();
+                event.rows = result.size();
+                event.commit();
+            }
+            return result;
+        }
+    }
+
+    List<java.util.Map<String, Object>> runQueryCommon(GraphQLField field,
+                                                       TableInfo table,
+                                                       Option<List<String>> extraColumn,
+                                                       Option<Tuple2<ForeignKey, Set<Map<String, Object>>>> foreignKeyWithIds) {
+        ExtractPortion     selects = extract.parse(table, field.getSelectionSet(), extraColumn);
+        List<ExtractValue> values  = rewrite.rewriteExtracts(table, selects.values);
+        List<Filter>       filters = rewrite.rewriteFilters(table, filter.parse(table, field.getArgument(Argument.FILTER)));
 
-        List<OrderBy>         orders    = order.parse(table, field.getArgument(Argument.ORDER));
+        List<OrderBy>         orders    = rewrite.rewriteOrders(table, order.parse(table, field.getArgument(Argument.ORDER)));
         Integer               skip      = Java.ifNull((Integer) field.getArgument(Argument.SKIP), 0);
-        Integer               limit     = Java.ifNull((Integer) field.getArgument(Argument.LIMIT), 10);
+        Integer               limit     = Java.ifNull((Integer) field.getArgument(Argument.LIMIT), DEFAULT_LIMIT);
         Tuple2<Long, Integer> skipLimit = new Tuple2<>(skip.longValue(), limit);
 
         Option<View<String>> cte = Option.none();
 
+        List<String>                  filterColumns = getFilterColumns(filters, foreignKeyWithIds);
+        List<Tuple2<String, Boolean>> orderColumns  = orders
+            .filter(o -> 1 == o.path.size())
+            .map(o -> new Tuple2<>(o.path.head(), o.assending));
+
         NodeLinkTree<String, TableInfo, ForeignKeyJoin> preparedJoins = filter.buildJoins(table, filters);
         List<View<String>>                              views         = List.empty();
         if (filters.exists(f -> f.plural)) {
@@ -197,44 +428,37 @@ public class GraphQLQuery {
         }
 
         preparedJoins = order.buildJoins(preparedJoins, orders);
-        preparedJoins = extract.buildJoins(preparedJoins, selects.values);
+        preparedJoins = extract.buildJoins(preparedJoins, values);
         View<Tuple2<String, Extract<?>>> extractView = buildExtractView(preparedJoins,
                 cte,
                 foreignKeyWithIds,
-                selects.values,
+                values,
                 filters,
                 orders,
                 skipLimit);
 
+        long                      start     = System.nanoTime();
         List<Map<String, Object>> subResult = dataAccess.query(views, extractView);
-        subResult = selects.queries.foldLeft(subResult, this::fetchSubQuery);
+        patterns.record(table.name, filterColumns, orderColumns, System.nanoTime() - start);
+        return shape(subResult, selects);
+    }
+
+    List<java.util.Map<String, Object>> shape(List<Map<String, Object>> result, ExtractPortion selects) {
+        result = selects.queries.foldLeft(result, this::fetchSubQuery);
 
         Map<String, List<String>> paths = selects.values.toMap(e -> new Tuple2<>(e.name, e.path))
             .merge(selects.queries.toMap(q -> new Tuple2<>(q.name, q.path)));
-        return subResult.map(r -> buildGraphQLResult(r, paths, selects.keys));
+        GraphQLResultShaper shaper = GraphQLResultShaper.of(paths, selects.keys);
+        return result.map(shaper::apply);
     }
 
-    java.util.Map<String, Object> buildGraphQLResult(Map<String, Object> row,
-                                                     Map<String, List<String>> paths,
-                                                     List<ForeignKeyPath> keysPaths) {
-        List<List<String>> nullPaths = keysPaths
-            // If all keys for the path are null, we should drop path the result tree
-            .filter(f -> f.extracts.find(e -> null != row.get(e.name).getOrNull()).isEmpty())
-            .map(f -> f.path);
-
-        List<List<String>> topNullPaths = nullPaths
-            // Remove longer paths if shorter is present
-            .filter(n -> nullPaths.find(p -> n != p && n.startsWith(p)).isEmpty());
-
-        java.util.Map<String, Object> result = new java.util.HashMap<>();
-
-        paths
-            // Filter paths that not starts with any of Top Null Path
-            .filter(t -> topNullPaths.find(n -> t._2.startsWith(n)).isEmpty())
-            .forEach(t -> putIntoMapTree(result, t._2, row.get(t._1).getOrNull()));
-
-        topNullPaths.forEach(p -> putIntoMapTree(result, p, null));
-        return result;
+    List<String> getFilterColumns(List<Filter> filters,
+                                  Option<Tuple2<ForeignKey, Set<Map<String, Object>>>> foreignKeyWithIds) {
+        // Only columns of the queried table count, joined tables are looked up by their own keys
+        return filters
+            .filter(f -> 1 == f.path.size() && Filter.Operator.TEXT_SEARCH != f.operator)
+            .map(f -> f.path.head())
+            .appendAll(foreignKeyWithIds.map(t -> t._1.matchingColumns.map(m -> m.from)).getOrElse(List.empty()));
     }
 
     Map<String, Object> putSubQueryResult(Map<String, Object> row,
@@ -245,15 +469,6 @@ public class GraphQLQuery {
         return row.put(subQuery.name, list.getOrElse(List.empty()).toJavaList());
     }
 
-    void putIntoMapTree(java.util.Map<String, Object> tree, List<String> path, Object value) {
-        @SuppressWarnings("unchecked")
-        java.util.Map<String, Object> last = path
-            .dropRight(1)
-            .foldLeft(tree, (t, s) -> (java.util.Map<String, Object>) (t.computeIfAbsent(s, n -> new java.util.HashMap<>())));
-
-        last.put(path.last(), value);
-    }
-
     View<Tuple2<String, Extract<?>>> buildExtractView(NodeLinkTree<String, TableInfo, ForeignKeyJoin> preparedJoins,
                                                       Option<View<String>> cte,
                                                       Option<Tuple2<ForeignKey, Set<Map<String, Object>>>> foreignKeyWithIds,
@@ -281,6 +496,11 @@ public class GraphQLQuery {
                 skipLimit._2);
     }
 
+    public View<String> buildFilterView(TableInfo table, Object argument) {
+        List<Filter> filters = rewrite.rewriteFilters(table, filter.parse(table, argument));
+        return buildFilterView(filter.buildJoins(table, filters), filters, Option.none());
+    }
+
     View<String> buildFilterView(NodeLinkTree<String, TableInfo, ForeignKeyJoin> preparedJoins,
                                  List<Filter> filters,
                                  Option<Tuple2<ForeignKey, Set<Map<String, Object>>>> foreignKeyWithIds) {
@@ -0,0 +1,215 @@
+package org.statemach.db.graphql;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import org.statemach.db.schema.Schema;
+import org.statemach.util.Java;
+
+import graphql.ExecutionResult;
+import graphql.ExecutionResultImpl;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.schema.GraphQLNamedType;
+import graphql.schema.GraphQLOutputType;
+import graphql.schema.GraphQLTypeUtil;
+import io.vavr.Tuple2;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+public class GraphQLQueryCost extends SimpleInstrumentation {
+
+    static final Logger LOGGER = Logger.getLogger(GraphQLQueryCost.class.getName());
+
+    static final String EXTENSION = "cost";
+
+    static final ScheduledExecutorService REFRESH = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cost-estimates");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static class Cost implements InstrumentationState {
+        boolean estimated = false;
+        long    rows      = 0;
+        int     queries   = 0;
+        int     depth     = 0;
+
+        java.util.Map<String, Object> toExtension() {
+            return LinkedHashMap.<String, Object>of("rows", rows, "queries", queries, "depth", depth).toJavaMap();
+        }
+    }
+
+    final Map<String, String> tableByType;
+    final long                maxRows;
+    final int                 maxDepth;
+
+    // Tables grow after start, so estimates are replaced by a fresh snapshot from time to time
+    volatile Map<String, Long> rowsByTable;
+
+    GraphQLQueryCost(Map<String, String> tableByType, Map<String, Long> rowsByTable, long maxRows, int maxDepth) {
+        this.tableByType = tableByType;
+        this.rowsByTable = rowsByTable;
+        this.maxRows = maxRows;
+        this.maxDepth = maxDepth;
+    }
+
+    public static GraphQLQueryCost of(Schema schema,
+                                      GraphQLNaming naming,
+                                      Map<String, Long> rowsByTable,
+                                      long maxRows,
+                                      int maxDepth) {
+        return new GraphQLQueryCost(
+                schema.tables.keySet().toMap(t -> new Tuple2<>(naming.getExtractTypeName(t), t)),
+                rowsByTable,
+                maxRows,
+                maxDepth);
+    }
+
+    public GraphQLQueryCost refreshEvery(Supplier<Map<String, Long>> estimates, long refreshMillis) {
+        if (0 < refreshMillis) {
+            REFRESH.scheduleWithFixedDelay(() -> refresh(estimates), refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    void refresh(Supplier<Map<String, Long>> estimates) {
+        try {
+            rowsByTable = estimates.get();
+        } catch (RuntimeException ex) {
+            // Previous snapshot is still a better guess than no estimates at all
+            LOGGER.warning("Table row estimates are not refreshed: " + ex.getMessage());
+        }
+    }
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new Cost();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+        Cost cost = parameters.getInstrumentationState();
+        estimate(cost, parameters.getExecutionContext());
+
+        if (cost.rows > maxRows) {
+            throw new AbortExecutionException(Java.format(
+                    "Query is estimated to read ${0} rows, that is more than allowed ${1}. Please, reduce limits or nesting.",
+                    cost.rows,
+                    maxRows));
+        }
+        if (cost.depth > maxDepth) {
+            throw new AbortExecutionException(Java.format(
+                    "Query depth ${0} is more than allowed ${1}. Please, reduce nesting.",
+                    cost.depth,
+                    maxDepth));
+        }
+        return super.beginExecuteOperation(parameters);
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult executionResult,
+                                                                        InstrumentationExecutionParameters parameters) {
+        Cost cost = parameters.getInstrumentationState();
+        if (!cost.estimated) {
+            return CompletableFuture.completedFuture(executionResult);
+        }
+
+        return CompletableFuture.completedFuture(ExecutionResultImpl.newExecutionResult()
+            .from(executionResult)
+            .addExtension(EXTENSION, cost.toExtension())
+            .build());
+    }
+
+    void estimate(Cost cost, ExecutionContext context) {
+        QueryTraverser.newQueryTraverser()
+            .schema(context.getGraphQLSchema())
+            .document(context.getDocument())
+            .operationName(context.getOperationDefinition().getName())
+            .variables(context.getVariables())
+            .build()
+            .visitPreOrder(new QueryVisitorStub() {
+                @Override
+                public void visitField(QueryVisitorFieldEnvironment environment) {
+                    estimate(cost, environment);
+                }
+            });
+        cost.estimated = true;
+    }
+
+    void estimate(Cost cost, QueryVisitorFieldEnvironment environment) {
+        if (isNodeLookup(environment)) {
+            // Nodes are read by their ids, so every requested id is a single row
+            cost.depth = Math.max(cost.depth, depth(environment));
+            cost.queries++;
+            cost.rows += nodes(environment);
+            return;
+        }
+
+        GraphQLOutputType type  = environment.getFieldDefinition().getType();
+        Option<String>    table = tableByType.get(((GraphQLNamedType) GraphQLTypeUtil.unwrapAll(type)).getName());
+        if (table.isEmpty()) {
+            return;
+        }
+
+        cost.depth = Math.max(cost.depth, depth(environment));
+        if (GraphQLTypeUtil.isList(GraphQLTypeUtil.unwrapNonNull(type))) {
+            // Every list is fetched by a single query, with limit applied to all rows of the query
+            Integer limit = Java.ifNull((Integer) environment.getArguments().get(GraphQLQuery.Argument.LIMIT),
+                    GraphQLQuery.DEFAULT_LIMIT);
+            cost.queries++;
+            cost.rows += estimateRows(table.get(), limit) * nodes(root(environment));
+        }
+    }
+
+    boolean isNodeLookup(QueryVisitorFieldEnvironment environment) {
+        String name = environment.getFieldDefinition().getName();
+        return null == environment.getParentEnvironment()
+                && (GraphQLQuery.NODE.equals(name) || GraphQLQuery.NODES.equals(name));
+    }
+
+    long nodes(QueryVisitorFieldEnvironment root) {
+        // Lists nested into nodes are estimated for each of the requested nodes
+        if (!isNodeLookup(root) || GraphQLQuery.NODE.equals(root.getFieldDefinition().getName())) {
+            return 1;
+        }
+        java.util.List<?> ids = (java.util.List<?>) root.getArguments().get(GraphQLQuery.Argument.IDS);
+        return null == ids ? 0 : ids.size();
+    }
+
+    long estimateRows(String table, Integer limit) {
+        // Tables that were never analyzed have no estimate, so limit is the best guess
+        long estimate = rowsByTable.get(table).filter(r -> r > 0).getOrElse(limit.longValue());
+        return Math.min(estimate, limit.longValue());
+    }
+
+    QueryVisitorFieldEnvironment root(QueryVisitorFieldEnvironment environment) {
+        QueryVisitorFieldEnvironment root = environment;
+        while (null != root.getParentEnvironment()) {
+            root = root.getParentEnvironment();
+        }
+        return root;
+    }
+
+    int depth(QueryVisitorFieldEnvironment environment) {
+        int depth = 0;
+        for (QueryVisitorFieldEnvironment e = environment; null != e; e = e.getParentEnvironment()) {
+            depth++;
+        }
+        return depth;
+    }
+}
@@ -14,9 +14,12 @@ import graphql.Scalars;
 import graphql.schema.DataFetchingFieldSelectionSet;
 import graphql.schema.GraphQLArgument;
 import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLInterfaceType;
 import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNonNull;
 import graphql.schema.GraphQLObjectType;
 import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeReference;
 import graphql.schema.SelectedField;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
@@ -24,6 +27,8 @@ import io.vavr.control.Option;
 
 public class GraphQLQueryExtract {
 
+    static final String INTROSPECTION_PREFIX = "__";
+
     final Schema         schema;
     final GraphQLNaming  naming;
     final GraphQLMapping mapping;
@@ -41,11 +46,31 @@ public class GraphQLQueryExtract {
     }
 
     GraphQLType buildType(TableInfo table) {
-        return GraphQLObjectType.newObject()
+        GraphQLObjectType.Builder type = GraphQLObjectType.newObject()
             .name(naming.getExtractTypeName(table.name))
             .fields(buildScalarFields(table))
             .fields(buildOutgoingFields(table))
-            .fields(buildIncomingFields(table))
+            .fields(buildIncomingFields(table));
+
+        // Only a row with primary key can be fetched back by its id
+        if (table.primary.isDefined()) {
+            type.withInterface(GraphQLTypeReference.typeRef(GraphQLQuery.NODE_TYPE))
+                .field(buildNodeIdField());
+        }
+        return type.build();
+    }
+
+    public GraphQLInterfaceType buildNodeType() {
+        return GraphQLInterfaceType.newInterface()
+            .name(GraphQLQuery.NODE_TYPE)
+            .field(buildNodeIdField())
+            .build();
+    }
+
+    GraphQLFieldDefinition buildNodeIdField() {
+        return GraphQLFieldDefinition.newFieldDefinition()
+            .name(GraphQLQuery.NODE_ID)
+            .type(GraphQLNonNull.nonNull(Scalars.GraphQLID))
             .build();
     }
 
@@ -126,6 +151,21 @@ public class GraphQLQueryExtract {
         return ExtractPortion.ofValues(columns.map(c -> ExtractValue.of(List.of(c.name), c.type)));
     }
 
+    public List<SelectedField> nodeFields(String tableName, DataFetchingFieldSelectionSet selection) {
+        // Selection of a node holds fields of every fragment, only the ones of this table's type apply
+        String type = naming.getExtractTypeName(tableName);
+        return List.ofAll(selection.getImmediateFields())
+            .filter(f -> type.equals(f.getObjectType().getName()))
+            .filter(f -> !f.getName().startsWith(INTROSPECTION_PREFIX));
+    }
+
+    public ExtractPortion parseNode(TableInfo table, DataFetchingFieldSelectionSet selection) {
+        return nodeFields(table.name, selection)
+            .foldLeft(ExtractPortion.EMPTY, (a, f) -> a.append(parse(List.empty(), table, f)))
+            .append(parseExtraColumn(table, table.primary.map(p -> p.columns)))
+            .distinctValues();
+    }
+
     ExtractPortion parse(List<String> path, TableInfo table, DataFetchingFieldSelectionSet selection) {
         return List.ofAll(selection.getImmediateFields())
             .foldLeft(ExtractPortion.EMPTY, (a, f) -> a.append(parse(path, table, f)));
@@ -135,10 +175,15 @@ public class GraphQLQueryExtract {
         String       name      = field.getName();
         List<String> fieldPath = tablePath.append(name);
 
+        if (GraphQLQuery.NODE_ID.equals(name)) {
+            return ExtractPortion.ofValues(table.primary.get().columns
+                .map(c -> ExtractValue.of(tablePath.append(c), table.columns.get(c).get().type)));
+        }
+
         Option<ForeignKey> outgoing = table.outgoing.get(name);
         if (outgoing.isDefined()) {
             TableInfo join = schema.tables.get(outgoing.get().toTable).get();
-            return outgoingExtract(fieldPath, outgoing.get(), join)
+            return outgoingExtract(fieldPath, outgoing.get(), table, join)
                 .append(parse(fieldPath, join, field.getSelectionSet()));
         }
 
@@ -152,8 +197,11 @@ public class GraphQLQueryExtract {
         return incomingExtract(fieldPath, incoming.get(), table, join, field);
     }
 
-    ExtractPortion outgoingExtract(List<String> path, ForeignKey outgoing, TableInfo to) {
-        return ExtractPortion.ofKey(path, foreignKeyExtracts(path, outgoing, to));
+    ExtractPortion outgoingExtract(List<String> path, ForeignKey outgoing, TableInfo from, TableInfo to) {
+        // Not null foreign key always references existing row, so there is no need to check the path for null
+        return from.isNotNull(outgoing)
+                ? ExtractPortion.ofValues(foreignKeyExtracts(path, outgoing, to))
+                : ExtractPortion.ofKey(path, foreignKeyExtracts(path, outgoing, to));
     }
 
     ExtractPortion incomingExtract(List<String> path,
@@ -172,8 +220,27 @@ public class GraphQLQueryExtract {
 
     public NodeLinkTree<String, TableInfo, ForeignKeyJoin> buildJoins(NodeLinkTree<String, TableInfo, ForeignKeyJoin> tree,
                                                                       List<ExtractValue> extracts) {
-        return extracts.foldLeft(tree,
-                (t, e) -> t.putIfMissed(e.path.dropRight(1), (p, c) -> buildJoin(p, c, Join.Kind.LEFT)));
+        return extracts.foldLeft(tree, (t, e) -> buildPathJoins(t, e.path.dropRight(1)));
+    }
+
+    NodeLinkTree<String, TableInfo, ForeignKeyJoin> buildPathJoins(NodeLinkTree<String, TableInfo, ForeignKeyJoin> tree,
+                                                                   List<String> path) {
+        // Joins are INNER while all foreign keys from the root are not null, LEFT after the first nullable one
+        int notNullSteps = notNullSteps(tree.node, path);
+        return List.range(1, path.size() + 1)
+            .foldLeft(tree, (t, i) -> t.putIfMissed(path.take(i),
+                    (p, c) -> buildJoin(p, c, i <= notNullSteps ? Join.Kind.INNER : Join.Kind.LEFT)));
+    }
+
+    int notNullSteps(TableInfo table, List<String> path) {
+        if (path.isEmpty()) {
+            return 0;
+        }
+
+        ForeignKey outgoing = table.outgoing.get(path.get()).get();
+        return table.isNotNull(outgoing)
+                ? 1 + notNullSteps(schema.tables.get(outgoing.toTable).get(), path.drop(1))
+                : 0;
     }
 
     Tuple2<ForeignKeyJoin, TableInfo> buildJoin(TableInfo parent, String step, Join.Kind join) {
@@ -0,0 +1,74 @@
+package org.statemach.db.graphql;
+
+import org.statemach.db.schema.ForeignKey;
+import org.statemach.db.schema.Schema;
+import org.statemach.db.schema.TableInfo;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+public class GraphQLQueryRewrite {
+
+    final Schema        schema;
+    final GraphQLNaming naming;
+
+    public GraphQLQueryRewrite(Schema schema, GraphQLNaming naming) {
+        this.schema = schema;
+        this.naming = naming;
+    }
+
+    public List<ExtractValue> rewriteExtracts(TableInfo table, List<ExtractValue> extracts) {
+        // Extract name is preserved, so result is still placed by the original path
+        return extracts.map(e -> new ExtractValue(e.name, shortcut(table, e.path, false), e.type));
+    }
+
+    public List<Filter> rewriteFilters(TableInfo table, List<Filter> filters) {
+        // Filter accepting NULL requires the referenced row to exist, so its join is kept to stay INNER
+        return filters.map(f -> f.acceptNull ? f : new Filter(
+                shortcut(table, f.path, true),
+                f.plural,
+                f.dataType,
+                f.acceptNull,
+                f.operator,
+                f.notNullValues));
+    }
+
+    public List<OrderBy> rewriteOrders(TableInfo table, List<OrderBy> orders) {
+        return orders.map(o -> new OrderBy(shortcut(table, o.path, true), o.assending));
+    }
+
+    List<String> shortcut(TableInfo table, List<String> path, boolean singleColumnOnly) {
+        if (path.size() < 2) {
+            return path;
+        }
+
+        // Referenced column of outgoing foreign key is already present in the referencing table,
+        // so path [..., fk, to] can be replaced by [..., from] and join on fk is not needed
+        List<String>       parent   = path.dropRight(2);
+        String             step     = path.get(path.size() - 2);
+        String             column   = path.last();
+        Option<ForeignKey> outgoing = walk(table, parent).flatMap(t -> t.outgoing.get(step));
+        if (outgoing.isEmpty() || (singleColumnOnly && 1 != outgoing.get().matchingColumns.size())) {
+            return path;
+        }
+
+        Option<ForeignKey.Match> match = outgoing.get().matchingColumns.find(m -> m.to.equals(column));
+        return match.isEmpty()
+                ? path
+                : shortcut(table, parent.append(match.get().from), singleColumnOnly);
+    }
+
+    Option<TableInfo> walk(TableInfo table, List<String> path) {
+        if (path.isEmpty()) {
+            return Option.of(table);
+        }
+
+        String             step     = path.get();
+        Option<ForeignKey> outgoing = table.outgoing.get(step);
+        Option<String>     next     = outgoing.isDefined()
+                ? outgoing.map(f -> f.toTable)
+                : table.incoming.values().find(f -> naming.getReverseName(f.name).equals(step)).map(f -> f.fromTable);
+
+        return next.flatMap(schema.tables::get).flatMap(t -> walk(t, path.drop(1)));
+    }
+}
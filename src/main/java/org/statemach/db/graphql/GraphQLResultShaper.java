@@ -0,0 +1,74 @@
+package org.statemach.db.graphql;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+public class GraphQLResultShaper {
+
+    final String[]              valueFields;
+    final String[]              valueNames;
+    final String[]              objectFields;
+    final String[][]            objectKeys;
+    final GraphQLResultShaper[] objects;
+    final int                   capacity;
+
+    GraphQLResultShaper(String[] valueFields,
+                        String[] valueNames,
+                        String[] objectFields,
+                        String[][] objectKeys,
+                        GraphQLResultShaper[] objects) {
+        this.valueFields = valueFields;
+        this.valueNames = valueNames;
+        this.objectFields = objectFields;
+        this.objectKeys = objectKeys;
+        this.objects = objects;
+        this.capacity = (int) ((valueFields.length + objectFields.length) / 0.75f) + 1;
+    }
+
+    public static GraphQLResultShaper of(Map<String, List<String>> paths, List<ForeignKeyPath> keysPaths) {
+        Map<List<String>, List<String>> keysByPath = keysPaths.toMap(k -> new Tuple2<>(k.path, k.extracts.map(e -> e.name)));
+        return of(List.empty(), paths.toList(), keysByPath);
+    }
+
+    static GraphQLResultShaper of(List<String> path,
+                                  List<Tuple2<String, List<String>>> paths,
+                                  Map<List<String>, List<String>> keysByPath) {
+        int depth = path.size();
+
+        List<Tuple2<String, List<String>>> values = paths.filter(t -> t._2.size() == depth + 1);
+        List<Tuple2<String, List<Tuple2<String, List<String>>>>> children = paths
+            .filter(t -> t._2.size() > depth + 1)
+            .groupBy(t -> t._2.get(depth))
+            .toList();
+
+        return new GraphQLResultShaper(
+                values.map(t -> t._2.last()).toJavaArray(String[]::new),
+                values.map(t -> t._1).toJavaArray(String[]::new),
+                children.map(t -> t._1).toJavaArray(String[]::new),
+                children.map(t -> keysByPath.get(path.append(t._1)).getOrElse(List.empty()).toJavaArray(String[]::new))
+                    .toJavaArray(String[][]::new),
+                children.map(t -> of(path.append(t._1), t._2, keysByPath)).toJavaArray(GraphQLResultShaper[]::new));
+    }
+
+    public java.util.Map<String, Object> apply(Map<String, Object> row) {
+        java.util.Map<String, Object> result = new java.util.HashMap<>(capacity);
+        for (int i = 0; i < valueFields.length; i++) {
+            result.put(valueFields[i], row.get(valueNames[i]).getOrNull());
+        }
+        for (int i = 0; i < objectFields.length; i++) {
+            // If any key of the referenced object is null, there is no referenced row
+            result.put(objectFields[i], isPresent(row, objectKeys[i]) ? objects[i].apply(row) : null);
+        }
+        return result;
+    }
+
+    boolean isPresent(Map<String, Object> row, String[] keys) {
+        for (String key : keys) {
+            if (null == row.get(key).getOrNull()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
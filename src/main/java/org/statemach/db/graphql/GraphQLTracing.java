@@ -0,0 +1,46 @@
+package org.statemach.db.graphql;
+
+import org.statemach.util.Span;
+import org.statemach.util.Tracer;
+
+import graphql.ExecutionResult;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+import graphql.language.Document;
+import graphql.validation.ValidationError;
+
+public class GraphQLTracing extends SimpleInstrumentation {
+
+    @Override
+    public InstrumentationContext<Document> beginParse(InstrumentationExecutionParameters parameters) {
+        return whenCompleted(Tracer.start("graphql.parse"));
+    }
+
+    @Override
+    public InstrumentationContext<java.util.List<ValidationError>> beginValidation(InstrumentationValidationParameters parameters) {
+        return whenCompleted(Tracer.start("graphql.validate"));
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters) {
+        Span span = Tracer.start("graphql.execute");
+        span.attribute("graphql.operation.name", parameters.getExecutionContext().getOperationDefinition().getName());
+        return whenCompleted(span);
+    }
+
+    static <T> InstrumentationContext<T> whenCompleted(Span span) {
+        if (!span.isRecording()) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        return SimpleInstrumentationContext.whenCompleted((result, ex) -> {
+            if (null != ex) {
+                span.error(ex);
+            }
+            span.close();
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package org.statemach.db.graphql;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+import org.statemach.db.schema.Schema;
+import org.statemach.db.schema.TableInfo;
+import org.statemach.util.Http;
+import org.statemach.util.Java;
+import org.statemach.util.Json;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+public class NodeId {
+
+    final String       table;
+    final List<String> key;
+
+    NodeId(String table, List<String> key) {
+        this.table = table;
+        this.key = key;
+    }
+
+    public static NodeId of(TableInfo table, java.util.Map<String, Object> row) {
+        return new NodeId(table.name, table.primary.get().columns.map(c -> String.valueOf(row.get(c))));
+    }
+
+    public String encode() {
+        // Table name goes first, so the id alone tells which table to look the row up in
+        String json = Java.soft(() -> Json.MAPPER.writer()
+            .without(SerializationFeature.INDENT_OUTPUT)
+            .writeValueAsString(key.prepend(table).toJavaList()));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static NodeId decode(Schema schema, String id) {
+        List<String> parts;
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(id), StandardCharsets.UTF_8);
+            parts = List.of(Json.MAPPER.readValue(json, String[].class));
+        } catch (Exception ex) {
+            parts = List.empty();
+        }
+
+        Option<TableInfo> table = parts.headOption().flatMap(schema.tables::get);
+        if (table.isEmpty() || table.get().primary.isEmpty() || table.get().primary.get().columns.size() != parts.size() - 1) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST, "Node id '${0}' is not valid", id);
+        }
+        return new NodeId(table.get().name, parts.tail());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(table, key);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return Java.equalsByFields(this, other, t -> t.table, t -> t.key);
+    }
+
+    @Override
+    public String toString() {
+        return "NodeId@{table: " + table +
+                ", key: " + key +
+                "}";
+    }
+}
@@ -0,0 +1,41 @@
+package org.statemach.db.health;
+
+import java.io.IOException;
+
+import org.statemach.db.jdbc.CircuitBreaker;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+public class ReadinessHandler implements HttpHandler {
+
+    public static class Readiness {
+        public final boolean ready;
+        public final String  database;
+
+        Readiness(boolean ready) {
+            this.ready = ready;
+            this.database = ready ? "up" : "down";
+        }
+    }
+
+    final CircuitBreaker breaker;
+
+    public ReadinessHandler(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            throw new Http.Error(Http.ErrorCode.METHOD_NOT_ALLOWED,
+                    "Method ${0} is not supported by readiness endpoint",
+                    exchange.getRequestMethod());
+        }
+
+        // State of the circuit is known without touching the database, so frequent probes cost nothing
+        boolean ready = !breaker.isOpen();
+        Http.json(exchange, ready ? Http.ErrorCode.OK : Http.ErrorCode.SERVICE_UNAVAILABLE, new Readiness(ready));
+    }
+}
@@ -0,0 +1,157 @@
+package org.statemach.db.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.statemach.util.Http;
+import org.statemach.util.SupplierEx;
+
+public class CircuitBreaker {
+
+    static final Logger LOGGER = Logger.getLogger(CircuitBreaker.class.getName());
+
+    // SQL state class 08 is "connection exception", everything else means database is reachable
+    static final String CONNECTION_EXCEPTION = "08";
+
+    static final ScheduledExecutorService PROBE = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "circuit-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static final CircuitBreaker DISABLED = new CircuitBreaker(Integer.MAX_VALUE, 0, 0, () -> true);
+
+    public final int  failureThreshold;
+    public final long probeMillis;
+    public final long retryAfterSeconds;
+
+    final SupplierEx<Boolean, Exception> probe;
+    final LongAdder                      rejected = new LongAdder();
+
+    volatile boolean open = false;
+
+    // Guarded by this
+    int failures = 0;
+
+    CircuitBreaker(int failureThreshold, long probeMillis, long retryAfterSeconds, SupplierEx<Boolean, Exception> probe) {
+        this.failureThreshold = failureThreshold;
+        this.probeMillis = probeMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.probe = probe;
+    }
+
+    public static CircuitBreaker of(int failureThreshold,
+                                    long probeMillis,
+                                    long retryAfterSeconds,
+                                    SupplierEx<Boolean, Exception> probe) {
+        return new CircuitBreaker(Math.max(1, failureThreshold), probeMillis, retryAfterSeconds, probe);
+    }
+
+    public static SupplierEx<Boolean, Exception> ping(DataSource dataSource, int timeoutSeconds) {
+        return () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return connection.isValid(timeoutSeconds);
+            }
+        };
+    }
+
+    public boolean isDisabled() {
+        return Integer.MAX_VALUE == failureThreshold;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public void check() {
+        // While open, requests are answered right away instead of piling up behind connect timeouts
+        if (open) {
+            rejected.increment();
+            throw new Http.Overloaded(retryAfterSeconds,
+                    "Database is unavailable, waiting for it to recover after ${0} connection failures",
+                    failureThreshold);
+        }
+    }
+
+    public void success() {
+        if (isDisabled() || open) {
+            return;
+        }
+
+        synchronized (this) {
+            failures = 0;
+        }
+    }
+
+    public void failure(Throwable ex) {
+        if (isDisabled() || !isConnectionFailure(ex)) {
+            return;
+        }
+
+        synchronized (this) {
+            failures++;
+            if (open || failures < failureThreshold) {
+                return;
+            }
+            open = true;
+        }
+
+        LOGGER.warning("Database circuit is open after " + failureThreshold + " connection failures: " + ex.getMessage());
+        schedule();
+    }
+
+    void schedule() {
+        PROBE.schedule(this::probe, probeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void probe() {
+        boolean healthy;
+        try {
+            healthy = Boolean.TRUE.equals(probe.get());
+        } catch (Exception ex) {
+            healthy = false;
+        }
+
+        if (!healthy) {
+            schedule();
+            return;
+        }
+
+        synchronized (this) {
+            failures = 0;
+            open = false;
+        }
+        LOGGER.info("Database circuit is closed, database is reachable again");
+    }
+
+    static boolean isConnectionFailure(Throwable ex) {
+        return hasSqlState(ex, CONNECTION_EXCEPTION);
+    }
+
+    static boolean hasSqlState(Throwable ex, String stateClass) {
+        for (Throwable cause = ex; null != cause; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                String state = ((SQLException) cause).getSQLState();
+                if (null != state && state.startsWith(stateClass)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,156 @@
+package org.statemach.db.jdbc;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.statemach.util.Http;
+
+public class ConcurrencyLimiter {
+
+    static final double BACKOFF      = 0.9;
+    static final double TOLERANCE    = 2.0;
+    static final int    SHORT_WINDOW = 10;
+    static final int    LONG_WINDOW  = 500;
+
+    public static final ConcurrencyLimiter UNLIMITED = new ConcurrencyLimiter(Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            0,
+            0,
+            0);
+
+    public final int  minLimit;
+    public final int  maxLimit;
+    public final int  queueCapacity;
+    public final long maxWaitNanos;
+    public final long retryAfterSeconds;
+
+    final LongAdder rejected = new LongAdder();
+
+    // Guarded by this
+    double limit;
+    int    inFlight     = 0;
+    int    waiting      = 0;
+    double shortNanos   = 0;
+    double longNanos    = 0;
+    long   lastDecrease = 0;
+
+    ConcurrencyLimiter(int minLimit, int maxLimit, int queueCapacity, long maxWaitNanos, long retryAfterSeconds) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueCapacity = queueCapacity;
+        this.maxWaitNanos = maxWaitNanos;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limit = maxLimit;
+    }
+
+    public static ConcurrencyLimiter of(int minLimit,
+                                        int maxLimit,
+                                        int queueCapacity,
+                                        long maxWaitMillis,
+                                        long retryAfterSeconds) {
+        return new ConcurrencyLimiter(Math.max(1, Math.min(minLimit, maxLimit)),
+                maxLimit,
+                queueCapacity,
+                TimeUnit.MILLISECONDS.toNanos(maxWaitMillis),
+                retryAfterSeconds);
+    }
+
+    public boolean isUnlimited() {
+        return Integer.MAX_VALUE == maxLimit;
+    }
+
+    public void acquire() {
+        if (isUnlimited()) {
+            return;
+        }
+
+        synchronized (this) {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+            // Shedding upfront is cheaper for everyone than a queue, that can't be drained in time
+            if (waiting >= queueCapacity) {
+                throw reject("queue is full");
+            }
+
+            waiting++;
+            try {
+                long deadline = System.nanoTime() + maxWaitNanos;
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        throw reject("no capacity freed up in time");
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    remaining = deadline - System.nanoTime();
+                }
+                inFlight++;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw reject("interrupted");
+            } finally {
+                waiting--;
+            }
+        }
+    }
+
+    public void release(long nanos, boolean sample) {
+        if (isUnlimited()) {
+            return;
+        }
+
+        synchronized (this) {
+            inFlight--;
+            if (sample) {
+                adjust(nanos, System.nanoTime());
+            }
+            notifyAll();
+        }
+    }
+
+    void adjust(long nanos, long now) {
+        if (0 == longNanos) {
+            shortNanos = nanos;
+            longNanos = nanos;
+        }
+        shortNanos += (nanos - shortNanos) / SHORT_WINDOW;
+        longNanos += (nanos - longNanos) / LONG_WINDOW;
+
+        // Latency well above the long term baseline means statements are queuing inside the database.
+        // One backoff per round trip, otherwise a single burst of slow samples collapses the limit.
+        if (shortNanos > longNanos * TOLERANCE) {
+            if (now - lastDecrease > shortNanos) {
+                limit = Math.max(minLimit, limit * BACKOFF);
+                lastDecrease = now;
+            }
+        } else if (inFlight + 1 >= limit / 2) {
+            // Limit grows only while it is actually in use, roughly by one per full window of statements
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    Http.Overloaded reject(String reason) {
+        rejected.increment();
+        return new Http.Overloaded(retryAfterSeconds,
+                "Database is overloaded: ${0}, ${1} statements are running",
+                reason,
+                inFlight);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiting;
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,206 @@
+package org.statemach.db.jdbc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.statemach.util.Deadline;
+import org.statemach.util.Http;
+
+import io.vavr.collection.List;
+
+public class GroupCommit {
+
+    // Every SQL state starts with empty class, so it matches any error reported by the database
+    static final String ANY_SQL_STATE = "";
+
+    public static final GroupCommit DISABLED = new GroupCommit(0, 1);
+
+    // Batch is its own monitor, so a leader is only woken up by members of its own batch
+    static class Batch<V, R> {
+        // Guarded by this until full, then only read by the leader
+        final java.util.List<V>                    values  = new java.util.ArrayList<>();
+        final java.util.List<CompletableFuture<R>> results = new java.util.ArrayList<>();
+
+        // Batch is created by its leader, whose session learns the primary position after the write
+        final Replicas.Session leader = Replicas.CURRENT.get();
+
+        boolean  full     = false;
+        Deadline deadline = null;
+    }
+
+    public final long delayNanos;
+    public final int  maxRows;
+
+    final LongAdder batches   = new LongAdder();
+    final LongAdder rows      = new LongAdder();
+    final LongAdder fallbacks = new LongAdder();
+
+    // Guarded by this
+    final java.util.Map<Object, Batch<?, ?>> open = new java.util.HashMap<>();
+
+    GroupCommit(long delayNanos, int maxRows) {
+        this.delayNanos = delayNanos;
+        this.maxRows = maxRows;
+    }
+
+    public static GroupCommit of(long delayMicros, int maxRows) {
+        return new GroupCommit(TimeUnit.MICROSECONDS.toNanos(delayMicros), Math.max(1, maxRows));
+    }
+
+    public boolean isEnabled() {
+        return 0 < delayNanos && 1 < maxRows;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V, R> R submit(Object key,
+                           V value,
+                           int capacity,
+                           Function<List<V>, List<R>> together,
+                           Function<V, R> alone) {
+        // Row inserted within a transaction belongs to its connection, not to a shared batch
+        if (!isEnabled() || capacity <= 1 || Transaction.isActive()) {
+            return alone.apply(value);
+        }
+
+        // The first caller leads the batch, the rest only wait for their own result
+        Batch<V, R>          batch;
+        CompletableFuture<R> result = new CompletableFuture<>();
+        boolean              leader;
+        synchronized (this) {
+            batch = (Batch<V, R>) open.get(key);
+            leader = null == batch;
+            if (leader) {
+                batch = new Batch<>();
+                open.put(key, batch);
+            }
+            synchronized (batch) {
+                batch.values.add(value);
+                batch.results.add(result);
+                batch.deadline = leader ? Deadline.current() : Deadline.latest(batch.deadline, Deadline.current());
+                if (batch.values.size() >= Math.min(maxRows, capacity)) {
+                    batch.full = true;
+                    open.remove(key, batch);
+                    batch.notifyAll();
+                }
+            }
+        }
+
+        // Statement serves every member, so it runs as long as the latest of them waits for it.
+        // Each member gives up on its own deadline in join, without canceling the others.
+        if (leader) {
+            Batch<V, R> collected = collect(key, batch);
+            Deadline.with(collected.deadline, () -> {
+                execute(key, collected, together, alone);
+                return null;
+            });
+        }
+
+        R done = join(result);
+        if (!leader) {
+            Replicas.written(batch.leader);
+        }
+        return done;
+    }
+
+    <V, R> Batch<V, R> collect(Object key, Batch<V, R> batch) {
+        long deadline = System.nanoTime() + delayNanos;
+        synchronized (batch) {
+            try {
+                for (long remaining = delayNanos; !batch.full && 0 < remaining; remaining = deadline - System.nanoTime()) {
+                    TimeUnit.NANOSECONDS.timedWait(batch, remaining);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Members join under both monitors in the same order, so once closed the batch never changes
+        synchronized (this) {
+            synchronized (batch) {
+                open.remove(key, batch);
+                batch.full = true;
+            }
+        }
+        return batch;
+    }
+
+    <V, R> void execute(Object key, Batch<V, R> batch, Function<List<V>, List<R>> together, Function<V, R> alone) {
+        batches.increment();
+        rows.add(batch.values.size());
+        if (1 == batch.values.size()) {
+            complete(batch.results.get(0), batch.values.get(0), alone);
+            return;
+        }
+
+        try {
+            List<R> results = together.apply(List.ofAll(batch.values));
+            if (results.size() != batch.values.size()) {
+                throw new IllegalStateException("Batch of " + batch.values.size() + " rows returned " + results.size());
+            }
+            for (int i = 0; i < results.size(); i++) {
+                batch.results.get(i).complete(results.get(i));
+            }
+        } catch (RuntimeException ex) {
+            if (!isRowFailure(ex)) {
+                batch.results.forEach(r -> r.completeExceptionally(ex));
+                return;
+            }
+
+            // Whole statement is rolled back, so every row is retried alone to fail only the offending ones
+            fallbacks.increment();
+            for (int i = 0; i < batch.values.size(); i++) {
+                complete(batch.results.get(i), batch.values.get(i), alone);
+            }
+        }
+    }
+
+    static boolean isRowFailure(RuntimeException ex) {
+        // Timeouts and rejections come as Http.Error, and a lost connection would fail every row alone as well
+        return !(ex instanceof Http.Error)
+                && CircuitBreaker.hasSqlState(ex, ANY_SQL_STATE)
+                && !CircuitBreaker.isConnectionFailure(ex);
+    }
+
+    static <V, R> void complete(CompletableFuture<R> result, V value, Function<V, R> alone) {
+        try {
+            result.complete(alone.apply(value));
+        } catch (RuntimeException ex) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    static <R> R join(CompletableFuture<R> result) {
+        Deadline deadline = Deadline.current();
+        try {
+            return deadline.isUnbounded()
+                    ? result.get()
+                    : result.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw deadline.expired(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+}
@@ -3,16 +3,43 @@ package org.statemach.db.jdbc;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
+import org.statemach.util.ConsumerEx;
 import org.statemach.util.Java;
 
+import io.vavr.collection.List;
 import io.vavr.collection.Traversable;
+import io.vavr.control.Option;
 
 @FunctionalInterface
 public interface Inject {
 
     int set(PreparedStatement ps, int pos) throws SQLException;
 
-    static final Inject NOTHING = (ps, i) -> i;
+    /// Values in parameter order, so statements can be compared and logged without being prepared.
+    /// Inject made of a plain lambda does not know them.
+    default Option<List<Object>> values() {
+        return Option.none();
+    }
+
+    static final Inject NOTHING = of(List.empty(), (ps, i) -> i);
+
+    /// Stuffing of a statement, that still knows values of its injects
+    static class Stuffing implements ConsumerEx<PreparedStatement, SQLException> {
+        public final List<Inject> injects;
+
+        Stuffing(List<Inject> injects) {
+            this.injects = injects;
+        }
+
+        @Override
+        public void accept(PreparedStatement ps) {
+            inject(ps, 1, injects);
+        }
+
+        public Option<List<Object>> values() {
+            return Inject.values(injects);
+        }
+    }
 
     /// Return next position
     @SafeVarargs
@@ -23,8 +50,44 @@ public interface Inject {
         return pos;
     }
 
+    static Stuffing stuffing(Traversable<Inject> injects) {
+        return new Stuffing(List.ofAll(injects));
+    }
+
     static Inject fold(Traversable<Inject> injects) {
-        return injects.foldLeft(Inject.NOTHING, (f, j) -> (ps, i) -> j.set(ps, f.set(ps, i)));
+        List<Inject> all = List.ofAll(injects);
+        return new Inject() {
+            @Override
+            public int set(PreparedStatement ps, int pos) throws SQLException {
+                for (Inject inject : all) {
+                    pos = inject.set(ps, pos);
+                }
+                return pos;
+            }
+
+            @Override
+            public Option<List<Object>> values() {
+                return Inject.values(all);
+            }
+        };
+    }
+
+    static Inject of(List<Object> values, Inject inject) {
+        return new Inject() {
+            @Override
+            public int set(PreparedStatement ps, int pos) throws SQLException {
+                return inject.set(ps, pos);
+            }
+
+            @Override
+            public Option<List<Object>> values() {
+                return Option.of(values);
+            }
+        };
+    }
+
+    static Option<List<Object>> values(Traversable<Inject> injects) {
+        return Option.sequence(injects.map(Inject::values)).map(s -> s.toList().flatMap(v -> v));
     }
 
     @SuppressWarnings("unchecked")
@@ -3,6 +3,7 @@ package org.statemach.db.jdbc;
 import java.sql.Types;
 import java.util.function.Function;
 
+import io.vavr.collection.List;
 import io.vavr.collection.Traversable;
 
 @FunctionalInterface
@@ -11,18 +12,18 @@ public interface Injector<T> {
     Inject prepare(T value);
 
     static <T, K> Injector<T> of(Function<T, K> mapping, int sqlType, Setter<? super K> setter) {
-        return (v) -> (ps, i) -> {
+        return (v) -> Inject.of(List.of(v), (ps, i) -> {
             if (null == v) {
                 ps.setNull(i, sqlType);
             } else {
                 setter.set(ps, i, mapping.apply(v));
             }
             return i + 1;
-        };
+        });
     }
 
     static <T, K> Injector<Traversable<? extends T>> ofArray(Function<T, K> mapping, String dbType) {
-        return (v) -> (ps, i) -> {
+        return (v) -> Inject.of(List.of(v), (ps, i) -> {
             if (null == v) {
                 ps.setNull(i, Types.ARRAY);
             } else {
@@ -32,7 +33,7 @@ public interface Injector<T> {
                                 v.map(e -> null == e ? null : mapping.apply(e)).toJavaArray()));
             }
             return i + 1;
-        };
+        });
     }
 
     static final Injector<Boolean>        BOOLEAN = Injector.of(t -> t, Types.BOOLEAN, Setter.BOOLEAN);
@@ -4,62 +4,316 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.statemach.util.ConsumerEx;
+import org.statemach.util.Deadline;
 import org.statemach.util.FunctionEx;
+import org.statemach.util.Http;
 import org.statemach.util.Java;
+import org.statemach.util.Span;
+import org.statemach.util.SupplierEx;
+import org.statemach.util.Tracer;
 
+import io.vavr.Tuple2;
 import io.vavr.collection.List;
+import io.vavr.collection.Map;
 import io.vavr.collection.Stream;
 import io.vavr.control.Option;
 
 public class JDBC {
 
-    final Vendor          vendor;
-    final BasicDataSource pool;
+    static final String EXPLAIN              = "EXPLAIN ";
+    static final long   BORROW_RETRY_SECONDS = 1;
+
+    public static class Lane {
+        public final ConcurrencyLimiter limiter;
+        public final BasicDataSource    pool;
+
+        public Lane(ConcurrencyLimiter limiter, BasicDataSource pool) {
+            this.limiter = limiter;
+            this.pool = pool;
+        }
+    }
+
+    final Vendor              vendor;
+    final BasicDataSource     pool;
+    final SlowQueryLog        slowQueryLog;
+    final Map<Workload, Lane> lanes;
+    final CircuitBreaker      breaker;
+    final Replicas            replicas;
 
     public JDBC(Vendor vendor, BasicDataSource pool) {
+        this(vendor, pool, SlowQueryLog.DISABLED);
+    }
+
+    public JDBC(Vendor vendor, BasicDataSource pool, SlowQueryLog slowQueryLog) {
+        this(vendor, pool, slowQueryLog, ConcurrencyLimiter.UNLIMITED);
+    }
+
+    public JDBC(Vendor vendor, BasicDataSource pool, SlowQueryLog slowQueryLog, ConcurrencyLimiter limiter) {
+        this(vendor,
+                pool,
+                slowQueryLog,
+                List.of(Workload.values()).toMap(w -> new Tuple2<>(w, new Lane(limiter, pool))));
+    }
+
+    public JDBC(Vendor vendor, BasicDataSource pool, SlowQueryLog slowQueryLog, Map<Workload, Lane> lanes) {
+        this(vendor, pool, slowQueryLog, lanes, CircuitBreaker.DISABLED);
+    }
+
+    public JDBC(Vendor vendor,
+                BasicDataSource pool,
+                SlowQueryLog slowQueryLog,
+                Map<Workload, Lane> lanes,
+                CircuitBreaker breaker) {
+        this(vendor, pool, slowQueryLog, lanes, breaker, Replicas.NONE);
+    }
+
+    public JDBC(Vendor vendor,
+                BasicDataSource pool,
+                SlowQueryLog slowQueryLog,
+                Map<Workload, Lane> lanes,
+                CircuitBreaker breaker,
+                Replicas replicas) {
         this.vendor = vendor;
         this.pool = pool;
+        this.slowQueryLog = slowQueryLog;
+        this.lanes = lanes;
+        this.breaker = breaker;
+        this.replicas = replicas;
     }
 
     public Vendor getVendor() {
         return vendor;
     }
 
+    public BasicDataSource getPool() {
+        return pool;
+    }
+
+    public Map<Workload, Lane> getLanes() {
+        return lanes;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    public Replicas getReplicas() {
+        return replicas;
+    }
+
     public <T, E extends Exception> T call(FunctionEx<Connection, T, E> processor) {
-        return Java.soft(() -> {
-            try (Connection connection = pool.getConnection()) {
+        return limited(lane -> Java.soft(() -> {
+            try (Connection connection = lane.pool.getConnection()) {
                 return processor.apply(connection);
             }
-        });
+        }));
     }
 
     public <E extends Exception> void run(ConsumerEx<Connection, E> processor) {
-        Java.soft(() -> {
-            try (Connection connection = pool.getConnection()) {
+        limited(lane -> Java.soft(() -> {
+            try (Connection connection = lane.pool.getConnection()) {
                 processor.accept(connection);
+                return null;
             }
-        });
+        }));
     }
 
-    public <E extends Exception> void execute(String statement, ConsumerEx<PreparedStatement, E> stuffing) {
-        run(c -> {
-            try (PreparedStatement ps = c.prepareStatement(statement)) {
-                stuffing.accept(ps);
-                ps.execute();
+    <T> T limited(Function<Lane, T> work) {
+        return limited(breaker, work);
+    }
+
+    <T> T limited(CircuitBreaker breaker, Function<Lane, T> work) {
+        Workload           workload = Workload.current();
+        Lane               lane     = lanes.get(workload).get();
+        ConcurrencyLimiter limiter  = lane.limiter;
+        Deadline           deadline = Deadline.current();
+
+        // Nobody waits for the result anymore, so there is no reason to start
+        deadline.check();
+        breaker.check();
+
+        // Rejection has to escape as is, so limiter stays outside of exception wrapping
+        if (!limiter.isUnlimited()) {
+            Tracer.span("db.limit.acquire", limiter::acquire);
+        }
+
+        long    start   = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = work.apply(lane);
+            success = true;
+            breaker.success();
+            if (Workload.MUTATION == workload) {
+                Replicas.written();
+                SingleFlight.written();
             }
-        });
+            return result;
+        } catch (RuntimeException ex) {
+            // Statement canceled by the deadline is reported as timeout, not as database failure
+            if (deadline.isExpired() && !(ex instanceof Http.Error)) {
+                throw deadline.expired(ex);
+            }
+            breaker.failure(ex);
+            if (ex.getCause() instanceof Http.Error) {
+                throw (Http.Error) ex.getCause();
+            }
+            throw ex;
+        } finally {
+            limiter.release(System.nanoTime() - start, success);
+        }
     }
 
-    public <E extends Exception> int update(String statement, ConsumerEx<PreparedStatement, E> stuffing) {
-        return call(c -> {
-            try (PreparedStatement ps = c.prepareStatement(statement)) {
+    <T, E extends Exception> T measure(String statement,
+                                       ConsumerEx<PreparedStatement, E> stuffing,
+                                       FunctionEx<PreparedStatement, T, Exception> executor,
+                                       ToIntFunction<T> rows) {
+        return measure(breaker, lane -> lane.pool, statement, stuffing, executor, rows);
+    }
+
+    <T, E extends Exception> T measure(CircuitBreaker breaker,
+                                       Function<Lane, BasicDataSource> source,
+                                       String statement,
+                                       ConsumerEx<PreparedStatement, E> stuffing,
+                                       FunctionEx<PreparedStatement, T, Exception> executor,
+                                       ToIntFunction<T> rows) {
+        Transaction transaction = Transaction.CURRENT.get();
+        if (null != transaction) {
+            // Transaction already holds its connection and limiter permit, its statements take turns on them
+            Deadline.current().check();
+            return Java.soft(() -> statement(() -> transaction.prepare(statement),
+                    false,
+                    System.nanoTime(),
+                    statement,
+                    stuffing,
+                    executor,
+                    rows));
+        }
+
+        return limited(breaker, lane -> Java.soft(() -> {
+            long       borrow     = System.nanoTime();
+            Connection connection = Tracer.span("db.pool.borrow", () -> borrow(source.apply(lane)));
+            try (connection) {
+                T result = statement(() -> connection.prepareStatement(statement),
+                        true,
+                        borrow,
+                        statement,
+                        stuffing,
+                        executor,
+                        rows);
+                if (Workload.MUTATION == Workload.current()) {
+                    Replicas.written(connection);
+                }
+                return result;
+            }
+        }));
+    }
+
+    <T, E extends Exception> T statement(SupplierEx<PreparedStatement, SQLException> prepare,
+                                         boolean close,
+                                         long borrow,
+                                         String statement,
+                                         ConsumerEx<PreparedStatement, E> stuffing,
+                                         FunctionEx<PreparedStatement, T, Exception> executor,
+                                         ToIntFunction<T> rows) throws Exception {
+        Deadline deadline = Deadline.current();
+        try (Span span = Tracer.start("db.statement", Span.Kind.CLIENT)) {
+            long     start = System.nanoTime();
+            SqlEvent event = new SqlEvent();
+            event.begin();
+            span.attribute("db.statement", statement);
+            PreparedStatement ps = prepare.get();
+            try {
                 stuffing.accept(ps);
-                return ps.executeUpdate();
+                T result;
+                deadline.attach(ps);
+                try {
+                    result = executor.apply(ps);
+                } finally {
+                    deadline.detach();
+                }
+                int count = rows.applyAsInt(result);
+                span.attribute("db.rows", count);
+                long duration = System.nanoTime() - start;
+                slowQueryLog.record(statement, stuffing, count, start - borrow, duration);
+                SqlDebug debug = SqlDebug.CURRENT.get();
+                if (null != debug) {
+                    debug.record(statement, stuffing, count, start - borrow, duration);
+                }
+                if (event.shouldCommit()) {
+                    event.statement = statement;
+                    event.rows = count;
+                    event.commit();
+                }
+                return result;
+            } finally {
+                if (close) {
+                    ps.close();
+                }
             }
-        });
+        }
+    }
+
+    public <T> T transaction(Supplier<T> work) {
+        // Nested transaction joins the outer one
+        if (Transaction.isActive()) {
+            return work.get();
+        }
+
+        return limited(lane -> Java.soft(() -> {
+            Connection connection = Tracer.span("db.pool.borrow", () -> borrow(lane.pool));
+            try (connection; Transaction transaction = Transaction.begin(connection)) {
+                T result = work.get();
+                transaction.commit();
+                if (Workload.MUTATION == Workload.current()) {
+                    Replicas.written(connection);
+                }
+                return result;
+            }
+        }));
+    }
+
+    Connection borrow(BasicDataSource pool) throws SQLException {
+        PoolBorrowEvent event = new PoolBorrowEvent();
+        event.begin();
+        Connection connection;
+        try {
+            connection = pool.getConnection();
+        } catch (SQLException ex) {
+            // Exhausted pool is reported the same way as exhausted concurrency limit, not as a failure
+            if (ex.getCause() instanceof NoSuchElementException) {
+                throw new Http.Overloaded(BORROW_RETRY_SECONDS,
+                        "No database connection became available in ${0} ms",
+                        pool.getMaxWaitMillis());
+            }
+            throw ex;
+        }
+        if (event.shouldCommit()) {
+            event.active = pool.getNumActive();
+            event.waiters = pool instanceof PoolDataSource ? ((PoolDataSource) pool).getNumWaiters() : 0;
+            event.commit();
+        }
+        return connection;
+    }
+
+    public List<String> explain(SqlDebug.Statement statement) {
+        // Plan is built for the recorded statement with the same binds, but without executing it again
+        ConsumerEx<PreparedStatement, Exception> stuffing = ps -> SlowQueryLog.stuff(statement.stuffing, ps);
+        return query(EXPLAIN + statement.sql, stuffing, rs -> rs.getString(1));
+    }
+
+    public <E extends Exception> void execute(String statement, ConsumerEx<PreparedStatement, E> stuffing) {
+        measure(statement, stuffing, ps -> ps.execute() ? 0 : Math.max(0, ps.getUpdateCount()), r -> r);
+    }
+
+    public <E extends Exception> int update(String statement, ConsumerEx<PreparedStatement, E> stuffing) {
+        return measure(statement, stuffing, ps -> ps.executeUpdate(), r -> r);
     }
 
     public <R, E extends Exception> List<R> query(Connection connection,
@@ -68,19 +322,48 @@ public class JDBC {
                                                   FunctionEx<ResultSet, R, E> rowExtractor) throws E, SQLException {
         try (PreparedStatement ps = connection.prepareStatement(statement)) {
             stuffing.accept(ps);
-            try (ResultSet rs = ps.executeQuery()) {
-                return Stream
-                    .iterate(() -> Java.soft(() -> rs.next() ? Option.of(rs) : Option.none()))
-                    .map(s -> Java.soft(() -> rowExtractor.apply(s)))
-                    .toList();
-            }
+            return extract(ps, rowExtractor);
         }
     }
 
     public <R, E extends Exception> List<R> query(String statement,
                                                   ConsumerEx<PreparedStatement, E> stuffing,
                                                   FunctionEx<ResultSet, R, E> extractor) {
-        return call(c -> query(c, statement, stuffing, extractor));
+        return measure(statement, stuffing, ps -> extract(ps, extractor), List::size);
+    }
+
+    public <R, E extends Exception> List<R> read(String statement,
+                                                 ConsumerEx<PreparedStatement, E> stuffing,
+                                                 FunctionEx<ResultSet, R, E> extractor) {
+        // Transaction has to read its own uncommitted writes
+        Option<Replica> replica = Transaction.isActive() ? Option.none() : replicas.route();
+        if (replica.isDefined()) {
+            // Replica outage is not a primary outage, so it neither trips nor is stopped by the breaker
+            try (Span span = Tracer.start("db.replica")) {
+                span.attribute("db.replica", replica.get().name);
+                return measure(CircuitBreaker.DISABLED,
+                        lane -> replica.get().pool,
+                        statement,
+                        stuffing,
+                        ps -> extract(ps, extractor),
+                        List::size);
+            } catch (RuntimeException ex) {
+                if (!CircuitBreaker.isConnectionFailure(ex)) {
+                    throw ex;
+                }
+                replica.get().down();
+            }
+        }
+        return query(statement, stuffing, extractor);
+    }
+
+    <R, E extends Exception> List<R> extract(PreparedStatement ps, FunctionEx<ResultSet, R, E> rowExtractor) throws SQLException {
+        try (ResultSet rs = Tracer.span("db.execute", () -> ps.executeQuery())) {
+            return Tracer.span("db.extract", () -> Stream
+                .iterate(() -> Java.soft(() -> rs.next() ? Option.of(rs) : Option.none()))
+                .map(s -> Java.soft(() -> rowExtractor.apply(s)))
+                .toList());
+        }
     }
 
 }
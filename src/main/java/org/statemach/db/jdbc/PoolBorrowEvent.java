@@ -0,0 +1,20 @@
+package org.statemach.db.jdbc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.statemach.PoolBorrow")
+@Label("Pool Borrow")
+@Category({ "Statemach", "Database" })
+@StackTrace(false)
+public class PoolBorrowEvent extends Event {
+
+    @Label("Active Connections")
+    public int active;
+
+    @Label("Waiting Threads")
+    public int waiters;
+}
@@ -0,0 +1,24 @@
+package org.statemach.db.jdbc;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.dbcp2.PoolableConnection;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+
+public class PoolDataSource extends BasicDataSource {
+
+    // Connection pool is created on the first borrow, so statistics are zero until then
+    public int getNumWaiters() {
+        GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+        return null == pool ? 0 : pool.getNumWaiters();
+    }
+
+    public long getMeanBorrowWaitTimeMillis() {
+        GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+        return null == pool ? 0 : pool.getMeanBorrowWaitTimeMillis();
+    }
+
+    public long getMaxBorrowWaitTimeMillis() {
+        GenericObjectPool<PoolableConnection> pool = getConnectionPool();
+        return null == pool ? 0 : pool.getMaxBorrowWaitTimeMillis();
+    }
+}
@@ -0,0 +1,50 @@
+package org.statemach.db.jdbc;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+
+public class Replica {
+
+    public final String          name;
+    public final BasicDataSource pool;
+
+    // Updated by the monitor only, request threads just read the latest state
+    volatile boolean healthy   = false;
+    volatile long    replayLsn = 0;
+    volatile long    lagBytes  = Long.MAX_VALUE;
+
+    public Replica(String name, BasicDataSource pool) {
+        this.name = name;
+        this.pool = pool;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public long getReplayLsn() {
+        return replayLsn;
+    }
+
+    public long getLagBytes() {
+        return lagBytes;
+    }
+
+    boolean isEligible(long minLsn) {
+        return healthy && replayLsn >= minLsn;
+    }
+
+    void update(long primaryLsn, long replayLsn, long maxLagBytes) {
+        this.replayLsn = replayLsn;
+        this.lagBytes = Math.max(0, primaryLsn - replayLsn);
+        this.healthy = lagBytes <= maxLagBytes;
+    }
+
+    void down() {
+        this.healthy = false;
+    }
+
+    @Override
+    public String toString() {
+        return "Replica@{name: " + name + ", healthy: " + healthy + ", lagBytes: " + lagBytes + "}";
+    }
+}
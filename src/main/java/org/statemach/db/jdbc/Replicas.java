@@ -0,0 +1,254 @@
+package org.statemach.db.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpHandler;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+public class Replicas {
+
+    static final Logger LOGGER = Logger.getLogger(Replicas.class.getName());
+
+    // Same header carries primary position to the client after a write and back with its next read
+    public static final String HEADER = "X-Wal-Lsn";
+
+    static final String PRIMARY_LSN = "SELECT pg_current_wal_lsn()::text";
+    static final String REPLAY_LSN  = "SELECT CASE WHEN pg_is_in_recovery() THEN pg_last_wal_replay_lsn()::text END";
+
+    static final int  CHECK_TIMEOUT_SECONDS = 2;
+    static final long LAG_BUCKET_BYTES      = 1024 * 1024;
+
+    static final ThreadLocal<Session> CURRENT = new ThreadLocal<>();
+
+    static final ScheduledExecutorService MONITOR = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "replica-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static final Replicas NONE = new Replicas(null, List.empty(), 0);
+
+    static class Session {
+        final long    minLsn;
+        final Headers response;
+
+        boolean wrote = false;
+
+        Session(long minLsn, Headers response) {
+            this.minLsn = minLsn;
+            this.response = response;
+        }
+    }
+
+    public final long maxLagBytes;
+
+    final DataSource    primary;
+    final List<Replica> replicas;
+
+    Replicas(DataSource primary, List<Replica> replicas, long maxLagBytes) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagBytes = maxLagBytes;
+    }
+
+    public static Replicas of(DataSource primary, List<Replica> replicas, long maxLagBytes, long checkMillis) {
+        Replicas result = new Replicas(primary, replicas, maxLagBytes);
+        if (!replicas.isEmpty()) {
+            result.refresh();
+            MONITOR.scheduleWithFixedDelay(result::refresh, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return replicas.isEmpty();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public HttpHandler handler(HttpHandler next) {
+        if (isEmpty()) {
+            return next;
+        }
+
+        return exchange -> {
+            // Header is set as soon as a write commits, so the response is not held back for it
+            CURRENT.set(new Session(parse(exchange.getRequestHeaders().getFirst(HEADER)), exchange.getResponseHeaders()));
+            try {
+                next.handle(exchange);
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    public static void written() {
+        Session session = CURRENT.get();
+        if (null != session) {
+            session.wrote = true;
+        }
+    }
+
+    /// Primary position is read on the connection that has just committed the write,
+    /// only while a request that may route reads to replicas is being handled
+    public static void written(Connection connection) {
+        Session session = CURRENT.get();
+        if (null == session) {
+            return;
+        }
+
+        session.wrote = true;
+        try {
+            session.response.set(HEADER, text(connection, PRIMARY_LSN));
+        } catch (Exception ex) {
+            LOGGER.warning("Failed to read primary WAL position: " + ex.getMessage());
+        }
+    }
+
+    /// Row written by a batch led from another request is committed at the position the leader has seen
+    static void written(Session leader) {
+        Session session = CURRENT.get();
+        if (null == session) {
+            return;
+        }
+
+        session.wrote = true;
+        String lsn = null == leader ? null : leader.response.getFirst(HEADER);
+        if (null != lsn) {
+            session.response.set(HEADER, lsn);
+        }
+    }
+
+    public static boolean isWritten() {
+        Session session = CURRENT.get();
+        return null != session && session.wrote;
+    }
+
+    public static long minLsn() {
+        Session session = CURRENT.get();
+        return null == session ? 0 : session.minLsn;
+    }
+
+    public Option<Replica> route() {
+        // Writes, and reads following a write in the same request, need to see that write
+        if (isEmpty() || Workload.MUTATION == Workload.current() || isWritten()) {
+            return Option.none();
+        }
+
+        long          minLsn   = minLsn();
+        List<Replica> eligible = replicas.filter(r -> r.isEligible(minLsn));
+        if (eligible.size() <= 1) {
+            return eligible.headOption();
+        }
+
+        // Two random choices: the fresher replica wins, equally fresh ones split by active connections
+        int     size   = eligible.size();
+        int     first  = ThreadLocalRandom.current().nextInt(size);
+        int     second = (first + 1 + ThreadLocalRandom.current().nextInt(size - 1)) % size;
+        Replica a      = eligible.get(first);
+        Replica b      = eligible.get(second);
+        return Option.of(compare(a, b) <= 0 ? a : b);
+    }
+
+    static int compare(Replica a, Replica b) {
+        int lag = Long.compare(a.getLagBytes() / LAG_BUCKET_BYTES, b.getLagBytes() / LAG_BUCKET_BYTES);
+        return 0 != lag ? lag : Integer.compare(a.pool.getNumActive(), b.pool.getNumActive());
+    }
+
+    void refresh() {
+        Option<Long> primaryLsn = primaryLsn();
+        if (primaryLsn.isEmpty()) {
+            return;
+        }
+
+        for (Replica replica : replicas) {
+            try {
+                replica.update(primaryLsn.get(), replayLsn(replica.pool), maxLagBytes);
+            } catch (Exception ex) {
+                if (replica.isHealthy()) {
+                    LOGGER.warning("Replica " + replica.name + " is unavailable: " + ex.getMessage());
+                }
+                replica.down();
+            }
+        }
+    }
+
+    Option<Long> primaryLsn() {
+        try {
+            return Option.of(lsn(primary, PRIMARY_LSN));
+        } catch (Exception ex) {
+            LOGGER.warning("Failed to read primary WAL position: " + ex.getMessage());
+            return Option.none();
+        }
+    }
+
+    static long lsn(DataSource dataSource, String sql) throws Exception {
+        return parse(text(dataSource, sql));
+    }
+
+    static long replayLsn(DataSource dataSource) throws Exception {
+        // Promoted replica, or primary configured as a replica, writes its own timeline,
+        // so its position says nothing about writes made on the primary
+        String lsn = text(dataSource, REPLAY_LSN);
+        if (null == lsn) {
+            throw new IllegalStateException("Server is not in recovery, so it is not a replica of the primary");
+        }
+        return parse(lsn);
+    }
+
+    static String text(DataSource dataSource, String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            return text(connection, sql);
+        }
+    }
+
+    static String text(Connection connection, String sql) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+            try (ResultSet rs = statement.executeQuery(sql)) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    static long parse(String lsn) {
+        // Format: upper and lower 32 bits in hex, e.g. 16/B374D848
+        if (null == lsn) {
+            return 0;
+        }
+
+        String[] parts = lsn.trim().split("/");
+        try {
+            if (2 == parts.length) {
+                return (Long.parseLong(parts[0], 16) << 32) | Long.parseLong(parts[1], 16);
+            }
+        } catch (NumberFormatException ex) {
+            // Reported below
+        }
+        throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                "Header ${0} should be a WAL position like 16/B374D848, got '${1}'",
+                HEADER,
+                lsn);
+    }
+
+    static String format(long lsn) {
+        return Long.toHexString(lsn >>> 32).toUpperCase() + "/" + Long.toHexString(lsn & 0xFFFFFFFFL).toUpperCase();
+    }
+}
@@ -0,0 +1,144 @@
+package org.statemach.db.jdbc;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.statemach.util.Deadline;
+import org.statemach.util.Http;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+public class SingleFlight {
+
+    public static final SingleFlight DISABLED = new SingleFlight(false);
+
+    // Bumped after every committed write, so a read never joins one that started before some write
+    // has been reported to its client. Without replicas, WAL position in the key does not tell that.
+    static final AtomicLong WRITES = new AtomicLong();
+
+    static class Key {
+        final String       sql;
+        final List<Object> binds;
+        final Object       shape;
+        final long         minLsn;
+        final long         writes;
+        final int          hash;
+
+        Key(String sql, List<Object> binds, Object shape, long minLsn, long writes) {
+            this.sql = sql;
+            this.binds = binds;
+            this.shape = shape;
+            this.minLsn = minLsn;
+            this.writes = writes;
+            this.hash = Objects.hash(sql, binds, shape, minLsn, writes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return hash == key.hash
+                    && minLsn == key.minLsn
+                    && writes == key.writes
+                    && sql.equals(key.sql)
+                    && binds.equals(key.binds)
+                    && shape.equals(key.shape);
+        }
+    }
+
+    public final boolean enabled;
+
+    final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    final LongAdder                                         shared   = new LongAdder();
+
+    public SingleFlight(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String sql, List<Inject> injects, Object shape, Supplier<T> work) {
+        // Result of a statement, that started before own write, may not contain that write
+        if (!enabled || Workload.MUTATION == Workload.current() || Replicas.isWritten() || Transaction.isActive()) {
+            return work.get();
+        }
+
+        Option<List<Object>> binds = Inject.values(injects);
+        if (binds.isEmpty()) {
+            return work.get();
+        }
+
+        // Nothing is kept after completion, the entry only lives while its statement runs
+        Key                       key    = new Key(sql, binds.get(), shape, Replicas.minLsn(), WRITES.get());
+        CompletableFuture<Object> mine   = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, mine);
+        if (null != leader) {
+            shared.increment();
+            return (T) join(leader, work);
+        }
+
+        try {
+            T result = work.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public static void written() {
+        WRITES.incrementAndGet();
+    }
+
+    static Object join(CompletableFuture<Object> leader, Supplier<?> work) {
+        Deadline deadline = Deadline.current();
+        try {
+            return deadline.isUnbounded()
+                    ? leader.get()
+                    : leader.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            throw deadline.expired(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            // Leader ran out of its own time budget, the follower may still have enough of it
+            if (ex.getCause() instanceof Http.Error
+                    && Http.ErrorCode.GATEWAY_TIMEOUT == ((Http.Error) ex.getCause()).errorCode) {
+                return work.get();
+            }
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+
+    public long getShared() {
+        return shared.sum();
+    }
+
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
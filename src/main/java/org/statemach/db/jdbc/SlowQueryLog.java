@@ -0,0 +1,221 @@
+package org.statemach.db.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.statemach.util.ConsumerEx;
+import org.statemach.util.Http;
+import org.statemach.util.Java;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+public class SlowQueryLog {
+
+    static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+
+    static final String EXPLAIN_ANALYZE = "EXPLAIN (ANALYZE, BUFFERS) ";
+    static final String EXPLAIN         = "EXPLAIN ";
+    static final String REDACTED        = "?";
+    static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    static final List<Object> UNAVAILABLE = List.of("unavailable");
+
+    // Explain must never wait behind request locks or run for long on its connection
+    static final long EXPLAIN_STATEMENT_TIMEOUT_MILLIS = 10_000;
+    static final long EXPLAIN_LOCK_TIMEOUT_MILLIS      = 1_000;
+
+    static final Pattern READ_ONLY = Pattern.compile("^\\s*(SELECT|WITH)\\b", Pattern.CASE_INSENSITIVE);
+    static final Pattern MODIFYING = Pattern.compile("\\b(INSERT|UPDATE|DELETE|MERGE|SHARE|NEXTVAL|SETVAL)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    static class Entry {
+        final Instant                          time;
+        final String                           sql;
+        final ConsumerEx<PreparedStatement, ?> stuffing;
+        final List<Object>                     binds;
+        final int                              rows;
+        final long                             waitNanos;
+        final long                             durationNanos;
+        final String                           origin;
+
+        Entry(Instant time,
+              String sql,
+              ConsumerEx<PreparedStatement, ?> stuffing,
+              List<Object> binds,
+              int rows,
+              long waitNanos,
+              long durationNanos,
+              String origin) {
+            this.time = time;
+            this.sql = sql;
+            this.stuffing = stuffing;
+            this.binds = binds;
+            this.rows = rows;
+            this.waitNanos = waitNanos;
+            this.durationNanos = durationNanos;
+            this.origin = origin;
+        }
+    }
+
+    public static final SlowQueryLog DISABLED = new SlowQueryLog(null, Long.MAX_VALUE, 0, true, 1, LOGGER::warning);
+
+    public final long    thresholdNanos;
+    public final double  explainSample;
+    public final boolean redact;
+
+    final DataSource           dataSource;
+    final BlockingQueue<Entry> buffer;
+    final Consumer<String>     sink;
+    final LongAdder            dropped = new LongAdder();
+
+    SlowQueryLog(DataSource dataSource,
+                 long thresholdNanos,
+                 double explainSample,
+                 boolean redact,
+                 int capacity,
+                 Consumer<String> sink) {
+        this.dataSource = dataSource;
+        this.thresholdNanos = thresholdNanos;
+        this.explainSample = explainSample;
+        this.redact = redact;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.sink = sink;
+    }
+
+    public static SlowQueryLog of(DataSource dataSource,
+                                  long thresholdMillis,
+                                  double explainSample,
+                                  boolean redact,
+                                  int capacity) {
+        SlowQueryLog log = new SlowQueryLog(dataSource,
+                thresholdMillis * 1_000_000L,
+                explainSample,
+                redact,
+                capacity,
+                LOGGER::warning);
+        log.start();
+        return log;
+    }
+
+    void start() {
+        Thread writer = new Thread(this::drain, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public <E extends Exception> void record(String sql,
+                                             ConsumerEx<PreparedStatement, E> stuffing,
+                                             int rows,
+                                             long waitNanos,
+                                             long durationNanos) {
+        if (durationNanos < thresholdNanos) {
+            return;
+        }
+
+        Entry entry = new Entry(Instant.now(),
+                sql,
+                stuffing,
+                binds(stuffing),
+                rows,
+                waitNanos,
+                durationNanos,
+                Option.of(Http.ORIGIN.get()).getOrElse("-"));
+
+        // Ring buffer: the oldest entry gives way, so request thread never waits for the writer
+        while (!buffer.offer(entry)) {
+            if (null != buffer.poll()) {
+                dropped.increment();
+            }
+        }
+    }
+
+    void drain() {
+        while (true) {
+            Entry entry = Java.soft(() -> buffer.take());
+            try {
+                sink.accept(format(entry, explain(entry)));
+            } catch (Exception ex) {
+                LOGGER.warning("Failed to write slow query log entry: " + ex.getMessage());
+            }
+        }
+    }
+
+    Option<String> explain(Entry entry) {
+        if (null == dataSource || ThreadLocalRandom.current().nextDouble() >= explainSample) {
+            return Option.none();
+        }
+
+        // ANALYZE executes the statement, so statements that modify data or take row locks
+        // are only planned: even rolled back, they advance sequences, fire triggers and wait for locks
+        boolean analyze = isReadOnly(entry.sql);
+        return Option.of(Java.soft(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(false);
+                connection.setReadOnly(analyze);
+                try (Statement st = connection.createStatement()) {
+                    st.execute("SET LOCAL statement_timeout = " + EXPLAIN_STATEMENT_TIMEOUT_MILLIS);
+                    st.execute("SET LOCAL lock_timeout = " + EXPLAIN_LOCK_TIMEOUT_MILLIS);
+                }
+                try (PreparedStatement ps = connection.prepareStatement((analyze ? EXPLAIN_ANALYZE : EXPLAIN) + entry.sql)) {
+                    stuff(entry.stuffing, ps);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        StringBuilder plan = new StringBuilder();
+                        while (rs.next()) {
+                            plan.append(rs.getString(1)).append('\n');
+                        }
+                        return plan.toString();
+                    }
+                } finally {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                    connection.setReadOnly(false);
+                }
+            }
+        }));
+    }
+
+    static boolean isReadOnly(String sql) {
+        // Keywords inside identifiers or literals only make the check more cautious
+        return READ_ONLY.matcher(sql).find() && !MODIFYING.matcher(sql).find();
+    }
+
+    String format(Entry entry, Option<String> plan) {
+        return Java.format("Slow query ${0} ms (pool wait ${1} ms, rows ${2}) at ${3} from ${4}:\n${5}\nbinds: ${6}${7}",
+                entry.durationNanos / NANOS_PER_MILLI,
+                entry.waitNanos / NANOS_PER_MILLI,
+                entry.rows,
+                entry.time,
+                entry.origin,
+                entry.sql,
+                entry.binds.mkString("[", ", ", "]"),
+                plan.map(p -> "\nplan:\n" + p).getOrElse(""));
+    }
+
+    List<Object> binds(ConsumerEx<PreparedStatement, ?> stuffing) {
+        return values(stuffing)
+            .map(l -> l.map(v -> redact && null != v ? REDACTED : v))
+            .getOrElse(UNAVAILABLE);
+    }
+
+    static Option<List<Object>> values(ConsumerEx<PreparedStatement, ?> stuffing) {
+        // Only injects know their values, a plain stuffing lambda is opaque
+        return stuffing instanceof Inject.Stuffing ? ((Inject.Stuffing) stuffing).values() : Option.none();
+    }
+
+    static <E extends Exception> void stuff(ConsumerEx<PreparedStatement, E> stuffing, PreparedStatement ps) throws E {
+        stuffing.accept(ps);
+    }
+}
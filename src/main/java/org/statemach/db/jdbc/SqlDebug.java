@@ -0,0 +1,66 @@
+package org.statemach.db.jdbc;
+
+import java.sql.PreparedStatement;
+
+import org.statemach.util.ConsumerEx;
+
+import io.vavr.collection.List;
+
+public class SqlDebug {
+
+    static final ThreadLocal<SqlDebug> CURRENT = new ThreadLocal<>();
+
+    public static class Statement {
+        public final String       sql;
+        public final List<Object> binds;
+        public final int          rows;
+        public final long         waitNanos;
+        public final long         durationNanos;
+
+        final ConsumerEx<PreparedStatement, ?> stuffing;
+
+        Statement(String sql,
+                  List<Object> binds,
+                  int rows,
+                  long waitNanos,
+                  long durationNanos,
+                  ConsumerEx<PreparedStatement, ?> stuffing) {
+            this.sql = sql;
+            this.binds = binds;
+            this.rows = rows;
+            this.waitNanos = waitNanos;
+            this.durationNanos = durationNanos;
+            this.stuffing = stuffing;
+        }
+
+        @Override
+        public String toString() {
+            return "Statement@{sql: " + sql + ", binds: " + binds + ", rows: " + rows + "}";
+        }
+    }
+
+    final java.util.List<Statement> statements = new java.util.ArrayList<>();
+
+    public static SqlDebug start() {
+        SqlDebug debug = new SqlDebug();
+        CURRENT.set(debug);
+        return debug;
+    }
+
+    public void stop() {
+        CURRENT.remove();
+    }
+
+    public List<Statement> getStatements() {
+        return List.ofAll(statements);
+    }
+
+    <E extends Exception> void record(String sql,
+                                      ConsumerEx<PreparedStatement, E> stuffing,
+                                      int rows,
+                                      long waitNanos,
+                                      long durationNanos) {
+        List<Object> binds = SlowQueryLog.values(stuffing).getOrElse(SlowQueryLog.UNAVAILABLE);
+        statements.add(new Statement(sql, binds, rows, waitNanos, durationNanos, stuffing));
+    }
+}
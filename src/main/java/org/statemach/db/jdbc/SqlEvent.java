@@ -0,0 +1,23 @@
+package org.statemach.db.jdbc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.statemach.SqlStatement")
+@Label("SQL Statement")
+@Category({ "Statemach", "Database" })
+@Description("Execution of prepared statement including result extraction")
+@StackTrace(false)
+public class SqlEvent extends Event {
+
+    @Label("Statement")
+    @Description("Prepared SQL, values are bound as parameters and never appear here")
+    public String statement;
+
+    @Label("Rows")
+    public int rows;
+}
@@ -0,0 +1,67 @@
+package org.statemach.db.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+public class Transaction implements AutoCloseable {
+
+    static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    final Connection connection;
+
+    // Same statement text within a transaction is prepared once and executed with new binds
+    final java.util.Map<String, PreparedStatement> statements = new java.util.HashMap<>();
+
+    boolean committed = false;
+
+    Transaction(Connection connection) {
+        this.connection = connection;
+    }
+
+    static Transaction begin(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        Transaction transaction = new Transaction(connection);
+        CURRENT.set(transaction);
+        return transaction;
+    }
+
+    public static boolean isActive() {
+        return null != CURRENT.get();
+    }
+
+    PreparedStatement prepare(String statement) throws SQLException {
+        PreparedStatement ps = statements.get(statement);
+        if (null == ps) {
+            ps = connection.prepareStatement(statement);
+            statements.put(statement, ps);
+        } else {
+            ps.clearParameters();
+        }
+        return ps;
+    }
+
+    int getPrepared() {
+        return statements.size();
+    }
+
+    void commit() throws SQLException {
+        connection.commit();
+        committed = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        CURRENT.remove();
+        try {
+            for (PreparedStatement ps : statements.values()) {
+                ps.close();
+            }
+            if (!committed) {
+                connection.rollback();
+            }
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+}
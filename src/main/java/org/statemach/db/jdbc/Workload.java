@@ -0,0 +1,46 @@
+package org.statemach.db.jdbc;
+
+import org.statemach.util.RunnableEx;
+import org.statemach.util.SupplierEx;
+
+public enum Workload {
+    LOOKUP,
+    QUERY,
+    MUTATION,
+    BULK;
+
+    // Queries asking for more rows than this are treated as analytic
+    public static final long BULK_ROWS = 1000;
+
+    static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        return null == workload ? QUERY : workload;
+    }
+
+    public static Workload query(long rows) {
+        return rows > BULK_ROWS ? BULK : QUERY;
+    }
+
+    public static <T, E extends Exception> T with(Workload workload, SupplierEx<T, E> work) throws E {
+        Workload previous = CURRENT.get();
+        CURRENT.set(workload);
+        try {
+            return work.get();
+        } finally {
+            if (null == previous) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static <E extends Exception> void run(Workload workload, RunnableEx<E> work) throws E {
+        with(workload, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
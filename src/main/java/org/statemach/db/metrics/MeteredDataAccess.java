@@ -0,0 +1,277 @@
+package org.statemach.db.metrics;
+
+import java.util.function.Supplier;
+
+import org.statemach.db.jdbc.Extract;
+import org.statemach.db.jdbc.Inject;
+import org.statemach.db.sql.DataAccess;
+import org.statemach.db.sql.Insert;
+import org.statemach.db.sql.QueryPlan;
+import org.statemach.db.sql.SQLBuilder;
+import org.statemach.db.sql.View;
+import org.statemach.util.Histogram;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+public class MeteredDataAccess implements DataAccess {
+
+    static class Operation {
+        final Histogram duration;
+        final Histogram rows;
+
+        Operation(Metrics metrics, String name) {
+            String labels = Metrics.labels(Metrics.Label.OPERATION, name);
+            this.duration = metrics.histogram(Metrics.Name.SQL_DURATION,
+                    "SQL execution time by data access operation",
+                    labels,
+                    Histogram.SECONDS);
+            this.rows = metrics.histogram(Metrics.Name.SQL_ROWS,
+                    "Rows returned by data access operation",
+                    labels,
+                    Histogram.ROWS);
+        }
+
+        void done(long start, int rows) {
+            this.duration.observeNanos(System.nanoTime() - start);
+            this.rows.observe(rows);
+        }
+
+        void failed(long start) {
+            this.duration.observeNanos(System.nanoTime() - start);
+        }
+    }
+
+    final DataAccess delegate;
+    final Operation  insert;
+    final Operation  merge;
+    final Operation  update;
+    final Operation  delete;
+    final Operation  select;
+    final Operation  query;
+    final Operation  explain;
+
+    public MeteredDataAccess(DataAccess delegate, Metrics metrics) {
+        this.delegate = delegate;
+        this.insert = new Operation(metrics, "insert");
+        this.merge = new Operation(metrics, "merge");
+        this.update = new Operation(metrics, "update");
+        this.delete = new Operation(metrics, "delete");
+        this.select = new Operation(metrics, "select");
+        this.query = new Operation(metrics, "query");
+        this.explain = new Operation(metrics, "explain");
+    }
+
+    @Override
+    public SQLBuilder builder() {
+        return delegate.builder();
+    }
+
+    @Override
+    public <T> T transaction(Supplier<T> work) {
+        return delegate.transaction(work);
+    }
+
+    @Override
+    public void insert(String table, Map<String, Inject> values) {
+        long start = System.nanoTime();
+        try {
+            delegate.insert(table, values);
+            insert.done(start, 1);
+        } catch (RuntimeException ex) {
+            insert.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public void merge(String table, Map<String, Inject> primaryKey, Map<String, Inject> values) {
+        long start = System.nanoTime();
+        try {
+            delegate.merge(table, primaryKey, values);
+            merge.done(start, 1);
+        } catch (RuntimeException ex) {
+            merge.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean update(String table, Map<String, Inject> primaryKey, Map<String, Inject> values) {
+        long start = System.nanoTime();
+        try {
+            boolean result = delegate.update(table, primaryKey, values);
+            update.done(start, result ? 1 : 0);
+            return result;
+        } catch (RuntimeException ex) {
+            update.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean delete(String table, Map<String, Inject> primaryKey) {
+        long start = System.nanoTime();
+        try {
+            boolean result = delegate.delete(table, primaryKey);
+            delete.done(start, result ? 1 : 0);
+            return result;
+        } catch (RuntimeException ex) {
+            delete.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Map<String, Object> insert(String table,
+                                      Map<String, Inject> values,
+                                      Map<String, Extract<?>> returning) {
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> result = delegate.insert(table, values, returning);
+            insert.done(start, 1);
+            return result;
+        } catch (RuntimeException ex) {
+            insert.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Map<String, Object> insert(Insert insert, Map<String, Extract<?>> returning) {
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> result = delegate.insert(insert, returning);
+            this.insert.done(start, insert.rows());
+            return result;
+        } catch (RuntimeException ex) {
+            this.insert.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Map<String, Object> merge(String table,
+                                     Map<String, Inject> primaryKey,
+                                     Map<String, Inject> values,
+                                     Map<String, Extract<?>> returning) {
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> result = delegate.merge(table, primaryKey, values, returning);
+            merge.done(start, 1);
+            return result;
+        } catch (RuntimeException ex) {
+            merge.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Option<Map<String, Object>> update(String table,
+                                              Map<String, Inject> primaryKey,
+                                              Map<String, Inject> values,
+                                              Map<String, Extract<?>> returning) {
+        long start = System.nanoTime();
+        try {
+            Option<Map<String, Object>> result = delegate.update(table, primaryKey, values, returning);
+            update.done(start, result.isDefined() ? 1 : 0);
+            return result;
+        } catch (RuntimeException ex) {
+            update.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Option<Map<String, Object>> delete(String table,
+                                              Map<String, Inject> primaryKey,
+                                              Map<String, Extract<?>> returning) {
+        long start = System.nanoTime();
+        try {
+            Option<Map<String, Object>> result = delegate.delete(table, primaryKey, returning);
+            delete.done(start, result.isDefined() ? 1 : 0);
+            return result;
+        } catch (RuntimeException ex) {
+            delete.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> updateWhere(String table,
+                                                 View<String> keys,
+                                                 int limit,
+                                                 Map<String, Inject> values,
+                                                 Map<String, Extract<?>> returning) {
+        long start = System.nanoTime();
+        try {
+            List<Map<String, Object>> result = delegate.updateWhere(table, keys, limit, values, returning);
+            update.done(start, result.size());
+            return result;
+        } catch (RuntimeException ex) {
+            update.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> deleteWhere(String table,
+                                                 View<String> keys,
+                                                 int limit,
+                                                 Map<String, Extract<?>> returning) {
+        long start = System.nanoTime();
+        try {
+            List<Map<String, Object>> result = delegate.deleteWhere(table, keys, limit, returning);
+            delete.done(start, result.size());
+            return result;
+        } catch (RuntimeException ex) {
+            delete.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Option<Map<String, Object>> select(String table,
+                                              Map<String, Inject> primaryKey,
+                                              Map<String, Extract<?>> returning) {
+        long start = System.nanoTime();
+        try {
+            Option<Map<String, Object>> result = delegate.select(table, primaryKey, returning);
+            select.done(start, result.isDefined() ? 1 : 0);
+            return result;
+        } catch (RuntimeException ex) {
+            select.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> query(List<View<String>> commonTableExpressions,
+                                           View<Tuple2<String, Extract<?>>> query) {
+        long start = System.nanoTime();
+        try {
+            List<Map<String, Object>> result = delegate.query(commonTableExpressions, query);
+            this.query.done(start, result.size());
+            return result;
+        } catch (RuntimeException ex) {
+            this.query.failed(start);
+            throw ex;
+        }
+    }
+
+    @Override
+    public QueryPlan explain(List<View<String>> commonTableExpressions,
+                             View<Tuple2<String, Extract<?>>> query) {
+        long start = System.nanoTime();
+        try {
+            QueryPlan result = delegate.explain(commonTableExpressions, query);
+            explain.done(start, 1);
+            return result;
+        } catch (RuntimeException ex) {
+            explain.failed(start);
+            throw ex;
+        }
+    }
+}
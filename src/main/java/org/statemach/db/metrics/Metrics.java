@@ -0,0 +1,351 @@
+package org.statemach.db.metrics;
+
+import java.util.function.DoubleSupplier;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.statemach.db.jdbc.CircuitBreaker;
+import org.statemach.db.jdbc.ConcurrencyLimiter;
+import org.statemach.db.jdbc.GroupCommit;
+import org.statemach.db.jdbc.JDBC;
+import org.statemach.db.jdbc.PoolDataSource;
+import org.statemach.db.jdbc.Replica;
+import org.statemach.db.jdbc.Replicas;
+import org.statemach.db.jdbc.SingleFlight;
+import org.statemach.db.jdbc.Workload;
+import org.statemach.db.schema.Schema;
+import org.statemach.util.Histogram;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.HttpHandler;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+public class Metrics {
+
+    static interface Name {
+        static final String HTTP_DURATION = "http_request_duration_seconds";
+        static final String SQL_DURATION  = "sql_duration_seconds";
+        static final String SQL_ROWS      = "sql_rows";
+        static final String JSON_DURATION = "json_serialization_seconds";
+        static final String JSON_BYTES    = "json_serialization_bytes";
+        static final String POOL_ACTIVE   = "db_pool_active_connections";
+        static final String POOL_IDLE     = "db_pool_idle_connections";
+        static final String POOL_WAITERS  = "db_pool_waiting_threads";
+        static final String POOL_WAIT     = "db_pool_borrow_wait_mean_seconds";
+        static final String POOL_WAIT_MAX = "db_pool_borrow_wait_max_seconds";
+        static final String LIMIT         = "db_concurrency_limit";
+        static final String LIMIT_RUNNING = "db_concurrency_in_flight";
+        static final String LIMIT_WAITING = "db_concurrency_waiting";
+        static final String LIMIT_SHED    = "db_concurrency_rejected_total";
+        static final String CIRCUIT_OPEN  = "db_circuit_open";
+        static final String CIRCUIT_SHED  = "db_circuit_rejected_total";
+        static final String REPLICA_UP    = "db_replica_healthy";
+        static final String REPLICA_LAG   = "db_replica_lag_bytes";
+        static final String SHARED        = "db_single_flight_shared_total";
+        static final String SHARING       = "db_single_flight_in_flight";
+        static final String GROUP_BATCHES = "db_group_commit_batches_total";
+        static final String GROUP_ROWS    = "db_group_commit_rows_total";
+        static final String GROUP_RETRIES = "db_group_commit_fallbacks_total";
+    }
+
+    static interface Label {
+        static final String HANDLER   = "handler";
+        static final String METHOD    = "method";
+        static final String TABLE     = "table";
+        static final String OPERATION = "operation";
+        static final String WORKLOAD  = "workload";
+        static final String REPLICA   = "replica";
+    }
+
+    static final String[] METHODS = { "GET", "POST", "PUT", "PATCH", "DELETE", "OTHER" };
+
+    static final String HISTOGRAM = "histogram";
+    static final String GAUGE     = "gauge";
+    static final String COUNTER   = "counter";
+
+    static class Series {
+        final String         labels;
+        final Histogram      histogram;
+        // Value of a gauge or a counter
+        final DoubleSupplier gauge;
+
+        Series(String labels, Histogram histogram, DoubleSupplier gauge) {
+            this.labels = labels;
+            this.histogram = histogram;
+            this.gauge = gauge;
+        }
+    }
+
+    static class Family {
+        final String name;
+        final String help;
+        final String type;
+
+        // Families are only extended while server is built, so rendering never sees partial updates
+        volatile List<Series> series = List.empty();
+
+        Family(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+
+    final java.util.Map<String, Integer> tableIndex;
+    final String[]                       tables;
+
+    volatile List<Family> families = List.empty();
+
+    Metrics(List<String> tables) {
+        // Index 0 is reserved for requests that are not related to any table
+        this.tables = tables.prepend("").toJavaArray(String[]::new);
+        this.tableIndex = new java.util.HashMap<>();
+        for (int i = 1; i < this.tables.length; i++) {
+            tableIndex.put(this.tables[i], i);
+        }
+    }
+
+    public static Metrics of(Schema schema) {
+        Metrics metrics = new Metrics(schema.tables.keySet().toList().sorted());
+        metrics.register(Name.JSON_DURATION, "Time spent serializing JSON responses", "", Http.JSON_SECONDS);
+        metrics.register(Name.JSON_BYTES, "Size of serialized JSON responses", "", Http.JSON_BYTES);
+        return metrics;
+    }
+
+    public Metrics pool(BasicDataSource pool) {
+        gauge(Name.POOL_ACTIVE, "Connections borrowed from the pool", pool::getNumActive);
+        gauge(Name.POOL_IDLE, "Idle connections in the pool", pool::getNumIdle);
+        if (pool instanceof PoolDataSource) {
+            PoolDataSource statistics = (PoolDataSource) pool;
+            gauge(Name.POOL_WAITERS, "Threads waiting for a connection", statistics::getNumWaiters);
+            gauge(Name.POOL_WAIT,
+                    "Mean time spent waiting for a connection",
+                    () -> statistics.getMeanBorrowWaitTimeMillis() / 1000.0);
+            gauge(Name.POOL_WAIT_MAX,
+                    "Max time spent waiting for a connection",
+                    () -> statistics.getMaxBorrowWaitTimeMillis() / 1000.0);
+        }
+        return this;
+    }
+
+    public Metrics lanes(Map<Workload, JDBC.Lane> lanes) {
+        for (Tuple2<Workload, JDBC.Lane> lane : lanes.toList().sortBy(t -> t._1)) {
+            ConcurrencyLimiter limiter = lane._2.limiter;
+            if (limiter.isUnlimited()) {
+                continue;
+            }
+            String labels = labels(Label.WORKLOAD, lane._1.name().toLowerCase());
+            gauge(Name.LIMIT, "Statements allowed to run at once", labels, limiter::getLimit);
+            gauge(Name.LIMIT_RUNNING, "Statements running", labels, limiter::getInFlight);
+            gauge(Name.LIMIT_WAITING, "Statements waiting for the concurrency limit", labels, limiter::getWaiting);
+            counter(Name.LIMIT_SHED, "Statements rejected by the concurrency limit", labels, limiter::getRejected);
+        }
+        return this;
+    }
+
+    public Metrics breaker(CircuitBreaker breaker) {
+        if (!breaker.isDisabled()) {
+            gauge(Name.CIRCUIT_OPEN, "Whether requests to the database are rejected", () -> breaker.isOpen() ? 1 : 0);
+            counter(Name.CIRCUIT_SHED, "Statements rejected while the database was unavailable", breaker::getRejected);
+        }
+        return this;
+    }
+
+    public Metrics replicas(Replicas replicas) {
+        for (Replica replica : replicas.getReplicas()) {
+            String labels = labels(Label.REPLICA, replica.name);
+            gauge(Name.REPLICA_UP, "Whether reads are routed to the replica", labels, () -> replica.isHealthy() ? 1 : 0);
+            gauge(Name.REPLICA_LAG, "WAL bytes the replica is behind the primary", labels, () -> replica.getLagBytes());
+        }
+        return this;
+    }
+
+    public Metrics singleFlight(SingleFlight singleFlight) {
+        if (singleFlight.enabled) {
+            counter(Name.SHARED, "Reads served by an identical statement already running", singleFlight::getShared);
+            gauge(Name.SHARING, "Distinct reads running, that others may join", singleFlight::getInFlight);
+        }
+        return this;
+    }
+
+    public Metrics groupCommit(GroupCommit groupCommit) {
+        if (groupCommit.isEnabled()) {
+            counter(Name.GROUP_BATCHES, "Insert statements executed by group commit", groupCommit::getBatches);
+            counter(Name.GROUP_ROWS, "Rows inserted by group commit", groupCommit::getRows);
+            counter(Name.GROUP_RETRIES, "Batches retried row by row after a constraint violation", groupCommit::getFallbacks);
+        }
+        return this;
+    }
+
+    public HttpHandler measure(String handler, boolean byTable, HttpHandler next) {
+        // All label combinations are created upfront, so request only picks histogram by indexes
+        Histogram[][] histograms = new Histogram[METHODS.length][byTable ? tables.length : 1];
+        for (int m = 0; m < histograms.length; m++) {
+            for (int t = 0; t < histograms[m].length; t++) {
+                histograms[m][t] = histogram(Name.HTTP_DURATION,
+                        "HTTP request latency",
+                        labels(Label.HANDLER, handler, Label.METHOD, METHODS[m], Label.TABLE, tables[t]),
+                        Histogram.SECONDS);
+            }
+        }
+
+        return exchange -> {
+            long start = System.nanoTime();
+            try {
+                next.handle(exchange);
+            } finally {
+                int method = methodIndex(exchange.getRequestMethod());
+                int table  = byTable ? tableIndex(exchange.getRequestURI().getPath(), exchange.getHttpContext().getPath()) : 0;
+                histograms[method][table].observeNanos(System.nanoTime() - start);
+            }
+        };
+    }
+
+    public Histogram histogram(String name, String help, String labels, double[] bounds) {
+        Histogram histogram = new Histogram(bounds);
+        register(name, help, labels, histogram);
+        return histogram;
+    }
+
+    public synchronized void register(String name, String help, String labels, Histogram histogram) {
+        Family family = family(name, help, HISTOGRAM);
+        family.series = family.series.append(new Series(labels, histogram, null));
+    }
+
+    public void gauge(String name, String help, DoubleSupplier gauge) {
+        gauge(name, help, "", gauge);
+    }
+
+    public synchronized void gauge(String name, String help, String labels, DoubleSupplier gauge) {
+        Family family = family(name, help, GAUGE);
+        family.series = family.series.append(new Series(labels, null, gauge));
+    }
+
+    public void counter(String name, String help, DoubleSupplier counter) {
+        counter(name, help, "", counter);
+    }
+
+    public synchronized void counter(String name, String help, String labels, DoubleSupplier counter) {
+        Family family = family(name, help, COUNTER);
+        family.series = family.series.append(new Series(labels, null, counter));
+    }
+
+    Family family(String name, String help, String type) {
+        Family family = families.find(f -> f.name.equals(name)).getOrNull();
+        if (null == family) {
+            family = new Family(name, help, type);
+            families = families.append(family);
+        }
+        return family;
+    }
+
+    static int methodIndex(String method) {
+        for (int i = 0; i < METHODS.length - 1; i++) {
+            if (METHODS[i].equalsIgnoreCase(method)) {
+                return i;
+            }
+        }
+        return METHODS.length - 1;
+    }
+
+    int tableIndex(String path, String contextPath) {
+        int start = path.startsWith(contextPath) ? contextPath.length() : 0;
+        if (start < path.length() && '/' == path.charAt(start)) {
+            start++;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        Integer index = start < end ? tableIndex.get(path.substring(start, end)) : null;
+        return null == index ? 0 : index;
+    }
+
+    public static String labels(String... namesAndValues) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i + 1 < namesAndValues.length; i += 2) {
+            if (0 < result.length()) {
+                result.append(',');
+            }
+            result.append(namesAndValues[i]).append("=\"");
+            escape(result, namesAndValues[i + 1]);
+            result.append('"');
+        }
+        return result.toString();
+    }
+
+    static void escape(StringBuilder result, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '"':
+                    result.append("\\\"");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                default:
+                    result.append(c);
+            }
+        }
+    }
+
+    public String render() {
+        StringBuilder result = new StringBuilder();
+        for (Family family : families) {
+            result.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+            result.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+            for (Series series : family.series) {
+                if (null == series.histogram) {
+                    renderGauge(result, family.name, series);
+                } else {
+                    renderHistogram(result, family.name, series);
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    static void renderGauge(StringBuilder result, String name, Series series) {
+        sample(result, name, series.labels, series.gauge.getAsDouble());
+    }
+
+    static void renderHistogram(StringBuilder result, String name, Series series) {
+        long[] counts = series.histogram.cumulative();
+        long   count  = counts[counts.length - 1];
+        if (0 == count && !series.labels.isEmpty()) {
+            // Most of label combinations are never used, there is no value in exposing them
+            return;
+        }
+
+        String   prefix = series.labels.isEmpty() ? "" : series.labels + ",";
+        double[] bounds = series.histogram.bounds();
+        for (int i = 0; i < bounds.length; i++) {
+            sample(result, name + "_bucket", prefix + "le=\"" + number(bounds[i]) + "\"", counts[i]);
+        }
+        sample(result, name + "_bucket", prefix + "le=\"+Inf\"", count);
+        sample(result, name + "_sum", series.labels, series.histogram.sum());
+        sample(result, name + "_count", series.labels, count);
+    }
+
+    static void sample(StringBuilder result, String name, String labels, double value) {
+        result.append(name);
+        if (!labels.isEmpty()) {
+            result.append('{').append(labels).append('}');
+        }
+        result.append(' ').append(number(value)).append('\n');
+    }
+
+    static String number(double value) {
+        return value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15
+                ? Long.toString((long) value)
+                : Double.toString(value);
+    }
+}
@@ -0,0 +1,37 @@
+package org.statemach.db.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+public class MetricsHandler implements HttpHandler {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    final Metrics metrics;
+
+    public MetricsHandler(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+            throw new Http.Error(Http.ErrorCode.METHOD_NOT_ALLOWED,
+                    "Method ${0} is not supported by metrics endpoint",
+                    exchange.getRequestMethod());
+        }
+
+        byte[] binary = metrics.render().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(Http.Header.CONTENT_TYPE, CONTENT_TYPE);
+        exchange.sendResponseHeaders(Http.ErrorCode.OK, binary.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(binary);
+        }
+    }
+}
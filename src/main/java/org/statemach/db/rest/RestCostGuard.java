@@ -0,0 +1,76 @@
+package org.statemach.db.rest;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.statemach.db.jdbc.Extract;
+import org.statemach.db.schema.TableInfo;
+import org.statemach.db.sql.DataAccess;
+import org.statemach.db.sql.QueryPlan;
+import org.statemach.db.sql.SQLBuilder;
+import org.statemach.db.sql.View;
+import org.statemach.util.Http;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+public class RestCostGuard {
+
+    static final int CACHE_LIMIT = 1024;
+
+    final DataAccess                 dataAccess;
+    final SQLBuilder                 sqlBuilder;
+    public final Map<String, Double> maxCostByTable;
+    public final Option<Double>      maxCost;
+
+    // Verdict per statement shape: rejected plan or none, when statement is accepted
+    final java.util.Map<String, Option<QueryPlan>> verdicts = new ConcurrentHashMap<>();
+
+    public RestCostGuard(DataAccess dataAccess,
+                         SQLBuilder sqlBuilder,
+                         Map<String, Double> maxCostByTable,
+                         Option<Double> maxCost) {
+        this.dataAccess = dataAccess;
+        this.sqlBuilder = sqlBuilder;
+        this.maxCostByTable = maxCostByTable;
+        this.maxCost = maxCost;
+    }
+
+    public static RestCostGuard of(DataAccess dataAccess, Map<String, Double> maxCostByTable, Option<Double> maxCost) {
+        return new RestCostGuard(dataAccess, dataAccess.builder(), maxCostByTable, maxCost);
+    }
+
+    public static RestCostGuard disabled(DataAccess dataAccess) {
+        return of(dataAccess, HashMap.empty(), Option.none());
+    }
+
+    public void check(TableInfo table, View<Tuple2<String, Extract<?>>> view) {
+        Option<Double> limit = maxCostByTable.get(table.name).orElse(maxCost);
+        if (limit.isEmpty()) {
+            return;
+        }
+
+        // Injected values are not part of SQL, so the same SQL text is the same statement shape
+        String            shape    = sqlBuilder.querySql(List.empty(), view);
+        Option<QueryPlan> rejected = verdicts.get(shape);
+        if (null == rejected) {
+            rejected = Option.of(dataAccess.explain(List.empty(), view)).filter(p -> p.cost > limit.get());
+            if (verdicts.size() >= CACHE_LIMIT) {
+                verdicts.clear();
+            }
+            verdicts.put(shape, rejected);
+        }
+
+        if (rejected.isDefined()) {
+            throw new Http.Error(Http.ErrorCode.UNPROCESSABLE_ENTITY,
+                    "Query on ${0} table is too expensive: estimated cost ${1} is over ${2} limit, plan: ${3}. "
+                            + "Please, filter or order by indexed columns.",
+                    table.name,
+                    rejected.get().cost,
+                    limit.get(),
+                    rejected.get().summary);
+        }
+    }
+}
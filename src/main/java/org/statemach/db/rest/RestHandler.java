@@ -1,9 +1,16 @@
 package org.statemach.db.rest;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.statemach.db.advisor.AccessPatterns;
+import org.statemach.db.graphql.ForeignKeyJoin;
 import org.statemach.db.jdbc.Extract;
 import org.statemach.db.jdbc.Inject;
+import org.statemach.db.jdbc.Workload;
 import org.statemach.db.schema.ColumnInfo;
 import org.statemach.db.schema.DataType;
+import org.statemach.db.schema.ForeignKey;
 import org.statemach.db.schema.PrimaryKey;
 import org.statemach.db.schema.Schema;
 import org.statemach.db.schema.TableInfo;
@@ -38,29 +45,69 @@ public class RestHandler implements HttpHandler {
         static final String ORDER       = "$order";
         static final String SKIP        = "$skip";
         static final String LIMIT       = "$limit";
+        static final String MAX         = "$max";
+        static final String IDS         = "$ids";
+        static final String EXPAND      = "$expand";
         static final String AUX_PREFIX  = "$";
         static final String DESC_PREFIX = "-";
         static final String ID_DIVIDER  = ":";
+        static final String IDS_DIVIDER = ",";
+        static final String PATH_REGEX  = "\\.";
+        static final String PATH_JOINER = ".";
+    }
+
+    static interface Batch {
+        static final String PATH   = "$batch";
+        static final String INSERT = "insert";
+        static final String MERGE  = "merge";
+        static final String UPDATE = "update";
+        static final String DELETE = "delete";
+        static final String GET    = "get";
+        static final int    LIMIT  = 100;
+
+        // ${2.id} stands for column id of the row, returned by operation 2 of the same batch
+        static final Pattern REFERENCE = Pattern.compile("\\$\\{(\\d+)\\.([^}]+)\\}");
+    }
+
+    static class Operation {
+        public String              op;
+        public String              table;
+        public String              id;
+        public String              select;
+        public Map<String, Object> body;
     }
 
     static final String ALIAS          = "t";
+    static final String KEYS_ALIAS     = "k";
+    static final String ORDINALITY     = "ordinality";
     static final int    DEFAULT_LIMIT  = 10;
     static final int    IN_PARAM_LIMIT = 7;
+    static final int    IDS_LIMIT      = 100;
 
-    final Schema     schema;
-    final DataAccess dataAccess;
-    final SQLBuilder sqlBuilder;
+    final Schema         schema;
+    final DataAccess     dataAccess;
+    final SQLBuilder     sqlBuilder;
+    final RestCostGuard  costGuard;
+    final AccessPatterns patterns;
 
     public RestHandler(Schema schema,
                        DataAccess dataAccess,
-                       SQLBuilder sqlBuilder) {
+                       SQLBuilder sqlBuilder,
+                       RestCostGuard costGuard,
+                       AccessPatterns patterns) {
         this.schema = schema;
         this.dataAccess = dataAccess;
         this.sqlBuilder = sqlBuilder;
+        this.costGuard = costGuard;
+        this.patterns = patterns;
     }
 
-    public static RestHandler of(Schema schema, DataAccess dataAccess) {
-        return new RestHandler(schema, dataAccess, dataAccess.builder());
+    public static RestHandler of(Schema schema, DataAccess dataAccess, RestCostGuard costGuard) {
+        return of(schema, dataAccess, costGuard, AccessPatterns.DISABLED);
+    }
+
+    public static RestHandler of(Schema schema, DataAccess dataAccess, RestCostGuard costGuard, AccessPatterns patterns) {
+        return new RestHandler(schema, dataAccess, dataAccess.builder(), costGuard, patterns);
     }
 
     @Override
@@ -70,16 +117,20 @@ public class RestHandler implements HttpHandler {
                 get(exchange);
                 break;
             case "POST":
-                insert(exchange);
+                if (Batch.PATH.equals(Http.subContextPath(exchange))) {
+                    Workload.run(Workload.MUTATION, () -> batch(exchange));
+                } else {
+                    Workload.run(Workload.MUTATION, () -> insert(exchange));
+                }
                 break;
             case "PUT":
-                merge(exchange);
+                Workload.run(Workload.MUTATION, () -> merge(exchange));
                 break;
             case "PATCH":
-                update(exchange);
+                Workload.run(Workload.MUTATION, () -> update(exchange));
                 break;
             case "DELETE":
-                delete(exchange);
+                Workload.run(Workload.MUTATION, () -> delete(exchange));
                 break;
             default:
                 break;
@@ -94,11 +145,18 @@ public class RestHandler implements HttpHandler {
             getListOfTables(exchange);
             return;
         }
-        if (1 == items.length || Java.isEmpty(items[1])) {
-            queryTable(exchange, items[0]);
+        if (1 < items.length && !Java.isEmpty(items[1])) {
+            Workload.run(Workload.LOOKUP, () -> getRow(exchange, items[0], items[1]));
             return;
         }
-        getRow(exchange, items[0], items[1]);
+
+        // Several ids are asked by parameter, since id in the path may contain the divider itself
+        Option<List<String>> ids = Http.queryParams(exchange).get(QueryParam.IDS);
+        if (ids.isDefined()) {
+            Workload.run(Workload.LOOKUP, () -> getRows(exchange, items[0], ids.get()));
+            return;
+        }
+        queryTable(exchange, items[0]);
     }
 
     void insert(HttpExchange exchange) {
@@ -139,9 +197,13 @@ public class RestHandler implements HttpHandler {
         String path = Http.subContextPath(exchange);
 
         String[] items = path.split("/", 2);
-        if (2 != items.length || Java.isEmpty(items[0]) || Java.isEmpty(items[1])) {
+        if (Java.isEmpty(items[0])) {
             throw new Http.Error(Http.ErrorCode.BAD_REQUEST, "Request path ${0} is incorrect. Please, provide table/id.", path);
         }
+        if (1 == items.length || Java.isEmpty(items[1])) {
+            updateWhere(exchange, items[0]);
+            return;
+        }
 
         TableInfo           table = getTable(items[0]);
         Map<String, Inject> id    = parseId(table, items[1]);
@@ -165,9 +227,13 @@ public class RestHandler implements HttpHandler {
         String path = Http.subContextPath(exchange);
 
         String[] items = path.split("/", 2);
-        if (2 != items.length || Java.isEmpty(items[0]) || Java.isEmpty(items[1])) {
+        if (Java.isEmpty(items[0])) {
             throw new Http.Error(Http.ErrorCode.BAD_REQUEST, "Request path ${0} is incorrect. Please, provide table/id.", path);
         }
+        if (1 == items.length || Java.isEmpty(items[1])) {
+            deleteWhere(exchange, items[0]);
+            return;
+        }
 
         TableInfo           table = getTable(items[0]);
         Map<String, Inject> id    = parseId(table, items[1]);
@@ -183,6 +249,149 @@ public class RestHandler implements HttpHandler {
                             table)));
     }
 
+    void updateWhere(HttpExchange exchange, String tableName) {
+        TableInfo                 table = getTable(tableName);
+        Map<String, List<String>> query = Http.queryParams(exchange);
+
+        int                     max       = getMax(query, table);
+        View<String>            keys      = getKeys(query, table);
+        Map<String, Extract<?>> returning = getSelect(query, table);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> entity = Http.extract(exchange, Map.class);
+        Map<String, Inject> values = entity.flatMap(t -> getInject(table, t._1, t._2)).toMap(t -> t);
+
+        Http.json(exchange, dataAccess.updateWhere(table.name, keys, max, values, returning));
+    }
+
+    void deleteWhere(HttpExchange exchange, String tableName) {
+        TableInfo                 table = getTable(tableName);
+        Map<String, List<String>> query = Http.queryParams(exchange);
+
+        int                     max       = getMax(query, table);
+        View<String>            keys      = getKeys(query, table);
+        Map<String, Extract<?>> returning = getSelect(query, table);
+
+        Http.json(exchange, dataAccess.deleteWhere(table.name, keys, max, returning));
+    }
+
+    void batch(HttpExchange exchange) {
+        Operation[] operations = Http.extract(exchange, Operation[].class);
+        if (null == operations || Batch.LIMIT < operations.length) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Batch should be an array of no more than ${0} operations",
+                    Batch.LIMIT);
+        }
+
+        // All operations share one connection and one transaction, so the batch applies completely or not at all
+        List<Map<String, Object>> result = dataAccess.transaction(() -> {
+            List<Map<String, Object>> results = List.empty();
+            for (int i = 0; i < operations.length; i++) {
+                results = results.append(execute(i, operations[i], results));
+            }
+            return results;
+        });
+
+        Http.json(exchange, result);
+    }
+
+    Map<String, Object> execute(int index, Operation operation, List<Map<String, Object>> results) {
+        try {
+            TableInfo               table     = getTable(operation.table);
+            Map<String, Extract<?>> returning = getSelect(null == operation.select
+                    ? HashMap.empty()
+                    : HashMap.of(QueryParam.SELECT, List.of(operation.select)), table);
+            Map<String, Inject>     values    = Option.of(operation.body)
+                .getOrElse(HashMap::empty)
+                .flatMap(t -> getInject(table, t._1, resolve(results, t._2)))
+                .toMap(t -> t);
+
+            String op = Java.toStringOrEmpty(operation.op).toLowerCase();
+            if (Batch.INSERT.equals(op)) {
+                return dataAccess.insert(table.name, values, returning);
+            }
+
+            if (null == operation.id) {
+                throw new Http.Error(Http.ErrorCode.BAD_REQUEST, "Operation ${0} requires id", op);
+            }
+            String              id         = resolveText(results, operation.id);
+            Map<String, Inject> primaryKey = parseId(table, id);
+            switch (op) {
+                case Batch.MERGE:
+                    return dataAccess.merge(table.name, primaryKey, values, returning);
+                case Batch.UPDATE:
+                    return dataAccess.update(table.name, primaryKey, values, returning)
+                        .getOrElseThrow(() -> notFound(id, table));
+                case Batch.DELETE:
+                    return dataAccess.delete(table.name, primaryKey, returning)
+                        .getOrElseThrow(() -> notFound(id, table));
+                case Batch.GET:
+                    return dataAccess.select(table.name, primaryKey, returning)
+                        .getOrElseThrow(() -> notFound(id, table));
+                default:
+                    throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                            "Operation '${0}' is not supported, expecting one of ${1}",
+                            operation.op,
+                            List.of(Batch.INSERT, Batch.MERGE, Batch.UPDATE, Batch.DELETE, Batch.GET).mkString(", "));
+            }
+        } catch (Http.Overloaded ex) {
+            throw ex;
+        } catch (Http.Error ex) {
+            throw new Http.Error(ex.errorCode, ex, "Operation ${0} of the batch failed: ${1}", index, ex.getMessage());
+        } catch (RuntimeException ex) {
+            throw new Http.Error(Http.ErrorCode.INTERNAL_SERVER_ERROR,
+                    ex,
+                    "Operation ${0} of the batch failed: ${1}",
+                    index,
+                    ex.getMessage());
+        }
+    }
+
+    Object resolve(List<Map<String, Object>> results, Object value) {
+        if (!(value instanceof String)) {
+            return value;
+        }
+
+        // Whole value reference keeps the type of the referenced column
+        Matcher matcher = Batch.REFERENCE.matcher((String) value);
+        return matcher.matches()
+                ? reference(results, matcher.group(1), matcher.group(2))
+                : resolveText(results, (String) value);
+    }
+
+    String resolveText(List<Map<String, Object>> results, String value) {
+        Matcher       matcher = Batch.REFERENCE.matcher(value);
+        StringBuilder result  = new StringBuilder();
+        while (matcher.find()) {
+            Object referenced = reference(results, matcher.group(1), matcher.group(2));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(Java.toStringOrEmpty(referenced)));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    Object reference(List<Map<String, Object>> results, String index, String column) {
+        int position = Integer.parseInt(index);
+        if (results.size() <= position) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Reference to operation ${0} can be used only by the operations after it",
+                    position);
+        }
+        return results.get(position)
+            .get(column)
+            .getOrElseThrow(() -> new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Result of operation ${0} has no ${1} column, please add it to select of that operation",
+                    position,
+                    column));
+    }
+
+    Http.Error notFound(String id, TableInfo table) {
+        return new Http.Error(Http.ErrorCode.NOT_FOUND,
+                "No item with id = ${0} is present in ${1} table",
+                id,
+                table.name);
+    }
+
     Option<Tuple2<String, Inject>> getInject(TableInfo table, String columnName, Object value) {
         Option<ColumnInfo> column = table.columns.get(columnName);
         if (column.isEmpty()) {
@@ -198,26 +407,127 @@ public class RestHandler implements HttpHandler {
     }
 
     void getListOfTables(HttpExchange exchange) {
-        Http.json(exchange, schema.tables.mapValues(t -> t.columns.mapValues(c -> c.type.name)));
+        Http.conditionalJson(exchange, schema.tables.mapValues(t -> t.columns.mapValues(c -> c.type.name)));
     }
 
     void queryTable(HttpExchange exchange, String tableName) {
         Map<String, List<String>> query = Http.queryParams(exchange);
 
-        TableInfo             table     = getTable(tableName);
-        Tuple2<Long, Integer> skipLimit = getSkipLimit(query);
+        TableInfo                                       table     = getTable(tableName);
+        Tuple2<Long, Integer>                           skipLimit = getSkipLimit(query);
+        NodeLinkTree<String, TableInfo, ForeignKeyJoin> expand    = getExpand(query, table);
+        NodeLinkTree<String, From, Join>                joins     = getJoins(expand);
+        Map<String, Extract<?>>                         select    = getSelect(query, expand);
+        Map<String, Extract<?>>                         extract   = select.merge(getExpandMarkers(expand));
 
         View<Tuple2<String, Extract<?>>> view = new View<>(
                 "",
-                NodeLinkTree.<String, From, Join>of(new From(TableLike.of(schema, table), ALIAS)),
+                joins,
                 getConditions(query, table),
                 getOrder(query, table),
-                getSelect(query, table).map(t -> Select.of(ALIAS, t._1, t)).toList(),
-                true,
+                extract.map(t -> getExpandedSelect(joins, t)).toList(),
+                isDistinct(table, select),
                 skipLimit._1,
                 skipLimit._2);
 
-        Http.json(exchange, dataAccess.query(List.empty(), view));
+        Workload workload = Workload.query(skipLimit._2);
+        Workload.run(workload, () -> costGuard.check(table, view));
+
+        long                      start  = System.nanoTime();
+        List<Map<String, Object>> result = Workload.with(workload, () -> dataAccess.query(List.empty(), view));
+        patterns.record(table.name,
+                getFilterColumns(query, table),
+                view.order.map(s -> new Tuple2<>(s.column, s._1)),
+                System.nanoTime() - start);
+        Http.conditionalJson(exchange, expand.links.isEmpty()
+                ? result
+                : result.map(r -> nest(r, expand, List.empty(), select)));
+    }
+
+    NodeLinkTree<String, TableInfo, ForeignKeyJoin> getExpand(Map<String, List<String>> query, TableInfo table) {
+        // Outgoing foreign key references at most one row, so LEFT joins never multiply rows of the table
+        return query.get(QueryParam.EXPAND)
+            .getOrElse(List.empty())
+            .flatMap(s -> List.of(s.split(",")))
+            .map(p -> List.of(p.split(QueryParam.PATH_REGEX)))
+            .foldLeft(NodeLinkTree.<String, TableInfo, ForeignKeyJoin>of(table),
+                    (t, p) -> t.putIfMissed(p, this::getOutgoing));
+    }
+
+    Tuple2<ForeignKeyJoin, TableInfo> getOutgoing(TableInfo table, String name) {
+        ForeignKey outgoing = table.outgoing.get(name)
+            .getOrElseThrow(() -> new Http.Error(
+                    Http.ErrorCode.BAD_REQUEST,
+                    "Table ${0} has no outgoing foreign key ${1} for ${2} parameter",
+                    table.name,
+                    name,
+                    QueryParam.EXPAND));
+        return new Tuple2<>(new ForeignKeyJoin(Join.Kind.LEFT, outgoing, true), schema.tables.get(outgoing.toTable).get());
+    }
+
+    NodeLinkTree<String, From, Join> getJoins(NodeLinkTree<String, TableInfo, ForeignKeyJoin> expand) {
+        return expand
+            .mapNodesWithIndex(0, (t, i) -> new From(TableLike.of(schema, t), 0 == i ? ALIAS : ALIAS + i))
+            .mapLinksWithNodes(t -> new Join(t._2.joinKind,
+                    sqlBuilder.and(t._2.foreignKey.matchingColumns
+                        .map(m -> sqlBuilder.equal(Select.of(t._1.alias, m.from), Select.of(t._3.alias, m.to))))));
+    }
+
+    Map<String, Extract<?>> getExpandMarkers(NodeLinkTree<String, TableInfo, ForeignKeyJoin> expand) {
+        // Referenced column is null only when there is no referenced row, so it tells a missing row from a row of nulls
+        return getPaths(expand)
+            .filter(p -> !p.isEmpty())
+            .map(p -> {
+                ForeignKeyJoin join   = expand.getLink(p).get();
+                ColumnInfo     column = expand.getNode(p).get().columns.get(join.foreignKey.matchingColumns.head().to).get();
+                return new Tuple2<String, Extract<?>>(getPathName(p, column.name), column.type.extractJsonValue);
+            })
+            .toMap(t -> t);
+    }
+
+    Select<Tuple2<String, Extract<?>>> getExpandedSelect(NodeLinkTree<String, From, Join> joins, Tuple2<String, Extract<?>> extract) {
+        List<String> path = List.of(extract._1.split(QueryParam.PATH_REGEX));
+        return Select.of(joins.getNode(path.init()).get().alias, path.last(), extract);
+    }
+
+    Map<String, Object> nest(Map<String, Object> row,
+                             NodeLinkTree<String, TableInfo, ForeignKeyJoin> expand,
+                             List<String> path,
+                             Map<String, Extract<?>> select) {
+        Map<String, Object> columns = expand.node.columns.keySet()
+            .filter(c -> select.containsKey(getPathName(path, c)))
+            .toLinkedMap(c -> new Tuple2<>(c, row.get(getPathName(path, c)).getOrNull()));
+
+        // Embedded rows follow the columns of their table in the order of its definition
+        return expand.links.foldLeft(columns, (m, l) -> {
+            List<String> child  = path.append(l._1);
+            Object       marker = row.get(getPathName(child, l._2._1.foreignKey.matchingColumns.head().to)).getOrNull();
+            return m.put(l._1, null == marker ? null : nest(row, l._2._2, child, select));
+        });
+    }
+
+    static List<List<String>> getPaths(NodeLinkTree<String, TableInfo, ForeignKeyJoin> expand) {
+        return expand.links
+            .toList()
+            .flatMap(l -> getPaths(l._2._2).map(p -> p.prepend(l._1)))
+            .prepend(List.empty());
+    }
+
+    static String getPathName(List<String> path, String column) {
+        return path.append(column).mkString(QueryParam.PATH_JOINER);
+    }
+
+    List<String> getFilterColumns(Map<String, List<String>> query, TableInfo table) {
+        // Full text search is served by a different kind of index, so it is not a B-tree candidate
+        return query.keySet()
+            .filter(k -> !k.startsWith(QueryParam.AUX_PREFIX))
+            .filter(k -> PostgresDataType.TSVECTOR != table.columns.get(k).get().type)
+            .toList();
+    }
+
+    boolean isDistinct(TableInfo table, Map<String, Extract<?>> select) {
+        // Rows of a single table are already unique, when all primary key columns are selected
+        return table.primary.isEmpty() || !table.primary.get().columns.forAll(select::containsKey);
     }
 
     void getRow(HttpExchange exchange, String tableName, String id) {
@@ -231,7 +541,7 @@ public class RestHandler implements HttpHandler {
 
         Map<String, Inject>     primaryKey = parseId(table, id);
         Map<String, Extract<?>> select     = getSelect(query, table);
-        Http.json(exchange,
+        Http.conditionalJson(exchange,
                 dataAccess.select(tableName, primaryKey, select)
                     .getOrElseThrow(() -> new Http.Error(Http.ErrorCode.NOT_FOUND,
                             "No item with id = ${0} is present in ${1} table",
@@ -239,25 +549,87 @@ public class RestHandler implements HttpHandler {
                             table)));
     }
 
+    void getRows(HttpExchange exchange, String tableName, List<String> ids) {
+        Map<String, List<String>> query = Http.queryParams(exchange);
+
+        TableInfo          table = getTable(tableName);
+        List<List<String>> keys  = ids
+            .flatMap(p -> List.of(p.split(QueryParam.IDS_DIVIDER, -1)))
+            .map(id -> splitId(table, id));
+        if (IDS_LIMIT < keys.size()) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "No more than ${0} ids can be requested at once by parameter ${1}",
+                    IDS_LIMIT,
+                    QueryParam.IDS);
+        }
+
+        // Primary key of a missing row is null, while other selected columns may be null in a present row
+        List<ColumnInfo>        pk      = table.primary.get().columns.map(c -> table.columns.get(c).get());
+        String                  found   = pk.head().name;
+        Map<String, Extract<?>> select  = getSelect(query, table);
+        Map<String, Extract<?>> extract = select.put(found, pk.head().type.extractJsonValue);
+
+        // Requested ids drive the query, so rows come back in request order, one per id
+        NodeLinkTree<String, From, Join> joins = NodeLinkTree
+            .<String, From, Join>of(new From(sqlBuilder.stringArrayAsTable(pk, keys, ORDINALITY), KEYS_ALIAS))
+            .put("",
+                    new Join(Join.Kind.LEFT, sqlBuilder.and(pk.map(c -> sqlBuilder.equal(
+                            Select.of(KEYS_ALIAS, c.name),
+                            Select.of(ALIAS, c.name))))),
+                    NodeLinkTree.of(new From(TableLike.of(schema, table), ALIAS)));
+
+        View<Tuple2<String, Extract<?>>> view = new View<>(
+                "",
+                joins,
+                Condition.NONE,
+                List.of(Select.of(KEYS_ALIAS, ORDINALITY, true)),
+                extract.map(t -> Select.of(ALIAS, t._1, t)).toList(),
+                false,
+                null,
+                null);
+
+        List<Map<String, Object>> rows = dataAccess.query(List.empty(), view);
+        Http.conditionalJson(exchange, rows.map(r -> null == r.get(found).getOrNull()
+                ? null
+                : r.filterKeys(select::containsKey)));
+    }
+
     Map<String, Extract<?>> getSelect(Map<String, List<String>> query, TableInfo table) {
+        return getSelect(query, NodeLinkTree.of(table));
+    }
+
+    Map<String, Extract<?>> getSelect(Map<String, List<String>> query, NodeLinkTree<String, TableInfo, ForeignKeyJoin> expand) {
         Option<List<String>> param = query.get(QueryParam.SELECT);
         if (param.isEmpty()) {
-            return table.columns.values()
-                .flatMap(this::getExtract)
+            return getPaths(expand)
+                .flatMap(p -> expand.getNode(p).get().columns.values()
+                    .flatMap(this::getExtract)
+                    .map(t -> t.map1(c -> getPathName(p, c))))
                 .toMap(t -> t);
 
         }
         return param.get()
             .flatMap(s -> List.of(s.split(",")))
-            .map(c -> getColumn(table, c))
-            .map(c -> getExtract(c).getOrElseThrow(() -> new Http.Error(
+            .map(s -> List.of(s.split(QueryParam.PATH_REGEX)))
+            .map(p -> new Tuple2<>(p.init(), getColumn(getExpandedTable(expand, p.init()), p.last())))
+            .map(t -> getExtract(t._2).map(e -> e.map1(c -> getPathName(t._1, c))).getOrElseThrow(() -> new Http.Error(
                     Http.ErrorCode.BAD_REQUEST,
                     "Column ${0} is not supported for ${1} parameter",
-                    c,
+                    t._2,
                     QueryParam.SELECT)))
             .toMap(t -> t);
     }
 
+    TableInfo getExpandedTable(NodeLinkTree<String, TableInfo, ForeignKeyJoin> expand, List<String> path) {
+        return expand.getNode(path)
+            .getOrElseThrow(() -> new Http.Error(
+                    Http.ErrorCode.BAD_REQUEST,
+                    "Path ${0} of ${1} parameter is not listed in ${2} parameter",
+                    path.mkString(QueryParam.PATH_JOINER),
+                    QueryParam.SELECT,
+                    QueryParam.EXPAND));
+    }
+
     Option<Tuple2<String, Extract<?>>> getExtract(ColumnInfo column) {
         return column.type.isExtractable
                 ? Option.of(new Tuple2<>(column.name, column.type.extractJsonValue))
@@ -270,6 +642,57 @@ public class RestHandler implements HttpHandler {
             .map(t -> conditionFrom(table, t._1, t._2)));
     }
 
+    View<String> getKeys(Map<String, List<String>> query, TableInfo table) {
+        if (table.primary.isEmpty()) {
+            throw new Error(ErrorCode.BAD_REQUEST,
+                    "Change by filter is not supported by table ${0}",
+                    table.name);
+        }
+
+        Condition where = getConditions(query, table);
+        if (Condition.NONE == where) {
+            throw new Error(ErrorCode.BAD_REQUEST,
+                    "Provide table/id, or at least one column condition to change rows of ${0} table",
+                    table.name);
+        }
+
+        return new View<>(
+                "",
+                NodeLinkTree.<String, From, Join>of(new From(TableLike.of(schema, table), ALIAS)),
+                where,
+                List.empty(),
+                table.primary.get().columns.map(c -> Select.of(ALIAS, c, c)),
+                false,
+                null,
+                null);
+    }
+
+    int getMax(Map<String, List<String>> query, TableInfo table) {
+        // Mistyped filter should fail on a cap the client has chosen, instead of changing the whole table
+        Option<String> param = query.get(QueryParam.MAX).map(l -> l.get());
+        if (param.isEmpty()) {
+            throw new Error(ErrorCode.BAD_REQUEST,
+                    "Parameter ${0} with the most rows to change is required to change rows of ${1} table by filter",
+                    QueryParam.MAX,
+                    table.name);
+        }
+
+        int max;
+        try {
+            max = Integer.parseInt(param.get().trim());
+        } catch (NumberFormatException ex) {
+            max = 0;
+        }
+        if (max < 1 || DataAccess.MAX_CHANGED_ROWS < max) {
+            throw new Error(ErrorCode.BAD_REQUEST,
+                    "Parameter ${0} should be a number from 1 to ${1}, got '${2}'",
+                    QueryParam.MAX,
+                    DataAccess.MAX_CHANGED_ROWS,
+                    param.get());
+        }
+        return max;
+    }
+
     List<Select<Boolean>> getOrder(Map<String, List<String>> query, TableInfo table) {
         Option<List<String>> param = query.get(QueryParam.ORDER);
         if (param.isEmpty()) {
@@ -304,6 +727,13 @@ public class RestHandler implements HttpHandler {
     }
 
     Map<String, Inject> parseId(TableInfo table, String id) {
+        List<String> parts = splitId(table, id);
+        return table.primary.get().columns.zip(parts)
+            .map(t -> new Tuple2<>(t._1, injectFrom(table, t._1, t._2)))
+            .toMap(t -> t);
+    }
+
+    List<String> splitId(TableInfo table, String id) {
         if (table.primary.isEmpty()) {
             throw new Error(ErrorCode.BAD_REQUEST,
                     "Get by id is not supported by table ${0}",
@@ -311,7 +741,7 @@ public class RestHandler implements HttpHandler {
         }
         PrimaryKey pk = table.primary.get();
         if (pk.columns.size() == 1) {
-            return HashMap.of(pk.columns.get(), injectFrom(table, pk.columns.get(), id));
+            return List.of(id);
         }
 
         List<String> parts = List.of(id.split(QueryParam.ID_DIVIDER));
@@ -322,9 +752,7 @@ public class RestHandler implements HttpHandler {
                     QueryParam.ID_DIVIDER,
                     pk.columns.size());
         }
-        return pk.columns.zip(parts)
-            .map(t -> new Tuple2<>(t._1, injectFrom(table, t._1, t._2)))
-            .toMap(t -> t);
+        return parts;
     }
 
     Condition conditionFrom(TableInfo table, String columnName, List<String> values) {
@@ -10,33 +10,40 @@ public class ColumnInfo {
     public final String          name;
     public final DataType        type;
     public final Option<Integer> size;
+    public final boolean         nullable;
 
-    public ColumnInfo(String name, DataType type, Option<Integer> size) {
+    public ColumnInfo(String name, DataType type, Option<Integer> size, boolean nullable) {
         this.name = name;
         this.type = type;
         this.size = size;
+        this.nullable = nullable;
     }
 
     public static ColumnInfo of(String name, DataType type) {
-        return new ColumnInfo(name, type, Option.none());
+        return new ColumnInfo(name, type, Option.none(), true);
     }
 
     public static ColumnInfo of(String name, DataType type, Integer size) {
-        return new ColumnInfo(name, type, Option.of(size));
+        return new ColumnInfo(name, type, Option.of(size), true);
+    }
+
+    public static ColumnInfo of(String name, DataType type, Integer size, boolean nullable) {
+        return new ColumnInfo(name, type, Option.of(size), nullable);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, type, size);
+        return Objects.hash(name, type, size, nullable);
     }
 
     @Override
     public boolean equals(Object other) {
-        return Java.equalsByFields(this, other, t -> t.name, t -> t.type, t -> t.size);
+        return Java.equalsByFields(this, other, t -> t.name, t -> t.type, t -> t.size, t -> t.nullable);
     }
 
     @Override
     public String toString() {
-        return "ColumnInfo@{name: " + name + ", type: " + type + (size.isDefined() ? ", size: " + size : "") + "}";
+        return "ColumnInfo@{name: " + name + ", type: " + type + (size.isDefined() ? ", size: " + size : "")
+                + (nullable ? "" : ", not null") + "}";
     }
 }
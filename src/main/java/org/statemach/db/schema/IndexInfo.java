@@ -0,0 +1,61 @@
+package org.statemach.db.schema;
+
+import java.util.Objects;
+
+import org.statemach.util.Java;
+
+import io.vavr.collection.List;
+
+public class IndexInfo {
+
+    public final String       name;
+    public final String       table;
+    public final List<String> columns;
+    public final boolean      unique;
+    public final boolean      primary;
+    public final long         scans;
+    public final long         sizeBytes;
+    public final long         tableWrites;
+
+    public IndexInfo(String name,
+                     String table,
+                     List<String> columns,
+                     boolean unique,
+                     boolean primary,
+                     long scans,
+                     long sizeBytes,
+                     long tableWrites) {
+        this.name = name;
+        this.table = table;
+        this.columns = columns;
+        this.unique = unique;
+        this.primary = primary;
+        this.scans = scans;
+        this.sizeBytes = sizeBytes;
+        this.tableWrites = tableWrites;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, table, columns, unique, primary, scans, sizeBytes, tableWrites);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return Java.equalsByFields(this,
+                other,
+                t -> t.name,
+                t -> t.table,
+                t -> t.columns,
+                t -> t.unique,
+                t -> t.primary,
+                t -> t.scans,
+                t -> t.sizeBytes,
+                t -> t.tableWrites);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexInfo@{name: " + name + ", table: " + table + ", columns: " + columns + "}";
+    }
+}
@@ -27,6 +27,11 @@ public class TableInfo {
         this.outgoing = outgoing;
     }
 
+    public boolean isNotNull(ForeignKey outgoing) {
+        // Referenced row always exists, when none of the referencing columns can be null
+        return outgoing.matchingColumns.forAll(m -> columns.get(m.from).exists(c -> !c.nullable));
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(this.name, this.columns, this.primary, this.incoming, this.outgoing);
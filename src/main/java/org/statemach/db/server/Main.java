@@ -1,12 +1,34 @@
 package org.statemach.db.server;
 
 import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 
-import org.apache.commons.dbcp2.BasicDataSource;
+import org.statemach.db.admin.AdminToken;
+import org.statemach.db.admin.IndexAdvisorHandler;
+import org.statemach.db.admin.RecordingHandler;
+import org.statemach.db.admin.SqlDebugHandler;
+import org.statemach.db.advisor.AccessPatterns;
+import org.statemach.db.advisor.IndexAdvisor;
 import org.statemach.db.graphql.GraphQLHandler;
+import org.statemach.db.health.ReadinessHandler;
+import org.statemach.db.jdbc.CircuitBreaker;
+import org.statemach.db.jdbc.ConcurrencyLimiter;
+import org.statemach.db.jdbc.GroupCommit;
 import org.statemach.db.jdbc.JDBC;
+import org.statemach.db.jdbc.PoolDataSource;
+import org.statemach.db.jdbc.Replica;
+import org.statemach.db.jdbc.Replicas;
+import org.statemach.db.jdbc.SingleFlight;
+import org.statemach.db.jdbc.SlowQueryLog;
 import org.statemach.db.jdbc.Vendor;
+import org.statemach.db.jdbc.Workload;
+import org.statemach.db.metrics.MeteredDataAccess;
+import org.statemach.db.metrics.Metrics;
+import org.statemach.db.metrics.MetricsHandler;
+import org.statemach.db.rest.RestCostGuard;
 import org.statemach.db.rest.RestHandler;
 import org.statemach.db.schema.Schema;
 import org.statemach.db.sql.DataAccess;
@@ -14,13 +36,20 @@ import org.statemach.db.sql.SchemaAccess;
 import org.statemach.db.sql.postgres.PostgresDataAccess;
 import org.statemach.db.sql.postgres.PostgresSchemaAccess;
 import org.statemach.db.version.VersionHandler;
+import org.statemach.util.Deadline;
 import org.statemach.util.Http;
 import org.statemach.util.Java;
+import org.statemach.util.SpanExporter;
+import org.statemach.util.Tracer;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 
+import io.vavr.Tuple2;
 import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
 import io.vavr.collection.Map;
+import io.vavr.control.Option;
 
 public class Main {
 
@@ -33,6 +62,50 @@ public class Main {
         static final String DB_MAX_IDLE  = "8";
         static final String DB_MIN_IDLE  = "0";
         static final String HTTP_PORT    = "3702";
+        static final String HTTP_THREADS = "32";
+
+        static final String DB_LIMIT_ENABLED       = "true";
+        static final String DB_LIMIT_MIN           = "1";
+        static final String DB_LIMIT_QUEUE         = "64";
+        static final String DB_LIMIT_MAX_WAIT      = "1000";
+        static final String DB_LIMIT_RETRY_SECONDS = "1";
+
+        static final String DB_BORROW_TIMEOUT_MILLIS   = "2000";
+        static final String DB_CONNECT_TIMEOUT_SECONDS = "5";
+        static final String DB_SOCKET_TIMEOUT_SECONDS  = "60";
+
+        static final String DB_CIRCUIT_ENABLED       = "true";
+        static final String DB_CIRCUIT_FAILURES      = "5";
+        static final String DB_CIRCUIT_PROBE_MILLIS  = "1000";
+        static final String DB_CIRCUIT_RETRY_SECONDS = "5";
+
+        static final String DB_REPLICA_MAX_LAG_BYTES = "16777216";
+        static final String DB_REPLICA_CHECK_MILLIS  = "1000";
+
+        static final String DB_SINGLE_FLIGHT_ENABLED = "true";
+
+        static final String DB_GROUP_COMMIT_MAX_ROWS = "100";
+
+        static final String GRAPHQL_MAX_ROWS  = "100000";
+        static final String GRAPHQL_MAX_DEPTH = "8";
+
+        static final String GRAPHQL_ESTIMATES_REFRESH_MILLIS = "60000";
+
+        static final String REST_TIMEOUT_MILLIS    = "30000";
+        static final String GRAPHQL_TIMEOUT_MILLIS = "30000";
+
+        static final String SLOW_QUERY_EXPLAIN_SAMPLE = "0";
+        static final String SLOW_QUERY_REDACT         = "true";
+        static final String SLOW_QUERY_BUFFER         = "1024";
+
+        static final String TRACE_SAMPLE_RATIO = "0.01";
+        static final String TRACE_TAIL_MILLIS  = "1000";
+        static final String TRACE_BUFFER       = "1024";
+
+        static final String ADMIN_RECORDING_MAX_SECONDS = "300";
+
+        static final String ACCESS_PATTERNS_CAPACITY = "10000";
+        static final String INDEX_ADVISOR_MIN_ROWS   = "1000";
     }
 
     static interface Config {
@@ -46,8 +119,73 @@ public class Main {
         static final String DB_MAX_IDLE  = "DB_MAX_IDLE";
         static final String DB_MIN_IDLE  = "DB_MIN_IDLE";
         static final String HTTP_PORT    = "HTTP_PORT";
+        static final String HTTP_THREADS = "HTTP_THREADS";
+
+        static final String DB_LIMIT_ENABLED       = "DB_LIMIT_ENABLED";
+        static final String DB_LIMIT_MIN           = "DB_LIMIT_MIN";
+        static final String DB_LIMIT_QUEUE         = "DB_LIMIT_QUEUE";
+        static final String DB_LIMIT_MAX_WAIT      = "DB_LIMIT_MAX_WAIT";
+        static final String DB_LIMIT_RETRY_SECONDS = "DB_LIMIT_RETRY_SECONDS";
+
+        static final String DB_BORROW_TIMEOUT_MILLIS   = "DB_BORROW_TIMEOUT_MILLIS";
+        static final String DB_CONNECT_TIMEOUT_SECONDS = "DB_CONNECT_TIMEOUT_SECONDS";
+        static final String DB_SOCKET_TIMEOUT_SECONDS  = "DB_SOCKET_TIMEOUT_SECONDS";
+
+        static final String DB_CIRCUIT_ENABLED       = "DB_CIRCUIT_ENABLED";
+        static final String DB_CIRCUIT_FAILURES      = "DB_CIRCUIT_FAILURES";
+        static final String DB_CIRCUIT_PROBE_MILLIS  = "DB_CIRCUIT_PROBE_MILLIS";
+        static final String DB_CIRCUIT_RETRY_SECONDS = "DB_CIRCUIT_RETRY_SECONDS";
+
+        // Format: address:port,address:port, replicas share database name and credentials with primary
+        static final String DB_REPLICAS              = "DB_REPLICAS";
+        static final String DB_REPLICA_MAX_LAG_BYTES = "DB_REPLICA_MAX_LAG_BYTES";
+        static final String DB_REPLICA_CHECK_MILLIS  = "DB_REPLICA_CHECK_MILLIS";
+
+        static final String DB_SINGLE_FLIGHT_ENABLED = "DB_SINGLE_FLIGHT_ENABLED";
+
+        // Group commit is off unless delay is configured
+        static final String DB_GROUP_COMMIT_MICROS   = "DB_GROUP_COMMIT_MICROS";
+        static final String DB_GROUP_COMMIT_MAX_ROWS = "DB_GROUP_COMMIT_MAX_ROWS";
+
+        // Per workload settings, e.g. DB_LANE_BULK_POOL_SIZE
+        static final String DB_LANE_MAX               = "DB_LANE_${0}_MAX";
+        static final String DB_LANE_QUEUE             = "DB_LANE_${0}_QUEUE";
+        static final String DB_LANE_POOL_SIZE         = "DB_LANE_${0}_POOL_SIZE";
+        static final String DB_LANE_STATEMENT_TIMEOUT = "DB_LANE_${0}_STATEMENT_TIMEOUT";
+
+        static final String GRAPHQL_MAX_ROWS  = "GRAPHQL_MAX_ROWS";
+        static final String GRAPHQL_MAX_DEPTH = "GRAPHQL_MAX_DEPTH";
+
+        // Zero keeps row estimates taken at start
+        static final String GRAPHQL_ESTIMATES_REFRESH_MILLIS = "GRAPHQL_ESTIMATES_REFRESH_MILLIS";
+
+        static final String REST_TIMEOUT_MILLIS    = "REST_TIMEOUT_MILLIS";
+        static final String GRAPHQL_TIMEOUT_MILLIS = "GRAPHQL_TIMEOUT_MILLIS";
+
+        static final String REST_MAX_COST          = "REST_MAX_COST";
+        static final String REST_MAX_COST_BY_TABLE = "REST_MAX_COST_BY_TABLE";
+
+        static final String SLOW_QUERY_MILLIS         = "SLOW_QUERY_MILLIS";
+        static final String SLOW_QUERY_EXPLAIN_SAMPLE = "SLOW_QUERY_EXPLAIN_SAMPLE";
+        static final String SLOW_QUERY_REDACT         = "SLOW_QUERY_REDACT";
+        static final String SLOW_QUERY_BUFFER         = "SLOW_QUERY_BUFFER";
+
+        static final String TRACE_EXPORT_FILE  = "TRACE_EXPORT_FILE";
+        static final String TRACE_EXPORT_OTLP  = "TRACE_EXPORT_OTLP";
+        static final String TRACE_SAMPLE_RATIO = "TRACE_SAMPLE_RATIO";
+        static final String TRACE_TAIL_MILLIS  = "TRACE_TAIL_MILLIS";
+        static final String TRACE_BUFFER       = "TRACE_BUFFER";
+
+        static final String ADMIN_TOKEN                 = "ADMIN_TOKEN";
+        static final String ADMIN_RECORDING_MAX_SECONDS = "ADMIN_RECORDING_MAX_SECONDS";
+
+        static final String ACCESS_PATTERNS_CAPACITY = "ACCESS_PATTERNS_CAPACITY";
+        static final String INDEX_ADVISOR_MIN_ROWS   = "INDEX_ADVISOR_MIN_ROWS";
     }
 
+    // Quarter of the shared pool is kept for point lookups
+    static final int LOOKUP_RESERVE_SHARE = 4;
+
     public static Supplier<Main> factory = () -> new Main(HashMap.ofAll(System.getenv()));
 
     final Map<String, String> config;
@@ -57,18 +195,42 @@ public class Main {
     }
 
     JDBC configJDBC() {
-        BasicDataSource dataSource = new BasicDataSource();
+        int maxTotal = Integer.parseInt(config.getOrElse(Config.DB_MAX_TOTAL, Default.DB_MAX_TOTAL));
+        int maxIdle  = Integer.parseInt(config.getOrElse(Config.DB_MAX_IDLE, Default.DB_MAX_IDLE));
+        int minIdle  = Integer.parseInt(config.getOrElse(Config.DB_MIN_IDLE, Default.DB_MIN_IDLE));
+
+        PoolDataSource dataSource = configPool(maxTotal, maxIdle, minIdle, Option.none());
+
+        return new JDBC(Vendor.POSTGRES,
+                dataSource,
+                configSlowQueryLog(),
+                configLanes(dataSource),
+                configBreaker(dataSource),
+                configReplicas(dataSource, maxTotal, maxIdle, minIdle));
+    }
+
+    PoolDataSource configPool(int maxTotal, int maxIdle, int minIdle, Option<Long> statementTimeoutMillis) {
+        return configPool(config.getOrElse(Config.DB_ADDRESS, Default.DB_ADDRESS),
+                config.getOrElse(Config.DB_PORT, Default.DB_PORT),
+                maxTotal,
+                maxIdle,
+                minIdle,
+                statementTimeoutMillis);
+    }
+
+    PoolDataSource configPool(String address,
+                              String port,
+                              int maxTotal,
+                              int maxIdle,
+                              int minIdle,
+                              Option<Long> statementTimeoutMillis) {
+        PoolDataSource dataSource = new PoolDataSource();
 
-        String address  = config.getOrElse(Config.DB_ADDRESS, Default.DB_ADDRESS);
-        String port     = config.getOrElse(Config.DB_PORT, Default.DB_PORT);
         String dbname   = config.getOrElse(Config.DB_NAME, Default.DB_NAME);
         String username = config.get(Config.DB_USERNAME)
             .getOrElseThrow(() -> new RuntimeException("Environment variable DB_USERNAME wasn't specified"));
         String password = config.get(Config.DB_PASSWORD)
             .getOrElseThrow(() -> new RuntimeException("Environment variable DB_PASSWORD wasn't specified"));
-        int    maxTotal = Integer.parseInt(config.getOrElse(Config.DB_MAX_TOTAL, Default.DB_MAX_TOTAL));
-        int    maxIdle  = Integer.parseInt(config.getOrElse(Config.DB_MAX_IDLE, Default.DB_MAX_IDLE));
-        int    minIdle  = Integer.parseInt(config.getOrElse(Config.DB_MIN_IDLE, Default.DB_MIN_IDLE));
 
         dataSource.setDriverClassName(org.postgresql.Driver.class.getName());
         dataSource.setUrl(Java.format("jdbc:postgresql://${0}:${1}/${2}", address, port, dbname));
@@ -78,30 +240,253 @@ public class Main {
         dataSource.setMaxIdle(maxIdle);
         dataSource.setMinIdle(minIdle);
 
-        return new JDBC(Vendor.POSTGRES, dataSource);
+        // Unreachable database must fail requests in seconds, not after operating system TCP timeouts.
+        // Socket timeout stays above request deadlines, those cancel statements gracefully.
+        long   borrowTimeout  = Long.parseLong(
+                config.getOrElse(Config.DB_BORROW_TIMEOUT_MILLIS, Default.DB_BORROW_TIMEOUT_MILLIS));
+        String connectTimeout = config.getOrElse(Config.DB_CONNECT_TIMEOUT_SECONDS, Default.DB_CONNECT_TIMEOUT_SECONDS);
+        String socketTimeout  = config.getOrElse(Config.DB_SOCKET_TIMEOUT_SECONDS, Default.DB_SOCKET_TIMEOUT_SECONDS);
+        dataSource.setMaxWaitMillis(borrowTimeout);
+        dataSource.addConnectionProperty("connectTimeout", connectTimeout);
+        dataSource.addConnectionProperty("loginTimeout", connectTimeout);
+        dataSource.addConnectionProperty("socketTimeout", socketTimeout);
+        if (statementTimeoutMillis.isDefined()) {
+            dataSource.setConnectionInitSqls(java.util.List.of("SET statement_timeout = " + statementTimeoutMillis.get()));
+        }
+
+        return dataSource;
+    }
+
+    CircuitBreaker configBreaker(PoolDataSource dataSource) {
+        if (!Boolean.parseBoolean(config.getOrElse(Config.DB_CIRCUIT_ENABLED, Default.DB_CIRCUIT_ENABLED))) {
+            return CircuitBreaker.DISABLED;
+        }
+
+        int  failures       = Integer.parseInt(config.getOrElse(Config.DB_CIRCUIT_FAILURES, Default.DB_CIRCUIT_FAILURES));
+        long probeMillis    = Long.parseLong(config.getOrElse(Config.DB_CIRCUIT_PROBE_MILLIS, Default.DB_CIRCUIT_PROBE_MILLIS));
+        long retrySeconds   = Long.parseLong(
+                config.getOrElse(Config.DB_CIRCUIT_RETRY_SECONDS, Default.DB_CIRCUIT_RETRY_SECONDS));
+        int  connectTimeout = Integer.parseInt(
+                config.getOrElse(Config.DB_CONNECT_TIMEOUT_SECONDS, Default.DB_CONNECT_TIMEOUT_SECONDS));
+
+        return CircuitBreaker.of(failures, probeMillis, retrySeconds, CircuitBreaker.ping(dataSource, connectTimeout));
+    }
+
+    Replicas configReplicas(PoolDataSource primary, int maxTotal, int maxIdle, int minIdle) {
+        List<Replica> replicas = config.get(Config.DB_REPLICAS)
+            .map(v -> List.of(v.split(",")))
+            .getOrElse(List.empty())
+            .map(String::trim)
+            .filter(v -> !Java.isEmpty(v))
+            .map(v -> {
+                String[] addressPort = v.split(":", 2);
+                String   port        = 1 < addressPort.length ? addressPort[1] : Default.DB_PORT;
+                return new Replica(v, configPool(addressPort[0], port, maxTotal, maxIdle, minIdle, Option.none()));
+            });
+        if (replicas.isEmpty()) {
+            return Replicas.NONE;
+        }
+
+        long maxLagBytes = Long.parseLong(
+                config.getOrElse(Config.DB_REPLICA_MAX_LAG_BYTES, Default.DB_REPLICA_MAX_LAG_BYTES));
+        long checkMillis = Long.parseLong(config.getOrElse(Config.DB_REPLICA_CHECK_MILLIS, Default.DB_REPLICA_CHECK_MILLIS));
+
+        return Replicas.of(primary, replicas, maxLagBytes, checkMillis);
+    }
+
+    GroupCommit configGroupCommit() {
+        Option<Long> delayMicros = config.get(Config.DB_GROUP_COMMIT_MICROS).map(Long::parseLong);
+        if (delayMicros.isEmpty()) {
+            return GroupCommit.DISABLED;
+        }
+
+        int maxRows = Integer.parseInt(config.getOrElse(Config.DB_GROUP_COMMIT_MAX_ROWS, Default.DB_GROUP_COMMIT_MAX_ROWS));
+        return GroupCommit.of(delayMicros.get(), maxRows);
+    }
+
+    Map<Workload, JDBC.Lane> configLanes(PoolDataSource shared) {
+        return List.of(Workload.values()).toMap(w -> new Tuple2<>(w, configLane(w, shared)));
+    }
+
+    JDBC.Lane configLane(Workload workload, PoolDataSource shared) {
+        Option<Integer> poolSize = config.get(lane(Config.DB_LANE_POOL_SIZE, workload)).map(Integer::parseInt);
+        Option<Long>    timeout  = config.get(lane(Config.DB_LANE_STATEMENT_TIMEOUT, workload)).map(Long::parseLong);
+        int             quota    = config.get(lane(Config.DB_LANE_MAX, workload))
+            .map(Integer::parseInt)
+            .getOrElse(() -> poolSize.getOrElse(() -> defaultQuota(workload, shared.getMaxTotal())));
+
+        // Statement timeout is a session setting, so a lane with its own timeout needs its own connections
+        PoolDataSource pool = poolSize.isDefined() || timeout.isDefined()
+                ? configPool(poolSize.getOrElse(quota), poolSize.getOrElse(quota), 0, timeout)
+                : shared;
+
+        return new JDBC.Lane(configLimiter(workload, Math.min(quota, pool.getMaxTotal())), pool);
+    }
+
+    static int defaultQuota(Workload workload, int maxTotal) {
+        // Point lookups may take the whole shared pool. Other classes together stay within the pool
+        // without LOOKUP reserve, so they never hold all connections (pools of 4 and more).
+        int available = Math.max(1, maxTotal - Math.max(1, maxTotal / LOOKUP_RESERVE_SHARE));
+        switch (workload) {
+            case LOOKUP:
+                return maxTotal;
+            case BULK:
+                return Math.max(1, available / 5);
+            default:
+                return Math.max(1, available * 2 / 5);
+        }
+    }
+
+    ConcurrencyLimiter configLimiter(Workload workload, int maxLimit) {
+        if (!Boolean.parseBoolean(config.getOrElse(Config.DB_LIMIT_ENABLED, Default.DB_LIMIT_ENABLED))) {
+            return ConcurrencyLimiter.UNLIMITED;
+        }
+
+        // Limit never goes above pool size, so admitted statements don't wait for a connection
+        int  minLimit     = Integer.parseInt(config.getOrElse(Config.DB_LIMIT_MIN, Default.DB_LIMIT_MIN));
+        int  queue        = Integer.parseInt(config.get(lane(Config.DB_LANE_QUEUE, workload))
+            .getOrElse(() -> config.getOrElse(Config.DB_LIMIT_QUEUE, Default.DB_LIMIT_QUEUE)));
+        long maxWait      = Long.parseLong(config.getOrElse(Config.DB_LIMIT_MAX_WAIT, Default.DB_LIMIT_MAX_WAIT));
+        long retrySeconds = Long.parseLong(
+                config.getOrElse(Config.DB_LIMIT_RETRY_SECONDS, Default.DB_LIMIT_RETRY_SECONDS));
+
+        return ConcurrencyLimiter.of(minLimit, maxLimit, queue, maxWait, retrySeconds);
+    }
+
+    static String lane(String key, Workload workload) {
+        return Java.format(key, workload.name());
+    }
+
+    SlowQueryLog configSlowQueryLog() {
+        Option<Long> thresholdMillis = config.get(Config.SLOW_QUERY_MILLIS).map(Long::parseLong);
+        if (thresholdMillis.isEmpty()) {
+            return SlowQueryLog.DISABLED;
+        }
+
+        double  explainSample = Double.parseDouble(
+                config.getOrElse(Config.SLOW_QUERY_EXPLAIN_SAMPLE, Default.SLOW_QUERY_EXPLAIN_SAMPLE));
+        boolean redact        = Boolean.parseBoolean(config.getOrElse(Config.SLOW_QUERY_REDACT, Default.SLOW_QUERY_REDACT));
+        int     capacity      = Integer.parseInt(config.getOrElse(Config.SLOW_QUERY_BUFFER, Default.SLOW_QUERY_BUFFER));
+
+        // Explain has its own connection, so it never takes one from requests nor holds one they wait for
+        PoolDataSource explainPool = 0 < explainSample ? configPool(1, 1, 0, Option.none()) : null;
+
+        return SlowQueryLog.of(explainPool, thresholdMillis.get(), explainSample, redact, capacity);
+    }
+
+    RestCostGuard configRestCostGuard(DataAccess dataAccess) {
+        // Format: table=cost,table=cost
+        Map<String, Double> maxCostByTable = config.get(Config.REST_MAX_COST_BY_TABLE)
+            .map(v -> List.of(v.split(",")))
+            .getOrElse(List.empty())
+            .filter(v -> !Java.isEmpty(v.trim()))
+            .map(v -> v.split("=", 2))
+            .toMap(v -> new Tuple2<>(v[0].trim(), Double.parseDouble(v[1].trim())));
+        Option<Double>      maxCost        = config.get(Config.REST_MAX_COST).map(Double::parseDouble);
+
+        return RestCostGuard.of(dataAccess, maxCostByTable, maxCost);
+    }
+
+    Tracer configTracer() {
+        Option<SpanExporter> exporter = config.get(Config.TRACE_EXPORT_OTLP)
+            .map(e -> SpanExporter.otlp(URI.create(e)))
+            .orElse(() -> config.get(Config.TRACE_EXPORT_FILE).map(f -> SpanExporter.file(Paths.get(f))));
+        if (exporter.isEmpty()) {
+            return Tracer.NOOP;
+        }
+
+        // Negative tail threshold disables tail sampling
+        double sampleRatio = Double.parseDouble(config.getOrElse(Config.TRACE_SAMPLE_RATIO, Default.TRACE_SAMPLE_RATIO));
+        long   tailMillis  = Long.parseLong(config.getOrElse(Config.TRACE_TAIL_MILLIS, Default.TRACE_TAIL_MILLIS));
+        int    capacity    = Integer.parseInt(config.getOrElse(Config.TRACE_BUFFER, Default.TRACE_BUFFER));
+
+        return Tracer.of(exporter.get(), sampleRatio, tailMillis, capacity);
     }
 
     HttpServer build() throws Exception {
         String schemaName = config.getOrElse(Config.DB_SCHEMA, Default.DB_SCHEMA);
+        long   maxRows    = Long.parseLong(config.getOrElse(Config.GRAPHQL_MAX_ROWS, Default.GRAPHQL_MAX_ROWS));
+        int    maxDepth   = Integer.parseInt(config.getOrElse(Config.GRAPHQL_MAX_DEPTH, Default.GRAPHQL_MAX_DEPTH));
+        long   refresh    = Long.parseLong(config.getOrElse(Config.GRAPHQL_ESTIMATES_REFRESH_MILLIS,
+                Default.GRAPHQL_ESTIMATES_REFRESH_MILLIS));
+
+        long restTimeout    = Long.parseLong(config.getOrElse(Config.REST_TIMEOUT_MILLIS, Default.REST_TIMEOUT_MILLIS));
+        long graphqlTimeout = Long.parseLong(
+                config.getOrElse(Config.GRAPHQL_TIMEOUT_MILLIS, Default.GRAPHQL_TIMEOUT_MILLIS));
+
+        Tracer.install(configTracer());
 
         JDBC         jdbc         = configJDBC();
         SchemaAccess schemaAccess = new PostgresSchemaAccess(jdbc, schemaName);
         Schema       schema       = Schema.from(schemaAccess);
-        DataAccess   dataAccess   = PostgresDataAccess.of(jdbc, schemaName);
+        Metrics      metrics      = Metrics.of(schema)
+            .pool(jdbc.getPool())
+            .lanes(jdbc.getLanes())
+            .breaker(jdbc.getBreaker())
+            .replicas(jdbc.getReplicas());
+        SingleFlight singleFlight = new SingleFlight(Boolean.parseBoolean(
+                config.getOrElse(Config.DB_SINGLE_FLIGHT_ENABLED, Default.DB_SINGLE_FLIGHT_ENABLED)));
+        GroupCommit  groupCommit  = configGroupCommit();
+        DataAccess   dataAccess   = new MeteredDataAccess(
+                PostgresDataAccess.of(jdbc, schemaName, singleFlight, groupCommit),
+                metrics.singleFlight(singleFlight).groupCommit(groupCommit));
+
+        // Admin features exist only when token is configured
+        Option<AdminToken> adminToken = config.get(Config.ADMIN_TOKEN).filter(t -> !t.isEmpty()).map(AdminToken::new);
+        AccessPatterns     patterns   = adminToken.isDefined()
+                ? new AccessPatterns(Integer.parseInt(
+                        config.getOrElse(Config.ACCESS_PATTERNS_CAPACITY, Default.ACCESS_PATTERNS_CAPACITY)))
+                : AccessPatterns.DISABLED;
 
         HttpServer server = HttpServer.create();
-        server.createContext("/", Http.errorHandler(new VersionHandler()));
-        server.createContext("/rest", Http.errorHandler(RestHandler.of(schema, dataAccess)));
-        server.createContext("/graphql", Http.errorHandler(GraphQLHandler.build(schema, schemaAccess, dataAccess)));
+        server.createContext("/", metrics.measure("version", false, Http.errorHandler(new VersionHandler())));
+        server.createContext("/rest",
+                metrics.measure("rest",
+                        true,
+                        Http.errorHandler(debug(adminToken,
+                                jdbc,
+                                Deadline.handler(restTimeout,
+                                        jdbc.getReplicas()
+                                            .handler(RestHandler.of(schema,
+                                                    dataAccess,
+                                                    configRestCostGuard(dataAccess),
+                                                    patterns)))))));
+        server.createContext("/graphql",
+                metrics.measure("graphql",
+                        false,
+                        Http.errorHandler(debug(adminToken,
+                                jdbc,
+                                Deadline.handler(graphqlTimeout,
+                                        jdbc.getReplicas()
+                                            .handler(GraphQLHandler
+                                                .build(schema, schemaAccess, dataAccess, maxRows, maxDepth, refresh, patterns)))))));
+        server.createContext("/metrics", Http.errorHandler(new MetricsHandler(metrics)));
+        server.createContext("/ready", Http.errorHandler(new ReadinessHandler(jdbc.getBreaker())));
+
+        if (adminToken.isDefined()) {
+            long maxSeconds = Long.parseLong(
+                    config.getOrElse(Config.ADMIN_RECORDING_MAX_SECONDS, Default.ADMIN_RECORDING_MAX_SECONDS));
+            long minRows    = Long.parseLong(config.getOrElse(Config.INDEX_ADVISOR_MIN_ROWS, Default.INDEX_ADVISOR_MIN_ROWS));
+            server.createContext("/admin/jfr", Http.errorHandler(new RecordingHandler(adminToken.get(), maxSeconds)));
+            server.createContext("/admin/indexes",
+                    Http.errorHandler(new IndexAdvisorHandler(adminToken.get(),
+                            new IndexAdvisor(schemaAccess, patterns, minRows))));
+        }
 
         return server;
     }
 
+    static HttpHandler debug(Option<AdminToken> adminToken, JDBC jdbc, HttpHandler handler) {
+        return adminToken.<HttpHandler>map(t -> new SqlDebugHandler(t, jdbc, handler)).getOrElse(handler);
+    }
+
     public void run() {
-        int port = Integer.parseInt(config.getOrElse(Config.HTTP_PORT, Default.HTTP_PORT));
+        int port    = Integer.parseInt(config.getOrElse(Config.HTTP_PORT, Default.HTTP_PORT));
+        int threads = Integer.parseInt(config.getOrElse(Config.HTTP_THREADS, Default.HTTP_THREADS));
 
         Java.soft(() -> {
             HttpServer server = build();
+            server.setExecutor(Executors.newFixedThreadPool(threads));
             server.bind(new InetSocketAddress(port), 0);
             server.start();
         });
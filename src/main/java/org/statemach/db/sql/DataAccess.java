@@ -1,5 +1,7 @@
 package org.statemach.db.sql;
 
+import java.util.function.Supplier;
+
 import org.statemach.db.jdbc.Extract;
 import org.statemach.db.jdbc.Inject;
 
@@ -10,8 +12,13 @@ import io.vavr.control.Option;
 
 public interface DataAccess {
 
+    // Upper bound for the rows a single change by filter may touch, far enough from int overflow
+    static final int MAX_CHANGED_ROWS = 10_000;
+
     SQLBuilder builder();
 
+    <T> T transaction(Supplier<T> work);
+
     void insert(String table, Map<String, Inject> values);
 
     void merge(String table, Map<String, Inject> primaryKey, Map<String, Inject> values);
@@ -24,6 +31,8 @@ public interface DataAccess {
                                Map<String, Inject> values,
                                Map<String, Extract<?>> returning);
 
+    Map<String, Object> insert(Insert insert, Map<String, Extract<?>> returning);
+
     Map<String, Object> merge(String table,
                               Map<String, Inject> primaryKey,
                               Map<String, Inject> values,
@@ -38,10 +47,24 @@ public interface DataAccess {
                                        Map<String, Inject> primaryKey,
                                        Map<String, Extract<?>> returning);
 
+    List<Map<String, Object>> updateWhere(String table,
+                                          View<String> keys,
+                                          int limit,
+                                          Map<String, Inject> values,
+                                          Map<String, Extract<?>> returning);
+
+    List<Map<String, Object>> deleteWhere(String table,
+                                          View<String> keys,
+                                          int limit,
+                                          Map<String, Extract<?>> returning);
+
     Option<Map<String, Object>> select(String table,
                                        Map<String, Inject> primaryKey,
                                        Map<String, Extract<?>> returning);
 
     List<Map<String, Object>> query(List<View<String>> commonTableExpressions,
                                     View<Tuple2<String, Extract<?>>> query);
+
+    QueryPlan explain(List<View<String>> commonTableExpressions,
+                      View<Tuple2<String, Extract<?>>> query);
 }
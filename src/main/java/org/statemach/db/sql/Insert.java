@@ -0,0 +1,27 @@
+package org.statemach.db.sql;
+
+import org.statemach.db.jdbc.Inject;
+import org.statemach.db.schema.ForeignKey;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+public class Insert {
+
+    public final String              table;
+    public final Map<String, Inject> values;
+
+    // Child rows reference this row by foreign key, so their referencing columns come from this row
+    public final List<Tuple2<ForeignKey, Insert>> children;
+
+    public Insert(String table, Map<String, Inject> values, List<Tuple2<ForeignKey, Insert>> children) {
+        this.table = table;
+        this.values = values;
+        this.children = children;
+    }
+
+    public int rows() {
+        return 1 + children.map(t -> t._2.rows()).sum().intValue();
+    }
+}
@@ -0,0 +1,34 @@
+package org.statemach.db.sql;
+
+import java.util.Objects;
+
+import org.statemach.util.Java;
+
+public class QueryPlan {
+
+    public final double cost;
+    public final double rows;
+    public final String summary;
+
+    public QueryPlan(double cost, double rows, String summary) {
+        this.cost = cost;
+        this.rows = rows;
+        this.summary = summary;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cost, rows, summary);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return Java.equalsByFields(this, other, t -> t.cost, t -> t.rows, t -> t.summary);
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlan@{cost: " + cost + ", rows: " + rows + ", summary: " + summary + "}";
+    }
+
+}
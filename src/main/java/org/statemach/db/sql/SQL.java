@@ -1,6 +1,7 @@
 package org.statemach.db.sql;
 
 public interface SQL {
+    public static final String ALL                   = "*";
     public static final String AND                   = " AND ";
     public static final String ARRAY                 = "[]";
     public static final String AS                    = " AS ";
@@ -40,14 +41,17 @@ public interface SQL {
     public static final String OR                    = " OR ";
     public static final String ORDER_BY              = "ORDER BY ";
     public static final String PARAM                 = "?";
+    public static final String PARAM_CAST            = "(?)::";
     public static final String RETURNING             = "RETURNING ";
     public static final String RIGHT_JOIN            = "RIGHT JOIN ";
     public static final String SELECT                = "SELECT ";
     public static final String SPACE                 = " ";
     public static final String TRIVIAL               = "1 = 1";
+    public static final String UNNEST_OPEN           = "UNNEST(";
     public static final String UNNEST_PARAM_OPEN     = "UNNEST((?)::";
     public static final String WEB_SEARCH            = "websearch_to_tsquery('english', ?) @@ ";
     public static final String WHERE                 = "WHERE ";
     public static final String WITH                  = "WITH ";
+    public static final String WITH_ORDINALITY       = ") WITH ORDINALITY";
 
 }
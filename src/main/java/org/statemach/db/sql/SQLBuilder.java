@@ -1,10 +1,12 @@
 package org.statemach.db.sql;
 
+import org.statemach.db.jdbc.Extract;
 import org.statemach.db.jdbc.Inject;
 import org.statemach.db.jdbc.Vendor;
 import org.statemach.db.schema.ColumnInfo;
 import org.statemach.db.schema.DataType;
 
+import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.collection.Traversable;
@@ -47,4 +49,8 @@ public interface SQLBuilder {
 
     public TableLike arrayAsTable(ColumnInfo column, Traversable<Object> values);
 
+    public TableLike stringArrayAsTable(List<ColumnInfo> columns, Traversable<List<String>> rows, String ordinality);
+
+    public String querySql(List<View<String>> commonTableExpressions, View<Tuple2<String, Extract<?>>> query);
+
 }
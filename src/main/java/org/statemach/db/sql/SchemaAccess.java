@@ -4,6 +4,7 @@ import org.statemach.db.jdbc.Vendor;
 import org.statemach.db.schema.ColumnInfo;
 import org.statemach.db.schema.CompositeType;
 import org.statemach.db.schema.ForeignKey;
+import org.statemach.db.schema.IndexInfo;
 import org.statemach.db.schema.PrimaryKey;
 
 import io.vavr.collection.List;
@@ -23,6 +24,10 @@ public interface SchemaAccess {
 
     List<CompositeType> getAllCompositeTypes();
 
+    Map<String, Long> getAllTableRowEstimates();
+
+    List<IndexInfo> getAllIndexes();
+
     void createCompositeType(CompositeType type);
 
     void dropCompositeType(String typeName);
@@ -1,39 +1,89 @@
 package org.statemach.db.sql.postgres;
 
+import java.util.function.Supplier;
+
 import org.statemach.db.jdbc.Extract;
+import org.statemach.db.jdbc.GroupCommit;
 import org.statemach.db.jdbc.Inject;
 import org.statemach.db.jdbc.JDBC;
+import org.statemach.db.jdbc.SingleFlight;
+import org.statemach.db.schema.ForeignKey;
 import org.statemach.db.sql.DataAccess;
+import org.statemach.db.sql.Insert;
+import org.statemach.db.sql.QueryPlan;
 import org.statemach.db.sql.SQL;
 import org.statemach.db.sql.SQLBuilder;
 import org.statemach.db.sql.View;
+import org.statemach.util.Http;
 import org.statemach.util.Java;
+import org.statemach.util.Json;
+import org.statemach.util.Tracer;
 
 import io.vavr.Tuple2;
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.control.Option;
 
 public class PostgresDataAccess implements DataAccess {
 
-    static final String INSERT = Java.resource("Insert.sql");
-    static final String MERGE  = Java.resource("Merge.sql");
-    static final String UPDATE = Java.resource("Update.sql");
-    static final String DELETE = Java.resource("Delete.sql");
-    static final String SELECT = Java.resource("Select.sql");
+    static final String INSERT        = Java.resource("Insert.sql");
+    static final String INSERT_SELECT = Java.resource("InsertSelect.sql");
+    static final String INSERT_ORDER  = Java.resource("InsertOrdered.sql");
+    static final String MERGE         = Java.resource("Merge.sql");
+    static final String UPDATE        = Java.resource("Update.sql");
+    static final String DELETE        = Java.resource("Delete.sql");
+    static final String UPDATE_WHERE  = Java.resource("UpdateWhere.sql");
+    static final String DELETE_WHERE  = Java.resource("DeleteWhere.sql");
+    static final String SELECT        = Java.resource("Select.sql");
+    static final String EXPLAIN       = Java.resource("Explain.sql");
+
+    static final String ROW_ALIAS     = "r";
+    static final String ROWS_ALIAS    = "v";
+    static final String ROW_ORDINAL   = "row_ordinal";
+    static final String UNION_ALL     = SQL.NEXT_LINE + SQL.INDENT + "UNION ALL" + SQL.NEXT_LINE + SQL.INDENT;
+    static final String RETURNING_ALL = SQL.RETURNING + "*";
+
+    // Driver sends parameter count as 16 bit signed value
+    static final int MAX_PARAMETERS = Short.MAX_VALUE;
+
+    static interface Plan {
+        static final String PLAN          = "Plan";
+        static final String PLANS         = "Plans";
+        static final String NODE_TYPE     = "Node Type";
+        static final String RELATION_NAME = "Relation Name";
+        static final String TOTAL_COST    = "Total Cost";
+        static final String PLAN_ROWS     = "Plan Rows";
+    }
 
     public final JDBC               jdbc;
     public final String             schema;
     public final PostgresSQLBuilder builder;
+    public final SingleFlight       singleFlight;
+    public final GroupCommit        groupCommit;
 
     PostgresDataAccess(JDBC jdbc, String schema, PostgresSQLBuilder builder) {
+        this(jdbc, schema, builder, SingleFlight.DISABLED, GroupCommit.DISABLED);
+    }
+
+    PostgresDataAccess(JDBC jdbc,
+                       String schema,
+                       PostgresSQLBuilder builder,
+                       SingleFlight singleFlight,
+                       GroupCommit groupCommit) {
         this.jdbc = jdbc;
         this.schema = schema;
         this.builder = builder;
+        this.singleFlight = singleFlight;
+        this.groupCommit = groupCommit;
     }
 
     public static PostgresDataAccess of(JDBC jdbc, String schema) {
-        return new PostgresDataAccess(jdbc, schema, new PostgresSQLBuilder(schema));
+        return of(jdbc, schema, SingleFlight.DISABLED, GroupCommit.DISABLED);
+    }
+
+    public static PostgresDataAccess of(JDBC jdbc, String schema, SingleFlight singleFlight, GroupCommit groupCommit) {
+        return new PostgresDataAccess(jdbc, schema, new PostgresSQLBuilder(schema), singleFlight, groupCommit);
     }
 
     @Override
@@ -41,6 +91,11 @@ public class PostgresDataAccess implements DataAccess {
         return builder;
     }
 
+    @Override
+    public <T> T transaction(Supplier<T> work) {
+        return jdbc.transaction(work);
+    }
+
     @Override
     public void insert(String table, Map<String, Inject> values) {
         String sql = Java.format(INSERT,
@@ -50,26 +105,102 @@ public class PostgresDataAccess implements DataAccess {
                 Java.repeat(SQL.PARAM, SQL.COMMA, values.size()),
                 "");
 
-        jdbc.execute(sql, ps -> Inject.inject(ps, 1, values.values()));
+        jdbc.execute(sql, Inject.stuffing(values.values()));
     }
 
     @Override
     public Map<String, Object> insert(String table,
                                       Map<String, Inject> values,
                                       Map<String, Extract<?>> returning) {
-        String sql = Java.format(INSERT,
-                schema,
-                table,
-                values.map(t -> t._1).mkString(SQL.COMMA),
-                Java.repeat(SQL.PARAM, SQL.COMMA, values.size()),
-                SQL.RETURNING + returning.map(t -> t._1).mkString(SQL.COMMA));
+        // Concurrent inserts of the same shape may share one statement, so columns go in a stable order
+        List<String> columns = values.keySet().toList().sorted();
+        return groupCommit.submit(List.of(table, columns, returning),
+                columns.map(c -> values.get(c).get()),
+                MAX_PARAMETERS / Math.max(1, columns.size()),
+                rows -> insert(table, columns, rows, returning),
+                row -> insert(table, columns, List.of(row), returning).get());
+    }
+
+    List<Map<String, Object>> insert(String table,
+                                     List<String> columns,
+                                     List<List<Inject>> rows,
+                                     Map<String, Extract<?>> returning) {
+        String params   = Java.repeat(SQL.PARAM, SQL.COMMA, columns.size());
+        String returned = SQL.RETURNING + returning.map(t -> t._1).mkString(SQL.COMMA);
+        String sql      = 1 == rows.size()
+                ? Java.format(INSERT, schema, table, columns.mkString(SQL.COMMA), params, returned)
+                // Each caller of a batch gets the row at its position, so rows go in by explicit ordinal.
+                // Empty select from the table gives parameters the column types, as VALUES of INSERT would.
+                : Java.format(INSERT_ORDER,
+                        schema,
+                        table,
+                        columns.mkString(SQL.COMMA),
+                        List.range(1, rows.size() + 1).map(i -> SQL.SELECT + params + SQL.COMMA + i).mkString(UNION_ALL),
+                        ROWS_ALIAS,
+                        ROW_ORDINAL,
+                        returned);
+
+        return jdbc.query(sql,
+                Inject.stuffing(rows.flatMap(r -> r)),
+                rs -> Extract.extract(rs, 1, returning));
+    }
+
+    @Override
+    public Map<String, Object> insert(Insert insert, Map<String, Extract<?>> returning) {
+        if (insert.children.isEmpty()) {
+            return insert(insert.table, insert.values, returning);
+        }
+
+        // Whole tree is one statement, so it is written atomically with a single round trip
+        List<Tuple2<String, List<Inject>>> rows = insertRow(insert, Option.none(), 0);
+        String                             sql  = SQL.WITH
+                + rows.map(t -> t._1).mkString(SQL.COMMA + SQL.NEXT_LINE + SQL.INDENT)
+                + SQL.NEXT_LINE
+                + SQL.SELECT + returning.map(t -> t._1).mkString(SQL.COMMA)
+                + SQL.NEXT_LINE
+                + SQL.FROM + ROW_ALIAS + 0;
 
         return jdbc.query(sql,
-                ps -> Inject.inject(ps, 1, values.values()),
+                Inject.stuffing(rows.flatMap(t -> t._2)),
                 rs -> Extract.extract(rs, 1, returning))
             .get();
     }
 
+    List<Tuple2<String, List<Inject>>> insertRow(Insert insert, Option<Tuple2<ForeignKey, String>> parent, int index) {
+        // Each row is a data-modifying CTE, child row selects referenced columns from the CTE of its parent
+        String              alias     = ROW_ALIAS + index;
+        String              returning = insert.children.isEmpty() && parent.isDefined() ? "" : RETURNING_ALL;
+        Map<String, Inject> values    = parent
+            .map(p -> insert.values.filterKeys(c -> !p._1.matchingColumns.exists(m -> m.from.equals(c))))
+            .getOrElse(insert.values);
+        List<String>        columns   = values.keySet().toList();
+
+        String sql = parent.isEmpty()
+                ? Java.format(INSERT,
+                        schema,
+                        insert.table,
+                        columns.mkString(SQL.COMMA),
+                        Java.repeat(SQL.PARAM, SQL.COMMA, columns.size()),
+                        returning)
+                : Java.format(INSERT_SELECT,
+                        schema,
+                        insert.table,
+                        parent.get()._1.matchingColumns.map(m -> m.from).appendAll(columns).mkString(SQL.COMMA),
+                        parent.get()._1.matchingColumns.map(m -> parent.get()._2 + SQL.DOT + m.to)
+                            .appendAll(columns.map(c -> SQL.PARAM))
+                            .mkString(SQL.COMMA),
+                        parent.get()._2,
+                        returning);
+
+        List<Tuple2<String, List<Inject>>> result = List.of(new Tuple2<>(
+                alias + SQL.AS_OPEN + sql + SQL.CLOSE,
+                columns.map(c -> values.get(c).get())));
+        for (Tuple2<ForeignKey, Insert> child : insert.children) {
+            result = result.appendAll(insertRow(child._2, Option.of(new Tuple2<>(child._1, alias)), index + result.size()));
+        }
+        return result;
+    }
+
     @Override
     public void merge(String table, Map<String, Inject> primaryKey, Map<String, Inject> values) {
         var    insert = primaryKey.toList().appendAll(values);
@@ -82,7 +213,7 @@ public class PostgresDataAccess implements DataAccess {
                 values.map(t -> t._1 + SQL.EQUAL + SQL.PARAM).mkString(SQL.COMMA),
                 "");
 
-        jdbc.execute(sql, ps -> Inject.inject(ps, 1, insert.appendAll(values).map(t -> t._2)));
+        jdbc.execute(sql, Inject.stuffing(insert.appendAll(values).map(t -> t._2)));
     }
 
     @Override
@@ -101,7 +232,7 @@ public class PostgresDataAccess implements DataAccess {
                 SQL.RETURNING + returning.map(t -> t._1).mkString(SQL.COMMA));
 
         return jdbc.query(sql,
-                ps -> Inject.inject(ps, 1, insert.appendAll(values).map(t -> t._2)),
+                Inject.stuffing(insert.appendAll(values).map(t -> t._2)),
                 rs -> Extract.extract(rs, 1, returning))
             .get();
     }
@@ -117,7 +248,7 @@ public class PostgresDataAccess implements DataAccess {
                 primaryKey.map(t -> t._1 + SQL.EQUAL + SQL.PARAM).mkString(SQL.AND),
                 "");
 
-        return 0 != jdbc.update(sql, ps -> Inject.inject(ps, 1, values.values().appendAll(primaryKey.values())));
+        return 0 != jdbc.update(sql, Inject.stuffing(values.values().appendAll(primaryKey.values())));
     }
 
     @Override
@@ -133,7 +264,7 @@ public class PostgresDataAccess implements DataAccess {
                 SQL.RETURNING + returning.map(t -> t._1).mkString(SQL.COMMA));
 
         return jdbc.query(sql,
-                ps -> Inject.inject(ps, 1, values.values().appendAll(primaryKey.values())),
+                Inject.stuffing(values.values().appendAll(primaryKey.values())),
                 rs -> Extract.extract(rs, 1, returning))
             .peekOption();
     }
@@ -146,7 +277,7 @@ public class PostgresDataAccess implements DataAccess {
                 primaryKey.map(t -> t._1 + SQL.EQUAL + SQL.PARAM).mkString(SQL.AND),
                 "");
 
-        return 0 != jdbc.update(sql, ps -> Inject.inject(ps, 1, primaryKey.values()));
+        return 0 != jdbc.update(sql, Inject.stuffing(primaryKey.values()));
     }
 
     @Override
@@ -160,11 +291,80 @@ public class PostgresDataAccess implements DataAccess {
                 SQL.RETURNING + returning.map(t -> t._1).mkString(SQL.COMMA));
 
         return jdbc.query(sql,
-                ps -> Inject.inject(ps, 1, primaryKey.values()),
+                Inject.stuffing(primaryKey.values()),
                 rs -> Extract.extract(rs, 1, returning))
             .peekOption();
     }
 
+    @Override
+    public List<Map<String, Object>> updateWhere(String table,
+                                                 View<String> keys,
+                                                 int limit,
+                                                 Map<String, Inject> values,
+                                                 Map<String, Extract<?>> returning) {
+        String sql = Java.format(UPDATE_WHERE,
+                schema,
+                table,
+                values.map(t -> t._1 + SQL.EQUAL + SQL.PARAM).mkString(SQL.COMMA),
+                keys.select.map(s -> s._1).mkString(SQL.COMMA),
+                keysSql(keys, limit),
+                returningSql(keys, returning));
+
+        List<Inject> injects = values.values().toList().appendAll(keys.injects());
+        return capped(table, limit, () -> jdbc.query(sql,
+                Inject.stuffing(injects),
+                rs -> Extract.extract(rs, 1, returning)));
+    }
+
+    @Override
+    public List<Map<String, Object>> deleteWhere(String table,
+                                                 View<String> keys,
+                                                 int limit,
+                                                 Map<String, Extract<?>> returning) {
+        String sql = Java.format(DELETE_WHERE,
+                schema,
+                table,
+                keys.select.map(s -> s._1).mkString(SQL.COMMA),
+                keysSql(keys, limit),
+                returningSql(keys, returning));
+
+        List<Inject> injects = keys.injects();
+        return capped(table, limit, () -> jdbc.query(sql,
+                Inject.stuffing(injects),
+                rs -> Extract.extract(rs, 1, returning)));
+    }
+
+    String keysSql(View<String> keys, int limit) {
+        // One row over the limit is enough to tell that the filter is too wide, so the rest is never touched
+        View<String> limited = new View<>(keys.name,
+                keys.joins,
+                keys.where,
+                List.empty(),
+                keys.select,
+                keys.distinct,
+                null,
+                limit + 1);
+        return builder.viewSql(limited, HashSet.empty(), 2);
+    }
+
+    String returningSql(View<String> keys, Map<String, Extract<?>> returning) {
+        // Affected rows are counted even when nothing is asked back
+        return SQL.RETURNING + (returning.isEmpty() ? keys.select.map(s -> s._1) : returning.keySet()).mkString(SQL.COMMA);
+    }
+
+    <T> List<T> capped(String table, int limit, Supplier<List<T>> work) {
+        return jdbc.transaction(() -> {
+            List<T> rows = work.get();
+            if (limit < rows.size()) {
+                throw new Http.Error(Http.ErrorCode.UNPROCESSABLE_ENTITY,
+                        "More than ${0} rows of ${1} table match the filter, nothing is changed",
+                        limit,
+                        table);
+            }
+            return rows;
+        });
+    }
+
     @Override
     public Option<Map<String, Object>> select(String table,
                                               Map<String, Inject> primaryKey,
@@ -175,20 +375,64 @@ public class PostgresDataAccess implements DataAccess {
                 primaryKey.map(t -> t._1 + SQL.EQUAL + SQL.PARAM).mkString(SQL.AND),
                 returning.map(t -> t._1).mkString(SQL.COMMA));
 
-        return jdbc.query(sql,
-                ps -> Inject.inject(ps, 1, primaryKey.values()),
-                rs -> Extract.extract(rs, 1, returning))
+        List<Inject> injects = primaryKey.values().toList();
+        return singleFlight.execute(sql,
+                injects,
+                returning,
+                () -> jdbc.read(sql,
+                        Inject.stuffing(injects),
+                        rs -> Extract.extract(rs, 1, returning)))
             .peekOption();
     }
 
     @Override
     public List<Map<String, Object>> query(List<View<String>> commonTableExpressions,
                                            View<Tuple2<String, Extract<?>>> query) {
-        String                           sql     = builder.querySql(commonTableExpressions, query);
+        String                           sql     = buildSql(commonTableExpressions, query);
         List<Inject>                     injects = commonTableExpressions.flatMap(View::injects).appendAll(query.injects());
         List<Tuple2<String, Extract<?>>> extract = query.select.map(c -> c._1);
-        return jdbc.query(sql,
-                ps -> Inject.inject(ps, 1, injects),
-                rs -> Extract.extract(rs, 1, extract));
+        return singleFlight.execute(sql,
+                injects,
+                extract,
+                () -> jdbc.read(sql,
+                        Inject.stuffing(injects),
+                        rs -> Extract.extract(rs, 1, extract)));
+    }
+
+    String buildSql(List<View<String>> commonTableExpressions, View<Tuple2<String, Extract<?>>> query) {
+        return Tracer.span("sql.build", () -> builder.querySql(commonTableExpressions, query));
+    }
+
+    @Override
+    public QueryPlan explain(List<View<String>> commonTableExpressions,
+                             View<Tuple2<String, Extract<?>>> query) {
+        String       sql     = Java.format(EXPLAIN, builder.querySql(commonTableExpressions, query));
+        List<Inject> injects = commonTableExpressions.flatMap(View::injects).appendAll(query.injects());
+        String       json    = jdbc.query(sql,
+                Inject.stuffing(injects),
+                rs -> rs.getString(1))
+            .get();
+
+        @SuppressWarnings("unchecked")
+        java.util.Map<String, Object> plan = (java.util.Map<String, Object>) ((java.util.Map<String, Object>) Json
+            .parse(json, java.util.List.class)
+            .get(0))
+            .get(Plan.PLAN);
+
+        return new QueryPlan(
+                ((Number) plan.get(Plan.TOTAL_COST)).doubleValue(),
+                ((Number) plan.get(Plan.PLAN_ROWS)).doubleValue(),
+                planSummary(plan).mkString(" -> "));
+    }
+
+    @SuppressWarnings("unchecked")
+    List<String> planSummary(java.util.Map<String, Object> plan) {
+        String            relation = (String) plan.get(Plan.RELATION_NAME);
+        java.util.List<?> children = (java.util.List<?>) plan.get(Plan.PLANS);
+
+        List<String> summary = List.of(plan.get(Plan.NODE_TYPE) + (null == relation ? "" : " on " + relation));
+        return null == children
+                ? summary
+                : summary.appendAll(List.ofAll(children).flatMap(c -> planSummary((java.util.Map<String, Object>) c)));
     }
 }
@@ -25,6 +25,8 @@ import io.vavr.collection.Traversable;
 
 public class PostgresSQLBuilder implements SQLBuilder {
 
+    static final String UNNEST_ALIAS = "u";
+
     final String schema;
 
     public PostgresSQLBuilder(String schema) {
@@ -115,7 +117,8 @@ public class PostgresSQLBuilder implements SQLBuilder {
                 PostgresDataType.TSVECTOR.injectStringValue.prepare(values.mkString(" ")));
     }
 
-    String querySql(List<View<String>> commonTableExpressions, View<Tuple2<String, Extract<?>>> query) {
+    @Override
+    public String querySql(List<View<String>> commonTableExpressions, View<Tuple2<String, Extract<?>>> query) {
         StringBuilder sb       = new StringBuilder();
         int           indent   = 0;
         Set<String>   cteNames = commonTableExpressions.map(c -> c.name).toSet();
@@ -237,4 +240,20 @@ public class PostgresSQLBuilder implements SQLBuilder {
 
         return TableLike.of(sql, column.type.injectJsonArray.prepare(values));
     }
+
+    @Override
+    public TableLike stringArrayAsTable(List<ColumnInfo> columns, Traversable<List<String>> rows, String ordinality) {
+        // (SELECT * FROM UNNEST((?)::type1[], (?)::type2[]) WITH ORDINALITY AS u(col1, col2, ordinality))
+        String sql = SQL.OPEN
+                + SQL.SELECT + SQL.ALL + SQL.SPACE
+                + SQL.FROM + SQL.UNNEST_OPEN
+                + columns.map(c -> SQL.PARAM_CAST + c.type.name + SQL.ARRAY).mkString(SQL.COMMA)
+                + SQL.WITH_ORDINALITY
+                + SQL.AS + UNNEST_ALIAS + columns.map(c -> c.name).append(ordinality).mkString(SQL.OPEN, SQL.COMMA, SQL.CLOSE)
+                + SQL.CLOSE;
+
+        // Arrays are unnested side by side, so element i of every array belongs to row i
+        return TableLike.of(sql, Inject.fold(columns.zipWithIndex()
+            .map(t -> t._1.type.injectStringArray.prepare(rows.map(r -> r.get(t._2)).toList()))));
+    }
 }
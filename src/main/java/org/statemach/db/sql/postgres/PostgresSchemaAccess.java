@@ -6,6 +6,7 @@ import org.statemach.db.jdbc.Vendor;
 import org.statemach.db.schema.ColumnInfo;
 import org.statemach.db.schema.CompositeType;
 import org.statemach.db.schema.ForeignKey;
+import org.statemach.db.schema.IndexInfo;
 import org.statemach.db.schema.PrimaryKey;
 import org.statemach.db.sql.SQL;
 import org.statemach.db.sql.SchemaAccess;
@@ -21,7 +22,9 @@ public class PostgresSchemaAccess implements SchemaAccess {
     static final String QUERY_FOR_ALL_FOREIGN_KEYS = Java.resource("QueryForAllForeignKeys.sql");
     static final String QUERY_FOR_ALL_PRIMARY_KEYS = Java.resource("QueryForAllPrimaryKeys.sql");
     static final String QEURY_FOR_ALL_TABLES       = Java.resource("QueryForAllTables.sql");
+    static final String QUERY_FOR_ALL_TABLE_ROWS   = Java.resource("QueryForAllTableRows.sql");
     static final String QUERY_FOR_ALL_TYPES        = Java.resource("QueryForAllTypes.sql");
+    static final String QUERY_FOR_ALL_INDEXES      = Java.resource("QueryForAllIndexes.sql");
     static final String CREATE_TYPE                = Java.resource("CreateCompositeType.sql");
     static final String DROP_TYPE                  = Java.resource("DropCompositeType.sql");
 
@@ -52,7 +55,8 @@ public class PostgresSchemaAccess implements SchemaAccess {
                         ColumnInfo.of(
                                 rs.getString(2),
                                 PostgresDataType.getByName(rs.getString(3)),
-                                Extract.INTEGER.get(rs, 4))))
+                                Extract.INTEGER.get(rs, 4),
+                                rs.getBoolean(5))))
             .groupBy(t -> t._1)
             .mapValues(l -> l.map(c -> c._2));
     }
@@ -98,6 +102,39 @@ public class PostgresSchemaAccess implements SchemaAccess {
             .toList();
     }
 
+    @Override
+    public Map<String, Long> getAllTableRowEstimates() {
+        return jdbc.query(QUERY_FOR_ALL_TABLE_ROWS,
+                ps -> ps.setString(1, schemaName),
+                rs -> new Tuple2<>(rs.getString(1), rs.getLong(2)))
+            .toMap(t -> t);
+    }
+
+    @Override
+    public List<IndexInfo> getAllIndexes() {
+        return jdbc.query(QUERY_FOR_ALL_INDEXES,
+                ps -> ps.setString(1, schemaName),
+                rs -> new IndexInfo(rs.getString(1),
+                        rs.getString(2),
+                        List.of(rs.getString(3)),
+                        rs.getBoolean(4),
+                        rs.getBoolean(5),
+                        rs.getLong(6),
+                        rs.getLong(7),
+                        rs.getLong(8)))
+            .groupBy(i -> i.name)
+            .values()
+            .map(l -> new IndexInfo(l.head().name,
+                    l.head().table,
+                    l.flatMap(i -> i.columns),
+                    l.head().unique,
+                    l.head().primary,
+                    l.head().scans,
+                    l.head().sizeBytes,
+                    l.head().tableWrites))
+            .toList();
+    }
+
     @Override
     public void createCompositeType(CompositeType type) {
         String fields = type.fields
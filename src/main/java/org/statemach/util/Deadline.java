@@ -0,0 +1,166 @@
+package org.statemach.util;
+
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpHandler;
+
+public class Deadline {
+
+    static final Logger LOGGER = Logger.getLogger(Deadline.class.getName());
+
+    public static final String HEADER = "X-Request-Timeout";
+
+    public static final Deadline NONE = new Deadline(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "deadline-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public final long timeoutMillis;
+
+    final long expiresNanos;
+
+    // Guarded by this
+    Statement running = null;
+
+    Deadline(long timeoutMillis, long expiresNanos) {
+        this.timeoutMillis = timeoutMillis;
+        this.expiresNanos = expiresNanos;
+    }
+
+    public static Deadline of(long timeoutMillis) {
+        return new Deadline(timeoutMillis, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+    }
+
+    public static Deadline current() {
+        Deadline deadline = CURRENT.get();
+        return null == deadline ? NONE : deadline;
+    }
+
+    public static Deadline latest(Deadline a, Deadline b) {
+        if (a.isUnbounded() || b.isUnbounded()) {
+            return a.isUnbounded() ? a : b;
+        }
+        // Nano time may overflow, so only difference of two values is meaningful
+        return a.expiresNanos - b.expiresNanos >= 0 ? a : b;
+    }
+
+    public static <T> T with(Deadline deadline, Supplier<T> work) {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return work.get();
+        } finally {
+            if (null == previous) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    public static HttpHandler handler(long defaultMillis, HttpHandler next) {
+        return exchange -> {
+            Deadline           deadline = of(timeout(exchange.getRequestHeaders().getFirst(HEADER), defaultMillis));
+            ScheduledFuture<?> watchdog = WATCHDOG.schedule(deadline::cancel, deadline.timeoutMillis, TimeUnit.MILLISECONDS);
+            CURRENT.set(deadline);
+            try {
+                next.handle(exchange);
+            } finally {
+                CURRENT.remove();
+                watchdog.cancel(false);
+            }
+        };
+    }
+
+    static long timeout(String header, long defaultMillis) {
+        if (null == header) {
+            return defaultMillis;
+        }
+
+        // Client may only shorten the budget, the handler default is the upper bound
+        long requested;
+        try {
+            requested = Long.parseLong(header.trim());
+        } catch (NumberFormatException ex) {
+            requested = 0;
+        }
+        if (requested <= 0) {
+            throw new Http.Error(Http.ErrorCode.BAD_REQUEST,
+                    "Header ${0} should be a positive number of milliseconds, got '${1}'",
+                    HEADER,
+                    header);
+        }
+        return Math.min(requested, defaultMillis);
+    }
+
+    public boolean isUnbounded() {
+        return Long.MAX_VALUE == expiresNanos;
+    }
+
+    public long remainingNanos() {
+        return isUnbounded() ? Long.MAX_VALUE : expiresNanos - System.nanoTime();
+    }
+
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+
+    public void check() {
+        if (isExpired()) {
+            throw expired(null);
+        }
+    }
+
+    public Http.Error expired(Throwable cause) {
+        return new Http.Error(Http.ErrorCode.GATEWAY_TIMEOUT,
+                cause,
+                "Request deadline of ${0} ms is exceeded",
+                timeoutMillis);
+    }
+
+    public void attach(Statement statement) throws Exception {
+        if (isUnbounded()) {
+            return;
+        }
+
+        check();
+        // Driver timeout has seconds granularity, the watchdog cancels exactly at the deadline
+        statement.setQueryTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(remainingNanos() + 999_999_999L)));
+        synchronized (this) {
+            running = statement;
+        }
+    }
+
+    public void detach() {
+        if (isUnbounded()) {
+            return;
+        }
+
+        // Cancel holds the same lock, so it never reaches a connection, that is back in the pool
+        synchronized (this) {
+            running = null;
+        }
+    }
+
+    synchronized void cancel() {
+        if (null == running) {
+            return;
+        }
+        try {
+            running.cancel();
+        } catch (Exception ex) {
+            LOGGER.warning("Failed to cancel statement after deadline: " + ex.getMessage());
+        }
+    }
+}
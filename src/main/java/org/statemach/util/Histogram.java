@@ -0,0 +1,70 @@
+package org.statemach.util;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram {
+
+    public static final double[] SECONDS = { 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10 };
+    public static final double[] BYTES   = { 256, 1024, 4096, 16384, 65536, 262144, 1048576, 4194304, 16777216 };
+    public static final double[] ROWS    = { 0, 1, 10, 100, 1000, 10000, 100000 };
+
+    static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    final double[]    bounds;
+    final LongAdder[] buckets;
+    final DoubleAdder sum = new DoubleAdder();
+
+    public Histogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        // Last bucket is +Inf, counts are not cumulative until they are read
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void observe(double value) {
+        int i = 0;
+        while (i < bounds.length && value > bounds[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sum.add(value);
+    }
+
+    public void observeNanos(long nanos) {
+        observe(nanos / NANOS_PER_SECOND);
+    }
+
+    public double[] bounds() {
+        return bounds.clone();
+    }
+
+    public long[] cumulative() {
+        long[] result = new long[buckets.length];
+        long   total  = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            total += buckets[i].sum();
+            result[i] = total;
+        }
+        return result;
+    }
+
+    public long count() {
+        long total = 0;
+        for (LongAdder b : buckets) {
+            total += b.sum();
+        }
+        return total;
+    }
+
+    public double sum() {
+        return sum.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "Histogram@{count: " + count() + ", sum: " + sum() + "}";
+    }
+}
@@ -1,10 +1,14 @@
 package org.statemach.util;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
@@ -12,11 +16,16 @@ import com.sun.net.httpserver.HttpHandler;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.collection.Stream;
+import io.vavr.control.Option;
 
 public interface Http {
 
     static interface Header {
-        final static String CONTENT_TYPE = "Content-Type";
+        final static String CONTENT_TYPE  = "Content-Type";
+        final static String AUTHORIZATION = "Authorization";
+        final static String RETRY_AFTER   = "Retry-After";
+        final static String ETAG          = "ETag";
+        final static String IF_NONE_MATCH = "If-None-Match";
     }
 
     static interface ContentType {
@@ -25,18 +34,33 @@ public interface Http {
 
     static interface ErrorCode {
         final static int OK                 = 200;
+        final static int NOT_MODIFIED       = 304;
         final static int BAD_REQUEST        = 400;
         final static int UNAUTHORIZED       = 401;
         final static int FORBIDDEN          = 403;
         final static int NOT_FOUND          = 404;
         final static int METHOD_NOT_ALLOWED = 405;
         final static int NOT_ACCEPTABLE     = 406;
+        final static int CONFLICT           = 409;
+
+        final static int UNPROCESSABLE_ENTITY = 422;
 
         final static int INTERNAL_SERVER_ERROR = 500;
         final static int NOT_IMPLEMENTED       = 501;
         final static int SERVICE_UNAVAILABLE   = 503;
+        final static int GATEWAY_TIMEOUT       = 504;
     }
 
+    static final Histogram JSON_SECONDS = new Histogram(Histogram.SECONDS);
+    static final Histogram JSON_BYTES   = new Histogram(Histogram.BYTES);
+
+    static final int    ETAG_BYTES  = 16;
+    static final String WEAK_PREFIX = "W/";
+    static final String ANY_ETAG    = "*";
+
+    // Request that is served by current thread, for diagnostics of the code that has no access to exchange
+    static final ThreadLocal<String> ORIGIN = new ThreadLocal<>();
+
     @SuppressWarnings("serial")
     static class Error extends RuntimeException {
         public final int errorCode;
@@ -57,6 +81,16 @@ public interface Http {
         }
     }
 
+    @SuppressWarnings("serial")
+    static class Overloaded extends Error {
+        public final long retryAfterSeconds;
+
+        public Overloaded(long retryAfterSeconds, String format, Object... parameters) {
+            super(ErrorCode.SERVICE_UNAVAILABLE, format, parameters);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
     static class ErrorResource {
         public final String message;
         public final String stack;
@@ -76,17 +110,71 @@ public interface Http {
     }
 
     static HttpExchange json(HttpExchange exchange, int returnCode, Object data) {
+        return json(exchange, returnCode, data, false);
+    }
+
+    static HttpExchange conditionalJson(HttpExchange exchange, Object data) {
+        return json(exchange, ErrorCode.OK, data, true);
+    }
+
+    static HttpExchange json(HttpExchange exchange, int returnCode, Object data, boolean conditional) {
         return Java.soft(() -> {
-            byte[] binary = Json.MAPPER.writeValueAsBytes(data);
-            exchange.getResponseHeaders().set(Header.CONTENT_TYPE, ContentType.APPLICATION_JSON);
-            exchange.sendResponseHeaders(returnCode, binary.length);
-            try (OutputStream out = exchange.getResponseBody()) {
-                out.write(binary);
+            try (Span span = Tracer.start("json.write")) {
+                JsonWriteEvent event = new JsonWriteEvent();
+                event.begin();
+                long   start  = System.nanoTime();
+                byte[] binary = Json.MAPPER.writeValueAsBytes(data);
+                JSON_SECONDS.observeNanos(System.nanoTime() - start);
+                JSON_BYTES.observe(binary.length);
+                span.attribute("json.bytes", binary.length);
+                if (event.shouldCommit()) {
+                    event.status = returnCode;
+                    event.bytes = binary.length;
+                    event.commit();
+                }
+
+                // Database is read anyway, unchanged response only saves its transfer to the client
+                if (conditional && notModified(exchange, etag(binary))) {
+                    span.attribute("http.not_modified", true);
+                    return exchange;
+                }
+
+                exchange.getResponseHeaders().set(Header.CONTENT_TYPE, ContentType.APPLICATION_JSON);
+                exchange.sendResponseHeaders(returnCode, binary.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(binary);
+                }
+                return exchange;
             }
-            return exchange;
         });
     }
 
+    static String etag(byte[] binary) {
+        byte[] digest = Java.soft(() -> MessageDigest.getInstance("SHA-256").digest(binary));
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, ETAG_BYTES)) + "\"";
+    }
+
+    static boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set(Header.ETAG, etag);
+
+        String match = exchange.getRequestHeaders().getFirst(Header.IF_NONE_MATCH);
+        if (null == match || !matches(match, etag)) {
+            return false;
+        }
+
+        exchange.sendResponseHeaders(ErrorCode.NOT_MODIFIED, -1);
+        exchange.getResponseBody().close();
+        return true;
+    }
+
+    static boolean matches(String ifNoneMatch, String etag) {
+        // If-None-Match uses weak comparison, so W/ prefix of the client's tag is ignored
+        return List.of(ifNoneMatch.split(","))
+            .map(String::trim)
+            .map(t -> t.startsWith(WEAK_PREFIX) ? t.substring(WEAK_PREFIX.length()) : t)
+            .exists(t -> ANY_ETAG.equals(t) || etag.equals(t));
+    }
+
     static <T> T extract(HttpExchange exchange, Class<T> type) {
         return Java.soft(() -> {
             try (InputStream input = exchange.getRequestBody()) {
@@ -118,12 +206,29 @@ public interface Http {
 
     static HttpHandler errorHandler(HttpHandler handler) {
         return exchange -> {
+            String method = exchange.getRequestMethod();
+            Span   span   = Tracer.root(method, () -> exchange.getRequestHeaders().getFirst(Tracer.TRACEPARENT));
             try {
+                String path = Option.of(exchange.getRequestURI()).map(URI::getPath).getOrElse("");
+                ORIGIN.set(method + " " + path);
+                if (span.isRecording()) {
+                    span.attribute("http.method", method).attribute("http.target", path);
+                    exchange.getResponseHeaders().set(Tracer.TRACEPARENT, span.traceparent());
+                }
                 handler.handle(exchange);
             } catch (Error ex) {
+                span.error(ex).attribute("http.status_code", ex.errorCode);
+                if (ex instanceof Overloaded) {
+                    exchange.getResponseHeaders()
+                        .set(Header.RETRY_AFTER, Long.toString(((Overloaded) ex).retryAfterSeconds));
+                }
                 json(exchange, ex.errorCode, ErrorResource.of(ex));
             } catch (Throwable ex) {
+                span.error(ex).attribute("http.status_code", ErrorCode.INTERNAL_SERVER_ERROR);
                 json(exchange, ErrorCode.INTERNAL_SERVER_ERROR, ErrorResource.of(ex));
+            } finally {
+                ORIGIN.remove();
+                span.close();
             }
         };
     }
@@ -0,0 +1,22 @@
+package org.statemach.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.statemach.JsonWrite")
+@Label("JSON Response")
+@Category({ "Statemach", "HTTP" })
+@StackTrace(false)
+public class JsonWriteEvent extends Event {
+
+    @Label("Status Code")
+    public int status;
+
+    @Label("Size")
+    @DataAmount
+    public int bytes;
+}
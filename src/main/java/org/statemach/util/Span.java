@@ -0,0 +1,95 @@
+package org.statemach.util;
+
+public class Span implements AutoCloseable {
+
+    public static interface Kind {
+        static final int INTERNAL = 1;
+        static final int SERVER   = 2;
+        static final int CLIENT   = 3;
+    }
+
+    public static final Span NOOP = new Span(null, null, null, null, null, null, Kind.INTERNAL, 0, 0);
+
+    final Tracer.Trace trace;
+    final Span         parent;
+
+    public final String traceId;
+    public final String spanId;
+    public final String parentSpanId;
+    public final String name;
+    public final int    kind;
+    public final long   startEpochNanos;
+
+    final long startNanos;
+
+    long   endEpochNanos = 0;
+    String error         = null;
+
+    final java.util.Map<String, Object> attributes = new java.util.LinkedHashMap<>();
+
+    Span(Tracer.Trace trace,
+         Span parent,
+         String traceId,
+         String spanId,
+         String parentSpanId,
+         String name,
+         int kind,
+         long startNanos,
+         long startEpochNanos) {
+        this.trace = trace;
+        this.parent = parent;
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.startNanos = startNanos;
+        this.startEpochNanos = startEpochNanos;
+    }
+
+    public boolean isRecording() {
+        return null != trace;
+    }
+
+    public Span attribute(String key, Object value) {
+        if (isRecording()) {
+            attributes.put(key, value);
+        }
+        return this;
+    }
+
+    public Span error(Throwable ex) {
+        if (isRecording()) {
+            error = Java.toStringOrEmpty(ex.getMessage());
+        }
+        return this;
+    }
+
+    public String traceparent() {
+        return Java.format("00-${0}-${1}-${2}", traceId, spanId, trace.sampled ? "01" : "00");
+    }
+
+    public java.util.Map<String, Object> getAttributes() {
+        return java.util.Collections.unmodifiableMap(attributes);
+    }
+
+    public long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public void close() {
+        if (isRecording()) {
+            trace.end(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Span@{name: " + name + ", traceId: " + traceId + ", spanId: " + spanId + "}";
+    }
+}
@@ -0,0 +1,103 @@
+package org.statemach.util;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+
+@FunctionalInterface
+public interface SpanExporter {
+
+    static final String SERVICE_NAME = "statemach-data";
+
+    static final ObjectWriter WRITER = Json.MAPPER.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+    void export(List<Span> spans) throws Exception;
+
+    static SpanExporter file(Path path) {
+        // One OTLP JSON document per line
+        return spans -> Files.write(path,
+                (WRITER.writeValueAsString(toOtlp(spans)) + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    static SpanExporter otlp(URI endpoint) {
+        // OTLP over HTTP with JSON encoding, e.g. http://collector:4318/v1/traces
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        return spans -> {
+            HttpRequest          request  = HttpRequest.newBuilder(endpoint)
+                .timeout(Duration.ofSeconds(10))
+                .header(Http.Header.CONTENT_TYPE, Http.ContentType.APPLICATION_JSON)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(WRITER.writeValueAsBytes(toOtlp(spans))))
+                .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (2 != response.statusCode() / 100) {
+                throw new IllegalStateException(Java.format("OTLP endpoint ${0} responded with ${1}: ${2}",
+                        endpoint,
+                        response.statusCode(),
+                        response.body()));
+            }
+        };
+    }
+
+    static java.util.Map<String, Object> toOtlp(List<Span> spans) {
+        return map("resourceSpans", List.of(map(
+                "resource", map("attributes", List.of(attribute("service.name", SERVICE_NAME))),
+                "scopeSpans", List.of(map(
+                        "scope", map("name", SERVICE_NAME),
+                        "spans", spans.map(SpanExporter::toOtlp))))));
+    }
+
+    static java.util.Map<String, Object> toOtlp(Span span) {
+        LinkedHashMap<String, Object> result = LinkedHashMap.<String, Object>empty()
+            .put("traceId", span.traceId)
+            .put("spanId", span.spanId);
+        if (null != span.parentSpanId) {
+            result = result.put("parentSpanId", span.parentSpanId);
+        }
+        return result
+            .put("name", span.name)
+            .put("kind", span.kind)
+            .put("startTimeUnixNano", Long.toString(span.startEpochNanos))
+            .put("endTimeUnixNano", Long.toString(span.endEpochNanos))
+            .put("attributes", List.ofAll(span.attributes.entrySet())
+                .map(e -> attribute(e.getKey(), e.getValue()))
+                .toJavaList())
+            .put("status", null == span.error ? map("code", 1) : map("code", 2, "message", span.error))
+            .toJavaMap();
+    }
+
+    static java.util.Map<String, Object> attribute(String key, Object value) {
+        if (value instanceof Boolean) {
+            return map("key", key, "value", map("boolValue", value));
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return map("key", key, "value", map("intValue", value.toString()));
+        }
+        if (value instanceof Number) {
+            return map("key", key, "value", map("doubleValue", value));
+        }
+        return map("key", key, "value", map("stringValue", Java.toStringOrEmpty(value)));
+    }
+
+    static java.util.Map<String, Object> map(Object... keysAndValues) {
+        java.util.Map<String, Object> result = new java.util.LinkedHashMap<>();
+        for (int i = 0; i + 1 < keysAndValues.length; i += 2) {
+            Object value = keysAndValues[i + 1];
+            result.put((String) keysAndValues[i], value instanceof List ? ((List<?>) value).toJavaList() : value);
+        }
+        return result;
+    }
+}
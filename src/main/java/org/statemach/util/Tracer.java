@@ -0,0 +1,214 @@
+package org.statemach.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+public class Tracer {
+
+    static final Logger LOGGER = Logger.getLogger(Tracer.class.getName());
+
+    public static final String TRACEPARENT = "traceparent";
+
+    public static final Tracer NOOP = new Tracer(null, 0, Long.MAX_VALUE, 1);
+
+    static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    static volatile Tracer installed = NOOP;
+
+    static class Parent {
+        final String  traceId;
+        final String  spanId;
+        final boolean sampled;
+
+        Parent(String traceId, String spanId, boolean sampled) {
+            this.traceId = traceId;
+            this.spanId = spanId;
+            this.sampled = sampled;
+        }
+    }
+
+    class Trace {
+        final boolean              sampled;
+        final long                 startNanos;
+        final long                 startEpochNanos;
+        final java.util.List<Span> spans = new java.util.ArrayList<>();
+
+        Trace(boolean sampled) {
+            this.sampled = sampled;
+            this.startNanos = System.nanoTime();
+            this.startEpochNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        }
+
+        long epochNanos(long nanos) {
+            return startEpochNanos + (nanos - startNanos);
+        }
+
+        Span start(Span parent, String traceId, String parentSpanId, String name, int kind) {
+            long nanos = System.nanoTime();
+            Span span  = new Span(this, parent, traceId, randomId(1), parentSpanId, name, kind, nanos, epochNanos(nanos));
+            CURRENT.set(span);
+            return span;
+        }
+
+        void end(Span span) {
+            span.endEpochNanos = epochNanos(System.nanoTime());
+            spans.add(span);
+            if (null == span.parent) {
+                CURRENT.remove();
+                finish(this, span);
+            } else {
+                CURRENT.set(span.parent);
+            }
+        }
+    }
+
+    final SpanExporter              exporter;
+    final double                    sampleRatio;
+    final long                      tailNanos;
+    final BlockingQueue<List<Span>> queue;
+    final LongAdder                 dropped = new LongAdder();
+
+    Tracer(SpanExporter exporter, double sampleRatio, long tailNanos, int capacity) {
+        this.exporter = exporter;
+        this.sampleRatio = sampleRatio;
+        this.tailNanos = tailNanos;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public static Tracer of(SpanExporter exporter, double sampleRatio, long tailMillis, int capacity) {
+        Tracer tracer = new Tracer(exporter,
+                sampleRatio,
+                tailMillis < 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(tailMillis),
+                capacity);
+        Thread writer = new Thread(tracer::drain, "trace-export");
+        writer.setDaemon(true);
+        writer.start();
+        return tracer;
+    }
+
+    public static void install(Tracer tracer) {
+        installed = tracer;
+    }
+
+    public static Span root(String name, Supplier<String> traceparent) {
+        return installed.startRoot(name, traceparent);
+    }
+
+    public static Span start(String name) {
+        return start(name, Span.Kind.INTERNAL);
+    }
+
+    public static Span start(String name, int kind) {
+        Span parent = CURRENT.get();
+        return null == parent ? Span.NOOP : parent.trace.start(parent, parent.traceId, parent.spanId, name, kind);
+    }
+
+    public static <T, E extends Exception> T span(String name, SupplierEx<T, E> work) throws E {
+        Span span = start(name);
+        try (span) {
+            return work.get();
+        }
+    }
+
+    public static <E extends Exception> void span(String name, RunnableEx<E> work) throws E {
+        Span span = start(name);
+        try (span) {
+            work.run();
+        }
+    }
+
+    public static Span current() {
+        return Option.of(CURRENT.get()).getOrElse(Span.NOOP);
+    }
+
+    Span startRoot(String name, Supplier<String> traceparent) {
+        if (null == exporter) {
+            return Span.NOOP;
+        }
+
+        // Head sampling follows the caller's decision, when there is one
+        Option<Parent> parent  = parse(traceparent.get());
+        boolean        sampled = parent
+            .map(p -> p.sampled)
+            .getOrElse(() -> ThreadLocalRandom.current().nextDouble() < sampleRatio);
+        if (!sampled && Long.MAX_VALUE == tailNanos) {
+            return Span.NOOP;
+        }
+
+        // Leftover of a request that did not close its spans must not become a parent
+        CURRENT.remove();
+        return new Trace(sampled).start(null,
+                parent.map(p -> p.traceId).getOrElse(() -> randomId(2)),
+                parent.map(p -> p.spanId).getOrNull(),
+                name,
+                Span.Kind.SERVER);
+    }
+
+    void finish(Trace trace, Span root) {
+        // Tail sampling keeps slow requests, even if they were not picked upfront
+        if (!trace.sampled && root.endEpochNanos - root.startEpochNanos < tailNanos) {
+            return;
+        }
+        if (!queue.offer(List.ofAll(trace.spans))) {
+            dropped.increment();
+        }
+    }
+
+    void drain() {
+        while (true) {
+            List<Span> spans = Java.soft(() -> queue.take());
+            try {
+                exporter.export(spans);
+            } catch (Exception ex) {
+                LOGGER.warning("Failed to export trace: " + ex.getMessage());
+            }
+        }
+    }
+
+    static Option<Parent> parse(String traceparent) {
+        // Format: version-traceId-parentId-flags, e.g. 00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01
+        if (null == traceparent) {
+            return Option.none();
+        }
+
+        String[] parts = traceparent.trim().split("-");
+        if (4 > parts.length
+                || !isHex(parts[0], 2)
+                || "ff".equals(parts[0])
+                || !isHex(parts[1], 32)
+                || !isHex(parts[2], 16)
+                || !isHex(parts[3], 2)
+                || isZero(parts[1])
+                || isZero(parts[2])) {
+            return Option.none();
+        }
+
+        boolean sampled = 0 != (Integer.parseInt(parts[3], 16) & 1);
+        return Option.of(new Parent(parts[1], parts[2], sampled));
+    }
+
+    static boolean isHex(String value, int length) {
+        return length == value.length() && value.chars().allMatch(c -> ('0' <= c && c <= '9') || ('a' <= c && c <= 'f'));
+    }
+
+    static boolean isZero(String value) {
+        return value.chars().allMatch(c -> '0' == c);
+    }
+
+    static String randomId(int longs) {
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < longs; i++) {
+            String hex = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            result.append("0".repeat(16 - hex.length())).append(hex);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,5 @@
+DELETE
+    FROM  ${0}.${1}
+    WHERE (${2}) IN (
+${3}    )
+    ${4}
@@ -0,0 +1,2 @@
+EXPLAIN (FORMAT JSON)
+${0}
\ No newline at end of file
@@ -0,0 +1,7 @@
+INSERT INTO ${0}.${1} (${2})
+    SELECT ${2}
+      FROM (SELECT ${2}, 0 FROM ${0}.${1} WHERE false
+            UNION ALL
+            ${3}) AS ${4} (${2}, ${5})
+     ORDER BY ${5}
+    ${6}
\ No newline at end of file
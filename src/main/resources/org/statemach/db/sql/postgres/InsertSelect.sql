@@ -0,0 +1,4 @@
+INSERT INTO ${0}.${1} (${2})
+    SELECT ${3}
+      FROM ${4}
+    ${5}
\ No newline at end of file
@@ -0,0 +1,18 @@
+SELECT i.relname
+     , t.relname
+     , COALESCE(a.attname, '(expression)') AS column_name
+     , ix.indisunique
+     , ix.indisprimary
+     , COALESCE(s.idx_scan, 0) AS scans
+     , pg_catalog.pg_relation_size(i.oid) AS size_bytes
+     , COALESCE(st.n_tup_ins + st.n_tup_upd + st.n_tup_del, 0) AS table_writes
+  FROM       pg_catalog.pg_index ix
+  INNER JOIN pg_catalog.pg_class t ON t.oid = ix.indrelid
+  INNER JOIN pg_catalog.pg_class i ON i.oid = ix.indexrelid
+  INNER JOIN pg_catalog.pg_namespace n ON n.oid = t.relnamespace
+  CROSS JOIN LATERAL unnest(ix.indkey) WITH ORDINALITY AS k(attnum, position)
+  LEFT JOIN  pg_catalog.pg_attribute a ON a.attrelid = t.oid AND a.attnum = k.attnum
+  LEFT JOIN  pg_catalog.pg_stat_user_indexes s ON s.indexrelid = ix.indexrelid
+  LEFT JOIN  pg_catalog.pg_stat_user_tables st ON st.relid = t.oid
+  WHERE n.nspname = ?
+  ORDER BY i.relname ASC, k.position ASC
@@ -0,0 +1,6 @@
+SELECT c.relname
+     , c.reltuples::bigint AS row_estimate
+  FROM       pg_catalog.pg_class c
+  INNER JOIN pg_catalog.pg_namespace n ON n.oid = c.relnamespace
+  WHERE n.nspname = ? AND c.relkind IN ('r', 'p')
+  ORDER BY c.relname ASC
\ No newline at end of file
@@ -1,4 +1,4 @@
-SELECT table_name, column_name, data_type, character_maximum_length
+SELECT table_name, column_name, data_type, character_maximum_length, is_nullable = 'YES'
     FROM  information_schema.columns c
     WHERE table_schema = ?
     ORDER BY table_name ASC, ordinal_position ASC
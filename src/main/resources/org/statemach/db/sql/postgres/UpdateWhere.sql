@@ -0,0 +1,5 @@
+UPDATE ${0}.${1}
+    SET ${2}
+    WHERE (${3}) IN (
+${4}    )
+    ${5}
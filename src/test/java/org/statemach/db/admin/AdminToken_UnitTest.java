@@ -0,0 +1,61 @@
+package org.statemach.db.admin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+public class AdminToken_UnitTest {
+
+    final AdminToken subject = new AdminToken("secret");
+
+    final HttpExchange exchange = mock(HttpExchange.class);
+    final Headers      headers  = new Headers();
+
+    @BeforeEach
+    void prepare() {
+        doReturn(headers).when(exchange).getRequestHeaders();
+    }
+
+    @Test
+    void matches() {
+        // Setup
+        headers.set(Http.Header.AUTHORIZATION, "Bearer secret");
+
+        // Execute & Verify
+        assertTrue(subject.matches(exchange));
+    }
+
+    @Test
+    void matches_wrong() {
+        // Setup
+        headers.set(Http.Header.AUTHORIZATION, "Bearer secret2");
+
+        // Execute & Verify
+        assertFalse(subject.matches(exchange));
+    }
+
+    @Test
+    void matches_missing() {
+        // Execute & Verify
+        assertFalse(subject.matches(exchange));
+    }
+
+    @Test
+    void check() {
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.check(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.UNAUTHORIZED, result.errorCode);
+    }
+}
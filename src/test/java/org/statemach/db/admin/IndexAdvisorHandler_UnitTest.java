@@ -0,0 +1,83 @@
+package org.statemach.db.admin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.db.advisor.IndexAdvisor;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import io.vavr.collection.List;
+
+public class IndexAdvisorHandler_UnitTest {
+
+    final IndexAdvisor        advisor = mock(IndexAdvisor.class);
+    final IndexAdvisorHandler subject = new IndexAdvisorHandler(new AdminToken("secret"), advisor);
+
+    final HttpExchange          exchange        = mock(HttpExchange.class);
+    final Headers               requestHeaders  = new Headers();
+    final Headers               responseHeaders = new Headers();
+    final ByteArrayOutputStream output          = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void prepare() {
+        requestHeaders.set(Http.Header.AUTHORIZATION, "Bearer secret");
+        doReturn("GET").when(exchange).getRequestMethod();
+        doReturn(requestHeaders).when(exchange).getRequestHeaders();
+        doReturn(responseHeaders).when(exchange).getResponseHeaders();
+        doReturn(output).when(exchange).getResponseBody();
+        doReturn(List.empty()).when(advisor).missing();
+        doReturn(List.empty()).when(advisor).unused();
+    }
+
+    @Test
+    void handle() throws Exception {
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        verify(exchange).sendResponseHeaders(eq(Http.ErrorCode.OK), anyLong());
+        String body = output.toString();
+        assertTrue(body.contains("\"missing\""));
+        assertTrue(body.contains("\"unused\""));
+    }
+
+    @Test
+    void handle_unauthorized() {
+        // Setup
+        requestHeaders.set(Http.Header.AUTHORIZATION, "Bearer wrong");
+
+        // Execute
+        Http.Error error = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.UNAUTHORIZED, error.errorCode);
+        verifyNoInteractions(advisor);
+    }
+
+    @Test
+    void handle_method() {
+        // Setup
+        doReturn("POST").when(exchange).getRequestMethod();
+
+        // Execute
+        Http.Error error = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.METHOD_NOT_ALLOWED, error.errorCode);
+        verifyNoInteractions(advisor);
+    }
+}
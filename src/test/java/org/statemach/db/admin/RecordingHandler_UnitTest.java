@@ -0,0 +1,166 @@
+package org.statemach.db.admin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.db.jdbc.SqlEvent;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class RecordingHandler_UnitTest {
+
+    final RecordingHandler subject = new RecordingHandler(new AdminToken("secret"), 5);
+
+    final HttpExchange          exchange        = mock(HttpExchange.class);
+    final Headers               requestHeaders  = new Headers();
+    final Headers               responseHeaders = new Headers();
+    final ByteArrayOutputStream output          = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void prepare() {
+        requestHeaders.set(Http.Header.AUTHORIZATION, "Bearer secret");
+        doReturn("POST").when(exchange).getRequestMethod();
+        doReturn(requestHeaders).when(exchange).getRequestHeaders();
+        doReturn(responseHeaders).when(exchange).getResponseHeaders();
+        doReturn(output).when(exchange).getResponseBody();
+    }
+
+    @Test
+    void handle() throws Exception {
+        // Setup
+        doReturn(URI.create("/admin/jfr?seconds=1&settings=default")).when(exchange).getRequestURI();
+
+        AtomicBoolean done    = new AtomicBoolean(false);
+        Thread        emitter = new Thread(() -> {
+                                    while (!done.get()) {
+                                        SqlEvent event = new SqlEvent();
+                                        event.begin();
+                                        event.statement = "SELECT 1";
+                                        event.rows = 1;
+                                        event.commit();
+                                        Thread.onSpinWait();
+                                    }
+                                });
+        emitter.start();
+
+        // Execute
+        try {
+            subject.handle(exchange);
+        } finally {
+            done.set(true);
+            emitter.join();
+        }
+
+        // Verify
+        verify(exchange).sendResponseHeaders(eq(Http.ErrorCode.OK), anyLong());
+        assertEquals(RecordingHandler.CONTENT_TYPE, responseHeaders.getFirst(Http.Header.CONTENT_TYPE));
+        assertTrue(responseHeaders.getFirst(RecordingHandler.CONTENT_DISPOSITION).endsWith(".jfr\""));
+
+        Path file = Files.createTempFile("test-", ".jfr");
+        try {
+            Files.write(file, output.toByteArray());
+            List<RecordedEvent> events = List.ofAll(RecordingFile.readAllEvents(file))
+                .filter(e -> "org.statemach.SqlStatement".equals(e.getEventType().getName()));
+            assertTrue(events.nonEmpty());
+            assertEquals("SELECT 1", events.head().getString("statement"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void handle_unauthorized() throws Exception {
+        // Setup
+        requestHeaders.set(Http.Header.AUTHORIZATION, "Bearer wrong");
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.UNAUTHORIZED, result.errorCode);
+    }
+
+    @Test
+    void handle_noToken() throws Exception {
+        // Setup
+        requestHeaders.remove(Http.Header.AUTHORIZATION);
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.UNAUTHORIZED, result.errorCode);
+    }
+
+    @Test
+    void handle_get() throws Exception {
+        // Setup
+        doReturn("GET").when(exchange).getRequestMethod();
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.METHOD_NOT_ALLOWED, result.errorCode);
+    }
+
+    @Test
+    void handle_settings() throws Exception {
+        // Setup
+        doReturn(URI.create("/admin/jfr?settings=custom")).when(exchange).getRequestURI();
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.BAD_REQUEST, result.errorCode);
+    }
+
+    @Test
+    void handle_running() throws Exception {
+        // Setup
+        doReturn(URI.create("/admin/jfr?seconds=1")).when(exchange).getRequestURI();
+        subject.running.set(true);
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.CONFLICT, result.errorCode);
+    }
+
+    @Test
+    void seconds() {
+        // Verify
+        assertEquals(RecordingHandler.DEFAULT_SECONDS, new RecordingHandler(new AdminToken("secret"), 60).seconds(Option.none()));
+        assertEquals(3, subject.seconds(Option.of("3")));
+        assertEquals(Http.ErrorCode.BAD_REQUEST,
+                assertThrows(Http.Error.class, () -> subject.seconds(Option.of("abc"))).errorCode);
+        assertEquals(Http.ErrorCode.BAD_REQUEST,
+                assertThrows(Http.Error.class, () -> subject.seconds(Option.of("0"))).errorCode);
+        assertEquals(Http.ErrorCode.BAD_REQUEST,
+                assertThrows(Http.Error.class, () -> subject.seconds(Option.of("6"))).errorCode);
+    }
+}
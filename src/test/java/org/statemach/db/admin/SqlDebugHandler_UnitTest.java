@@ -0,0 +1,135 @@
+package org.statemach.db.admin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.db.jdbc.JDBC;
+import org.statemach.util.BufferedExchange;
+import org.statemach.util.Http;
+import org.statemach.util.Json;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+
+public class SqlDebugHandler_UnitTest {
+
+    final JDBC            jdbc    = mock(JDBC.class);
+    final HttpHandler     next    = mock(HttpHandler.class);
+    final SqlDebugHandler subject = new SqlDebugHandler(new AdminToken("secret"), jdbc, next);
+
+    final HttpExchange          exchange        = mock(HttpExchange.class);
+    final Headers               requestHeaders  = new Headers();
+    final Headers               responseHeaders = new Headers();
+    final ByteArrayOutputStream output          = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void prepare() {
+        doReturn(URI.create("/rest/first")).when(exchange).getRequestURI();
+        doReturn(requestHeaders).when(exchange).getRequestHeaders();
+        doReturn(responseHeaders).when(exchange).getResponseHeaders();
+        doReturn(output).when(exchange).getResponseBody();
+    }
+
+    @Test
+    void handle_disabled() throws Exception {
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        verify(next).handle(exchange);
+        verifyNoInteractions(jdbc);
+    }
+
+    @Test
+    void handle_unauthorized() throws Exception {
+        // Setup
+        requestHeaders.set(SqlDebugHandler.HEADER, "sql");
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.UNAUTHORIZED, result.errorCode);
+        verifyNoInteractions(next);
+    }
+
+    @Test
+    void handle_unknownMode() throws Exception {
+        // Setup
+        requestHeaders.set(Http.Header.AUTHORIZATION, "Bearer secret");
+        doReturn(URI.create("/rest/first?$debug=trace")).when(exchange).getRequestURI();
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.BAD_REQUEST, result.errorCode);
+        verifyNoInteractions(next);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void handle_sql() throws Exception {
+        // Setup
+        requestHeaders.set(Http.Header.AUTHORIZATION, "Bearer secret");
+        requestHeaders.set(SqlDebugHandler.HEADER, "SQL");
+        doAnswer(a -> Http.json(a.getArgument(0), 201, HashMap.of("id", 7)))
+            .when(next)
+            .handle(any(BufferedExchange.class));
+
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        verify(exchange).sendResponseHeaders(eq(Http.ErrorCode.OK), anyLong());
+        java.util.Map<String, Object> result = Json.parse(output.toString(), java.util.Map.class);
+        assertEquals(201, result.get("status"));
+        assertEquals(java.util.Map.of("id", 7), result.get("response"));
+        assertEquals(java.util.List.of(), result.get("statements"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void handle_error() throws Exception {
+        // Setup
+        requestHeaders.set(Http.Header.AUTHORIZATION, "Bearer secret");
+        doReturn(URI.create("/rest/first?$debug=explain")).when(exchange).getRequestURI();
+        doThrow(new Http.Error(Http.ErrorCode.NOT_FOUND, "Missing"))
+            .when(next)
+            .handle(any(BufferedExchange.class));
+
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        java.util.Map<String, Object> result = Json.parse(output.toString(), java.util.Map.class);
+        assertEquals(Http.ErrorCode.NOT_FOUND, result.get("status"));
+        assertEquals("Missing", ((java.util.Map<String, Object>) result.get("response")).get("message"));
+    }
+
+    @Test
+    void bind() {
+        // Verify
+        assertEquals(List.of(1, true, "abc", "2021-01-01"),
+                List.of(1, true, "abc", java.time.LocalDate.of(2021, 1, 1)).map(SqlDebugHandler::bind));
+        assertEquals(null, SqlDebugHandler.bind(null));
+    }
+}
@@ -0,0 +1,43 @@
+package org.statemach.db.advisor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+public class AccessPattern_UnitTest {
+
+    final AccessPattern subject = AccessPattern.of("first",
+            List.of("varying", "fixed", "varying"),
+            List.of(new Tuple2<>("fixed", true), new Tuple2<>("id", false)));
+
+    @Test
+    void of() {
+        // Verify
+        assertEquals(List.of("fixed", "varying"), subject.filter);
+        assertEquals(subject, AccessPattern.of("first", List.of("fixed", "varying"), subject.order));
+    }
+
+    @Test
+    void isCoveredBy() {
+        // Execute & Verify
+        assertTrue(subject.isCoveredBy(List.of("varying", "fixed", "id")));
+        assertTrue(subject.isCoveredBy(List.of("fixed", "varying", "id", "second")));
+        assertFalse(subject.isCoveredBy(List.of("fixed", "varying")));
+        assertFalse(subject.isCoveredBy(List.of("id", "fixed", "varying")));
+        assertFalse(subject.isCoveredBy(List.of("fixed", "id", "varying")));
+    }
+
+    @Test
+    void indexColumns() {
+        // Execute
+        List<Tuple2<String, Boolean>> result = subject.indexColumns();
+
+        // Verify
+        assertEquals(List.of(new Tuple2<>("fixed", true), new Tuple2<>("varying", true), new Tuple2<>("id", false)), result);
+    }
+}
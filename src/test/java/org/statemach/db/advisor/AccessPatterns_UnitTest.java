@@ -0,0 +1,43 @@
+package org.statemach.db.advisor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+public class AccessPatterns_UnitTest {
+
+    final AccessPatterns subject = new AccessPatterns(2);
+
+    @Test
+    void record() {
+        // Execute
+        subject.record("first", List.of("fixed", "id"), List.empty(), 100);
+        subject.record("first", List.of("id", "fixed"), List.empty(), 200);
+        subject.record("first", List.empty(), List.empty(), 400);
+        subject.record("second", List.empty(), List.of(new Tuple2<>("id", true)), 800);
+        subject.record("third", List.of("name"), List.empty(), 1600);
+
+        // Verify
+        List<Tuple2<AccessPattern, AccessPatterns.Statistics>> result = subject.snapshot()
+            .sortBy(t -> t._1.table);
+        assertEquals(2, result.size());
+        assertEquals(AccessPattern.of("first", List.of("fixed", "id"), List.empty()), result.get(0)._1);
+        assertEquals(2, result.get(0)._2.getCount());
+        assertEquals(300, result.get(0)._2.getNanos());
+        assertEquals("second", result.get(1)._1.table);
+        assertEquals(800, result.get(1)._2.getNanos());
+    }
+
+    @Test
+    void record_disabled() {
+        // Execute
+        AccessPatterns.DISABLED.record("first", List.of("id"), List.empty(), 100);
+
+        // Verify
+        assertTrue(AccessPatterns.DISABLED.snapshot().isEmpty());
+    }
+}
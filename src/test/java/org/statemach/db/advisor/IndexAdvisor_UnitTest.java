@@ -0,0 +1,76 @@
+package org.statemach.db.advisor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.db.schema.IndexInfo;
+import org.statemach.db.sql.SchemaAccess;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+
+public class IndexAdvisor_UnitTest {
+
+    final IndexInfo INDEX_PK     = new IndexInfo("pk_first", "first", List.of("id"), true, true, 10, 8192, 50);
+    final IndexInfo INDEX_FIXED  = new IndexInfo("ix_fixed", "first", List.of("fixed", "id"), false, false, 5, 8192, 50);
+    final IndexInfo INDEX_UNUSED = new IndexInfo("ix_varying", "first", List.of("varying"), false, false, 0, 8192, 50);
+    final IndexInfo INDEX_BIG    = new IndexInfo("ix_one", "second", List.of("one"), false, false, 0, 65536, 50);
+    final IndexInfo INDEX_BUSY   = new IndexInfo("ix_name", "third", List.of("name"), false, false, 0, 8192, 500);
+    final IndexInfo INDEX_UNIQUE = new IndexInfo("ux_two", "second", List.of("two"), true, false, 0, 8192, 50);
+
+    final SchemaAccess   schemaAccess = mock(SchemaAccess.class);
+    final AccessPatterns patterns     = new AccessPatterns(100);
+    final IndexAdvisor   subject      = new IndexAdvisor(schemaAccess, patterns, 1000);
+
+    @BeforeEach
+    void prepare() {
+        doReturn("public").when(schemaAccess).getSchemaName();
+        doReturn(List.of(INDEX_PK, INDEX_FIXED, INDEX_UNUSED, INDEX_BIG, INDEX_BUSY, INDEX_UNIQUE))
+            .when(schemaAccess)
+            .getAllIndexes();
+        doReturn(HashMap.of("first", 100_000L, "second", 1_000L, "third", 10L))
+            .when(schemaAccess)
+            .getAllTableRowEstimates();
+    }
+
+    @Test
+    void missing() {
+        // Setup
+        patterns.record("first", List.of("fixed"), List.of(new Tuple2<>("id", true)), 1_000_000);
+        patterns.record("first", List.of("unlimited", "varying"), List.of(new Tuple2<>("id", false)), 2_000_000);
+        patterns.record("first", List.of("varying", "unlimited"), List.of(new Tuple2<>("id", false)), 1_000_000);
+        patterns.record("second", List.of("long"), List.empty(), 30_000_000);
+        patterns.record("third", List.of("bool"), List.empty(), 90_000_000);
+
+        // Execute
+        List<IndexAdvisor.Candidate> result = subject.missing();
+
+        // Verify
+        assertEquals(2, result.size());
+        assertEquals("second", result.get(0).table);
+        assertEquals(List.of("long"), result.get(0).columns);
+        assertEquals(90.0, result.get(0).benefit, 0.001);
+        assertEquals("CREATE INDEX CONCURRENTLY ON public.second (long)", result.get(0).ddl);
+        assertEquals("first", result.get(1).table);
+        assertEquals(List.of("unlimited", "varying", "id DESC"), result.get(1).columns);
+        assertEquals(2, result.get(1).queries);
+        assertEquals(3.0, result.get(1).totalMillis, 0.001);
+        assertEquals(100_000L, result.get(1).rows);
+        assertEquals(15.0, result.get(1).benefit, 0.001);
+        assertEquals("CREATE INDEX CONCURRENTLY ON public.first (unlimited, varying, id DESC)", result.get(1).ddl);
+    }
+
+    @Test
+    void unused() {
+        // Execute
+        List<IndexAdvisor.Unused> result = subject.unused();
+
+        // Verify
+        assertEquals(List.of("ix_name", "ix_one", "ix_varying"), result.map(u -> u.index));
+        assertEquals("DROP INDEX CONCURRENTLY public.ix_name", result.get(0).ddl);
+    }
+}
@@ -28,15 +28,17 @@ import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 
 import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
 
 public class GraphQLHandler_Common_PostgresTest {
     final SchemaAccess schemaAccess = new PostgresSchemaAccess(TestDB.jdbc, TestDB.schema);
     final DataAccess   dataAccess   = PostgresDataAccess.of(TestDB.jdbc, TestDB.schema);
     final Schema       schema       = Schema.from(schemaAccess);
 
-    final GraphQLHandler subject = GraphQLHandler.build(schema, schemaAccess, dataAccess);
+    final GraphQLHandler subject = GraphQLHandler.build(schema, schemaAccess, dataAccess, 100000L, 8);
 
     final HttpExchange exchange        = mock(HttpExchange.class);
+    final Headers      requestHeaders  = new Headers();
     final Headers      responseHeaders = mock(Headers.class);
 
     final ByteArrayOutputStream         output       = new ByteArrayOutputStream();
@@ -54,6 +56,7 @@ public class GraphQLHandler_Common_PostgresTest {
     @BeforeEach
     void prepare() throws Exception {
         doReturn(output).when(exchange).getResponseBody();
+        doReturn(requestHeaders).when(exchange).getRequestHeaders();
         doReturn(responseHeaders).when(exchange).getResponseHeaders();
         doAnswer((inv) -> {
             resultCode.set(inv.getArgument(0));
@@ -67,6 +70,10 @@ public class GraphQLHandler_Common_PostgresTest {
     }
 
     void runTest(String queryResource, String expectedResource, Object... parameters) {
+        runTest(subject, queryResource, expectedResource, parameters);
+    }
+
+    void runTest(GraphQLHandler handler, String queryResource, String expectedResource, Object... parameters) {
         // Setup
         final String TYPE_QUERY  = Java.resource(queryResource);
         final String TYPE_EXPECT = Java.resource(expectedResource);
@@ -77,11 +84,11 @@ public class GraphQLHandler_Common_PostgresTest {
         input.variables = HashMap.empty();
 
         // Setup
-        subject.execute(exchange, input);
+        handler.execute(exchange, input);
 
         // Verify
         String json         = new String(output.toByteArray());
-        var    actualJson   = Json.readAlphabetize(json);
+        var    actualJson   = withoutExtensions(Json.readAlphabetize(json));
         var    expectedJson = Json.readAlphabetize(Java.format(TYPE_EXPECT, parameters));
 
         assertEquals(200, resultCode.get());
@@ -89,4 +96,9 @@ public class GraphQLHandler_Common_PostgresTest {
         assertEquals(expectedJson, actualJson);
     }
 
+    @SuppressWarnings("unchecked")
+    Object withoutExtensions(Object json) {
+        // Cost in extensions depends on table statistics, so it is verified separately
+        return ((Map<String, Object>) json).remove("extensions");
+    }
 }
@@ -0,0 +1,79 @@
+package org.statemach.db.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.sql.postgres.TestData;
+import org.statemach.util.Java;
+import org.statemach.util.Json;
+
+import io.vavr.collection.HashMap;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class GraphQLHandler_Cost_PostgresTest extends GraphQLHandler_Common_PostgresTest {
+
+    Object runCostTest(GraphQLHandler handler, String queryResource, Object... parameters) {
+        // Setup
+        GraphQLHandler.Input input = new GraphQLHandler.Input();
+        input.query = Java.format(Java.resource(queryResource), parameters);
+        input.operationName = "";
+        input.variables = HashMap.empty();
+
+        // Execute
+        handler.execute(exchange, input);
+
+        // Verify
+        assertEquals(200, resultCode.get());
+        return Json.readAlphabetize(new String(output.toByteArray()));
+    }
+
+    @Test
+    void first_reverse() {
+        // Execute
+        Object result = runCostTest(subject, "cost.first-reverse.gql");
+
+        // Verify
+        assertEquals(Json.readAlphabetize(Java.format(Java.resource("cost.first-reverse.expect.json"), TestData.SECOND_ROW_1_ID)),
+                result);
+    }
+
+    @Test
+    void first_reverse_maxRows() {
+        // Setup
+        GraphQLHandler limited = GraphQLHandler.build(schema, schemaAccess, dataAccess, 1L, 8);
+
+        // Execute
+        Object result = runCostTest(limited, "cost.first-reverse.gql");
+
+        // Verify
+        assertEquals(Json.readAlphabetize(Java.resource("cost.first-reverse-maxRows.expect.json")), result);
+    }
+
+    @Test
+    void first_reverse_maxDepth() {
+        // Setup
+        GraphQLHandler limited = GraphQLHandler.build(schema, schemaAccess, dataAccess, 100000L, 1);
+
+        // Execute
+        Object result = runCostTest(limited, "cost.first-reverse.gql");
+
+        // Verify
+        assertEquals(Json.readAlphabetize(Java.resource("cost.first-reverse-maxDepth.expect.json")), result);
+    }
+
+    @Test
+    void nodes_maxRows() {
+        // Setup
+        GraphQLHandler limited = GraphQLHandler.build(schema, schemaAccess, dataAccess, 4L, 8);
+
+        // Execute
+        Object result = runCostTest(limited,
+                "cost.nodes.gql",
+                GraphQLHandler_Node_PostgresTest.id("first", 1),
+                GraphQLHandler_Node_PostgresTest.id("first", 2));
+
+        // Verify
+        assertEquals(Json.readAlphabetize(Java.resource("cost.nodes-maxRows.expect.json")), result);
+    }
+}
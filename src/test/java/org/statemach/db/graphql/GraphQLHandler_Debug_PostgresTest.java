@@ -0,0 +1,67 @@
+package org.statemach.db.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.admin.AdminToken;
+import org.statemach.db.admin.SqlDebugHandler;
+import org.statemach.db.sql.postgres.TestDB;
+import org.statemach.util.Http;
+import org.statemach.util.Java;
+import org.statemach.util.Json;
+
+import io.vavr.collection.HashMap;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class GraphQLHandler_Debug_PostgresTest extends GraphQLHandler_Common_PostgresTest {
+
+    final SqlDebugHandler debug = new SqlDebugHandler(new AdminToken("secret"), TestDB.jdbc, subject);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void first_reverse() throws Exception {
+        // Setup
+        GraphQLHandler.Input input = new GraphQLHandler.Input();
+        input.query = Java.resource("cost.first-reverse.gql");
+        input.operationName = "";
+        input.variables = HashMap.empty();
+        byte[] body = Json.MAPPER.writeValueAsBytes(input);
+
+        requestHeaders.set(Http.Header.AUTHORIZATION, "Bearer secret");
+        doReturn("POST").when(exchange).getRequestMethod();
+        doReturn(URI.create("/graphql?$debug=explain")).when(exchange).getRequestURI();
+        doReturn(new ByteArrayInputStream(body)).when(exchange).getRequestBody();
+
+        // Execute
+        debug.handle(exchange);
+
+        // Verify
+        java.util.Map<String, Object>             result     = Json.parse(
+                new String(output.toByteArray(), StandardCharsets.UTF_8),
+                java.util.Map.class);
+        java.util.List<java.util.Map<String, ?>> statements = (java.util.List<java.util.Map<String, ?>>) result
+            .get("statements");
+        java.util.Map<String, ?>                  response   = (java.util.Map<String, ?>) result.get("response");
+
+        assertEquals(200, resultCode.get());
+        assertEquals(200, result.get("status"));
+        assertTrue(response.containsKey("data"));
+
+        // Root query and sub-query for reverse foreign key
+        assertEquals(2, statements.size());
+        assertTrue(((String) statements.get(1).get("sql")).contains("second"));
+        assertFalse(((java.util.List<?>) statements.get(1).get("binds")).isEmpty());
+        assertEquals(1, statements.get(0).get("rows"));
+        for (java.util.Map<String, ?> statement : statements) {
+            assertFalse(((java.util.List<?>) statement.get("plan")).isEmpty());
+        }
+    }
+}
@@ -37,6 +37,11 @@ public class GraphQLHandler_Delete_PostgresTest extends GraphQLHandler_Common_Po
         runTest("delete.first-varying.gql", "delete.first-varying.expect.json", TestData.SECOND_ROW_1_ID);
     }
 
+    @Test
+    void first_where_varying() {
+        runTest("delete.first_where-varying.gql", "delete.first_where-varying.expect.json", TestData.SECOND_ROW_1_ID);
+    }
+
     @Test
     void second_all() {
         // Remove FK constraint to SECOND_ROW_2
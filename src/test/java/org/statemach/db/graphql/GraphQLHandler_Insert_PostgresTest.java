@@ -1,9 +1,16 @@
 package org.statemach.db.graphql;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.UUID;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.sql.postgres.TestDB;
 import org.statemach.db.sql.postgres.TestData;
 
+import io.vavr.collection.List;
+
 @EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
 public class GraphQLHandler_Insert_PostgresTest extends GraphQLHandler_Common_PostgresTest {
 
@@ -94,4 +101,24 @@ public class GraphQLHandler_Insert_PostgresTest extends GraphQLHandler_Common_Po
         runTest("insert.third-bool.gql", "insert.third-bool.expect.json", TestData.SECOND_ROW_2_ID, TestData.THIRD_ROW_2_TIME);
     }
 
+    @Test
+    void first_nested() {
+        // Setup
+        UUID first  = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        // Execute
+        runTest("insert.first-nested.gql", "insert.first-nested.expect.json", first, second);
+
+        // Verify
+        assertEquals(List.of(first + ":31", second + ":31"),
+                TestDB.jdbc.query("SELECT id || ':' || first FROM " + TestDB.schema + ".second WHERE first = 31 ORDER BY int",
+                        ps -> {},
+                        rs -> rs.getString(1)));
+        assertEquals(List.of("1:31:" + first, "2::" + second),
+                TestDB.jdbc.query("SELECT indx || ':' || COALESCE(first::text, '') || ':' || second FROM " + TestDB.schema
+                        + ".third WHERE name = 'Nested' ORDER BY indx",
+                        ps -> {},
+                        rs -> rs.getString(1)));
+    }
 }
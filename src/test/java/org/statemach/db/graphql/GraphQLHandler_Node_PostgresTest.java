@@ -0,0 +1,49 @@
+package org.statemach.db.graphql;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.sql.DataAccess;
+import org.statemach.db.sql.postgres.PostgresDataAccess;
+import org.statemach.db.sql.postgres.TestDB;
+import org.statemach.db.sql.postgres.TestData;
+
+import io.vavr.collection.List;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class GraphQLHandler_Node_PostgresTest extends GraphQLHandler_Common_PostgresTest {
+
+    final DataAccess     counted = spy(PostgresDataAccess.of(TestDB.jdbc, TestDB.schema));
+    final GraphQLHandler batched = GraphQLHandler.build(schema, schemaAccess, counted, 100000L, 8);
+
+    static String id(String table, Object... key) {
+        return new NodeId(table, List.of(key).map(String::valueOf)).encode();
+    }
+
+    @Test
+    void first_second_third() {
+        runTest(batched,
+                "node.first+second+third.gql",
+                "node.first+second+third.expect.json",
+                id("first", 1),
+                id("first", 2),
+                id("second", TestData.SECOND_ROW_2_ID),
+                id("third", "Name1", 0),
+                id("second", UUID.randomUUID()),
+                id("second", TestData.SECOND_ROW_1_ID));
+
+        // One statement per table, although ids of first and second come from different fields
+        verify(counted, times(3)).query(any(), any());
+    }
+
+    @Test
+    void invalid() {
+        runTest("node.invalid.gql", "node.invalid.expect.json", id("first", 1, 2));
+    }
+}
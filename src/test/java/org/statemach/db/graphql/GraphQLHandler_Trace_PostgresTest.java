@@ -0,0 +1,85 @@
+package org.statemach.db.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.util.Http;
+import org.statemach.util.Java;
+import org.statemach.util.Json;
+import org.statemach.util.Span;
+import org.statemach.util.Tracer;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class GraphQLHandler_Trace_PostgresTest extends GraphQLHandler_Common_PostgresTest {
+
+    static final String TRACE_ID  = "4bf92f3577b34da6a3ce929d0e0e4736";
+    static final String PARENT_ID = "00f067aa0ba902b7";
+
+    final BlockingQueue<List<Span>> exported = new ArrayBlockingQueue<>(16);
+
+    @AfterEach
+    void uninstall() {
+        Tracer.install(Tracer.NOOP);
+    }
+
+    @Test
+    void first_reverse() throws Exception {
+        // Setup
+        Tracer.install(Tracer.of(exported::add, 0.0, -1, 16));
+
+        requestHeaders.set(Tracer.TRACEPARENT, "00-" + TRACE_ID + "-" + PARENT_ID + "-01");
+        GraphQLHandler.Input input = new GraphQLHandler.Input();
+        input.query = Java.resource("cost.first-reverse.gql");
+        input.operationName = "";
+        input.variables = HashMap.empty();
+        String body = Json.MAPPER.writeValueAsString(input);
+
+        doReturn("POST").when(exchange).getRequestMethod();
+        doReturn(URI.create("/graphql")).when(exchange).getRequestURI();
+        doReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))).when(exchange).getRequestBody();
+
+        // Execute
+        Http.errorHandler(subject).handle(exchange);
+        List<Span> result = exported.poll(5, TimeUnit.SECONDS);
+
+        // Verify
+        assertEquals(200, resultCode.get());
+        assertNotNull(result);
+        assertTrue(result.forAll(s -> TRACE_ID.equals(s.traceId)));
+
+        Span root = result.last();
+        assertEquals("POST", root.name);
+        assertEquals(PARENT_ID, root.parentSpanId);
+        assertTrue(headers.get(Tracer.TRACEPARENT).startsWith("00-" + TRACE_ID + "-" + root.spanId));
+
+        List<String> names = result.map(s -> s.name).distinct();
+        assertTrue(names.containsAll(List.of(
+                "graphql.parse",
+                "graphql.validate",
+                "graphql.execute",
+                "graphql.fetch",
+                "graphql.subquery",
+                "sql.build",
+                "db.pool.borrow",
+                "db.statement",
+                "db.execute",
+                "db.extract",
+                "json.write")),
+                names.toString());
+    }
+}
@@ -1,16 +1,20 @@
 package org.statemach.db.graphql;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.URI;
 
@@ -18,9 +22,14 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.statemach.util.Http;
 
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 
+import graphql.ExceptionWhileDataFetching;
+import graphql.ExecutionInput;
+import graphql.ExecutionResultImpl;
 import graphql.GraphQL;
+import graphql.execution.ResultPath;
 import io.vavr.collection.LinkedHashMap;
 
 public class GraphQLHandler_UnitTest {
@@ -81,4 +90,91 @@ public class GraphQLHandler_UnitTest {
         }
     }
 
+    @Test
+    void execute_overloaded() {
+        // Setup
+        Http.Overloaded      overloaded = new Http.Overloaded(1, "Busy");
+        GraphQLHandler.Input input      = new GraphQLHandler.Input();
+        input.query = "{}";
+        input.variables = LinkedHashMap.empty();
+        doReturn(ExecutionResultImpl.newExecutionResult()
+            .addError(new ExceptionWhileDataFetching(ResultPath.rootPath(), overloaded, null))
+            .build())
+            .when(graphQL)
+            .execute(any(ExecutionInput.class));
+
+        // Execute
+        Http.Overloaded result = assertThrows(Http.Overloaded.class, () -> subject.execute(exchange, input));
+
+        // Verify
+        assertEquals(overloaded, result);
+    }
+
+    @Test
+    void execute_introspection_notModified() throws Exception {
+        // Setup
+        Headers              request  = new Headers();
+        Headers              response = new Headers();
+        GraphQLHandler.Input input    = new GraphQLHandler.Input();
+        input.query = "{ __schema { queryType { name } } }";
+        input.variables = LinkedHashMap.empty();
+        request.set(Http.Header.IF_NONE_MATCH, subject.introspectionETag(input));
+        doReturn("get").when(exchange).getRequestMethod();
+        doReturn(request).when(exchange).getRequestHeaders();
+        doReturn(response).when(exchange).getResponseHeaders();
+        doReturn(new ByteArrayOutputStream()).when(exchange).getResponseBody();
+
+        // Execute
+        subject.execute(exchange, input);
+
+        // Verify
+        verify(exchange).sendResponseHeaders(Http.ErrorCode.NOT_MODIFIED, -1L);
+        verify(graphQL, never()).execute(any(ExecutionInput.class));
+        assertEquals(subject.introspectionETag(input), response.getFirst(Http.Header.ETAG));
+    }
+
+    @Test
+    void execute_introspection_post() throws Exception {
+        // Setup
+        Headers              request  = new Headers();
+        Headers              response = new Headers();
+        GraphQLHandler.Input input    = new GraphQLHandler.Input();
+        input.query = "{ __schema { queryType { name } } }";
+        input.variables = LinkedHashMap.empty();
+        request.set(Http.Header.IF_NONE_MATCH, subject.introspectionETag(input));
+        doReturn("post").when(exchange).getRequestMethod();
+        doReturn(request).when(exchange).getRequestHeaders();
+        doReturn(response).when(exchange).getResponseHeaders();
+        doReturn(new ByteArrayOutputStream()).when(exchange).getResponseBody();
+        doReturn(ExecutionResultImpl.newExecutionResult().build()).when(graphQL).execute(any(ExecutionInput.class));
+
+        // Execute
+        subject.execute(exchange, input);
+
+        // Verify
+        verify(exchange, never()).sendResponseHeaders(Http.ErrorCode.NOT_MODIFIED, -1L);
+        verify(graphQL).execute(any(ExecutionInput.class));
+    }
+
+    @Test
+    void isIntrospection() {
+        assertTrue(GraphQLHandler.isIntrospection(input("{ __schema { types { name } } }", null)));
+        assertTrue(GraphQLHandler.isIntrospection(input("query A { __type(name: \"B\") { name } __typename }", "A")));
+        assertTrue(GraphQLHandler.isIntrospection(input("query A { first { id } } query B { __schema { types { name } } }", "B")));
+    }
+
+    @Test
+    void isIntrospection_not() {
+        assertFalse(GraphQLHandler.isIntrospection(input("{ first { id } }", null)));
+        assertFalse(GraphQLHandler.isIntrospection(input("{ __schema { types { name } } first { id } }", null)));
+        assertFalse(GraphQLHandler.isIntrospection(input("query A { first { id } } query B { __schema { types { name } } }", "A")));
+        assertFalse(GraphQLHandler.isIntrospection(input("{ __schema { types { name } ", null)));
+    }
+
+    static GraphQLHandler.Input input(String query, String operationName) {
+        GraphQLHandler.Input input = new GraphQLHandler.Input();
+        input.query = query;
+        input.operationName = operationName;
+        return input;
+    }
 }
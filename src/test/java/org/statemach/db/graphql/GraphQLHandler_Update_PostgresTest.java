@@ -39,6 +39,21 @@ public class GraphQLHandler_Update_PostgresTest extends GraphQLHandler_Common_Po
         runTest("update.first-varying.gql", "update.first-varying.expect.json", TestData.SECOND_ROW_2_ID);
     }
 
+    @Test
+    void first_where_varying() {
+        runTest("update.first_where-varying.gql", "update.first_where-varying.expect.json");
+    }
+
+    @Test
+    void first_where_max() {
+        runTest("update.first_where-max.gql", "update.first_where-max.expect.json", TestData.SECOND_ROW_1_ID);
+    }
+
+    @Test
+    void first_where_maxOverflow() {
+        runTest("update.first_where-maxOverflow.gql", "update.first_where-maxOverflow.expect.json", TestData.SECOND_ROW_1_ID);
+    }
+
     @Test
     void second_short_all() {
         runTest("update.second_short-all.gql",
@@ -0,0 +1,41 @@
+package org.statemach.db.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import io.vavr.collection.HashMap;
+
+public class GraphQLQueryCost_UnitTest {
+
+    final GraphQLQueryCost subject = new GraphQLQueryCost(HashMap.empty(), HashMap.of("first", 5L), 100L, 8);
+
+    @Test
+    void estimateRows() {
+        // Execute & Verify
+        assertEquals(5L, subject.estimateRows("first", 10));
+        assertEquals(3L, subject.estimateRows("first", 3));
+        assertEquals(10L, subject.estimateRows("second", 10));
+    }
+
+    @Test
+    void refresh() {
+        // Execute
+        subject.refresh(() -> HashMap.of("first", 500L));
+
+        // Verify
+        assertEquals(10L, subject.estimateRows("first", 10));
+        assertEquals(500L, subject.estimateRows("first", 1000));
+    }
+
+    @Test
+    void refresh_failed() {
+        // Execute
+        subject.refresh(() -> {
+            throw new IllegalStateException("Database is down");
+        });
+
+        // Verify
+        assertEquals(5L, subject.estimateRows("first", 10));
+    }
+}
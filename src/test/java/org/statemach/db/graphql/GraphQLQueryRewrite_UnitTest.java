@@ -0,0 +1,97 @@
+package org.statemach.db.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.db.schema.TableInfo;
+import org.statemach.db.sql.postgres.TestSchema;
+
+import io.vavr.collection.List;
+
+public class GraphQLQueryRewrite_UnitTest {
+
+    final TableInfo first  = TestSchema.SCHEMA.tables.get("first").get();
+    final TableInfo second = TestSchema.SCHEMA.tables.get("second").get();
+
+    final GraphQLQueryRewrite subject = new GraphQLQueryRewrite(TestSchema.SCHEMA, new GraphQLNaming());
+
+    @Test
+    void shortcut_outgoing() {
+        // Execute
+        List<String> result = subject.shortcut(first, List.of("fk_first_second", "id"), true);
+
+        // Verify
+        assertEquals(List.of("second"), result);
+    }
+
+    @Test
+    void shortcut_outgoing_chain() {
+        // Execute
+        List<String> result = subject.shortcut(second, List.of("fk_second_first", "fk_first_second", "id"), true);
+
+        // Verify
+        assertEquals(List.of("fk_second_first", "second"), result);
+    }
+
+    @Test
+    void shortcut_incoming() {
+        // Execute
+        List<String> result = subject.shortcut(first, List.of("fk_second_first_reverse", "fk_second_second_one", "id"), true);
+
+        // Verify
+        assertEquals(List.of("fk_second_first_reverse", "one"), result);
+    }
+
+    @Test
+    void shortcut_composite() {
+        // Execute
+        List<String> result1 = subject.shortcut(first, List.of("fk_first_third", "indx"), true);
+        List<String> result2 = subject.shortcut(first, List.of("fk_first_third", "indx"), false);
+
+        // Verify
+        assertEquals(List.of("fk_first_third", "indx"), result1);
+        assertEquals(List.of("third_indx"), result2);
+    }
+
+    @Test
+    void shortcut_non_key_column() {
+        // Execute
+        List<String> result = subject.shortcut(first, List.of("fk_first_second", "varying"), false);
+
+        // Verify
+        assertEquals(List.of("fk_first_second", "varying"), result);
+    }
+
+    @Test
+    void shortcut_column() {
+        // Execute
+        List<String> result = subject.shortcut(first, List.of("id"), false);
+
+        // Verify
+        assertEquals(List.of("id"), result);
+    }
+
+    @Test
+    void rewriteFilters() {
+        // Setup
+        Filter notNull    = new Filter(List.of("fk_first_second", "id"),
+                false,
+                second.columns.get("id").get().type,
+                false,
+                Filter.Operator.EQUAL,
+                List.of(5L));
+        Filter acceptNull = new Filter(List.of("fk_first_second", "id"),
+                false,
+                second.columns.get("id").get().type,
+                true,
+                Filter.Operator.EQUAL,
+                List.of(5L));
+
+        // Execute
+        List<Filter> result = subject.rewriteFilters(first, List.of(notNull, acceptNull));
+
+        // Verify
+        assertEquals(List.of("second"), result.get(0).path);
+        assertEquals(acceptNull, result.get(1));
+    }
+}
@@ -1,5 +1,6 @@
 package org.statemach.db.graphql;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
@@ -7,14 +8,22 @@ import static org.mockito.Mockito.spy;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
+import org.statemach.db.advisor.AccessPatterns;
 import org.statemach.db.schema.ColumnInfo;
 import org.statemach.db.schema.CompositeType;
+import org.statemach.db.schema.ForeignKey;
 import org.statemach.db.schema.Schema;
 import org.statemach.db.sql.DataAccess;
 import org.statemach.db.sql.SQLBuilder;
 import org.statemach.db.sql.SchemaAccess;
+import org.statemach.db.sql.postgres.PostgresDataType;
 
+import io.vavr.Tuple2;
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import io.vavr.control.Option;
 
 public class GraphQLQuery_UnitTest {
     final String TYPE_NAME_1 = "Type1";
@@ -34,6 +43,7 @@ public class GraphQLQuery_UnitTest {
     final GraphQLQueryExtract extract      = mock(GraphQLQueryExtract.class);
     final GraphQLQueryFilter  filter       = mock(GraphQLQueryFilter.class);
     final GraphQLQueryOrder   order        = mock(GraphQLQueryOrder.class);
+    final GraphQLQueryRewrite rewrite      = mock(GraphQLQueryRewrite.class);
     final GraphQLQuery        subject      = spy(new GraphQLQuery(
             schema,
             dataAccess,
@@ -41,7 +51,9 @@ public class GraphQLQuery_UnitTest {
             naming,
             extract,
             filter,
-            order));
+            order,
+            rewrite,
+            AccessPatterns.DISABLED));
 
     @Test
     void instrumentSchema() {
@@ -59,4 +71,23 @@ public class GraphQLQuery_UnitTest {
         order.verify(schemaAccess).createCompositeType(TYPE_4);
         order.verifyNoMoreInteractions();
     }
+
+    @Test
+    void getFilterColumns() {
+        // Setup
+        List<Filter> filters = List.of(
+                Filter.of(List.of("fixed"), false, PostgresDataType.CHARACTER, java.util.Arrays.asList("a")),
+                Filter.of(List.of("search"), false, PostgresDataType.TSVECTOR, java.util.Arrays.asList("b")),
+                Filter.of(List.of("second", "int"), false, PostgresDataType.INTEGER, java.util.Arrays.asList(1)));
+        ForeignKey fk = new ForeignKey("fk_second_first", "second", "first", List.of(new ForeignKey.Match("first", "id")));
+        Option<Tuple2<ForeignKey, Set<Map<String, Object>>>> foreignKeyWithIds = Option.of(new Tuple2<>(fk, HashSet.empty()));
+
+        // Execute
+        List<String> result1 = subject.getFilterColumns(filters, Option.none());
+        List<String> result2 = subject.getFilterColumns(filters, foreignKeyWithIds);
+
+        // Verify
+        assertEquals(List.of("fixed"), result1);
+        assertEquals(List.of("fixed", "first"), result2);
+    }
 }
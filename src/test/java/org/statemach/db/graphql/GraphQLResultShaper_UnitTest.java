@@ -0,0 +1,108 @@
+package org.statemach.db.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.db.schema.DataType;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+public class GraphQLResultShaper_UnitTest {
+
+    final DataType TYPE = DataType.unsupported("type");
+
+    final ExtractValue VALUE_ID          = ExtractValue.of(List.of("id"), TYPE);
+    final ExtractValue VALUE_FK1_ID      = ExtractValue.of(List.of("fk1", "id"), TYPE);
+    final ExtractValue VALUE_FK1_NAME    = ExtractValue.of(List.of("fk1", "name"), TYPE);
+    final ExtractValue VALUE_FK1_FK2_ID  = ExtractValue.of(List.of("fk1", "fk2", "id"), TYPE);
+    final ExtractValue VALUE_FK3_ID      = ExtractValue.of(List.of("fk3", "id"), TYPE);
+    final ExtractValue VALUE_FK3_NAME    = ExtractValue.of(List.of("fk3", "name"), TYPE);
+    final List<String> PATH_FK4_REVERSE  = List.of("fk4_reverse");
+    final String       QUERY_FK4_REVERSE = "fk4_reverse";
+
+    final Map<String, List<String>> PATHS = List.of(VALUE_ID,
+            VALUE_FK1_ID,
+            VALUE_FK1_NAME,
+            VALUE_FK1_FK2_ID,
+            VALUE_FK3_ID,
+            VALUE_FK3_NAME)
+        .toMap(e -> new Tuple2<>(e.name, e.path))
+        .put(QUERY_FK4_REVERSE, PATH_FK4_REVERSE);
+
+    final List<ForeignKeyPath> KEYS = List.of(
+            new ForeignKeyPath(List.of("fk1"), List.of(VALUE_FK1_ID)),
+            new ForeignKeyPath(List.of("fk1", "fk2"), List.of(VALUE_FK1_FK2_ID)));
+
+    final GraphQLResultShaper subject = GraphQLResultShaper.of(PATHS, KEYS);
+
+    @Test
+    void apply() {
+        // Setup
+        Map<String, Object> row = HashMap.of(
+                VALUE_ID.name, 1,
+                VALUE_FK1_ID.name, 2,
+                VALUE_FK1_NAME.name, "Two",
+                VALUE_FK1_FK2_ID.name, 3,
+                VALUE_FK3_ID.name, 4,
+                VALUE_FK3_NAME.name, "Four",
+                QUERY_FK4_REVERSE, java.util.List.of());
+
+        // Execute
+        java.util.Map<String, Object> result = subject.apply(row);
+
+        // Verify
+        assertEquals(java.util.Map.of(
+                "id", 1,
+                "fk1", java.util.Map.of("id", 2, "name", "Two", "fk2", java.util.Map.of("id", 3)),
+                "fk3", java.util.Map.of("id", 4, "name", "Four"),
+                "fk4_reverse", java.util.List.of()),
+                result);
+    }
+
+    @Test
+    void apply_null_key() {
+        // Setup
+        Map<String, Object> row = HashMap.of(
+                VALUE_ID.name, 1,
+                VALUE_FK1_NAME.name, "Two",
+                VALUE_FK3_NAME.name, "Four",
+                QUERY_FK4_REVERSE, java.util.List.of());
+
+        // Execute
+        java.util.Map<String, Object> result = subject.apply(row);
+
+        // Verify
+        java.util.Map<String, Object> fk3 = new java.util.HashMap<>();
+        fk3.put("id", null);
+        fk3.put("name", "Four");
+
+        java.util.Map<String, Object> expect = new java.util.HashMap<>();
+        expect.put("id", 1);
+        expect.put("fk1", null);
+        expect.put("fk3", fk3);
+        expect.put("fk4_reverse", java.util.List.of());
+        assertEquals(expect, result);
+    }
+
+    @Test
+    void apply_null_nested_key() {
+        // Setup
+        Map<String, Object> row = HashMap.of(
+                VALUE_ID.name, 1,
+                VALUE_FK1_ID.name, 2,
+                VALUE_FK1_NAME.name, "Two");
+
+        // Execute
+        java.util.Map<String, Object> result = subject.apply(row);
+
+        // Verify
+        java.util.Map<String, Object> fk1 = new java.util.HashMap<>();
+        fk1.put("id", 2);
+        fk1.put("name", "Two");
+        fk1.put("fk2", null);
+        assertEquals(fk1, result.get("fk1"));
+    }
+}
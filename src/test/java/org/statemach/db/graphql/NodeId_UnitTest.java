@@ -0,0 +1,69 @@
+package org.statemach.db.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.db.schema.Schema;
+import org.statemach.db.schema.TableInfo;
+import org.statemach.db.sql.postgres.TestSchema;
+import org.statemach.util.Http;
+
+import io.vavr.collection.List;
+
+public class NodeId_UnitTest {
+
+    final Schema schema = TestSchema.SCHEMA;
+
+    final NodeId subject = new NodeId("third", List.of("Name1", "0"));
+    final NodeId other1  = new NodeId("third", List.of("Name1", "0"));
+    final NodeId other2  = new NodeId("first", List.of("Name1", "0"));
+    final NodeId other3  = new NodeId("third", List.of("Name1", "1"));
+
+    @Test
+    void hashCode_test() {
+        // Execute & Verify
+        assertEquals(subject.hashCode(), subject.hashCode());
+        assertEquals(other1.hashCode(), subject.hashCode());
+    }
+
+    @Test
+    void equals_test() {
+        // Execute & Verify
+        assertEquals(subject, subject);
+        assertEquals(other1, subject);
+        assertNotEquals(other2, subject);
+        assertNotEquals(other3, subject);
+    }
+
+    @Test
+    void of() {
+        // Setup
+        TableInfo table = schema.tables.get("third").get();
+
+        // Execute
+        NodeId result = NodeId.of(table, java.util.Map.of("name", "Name1", "indx", 0, "bool", true));
+
+        // Verify
+        assertEquals(subject, result);
+    }
+
+    @Test
+    void encode_decode() {
+        // Execute
+        String encoded = subject.encode();
+        NodeId decoded = NodeId.decode(schema, encoded);
+
+        // Verify
+        assertEquals(subject, decoded);
+    }
+
+    @Test
+    void decode_invalid() {
+        // Execute & Verify
+        assertThrows(Http.Error.class, () -> NodeId.decode(schema, "not an id"));
+        assertThrows(Http.Error.class, () -> NodeId.decode(schema, new NodeId("other", List.of("1")).encode()));
+        assertThrows(Http.Error.class, () -> NodeId.decode(schema, new NodeId("third", List.of("Name1")).encode()));
+    }
+}
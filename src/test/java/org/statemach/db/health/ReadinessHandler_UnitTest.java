@@ -0,0 +1,75 @@
+package org.statemach.db.health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.db.jdbc.CircuitBreaker;
+import org.statemach.util.Http;
+import org.statemach.util.Json;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+public class ReadinessHandler_UnitTest {
+
+    final CircuitBreaker   breaker = mock(CircuitBreaker.class);
+    final ReadinessHandler subject = new ReadinessHandler(breaker);
+
+    final HttpExchange          exchange = mock(HttpExchange.class);
+    final ByteArrayOutputStream output   = new ByteArrayOutputStream();
+
+    @BeforeEach
+    void prepare() {
+        doReturn("GET").when(exchange).getRequestMethod();
+        doReturn(new Headers()).when(exchange).getResponseHeaders();
+        doReturn(output).when(exchange).getResponseBody();
+    }
+
+    @Test
+    void handle() throws Exception {
+        // Setup
+        doReturn(false).when(breaker).isOpen();
+
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        verify(exchange).sendResponseHeaders(eq(Http.ErrorCode.OK), anyLong());
+        assertEquals(Map.of("ready", true, "database", "up"), Json.MAPPER.readValue(output.toByteArray(), Map.class));
+    }
+
+    @Test
+    void handle_open() throws Exception {
+        // Setup
+        doReturn(true).when(breaker).isOpen();
+
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        verify(exchange).sendResponseHeaders(eq(Http.ErrorCode.SERVICE_UNAVAILABLE), anyLong());
+        assertEquals(Map.of("ready", false, "database", "down"), Json.MAPPER.readValue(output.toByteArray(), Map.class));
+    }
+
+    @Test
+    void handle_post() throws Exception {
+        // Setup
+        doReturn("POST").when(exchange).getRequestMethod();
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.METHOD_NOT_ALLOWED, result.errorCode);
+    }
+}
@@ -0,0 +1,101 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.util.Http;
+
+public class CircuitBreaker_UnitTest {
+
+    final AtomicBoolean  healthy = new AtomicBoolean(false);
+    final AtomicInteger  probes  = new AtomicInteger(0);
+    final CircuitBreaker subject = CircuitBreaker.of(2, 10, 7, () -> {
+                                     probes.incrementAndGet();
+                                     return healthy.get();
+                                 });
+
+    final RuntimeException connectionFailure = new RuntimeException(
+            new SQLException("Cannot create connection", new SQLException("Connection refused", "08001")));
+    final RuntimeException queryFailure      = new RuntimeException(new SQLException("Syntax error", "42601"));
+
+    @Test
+    void isConnectionFailure() {
+        // Execute & Verify
+        assertTrue(CircuitBreaker.isConnectionFailure(connectionFailure));
+        assertTrue(CircuitBreaker.isConnectionFailure(new SQLException("I/O error", "08006")));
+        assertFalse(CircuitBreaker.isConnectionFailure(queryFailure));
+        assertFalse(CircuitBreaker.isConnectionFailure(new RuntimeException("other")));
+    }
+
+    @Test
+    void failure() {
+        // Execute
+        subject.failure(connectionFailure);
+        subject.failure(queryFailure);
+
+        // Verify
+        assertFalse(subject.isOpen());
+        assertEquals(1, subject.getFailures());
+        subject.check();
+    }
+
+    @Test
+    void failure_consecutive() {
+        // Setup
+        subject.failure(connectionFailure);
+        subject.success();
+
+        // Execute
+        subject.failure(connectionFailure);
+
+        // Verify
+        assertFalse(subject.isOpen());
+        assertEquals(1, subject.getFailures());
+    }
+
+    @Test
+    void failure_open() throws Exception {
+        // Execute
+        subject.failure(connectionFailure);
+        subject.failure(connectionFailure);
+
+        // Verify
+        assertTrue(subject.isOpen());
+        Http.Overloaded error = assertThrows(Http.Overloaded.class, () -> subject.check());
+        assertEquals(Http.ErrorCode.SERVICE_UNAVAILABLE, error.errorCode);
+        assertEquals(7L, error.retryAfterSeconds);
+        assertEquals(1L, subject.getRejected());
+
+        // Probe keeps going until database is back
+        while (probes.get() < 2) {
+            Thread.sleep(5);
+        }
+        assertTrue(subject.isOpen());
+        healthy.set(true);
+        while (subject.isOpen()) {
+            Thread.sleep(5);
+        }
+        assertEquals(0, subject.getFailures());
+        subject.check();
+    }
+
+    @Test
+    void disabled() {
+        // Execute
+        for (int i = 0; i < 10; i++) {
+            CircuitBreaker.DISABLED.failure(connectionFailure);
+        }
+
+        // Verify
+        assertTrue(CircuitBreaker.DISABLED.isDisabled());
+        assertFalse(CircuitBreaker.DISABLED.isOpen());
+        assertEquals(0, CircuitBreaker.DISABLED.getFailures());
+    }
+}
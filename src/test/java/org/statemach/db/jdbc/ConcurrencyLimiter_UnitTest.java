@@ -0,0 +1,109 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.util.Http;
+
+public class ConcurrencyLimiter_UnitTest {
+
+    final ConcurrencyLimiter subject = ConcurrencyLimiter.of(1, 2, 1, 100, 3);
+
+    @Test
+    void acquire() {
+        // Execute
+        subject.acquire();
+        subject.acquire();
+
+        // Verify
+        assertEquals(2, subject.getInFlight());
+        assertEquals(2, subject.getLimit());
+    }
+
+    @Test
+    void acquire_timeout() {
+        // Setup
+        subject.acquire();
+        subject.acquire();
+
+        // Execute
+        Http.Overloaded error = assertThrows(Http.Overloaded.class, () -> subject.acquire());
+
+        // Verify
+        assertEquals(Http.ErrorCode.SERVICE_UNAVAILABLE, error.errorCode);
+        assertEquals(3L, error.retryAfterSeconds);
+        assertEquals(1L, subject.getRejected());
+        assertEquals(0, subject.getWaiting());
+    }
+
+    @Test
+    void acquire_queueFull() throws Exception {
+        // Setup
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.of(1, 1, 1, 10_000, 1);
+        limiter.acquire();
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(limiter::acquire);
+        while (0 == limiter.getWaiting()) {
+            Thread.onSpinWait();
+        }
+
+        // Execute
+        assertThrows(Http.Overloaded.class, () -> limiter.acquire());
+        limiter.release(1_000, true);
+
+        // Verify
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1L, limiter.getRejected());
+    }
+
+    @Test
+    void adjust_backoff() {
+        // Setup
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.of(1, 100, 1, 100, 1);
+
+        // Execute
+        long now = 0;
+        for (int i = 0; i < 100; i++) {
+            limiter.adjust(1_000_000, now += 1_000_000);
+        }
+        for (int i = 0; i < 20; i++) {
+            limiter.adjust(50_000_000, now += 1_000_000);
+        }
+
+        // Verify
+        assertTrue(limiter.getLimit() < 100);
+        assertTrue(limiter.getLimit() >= 1);
+    }
+
+    @Test
+    void adjust_grow() {
+        // Setup
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.of(1, 10, 1, 100, 1);
+        limiter.limit = 4;
+        limiter.inFlight = 9;
+
+        // Execute
+        for (int i = 0; i < 100; i++) {
+            limiter.adjust(1_000_000, i);
+        }
+
+        // Verify
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void unlimited() {
+        // Execute
+        for (int i = 0; i < 1000; i++) {
+            ConcurrencyLimiter.UNLIMITED.acquire();
+        }
+
+        // Verify
+        assertEquals(0, ConcurrencyLimiter.UNLIMITED.getInFlight());
+    }
+}
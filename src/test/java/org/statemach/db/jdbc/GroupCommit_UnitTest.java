@@ -0,0 +1,241 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.util.Deadline;
+import org.statemach.util.Http;
+
+import io.vavr.collection.List;
+
+public class GroupCommit_UnitTest {
+
+    final GroupCommit subject = GroupCommit.of(5_000_000, 3);
+
+    final AtomicInteger   statements = new AtomicInteger(0);
+    final ExecutorService executor   = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    void cleanup() {
+        executor.shutdownNow();
+    }
+
+    List<String> together(List<Integer> values) {
+        statements.incrementAndGet();
+        if (values.contains(-1)) {
+            throw new RuntimeException(new SQLException("duplicate key", "23505"));
+        }
+        return values.map(v -> "row" + v);
+    }
+
+    String alone(Integer value) {
+        statements.incrementAndGet();
+        if (-1 == value) {
+            throw new RuntimeException(new SQLException("duplicate key", "23505"));
+        }
+        return "row" + value;
+    }
+
+    CompletableFuture<String> submit(Integer value) {
+        return submit(value, this::together);
+    }
+
+    CompletableFuture<String> submit(Integer value, Function<List<Integer>, List<String>> together) {
+        return CompletableFuture.supplyAsync(() -> subject.submit("key", value, 100, together, this::alone), executor);
+    }
+
+    @Test
+    void disabled() {
+        // Execute
+        String result = GroupCommit.DISABLED.submit("key", 1, 100, this::together, this::alone);
+
+        // Verify
+        assertFalse(GroupCommit.DISABLED.isEnabled());
+        assertEquals("row1", result);
+        assertEquals(1, statements.get());
+        assertEquals(0, GroupCommit.DISABLED.getBatches());
+    }
+
+    @Test
+    void submit_full() throws Exception {
+        // Setup
+        CompletableFuture<String> first  = submit(1);
+        CompletableFuture<String> second = submit(2);
+        CompletableFuture<String> third  = submit(3);
+
+        // Execute
+        List<String> result = List.of(first.get(), second.get(), third.get());
+
+        // Verify
+        assertTrue(subject.isEnabled());
+        assertEquals(List.of("row1", "row2", "row3"), result);
+        assertEquals(1, statements.get());
+        assertEquals(1, subject.getBatches());
+        assertEquals(3, subject.getRows());
+        assertEquals(0, subject.getFallbacks());
+    }
+
+    @Test
+    void submit_delay() {
+        // Setup
+        GroupCommit quick = GroupCommit.of(1_000, 100);
+
+        // Execute
+        String result = quick.submit("key", 1, 100, this::together, this::alone);
+
+        // Verify
+        assertEquals("row1", result);
+        assertEquals(1, statements.get());
+        assertEquals(1, quick.getBatches());
+        assertEquals(1, quick.getRows());
+    }
+
+    @Test
+    void submit_capacity() {
+        // Execute
+        String result = subject.submit("key", 1, 1, this::together, this::alone);
+
+        // Verify
+        assertEquals("row1", result);
+        assertEquals(0, subject.getBatches());
+    }
+
+    @Test
+    void submit_constraintViolation() throws Exception {
+        // Setup
+        CompletableFuture<String> first  = submit(1);
+        CompletableFuture<String> second = submit(-1);
+        CompletableFuture<String> third  = submit(3);
+
+        // Execute
+        ExecutionException ex = assertThrows(ExecutionException.class, second::get);
+
+        // Verify
+        assertEquals("row1", first.get());
+        assertEquals("row3", third.get());
+        assertEquals("23505", ((SQLException) ex.getCause().getCause()).getSQLState());
+        assertEquals(4, statements.get());
+        assertEquals(1, subject.getFallbacks());
+    }
+
+    @Test
+    void submit_failure() {
+        // Setup
+        RuntimeException                      failure  = new RuntimeException(new SQLException("connection lost", "08006"));
+        Function<List<Integer>, List<String>> together = v -> {
+            throw failure;
+        };
+
+        List<CompletableFuture<String>> results = List.of(1, 2, 3).map(v -> submit(v, together));
+
+        // Execute
+        List<ExecutionException> result = results.map(r -> assertThrows(ExecutionException.class, r::get));
+
+        // Verify
+        result.forEach(ex -> assertSame(failure, ex.getCause()));
+        assertEquals(0, statements.get());
+        assertEquals(0, subject.getFallbacks());
+    }
+
+    @Test
+    void submit_dataException() throws Exception {
+        // Setup
+        Function<List<Integer>, List<String>> together = v -> {
+            throw new RuntimeException(new SQLException("value too long", "22001"));
+        };
+
+        List<CompletableFuture<String>> results = List.of(1, 2, 3).map(v -> submit(v, together));
+
+        // Execute
+        List<String> result = results.map(CompletableFuture::join);
+
+        // Verify
+        assertEquals(List.of("row1", "row2", "row3"), result);
+        assertEquals(3, statements.get());
+        assertEquals(1, subject.getFallbacks());
+    }
+
+    @Test
+    void submit_expired() {
+        // Setup
+        Http.Error                            expired  = Deadline.of(0).expired(null);
+        Function<List<Integer>, List<String>> together = v -> {
+            throw expired;
+        };
+
+        List<CompletableFuture<String>> results = List.of(1, 2, 3).map(v -> submit(v, together));
+
+        // Execute
+        List<ExecutionException> result = results.map(r -> assertThrows(ExecutionException.class, r::get));
+
+        // Verify
+        result.forEach(ex -> assertSame(expired, ex.getCause()));
+        assertEquals(0, statements.get());
+        assertEquals(0, subject.getFallbacks());
+    }
+
+    @Test
+    void isRowFailure() {
+        // Verify
+        assertTrue(GroupCommit.isRowFailure(new RuntimeException(new SQLException("duplicate key", "23505"))));
+        assertTrue(GroupCommit.isRowFailure(new RuntimeException(new SQLException("out of range", "22003"))));
+        assertFalse(GroupCommit.isRowFailure(new RuntimeException(new SQLException("connection lost", "08006"))));
+        assertFalse(GroupCommit.isRowFailure(new Http.Overloaded(1, "Busy")));
+        assertFalse(GroupCommit.isRowFailure(new IllegalStateException("Batch of 2 rows returned 1")));
+    }
+
+    @Test
+    void submit_latestDeadline() throws Exception {
+        // Setup
+        java.util.List<Deadline>              used     = new java.util.concurrent.CopyOnWriteArrayList<>();
+        Deadline                              latest   = Deadline.of(60_000);
+        Function<List<Integer>, List<String>> together = v -> {
+            used.add(Deadline.current());
+            return together(v);
+        };
+
+        // Execute
+        List<CompletableFuture<String>> results = List.of(Deadline.of(20_000), latest, Deadline.of(40_000))
+            .map(d -> CompletableFuture.supplyAsync(
+                    () -> Deadline.with(d, () -> subject.submit("key", 1, 100, together, this::alone)),
+                    executor));
+        results.forEach(CompletableFuture::join);
+
+        // Verify
+        assertEquals(1, statements.get());
+        assertEquals(java.util.List.of(latest), used);
+    }
+
+    @Test
+    void submit_unboundedDeadline() throws Exception {
+        // Setup
+        java.util.List<Deadline>              used     = new java.util.concurrent.CopyOnWriteArrayList<>();
+        Function<List<Integer>, List<String>> together = v -> {
+            used.add(Deadline.current());
+            return together(v);
+        };
+
+        // Execute
+        List<CompletableFuture<String>> results = List.of(Deadline.of(20_000), Deadline.NONE, Deadline.of(40_000))
+            .map(d -> CompletableFuture.supplyAsync(
+                    () -> Deadline.with(d, () -> subject.submit("key", 1, 100, together, this::alone)),
+                    executor));
+        results.forEach(CompletableFuture::join);
+
+        // Verify
+        assertEquals(java.util.List.of(Deadline.NONE), used);
+    }
+}
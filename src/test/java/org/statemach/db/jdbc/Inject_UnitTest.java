@@ -0,0 +1,49 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Traversable;
+import io.vavr.control.Option;
+
+public class Inject_UnitTest {
+
+    final Injector<Traversable<? extends Long>> array = Injector.ofArray(v -> v, "bigint");
+
+    @Test
+    void values() {
+        // Setup
+        List<Inject> injects = List.of(Injector.LONG.prepare(7L), Injector.STRING.prepare(null));
+
+        // Execute
+        List<Object> result1 = Inject.values(injects.append(array.prepare(List.of(1L, 2L)))).get();
+        List<Object> result2 = Inject.values(injects.append(array.prepare(List.of(1L, 2L)))).get();
+        List<Object> result3 = Inject.values(injects.append(array.prepare(List.of(1L, 3L)))).get();
+
+        // Verify
+        assertEquals(List.of(7L, null, List.of(1L, 2L)), result1);
+        assertEquals(result1, result2);
+        assertNotEquals(result1, result3);
+    }
+
+    @Test
+    void values_fold() {
+        // Execute
+        Inject result = Inject.fold(List.of(Injector.INTEGER.prepare(1), Inject.NOTHING, Injector.BOOLEAN.prepare(true)));
+
+        // Verify
+        assertEquals(Option.of(List.of(1, true)), result.values());
+        assertEquals(Option.of(List.of(1, true)), Inject.stuffing(List.of(result)).values());
+    }
+
+    @Test
+    void values_opaque() {
+        // Execute & Verify
+        assertTrue(Inject.values(List.of(Injector.LONG.prepare(7L), (ps, i) -> i)).isEmpty());
+        assertTrue(Inject.fold(List.of((ps, i) -> i)).values().isEmpty());
+    }
+}
@@ -0,0 +1,80 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.sql.postgres.TestDB;
+import org.statemach.util.Http;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class JDBC_CircuitBreaker_IntegrationTest {
+
+    @BeforeAll
+    static void setup() {
+        TestDB.setup();
+    }
+
+    static Map<Workload, JDBC.Lane> lanes(PoolDataSource pool) {
+        return List.of(Workload.values())
+            .toMap(w -> new Tuple2<>(w, new JDBC.Lane(ConcurrencyLimiter.UNLIMITED, pool)));
+    }
+
+    @Test
+    void query_unreachable() {
+        // Setup
+        PoolDataSource pool = new PoolDataSource();
+        pool.setDriverClassName(org.postgresql.Driver.class.getName());
+        pool.setUrl("jdbc:postgresql://localhost:1/inventory");
+        pool.addConnectionProperty("connectTimeout", "1");
+        CircuitBreaker breaker = CircuitBreaker.of(2, 60_000, 5, CircuitBreaker.ping(pool, 1));
+        JDBC           subject = new JDBC(Vendor.POSTGRES, pool, SlowQueryLog.DISABLED, lanes(pool), breaker);
+
+        // Execute
+        assertThrows(RuntimeException.class, () -> subject.query("SELECT 1", ps -> {}, rs -> rs.getInt(1)));
+        assertThrows(RuntimeException.class, () -> subject.query("SELECT 1", ps -> {}, rs -> rs.getInt(1)));
+        Http.Overloaded error = assertThrows(Http.Overloaded.class,
+                () -> subject.query("SELECT 1", ps -> {}, rs -> rs.getInt(1)));
+
+        // Verify
+        assertTrue(breaker.isOpen());
+        assertEquals(Http.ErrorCode.SERVICE_UNAVAILABLE, error.errorCode);
+        assertEquals(5L, error.retryAfterSeconds);
+    }
+
+    @Test
+    void query_exhausted() throws Exception {
+        // Setup
+        PoolDataSource pool = new PoolDataSource();
+        pool.setDriverClassName(TestDB.pool.getDriverClassName());
+        pool.setUrl(TestDB.pool.getUrl());
+        pool.setUsername(TestDB.pool.getUsername());
+        pool.setPassword(TestDB.pool.getPassword());
+        pool.setMaxTotal(1);
+        pool.setMaxWaitMillis(100);
+        CircuitBreaker breaker = CircuitBreaker.of(1, 60_000, 5, CircuitBreaker.ping(pool, 1));
+        JDBC           subject = new JDBC(Vendor.POSTGRES, pool, SlowQueryLog.DISABLED, lanes(pool), breaker);
+
+        // Execute
+        Http.Overloaded error;
+        try (Connection connection = pool.getConnection()) {
+            error = assertThrows(Http.Overloaded.class, () -> subject.query("SELECT 1", ps -> {}, rs -> rs.getInt(1)));
+        }
+
+        // Verify
+        assertEquals(Http.ErrorCode.SERVICE_UNAVAILABLE, error.errorCode);
+        assertFalse(breaker.isOpen());
+        assertEquals(List.of(1), subject.query("SELECT 1", ps -> {}, rs -> rs.getInt(1)));
+        pool.close();
+    }
+}
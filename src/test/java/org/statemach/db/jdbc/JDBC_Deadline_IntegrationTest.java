@@ -0,0 +1,67 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.sql.postgres.TestDB;
+import org.statemach.util.Deadline;
+import org.statemach.util.Http;
+import org.statemach.util.Mutable;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import io.vavr.collection.List;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class JDBC_Deadline_IntegrationTest {
+
+    final JDBC         subject  = new JDBC(Vendor.POSTGRES, TestDB.pool);
+    final HttpExchange exchange = mock(HttpExchange.class);
+
+    @BeforeAll
+    static void setup() {
+        TestDB.setup();
+    }
+
+    @Test
+    void query_canceled() throws Exception {
+        // Setup
+        Headers headers = new Headers();
+        headers.set(Deadline.HEADER, "200");
+        doReturn(headers).when(exchange).getRequestHeaders();
+        Mutable<Http.Error> error = new Mutable<>(null);
+
+        // Execute
+        long start = System.nanoTime();
+        Deadline.handler(10_000, e -> error.set(assertThrows(Http.Error.class,
+                () -> subject.query("SELECT pg_sleep(5)", ps -> {}, rs -> rs.getString(1)))))
+            .handle(exchange);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        // Verify
+        assertEquals(Http.ErrorCode.GATEWAY_TIMEOUT, error.get().errorCode);
+        assertTrue(millis < 2000, "Statement was not canceled in time: " + millis + " ms");
+        assertEquals(List.of(1), subject.query("SELECT 1", ps -> {}, rs -> rs.getInt(1)));
+    }
+
+    @Test
+    void query_inTime() throws Exception {
+        // Setup
+        doReturn(new Headers()).when(exchange).getRequestHeaders();
+        Mutable<List<Integer>> result = new Mutable<>(null);
+
+        // Execute
+        Deadline.handler(10_000, e -> result.set(subject.query("SELECT 1", ps -> {}, rs -> rs.getInt(1))))
+            .handle(exchange);
+
+        // Verify
+        assertEquals(List.of(1), result.get());
+    }
+}
@@ -0,0 +1,132 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.sql.postgres.TestDB;
+
+import com.sun.net.httpserver.Headers;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class JDBC_Replicas_IntegrationTest {
+
+    static final String APPLICATION = "SELECT current_setting('application_name')";
+
+    @BeforeAll
+    static void setup() {
+        TestDB.setup();
+    }
+
+    @AfterEach
+    void cleanup() {
+        Replicas.CURRENT.remove();
+    }
+
+    static PoolDataSource pool(String url) {
+        PoolDataSource pool = new PoolDataSource();
+        pool.setDriverClassName(TestDB.pool.getDriverClassName());
+        pool.setUrl(url);
+        pool.setUsername(TestDB.pool.getUsername());
+        pool.setPassword(TestDB.pool.getPassword());
+        pool.addConnectionProperty("connectTimeout", "1");
+        pool.setConnectionInitSqls(java.util.List.of("SET application_name = 'replica'"));
+        return pool;
+    }
+
+    static JDBC jdbc(Replicas replicas) {
+        return new JDBC(Vendor.POSTGRES,
+                TestDB.pool,
+                SlowQueryLog.DISABLED,
+                List.of(Workload.values())
+                    .toMap(w -> new Tuple2<>(w, new JDBC.Lane(ConcurrencyLimiter.UNLIMITED, TestDB.pool))),
+                CircuitBreaker.DISABLED,
+                replicas);
+    }
+
+    @Test
+    void read() {
+        // Setup
+        PoolDataSource replicaPool = pool(TestDB.pool.getUrl());
+        Replica        replica     = new Replica("self", replicaPool);
+        JDBC           subject     = jdbc(new Replicas(TestDB.pool, List.of(replica), 1024 * 1024));
+        replica.update(0, 0, 0);
+
+        // Execute
+        List<String> result = subject.read(APPLICATION, ps -> {}, rs -> rs.getString(1));
+
+        // Verify
+        assertEquals(List.of("replica"), result);
+        assertTrue(replica.isHealthy());
+        assertEquals(0L, replica.getLagBytes());
+    }
+
+    @Test
+    void read_notInRecovery() {
+        // Setup
+        PoolDataSource replicaPool = pool(TestDB.pool.getUrl());
+        Replica        replica     = new Replica("self", replicaPool);
+        JDBC           subject     = jdbc(Replicas.of(TestDB.pool, List.of(replica), 1024 * 1024, 60_000));
+
+        // Execute
+        List<String> result = subject.read(APPLICATION, ps -> {}, rs -> rs.getString(1));
+
+        // Verify
+        assertFalse(result.contains("replica"));
+        assertFalse(replica.isHealthy());
+    }
+
+    @Test
+    void read_behind() {
+        // Setup
+        PoolDataSource replicaPool = pool(TestDB.pool.getUrl());
+        Replica        replica     = new Replica("self", replicaPool);
+        JDBC           subject     = jdbc(new Replicas(TestDB.pool, List.of(replica), 1024 * 1024));
+        replica.update(0, 0, 0);
+        Replicas.CURRENT.set(new Replicas.Session(1, new Headers()));
+
+        // Execute
+        List<String> result = subject.read(APPLICATION, ps -> {}, rs -> rs.getString(1));
+
+        // Verify
+        assertFalse(result.contains("replica"));
+    }
+
+    @Test
+    void read_unreachable() {
+        // Setup
+        Replica replica = new Replica("down", pool("jdbc:postgresql://localhost:1/inventory"));
+        replica.update(0, 0, 0);
+        JDBC subject = jdbc(new Replicas(TestDB.pool, List.of(replica), 1024 * 1024));
+
+        // Execute
+        List<Integer> result = subject.read("SELECT 1", ps -> {}, rs -> rs.getInt(1));
+
+        // Verify
+        assertEquals(List.of(1), result);
+        assertFalse(replica.isHealthy());
+    }
+
+    @Test
+    void written() {
+        // Setup
+        Replica replica  = new Replica("self", pool(TestDB.pool.getUrl()));
+        JDBC    subject  = jdbc(new Replicas(TestDB.pool, List.of(replica), 1024 * 1024));
+        Headers response = new Headers();
+        Replicas.CURRENT.set(new Replicas.Session(0, response));
+
+        // Execute
+        Workload.run(Workload.MUTATION, () -> subject.execute("SELECT 1", ps -> {}));
+
+        // Verify
+        assertTrue(Replicas.isWritten());
+        assertTrue(0 < Replicas.parse(response.getFirst(Replicas.HEADER)));
+    }
+}
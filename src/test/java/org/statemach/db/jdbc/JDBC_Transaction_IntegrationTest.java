@@ -0,0 +1,105 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.sql.postgres.TestDB;
+import org.statemach.util.Http;
+
+import io.vavr.collection.List;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class JDBC_Transaction_IntegrationTest {
+
+    static final long COMMITTED   = 1001;
+    static final long ROLLED_BACK = 1002;
+
+    final JDBC subject = new JDBC(Vendor.POSTGRES, TestDB.pool);
+
+    final String insert = "INSERT INTO " + TestDB.schema + ".first (id) VALUES (?)";
+    final String select = "SELECT id FROM " + TestDB.schema + ".first WHERE id = ?";
+    final String delete = "DELETE FROM " + TestDB.schema + ".first WHERE id IN (?, ?)";
+    final String pid    = "SELECT pg_backend_pid()";
+
+    @BeforeAll
+    static void setup() {
+        TestDB.setup();
+    }
+
+    @AfterEach
+    void cleanup() {
+        subject.update(delete, ps -> {
+            ps.setLong(1, COMMITTED);
+            ps.setLong(2, ROLLED_BACK);
+        });
+    }
+
+    List<Long> select(long id) {
+        return subject.query(select, ps -> ps.setLong(1, id), rs -> rs.getLong(1));
+    }
+
+    @Test
+    void transaction_commit() {
+        // Execute
+        List<Object> result = subject.transaction(() -> {
+            subject.update(insert, ps -> ps.setLong(1, COMMITTED));
+            return List.of(select(COMMITTED),
+                    select(COMMITTED),
+                    subject.query(pid, ps -> {}, rs -> rs.getInt(1)),
+                    subject.query(pid, ps -> {}, rs -> rs.getInt(1)),
+                    Transaction.CURRENT.get().getPrepared());
+        });
+
+        // Verify
+        assertEquals(List.of(COMMITTED), result.get(0));
+        assertEquals(List.of(COMMITTED), result.get(1));
+        assertEquals(result.get(2), result.get(3));
+        assertEquals(3, result.get(4));
+        assertEquals(List.of(COMMITTED), select(COMMITTED));
+        assertFalse(Transaction.isActive());
+    }
+
+    @Test
+    void transaction_written() {
+        // Setup
+        long writes = SingleFlight.WRITES.get();
+
+        // Execute
+        Workload.run(Workload.MUTATION, () -> subject.transaction(() -> subject.update(insert, ps -> ps.setLong(1, COMMITTED))));
+
+        // Verify
+        assertEquals(writes + 1, SingleFlight.WRITES.get());
+    }
+
+    @Test
+    void transaction_rollback() {
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.transaction(() -> {
+            subject.update(insert, ps -> ps.setLong(1, ROLLED_BACK));
+            throw new Http.Error(Http.ErrorCode.CONFLICT, "Stop");
+        }));
+
+        // Verify
+        assertEquals(Http.ErrorCode.CONFLICT, result.errorCode);
+        assertEquals(List.empty(), select(ROLLED_BACK));
+        assertFalse(Transaction.isActive());
+    }
+
+    @Test
+    void transaction_nested() {
+        // Execute
+        List<Long> result = subject.transaction(() -> subject.transaction(() -> {
+            subject.update(insert, ps -> ps.setLong(1, COMMITTED));
+            return select(COMMITTED);
+        }));
+
+        // Verify
+        assertEquals(List.of(COMMITTED), result);
+        assertEquals(List.of(COMMITTED), select(COMMITTED));
+    }
+}
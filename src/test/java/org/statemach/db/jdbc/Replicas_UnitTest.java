@@ -0,0 +1,251 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import io.vavr.collection.List;
+
+public class Replicas_UnitTest {
+
+    final Replica  replica1 = new Replica("replica1", new BasicDataSource());
+    final Replica  replica2 = new Replica("replica2", new BasicDataSource());
+    final Replicas subject  = new Replicas(null, List.of(replica1, replica2), 1000);
+
+    @AfterEach
+    void cleanup() {
+        Replicas.CURRENT.remove();
+    }
+
+    static DataSource dataSource(String lsn) throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        Statement  statement  = mock(Statement.class);
+        ResultSet  resultSet  = mock(ResultSet.class);
+        doReturn(connection).when(dataSource).getConnection();
+        doReturn(statement).when(connection).createStatement();
+        doReturn(resultSet).when(statement).executeQuery(Replicas.PRIMARY_LSN);
+        doReturn(resultSet).when(statement).executeQuery(Replicas.REPLAY_LSN);
+        doReturn(true).when(resultSet).next();
+        doReturn(lsn).when(resultSet).getString(1);
+        return dataSource;
+    }
+
+    @Test
+    void parse() {
+        // Execute & Verify
+        assertEquals(0L, Replicas.parse(null));
+        assertEquals(0x16_B374D848L, Replicas.parse("16/B374D848"));
+        assertEquals("16/B374D848", Replicas.format(0x16_B374D848L));
+        assertEquals("0/0", Replicas.format(0));
+    }
+
+    @Test
+    void parse_invalid() {
+        // Execute
+        Http.Error error = assertThrows(Http.Error.class, () -> Replicas.parse("B374D848"));
+
+        // Verify
+        assertEquals(Http.ErrorCode.BAD_REQUEST, error.errorCode);
+    }
+
+    @Test
+    void route() {
+        // Setup
+        replica1.update(5000, 4500, 1000);
+        replica2.update(5000, 1000, 1000);
+
+        // Execute & Verify
+        assertFalse(replica2.isHealthy());
+        for (int i = 0; i < 10; i++) {
+            assertSame(replica1, subject.route().get());
+        }
+    }
+
+    @Test
+    void route_fresher() {
+        // Setup
+        replica1.update(Replicas.LAG_BUCKET_BYTES * 3, Replicas.LAG_BUCKET_BYTES * 3, Long.MAX_VALUE);
+        replica2.update(Replicas.LAG_BUCKET_BYTES * 3, Replicas.LAG_BUCKET_BYTES, Long.MAX_VALUE);
+
+        // Execute & Verify
+        for (int i = 0; i < 10; i++) {
+            assertSame(replica1, subject.route().get());
+        }
+    }
+
+    @Test
+    void route_minLsn() {
+        // Setup
+        replica1.update(5000, 4500, 1000);
+        replica2.update(5000, 4900, 1000);
+        Replicas.CURRENT.set(new Replicas.Session(4800, new Headers()));
+
+        // Execute & Verify
+        assertSame(replica2, subject.route().get());
+        Replicas.CURRENT.set(new Replicas.Session(4950, new Headers()));
+        assertTrue(subject.route().isEmpty());
+    }
+
+    @Test
+    void route_written() throws Exception {
+        // Setup
+        replica1.update(5000, 5000, 1000);
+        Replicas.CURRENT.set(new Replicas.Session(0, new Headers()));
+
+        // Execute
+        Workload.run(Workload.MUTATION, () -> assertTrue(subject.route().isEmpty()));
+        assertTrue(subject.route().isDefined());
+        Replicas.written();
+
+        // Verify
+        assertTrue(subject.route().isEmpty());
+        assertTrue(Replicas.NONE.route().isEmpty());
+    }
+
+    @Test
+    void refresh() throws Exception {
+        // Setup
+        BasicDataSource down     = mock(BasicDataSource.class);
+        Replica         up       = new Replica("up", mock(BasicDataSource.class));
+        Replica         failed   = new Replica("failed", down);
+        Replicas        replicas = new Replicas(dataSource("0/2000"), List.of(up, failed), 4096);
+        doReturn(dataSource("0/1000").getConnection()).when(up.pool).getConnection();
+        doThrow(new SQLException("Connection refused", "08001")).when(down).getConnection();
+
+        // Execute
+        replicas.refresh();
+
+        // Verify
+        assertTrue(up.isHealthy());
+        assertEquals(0x1000L, up.getReplayLsn());
+        assertEquals(0x1000L, up.getLagBytes());
+        assertFalse(failed.isHealthy());
+    }
+
+    @Test
+    void refresh_notInRecovery() throws Exception {
+        // Setup
+        Replica  promoted = new Replica("promoted", mock(BasicDataSource.class));
+        Replicas replicas = new Replicas(dataSource("0/2000"), List.of(promoted), 4096);
+        promoted.update(0x2000, 0x2000, 4096);
+        doReturn(dataSource(null).getConnection()).when(promoted.pool).getConnection();
+
+        // Execute
+        replicas.refresh();
+
+        // Verify
+        assertFalse(promoted.isHealthy());
+        assertTrue(replicas.route().isEmpty());
+    }
+
+    @Test
+    void handler() throws Exception {
+        // Setup
+        Replicas              replicas   = new Replicas(null, List.of(replica1), 1000);
+        Connection            connection = dataSource("1/A0").getConnection();
+        HttpExchange          exchange   = mock(HttpExchange.class);
+        Headers               request    = new Headers();
+        Headers               response   = new Headers();
+        ByteArrayOutputStream output     = new ByteArrayOutputStream();
+        request.set(Replicas.HEADER, "1/10");
+        doReturn(request).when(exchange).getRequestHeaders();
+        doReturn(response).when(exchange).getResponseHeaders();
+        doReturn(output).when(exchange).getResponseBody();
+        HttpHandler next = e -> {
+            assertEquals(0x1_00000010L, Replicas.CURRENT.get().minLsn);
+            Replicas.written(connection);
+            Http.json(e, "done");
+        };
+
+        // Execute
+        replicas.handler(next).handle(exchange);
+
+        // Verify
+        assertEquals("1/A0", response.getFirst(Replicas.HEADER));
+        verify(exchange).sendResponseHeaders(anyInt(), anyLong());
+        assertNull(Replicas.CURRENT.get());
+    }
+
+    @Test
+    void written_leader() {
+        // Setup
+        Replicas.Session leader   = new Replicas.Session(0, new Headers());
+        Headers          response = new Headers();
+        leader.response.set(Replicas.HEADER, "1/A0");
+        Replicas.CURRENT.set(new Replicas.Session(0, response));
+
+        // Execute
+        Replicas.written(leader);
+
+        // Verify
+        assertTrue(Replicas.isWritten());
+        assertEquals("1/A0", response.getFirst(Replicas.HEADER));
+    }
+
+    @Test
+    void written_outside() throws Exception {
+        // Setup
+        Connection connection = mock(Connection.class);
+
+        // Execute
+        Replicas.written(connection);
+
+        // Verify
+        verify(connection, never()).createStatement();
+        assertFalse(Replicas.isWritten());
+    }
+
+    @Test
+    void handler_read() throws Exception {
+        // Setup
+        HttpExchange exchange = mock(HttpExchange.class);
+        Headers      response = new Headers();
+        doReturn(new Headers()).when(exchange).getRequestHeaders();
+        doReturn(response).when(exchange).getResponseHeaders();
+        doReturn(new ByteArrayOutputStream()).when(exchange).getResponseBody();
+
+        // Execute
+        subject.handler(e -> Http.json(e, "done")).handle(exchange);
+
+        // Verify
+        assertNull(response.getFirst(Replicas.HEADER));
+        verify(exchange).sendResponseHeaders(anyInt(), anyLong());
+    }
+
+    @Test
+    void handler_none() {
+        // Setup
+        HttpHandler next = e -> {};
+
+        // Execute & Verify
+        assertSame(next, Replicas.NONE.handler(next));
+    }
+}
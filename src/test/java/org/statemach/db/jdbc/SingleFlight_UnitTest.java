@@ -0,0 +1,200 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.Headers;
+
+import io.vavr.collection.List;
+
+public class SingleFlight_UnitTest {
+
+    final SingleFlight subject = new SingleFlight(true);
+
+    final List<Inject> injects = List.of(Injector.LONG.prepare(7L), Injector.STRING.prepare(null));
+
+    final AtomicInteger  executions = new AtomicInteger(0);
+    final CountDownLatch release    = new CountDownLatch(1);
+
+    @AfterEach
+    void cleanup() {
+        Replicas.CURRENT.remove();
+    }
+
+    String slow() {
+        executions.incrementAndGet();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            throw new RuntimeException(ex);
+        }
+        return "result";
+    }
+
+    void awaitLeader() {
+        while (0 == subject.getInFlight()) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Test
+    void execute_opaqueInject() throws Exception {
+        // Setup
+        List<Inject>              opaque = List.of((ps, i) -> i);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> subject.execute("SQL", opaque, "shape", this::slow));
+        while (0 == executions.get()) {
+            Thread.onSpinWait();
+        }
+
+        // Execute
+        String result = subject.execute("SQL", opaque, "shape", () -> "own");
+        release.countDown();
+
+        // Verify
+        assertEquals("own", result);
+        assertEquals(0L, subject.getShared());
+        assertEquals(0, subject.getInFlight());
+        leader.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void execute() throws Exception {
+        // Setup
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> subject.execute("SQL", injects, "shape", this::slow));
+        awaitLeader();
+
+        // Execute
+        CompletableFuture<String> follower = CompletableFuture
+            .supplyAsync(() -> subject.execute("SQL", injects, "shape", this::slow));
+        while (0 == subject.getShared()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        // Verify
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        assertSame(leader.get(), follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+        assertEquals(1L, subject.getShared());
+        assertEquals(0, subject.getInFlight());
+    }
+
+    @Test
+    void execute_differentBinds() throws Exception {
+        // Setup
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> subject.execute("SQL", injects, "shape", this::slow));
+        awaitLeader();
+
+        // Execute
+        String result = subject.execute("SQL", List.of(Injector.LONG.prepare(8L)), "shape", () -> "other");
+        release.countDown();
+
+        // Verify
+        assertEquals("other", result);
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(0L, subject.getShared());
+    }
+
+    @Test
+    void execute_failed() throws Exception {
+        // Setup
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> subject.execute("SQL", injects, "shape", () -> {
+            slow();
+            throw new Http.Error(Http.ErrorCode.SERVICE_UNAVAILABLE, "down");
+        }));
+        awaitLeader();
+        CompletableFuture<String> follower = CompletableFuture
+            .supplyAsync(() -> subject.execute("SQL", injects, "shape", this::slow));
+        while (0 == subject.getShared()) {
+            Thread.onSpinWait();
+        }
+
+        // Execute
+        release.countDown();
+
+        // Verify
+        Exception error = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertEquals(Http.ErrorCode.SERVICE_UNAVAILABLE, ((Http.Error) error.getCause()).errorCode);
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_leaderTimeout() throws Exception {
+        // Setup
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> subject.execute("SQL", injects, "shape", () -> {
+            slow();
+            throw new Http.Error(Http.ErrorCode.GATEWAY_TIMEOUT, "late");
+        }));
+        awaitLeader();
+        CompletableFuture<String> follower = CompletableFuture
+            .supplyAsync(() -> subject.execute("SQL", injects, "shape", () -> "own"));
+        while (0 == subject.getShared()) {
+            Thread.onSpinWait();
+        }
+
+        // Execute
+        release.countDown();
+
+        // Verify
+        assertEquals("own", follower.get(5, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_written() throws Exception {
+        // Setup
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> subject.execute("SQL", injects, "shape", this::slow));
+        awaitLeader();
+        Replicas.CURRENT.set(new Replicas.Session(0, new Headers()));
+        Replicas.written();
+
+        // Execute
+        String result1 = subject.execute("SQL", injects, "shape", () -> "fresh");
+        String result2 = Workload.with(Workload.MUTATION, () -> subject.execute("SQL", injects, "shape", () -> "mutation"));
+        release.countDown();
+
+        // Verify
+        assertEquals("fresh", result1);
+        assertEquals("mutation", result2);
+        assertEquals(0L, subject.getShared());
+        leader.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void execute_afterWrite() throws Exception {
+        // Setup
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> subject.execute("SQL", injects, "shape", this::slow));
+        awaitLeader();
+        SingleFlight.written();
+
+        // Execute
+        String result = subject.execute("SQL", injects, "shape", () -> "fresh");
+        release.countDown();
+
+        // Verify
+        assertEquals("fresh", result);
+        assertEquals(0L, subject.getShared());
+        leader.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void execute_disabled() {
+        // Execute
+        String result = SingleFlight.DISABLED.execute("SQL", injects, "shape", () -> "direct");
+
+        // Verify
+        assertEquals("direct", result);
+        assertEquals(0, SingleFlight.DISABLED.getInFlight());
+    }
+}
@@ -0,0 +1,69 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.sql.postgres.TestDB;
+import org.statemach.util.ConsumerEx;
+import org.statemach.util.Java;
+
+import io.vavr.collection.List;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class SlowQueryLog_IntegrationTest {
+
+    final java.util.List<String> sink    = new java.util.ArrayList<>();
+    final SlowQueryLog           subject = new SlowQueryLog(TestDB.pool, 0, 1.0, false, 16, sink::add);
+    final JDBC                   jdbc    = new JDBC(Vendor.POSTGRES, TestDB.pool, subject);
+
+    @BeforeAll
+    static void setup() {
+        TestDB.setup();
+    }
+
+    @Test
+    void query_explain() {
+        // Setup
+        String                                      sql      = Java.format("SELECT id FROM ${0}.first WHERE fixed = ?", TestDB.schema);
+        ConsumerEx<PreparedStatement, SQLException> stuffing = Inject.stuffing(List.of(Injector.STRING.prepare("slow")));
+
+        // Execute
+        List<String> result = jdbc.query(sql, stuffing, rs -> rs.getString(1));
+        SlowQueryLog.Entry entry = subject.buffer.poll();
+        String             log   = subject.format(entry, subject.explain(entry));
+
+        // Verify
+        assertEquals(0, result.size());
+        assertEquals(List.of("slow"), entry.binds);
+        assertTrue(log.contains("plan:\n"));
+        assertTrue(log.contains("Execution Time"));
+    }
+
+    @Test
+    void insert_explainWithoutAnalyze() {
+        // Setup
+        String sql = Java.format("INSERT INTO ${0}.version (product, version) VALUES (?, ?)", TestDB.schema);
+
+        // Execute
+        SlowQueryLog.Entry entry = new SlowQueryLog.Entry(java.time.Instant.now(), sql, ps -> {
+            ps.setString(1, "explained");
+            ps.setString(2, "0");
+        }, List.empty(), 0, 0, 0, "-");
+        String     plan  = subject.explain(entry).get();
+        List<Long> count = jdbc.query(Java.format("SELECT count(*) FROM ${0}.version WHERE product = ?", TestDB.schema),
+                ps -> ps.setString(1, "explained"),
+                rs -> rs.getLong(1));
+
+        // Verify
+        assertTrue(plan.contains("Insert on version"));
+        assertFalse(plan.contains("Execution Time"));
+        assertEquals(List.of(0L), count);
+    }
+}
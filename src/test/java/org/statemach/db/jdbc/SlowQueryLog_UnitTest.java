@@ -0,0 +1,149 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.util.ConsumerEx;
+import org.statemach.util.Http;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+
+public class SlowQueryLog_UnitTest {
+
+    static final String SQL    = "SELECT * FROM t WHERE a = ? AND b = ? AND c = ?";
+    static final long   MILLI  = 1_000_000L;
+    static final long   SECOND = 1_000 * MILLI;
+
+    static final ConsumerEx<PreparedStatement, SQLException> STUFFING = Inject.stuffing(List.of(
+            Injector.STRING.prepare("secret"),
+            Injector.LONG.prepare(7L),
+            Injector.STRING.prepare(null)));
+
+    final java.util.List<String> sink     = new java.util.ArrayList<>();
+    final SlowQueryLog           subject  = new SlowQueryLog(null, SECOND, 0, false, 2, sink::add);
+    final SlowQueryLog           redacted = new SlowQueryLog(null, SECOND, 0, true, 2, sink::add);
+
+    @Test
+    void record_fast() {
+        // Execute
+        subject.record(SQL, STUFFING, 1, 0, SECOND - 1);
+
+        // Verify
+        assertTrue(subject.buffer.isEmpty());
+    }
+
+    @Test
+    void record_slow() {
+        // Setup
+        Http.ORIGIN.set("GET /rest/first");
+
+        // Execute
+        subject.record(SQL, STUFFING, 3, 5 * MILLI, 2 * SECOND);
+        Http.ORIGIN.remove();
+
+        // Verify
+        SlowQueryLog.Entry entry = subject.buffer.peek();
+        assertEquals(SQL, entry.sql);
+        assertEquals(List.of("secret", 7L, null), entry.binds);
+        assertEquals(3, entry.rows);
+        assertEquals(5 * MILLI, entry.waitNanos);
+        assertEquals(2 * SECOND, entry.durationNanos);
+        assertEquals("GET /rest/first", entry.origin);
+    }
+
+    @Test
+    void record_redacted() {
+        // Setup
+        Http.ORIGIN.remove();
+
+        // Execute
+        redacted.record(SQL, STUFFING, 3, 0, 2 * SECOND);
+
+        // Verify
+        SlowQueryLog.Entry entry = redacted.buffer.peek();
+        assertEquals(List.of("?", "?", null), entry.binds);
+        assertEquals("-", entry.origin);
+    }
+
+    @Test
+    void record_opaqueStuffing() {
+        // Execute
+        subject.record(SQL, p -> p.setString(1, "secret"), 0, 0, 2 * SECOND);
+
+        // Verify
+        assertEquals(List.of("unavailable"), subject.buffer.peek().binds);
+    }
+
+    @Test
+    void record_overflow() {
+        // Execute
+        subject.record("1", STUFFING, 0, 0, 2 * SECOND);
+        subject.record("2", STUFFING, 0, 0, 2 * SECOND);
+        subject.record("3", STUFFING, 0, 0, 2 * SECOND);
+
+        // Verify
+        assertEquals(List.of("2", "3"), List.ofAll(subject.buffer).map(e -> e.sql));
+        assertEquals(1, subject.dropped.sum());
+    }
+
+    @Test
+    void explain_noDataSource() {
+        // Setup
+        SlowQueryLog.Entry entry = new SlowQueryLog.Entry(Instant.EPOCH, SQL, STUFFING, List.empty(), 0, 0, 0, "-");
+
+        // Execute & Verify
+        assertEquals(Option.none(), subject.explain(entry));
+    }
+
+    @Test
+    void isReadOnly() {
+        // Execute & Verify
+        assertTrue(SlowQueryLog.isReadOnly("SELECT id FROM first WHERE fixed = ?"));
+        assertTrue(SlowQueryLog.isReadOnly("  with k AS (SELECT 1) SELECT * FROM k"));
+        assertFalse(SlowQueryLog.isReadOnly("INSERT INTO first (id) VALUES (?)"));
+        assertFalse(SlowQueryLog.isReadOnly("UPDATE first SET fixed = ? WHERE id = ?"));
+        assertFalse(SlowQueryLog.isReadOnly("WITH d AS (DELETE FROM first RETURNING id) SELECT * FROM d"));
+        assertFalse(SlowQueryLog.isReadOnly("SELECT id FROM first FOR UPDATE"));
+        assertFalse(SlowQueryLog.isReadOnly("SELECT nextval('first_id_seq')"));
+    }
+
+    @Test
+    void format() {
+        // Setup
+        SlowQueryLog.Entry entry = new SlowQueryLog.Entry(Instant.EPOCH,
+                SQL,
+                STUFFING,
+                List.of("a", 1),
+                2,
+                MILLI / 2,
+                1500 * MILLI,
+                "POST /graphql");
+
+        // Execute
+        String result = subject.format(entry, Option.of("Seq Scan on t\n"));
+
+        // Verify
+        assertEquals("Slow query 1500.0 ms (pool wait 0.5 ms, rows 2) at 1970-01-01T00:00:00Z from POST /graphql:\n"
+                + SQL + "\n"
+                + "binds: [a, 1]\n"
+                + "plan:\n"
+                + "Seq Scan on t\n",
+                result);
+    }
+
+    @Test
+    void disabled() {
+        // Execute
+        SlowQueryLog.DISABLED.record(SQL, STUFFING, 0, 0, Long.MAX_VALUE - 1);
+
+        // Verify
+        assertTrue(SlowQueryLog.DISABLED.buffer.isEmpty());
+    }
+}
@@ -0,0 +1,50 @@
+package org.statemach.db.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class Workload_UnitTest {
+
+    @Test
+    void current() {
+        // Execute & Verify
+        assertEquals(Workload.QUERY, Workload.current());
+    }
+
+    @Test
+    void with() {
+        // Execute
+        Workload inner = Workload.with(Workload.MUTATION,
+                () -> Workload.with(Workload.LOOKUP, () -> Workload.current()));
+        Workload outer = Workload.with(Workload.MUTATION, () -> {
+            Workload.run(Workload.BULK, () -> {});
+            return Workload.current();
+        });
+
+        // Verify
+        assertEquals(Workload.LOOKUP, inner);
+        assertEquals(Workload.MUTATION, outer);
+        assertNull(Workload.CURRENT.get());
+    }
+
+    @Test
+    void with_exception() {
+        // Execute
+        assertThrows(Exception.class, () -> Workload.run(Workload.BULK, () -> {
+            throw new Exception("failed");
+        }));
+
+        // Verify
+        assertNull(Workload.CURRENT.get());
+    }
+
+    @Test
+    void query() {
+        // Execute & Verify
+        assertEquals(Workload.QUERY, Workload.query(Workload.BULK_ROWS));
+        assertEquals(Workload.BULK, Workload.query(Workload.BULK_ROWS + 1));
+    }
+}
@@ -0,0 +1,227 @@
+package org.statemach.db.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.db.jdbc.Extract;
+import org.statemach.db.jdbc.Inject;
+import org.statemach.db.sql.DataAccess;
+import org.statemach.db.sql.Insert;
+import org.statemach.db.sql.QueryPlan;
+import org.statemach.db.sql.SQLBuilder;
+import org.statemach.db.sql.View;
+import org.statemach.db.sql.postgres.TestSchema;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
+public class MeteredDataAccess_UnitTest {
+
+    static final String                  TABLE     = "first";
+    static final Map<String, Inject>     KEY       = HashMap.empty();
+    static final Map<String, Inject>     VALUES    = HashMap.empty();
+    static final Map<String, Extract<?>> RETURNING = HashMap.empty();
+    static final Map<String, Object>     ROW       = HashMap.of("id", 1);
+    static final QueryPlan               PLAN      = new QueryPlan(1.0, 1.0, "Seq Scan on first");
+
+    @SuppressWarnings("unchecked")
+    final View<Tuple2<String, Extract<?>>> view = mock(View.class);
+
+    final DataAccess        delegate = mock(DataAccess.class);
+    final Metrics           metrics  = Metrics.of(TestSchema.SCHEMA);
+    final MeteredDataAccess subject  = new MeteredDataAccess(delegate, metrics);
+
+    @Test
+    void builder() {
+        // Setup
+        SQLBuilder builder = mock(SQLBuilder.class);
+        doReturn(builder).when(delegate).builder();
+
+        // Execute & Verify
+        assertSame(builder, subject.builder());
+    }
+
+    @Test
+    void transaction() {
+        // Setup
+        doAnswer(a -> a.<Supplier<?>>getArgument(0).get()).when(delegate).transaction(any());
+
+        // Execute & Verify
+        assertEquals(ROW, subject.transaction(() -> ROW));
+    }
+
+    @Test
+    void query() {
+        // Setup
+        doReturn(List.of(ROW, ROW, ROW)).when(delegate).query(any(), any());
+
+        // Execute
+        List<Map<String, Object>> result = subject.query(List.empty(), view);
+
+        // Verify
+        assertEquals(3, result.size());
+        assertEquals(1, subject.query.duration.count());
+        assertEquals(3.0, subject.query.rows.sum());
+    }
+
+    @Test
+    void query_failure() {
+        // Setup
+        doThrow(new RuntimeException()).when(delegate).query(any(), any());
+
+        // Execute
+        assertThrows(RuntimeException.class, () -> subject.query(List.empty(), view));
+
+        // Verify
+        assertEquals(1, subject.query.duration.count());
+        assertEquals(0, subject.query.rows.count());
+    }
+
+    @Test
+    void explain() {
+        // Setup
+        doReturn(PLAN).when(delegate).explain(any(), any());
+
+        // Execute
+        QueryPlan result = subject.explain(List.empty(), view);
+
+        // Verify
+        assertSame(PLAN, result);
+        assertEquals(1, subject.explain.duration.count());
+    }
+
+    @Test
+    void insert() {
+        // Setup
+        doReturn(ROW).when(delegate).insert(TABLE, VALUES, RETURNING);
+
+        // Execute
+        subject.insert(TABLE, VALUES);
+        Map<String, Object> result = subject.insert(TABLE, VALUES, RETURNING);
+
+        // Verify
+        assertSame(ROW, result);
+        assertEquals(2, subject.insert.duration.count());
+        assertEquals(2.0, subject.insert.rows.sum());
+    }
+
+    @Test
+    void insert_nested() {
+        // Setup
+        Insert child  = new Insert("second", VALUES, List.empty());
+        Insert parent = new Insert(TABLE, VALUES, List.of(new Tuple2<>(null, child), new Tuple2<>(null, child)));
+        doReturn(ROW).when(delegate).insert(parent, RETURNING);
+
+        // Execute
+        Map<String, Object> result = subject.insert(parent, RETURNING);
+
+        // Verify
+        assertSame(ROW, result);
+        assertEquals(1, subject.insert.duration.count());
+        assertEquals(3.0, subject.insert.rows.sum());
+    }
+
+    @Test
+    void merge() {
+        // Setup
+        doReturn(ROW).when(delegate).merge(TABLE, KEY, VALUES, RETURNING);
+
+        // Execute
+        subject.merge(TABLE, KEY, VALUES);
+        Map<String, Object> result = subject.merge(TABLE, KEY, VALUES, RETURNING);
+
+        // Verify
+        assertSame(ROW, result);
+        assertEquals(2, subject.merge.duration.count());
+    }
+
+    @Test
+    void update() {
+        // Setup
+        doReturn(false).when(delegate).update(TABLE, KEY, VALUES);
+        doReturn(Option.of(ROW)).when(delegate).update(TABLE, KEY, VALUES, RETURNING);
+
+        // Execute
+        boolean                     result1 = subject.update(TABLE, KEY, VALUES);
+        Option<Map<String, Object>> result2 = subject.update(TABLE, KEY, VALUES, RETURNING);
+
+        // Verify
+        assertEquals(false, result1);
+        assertEquals(Option.of(ROW), result2);
+        assertEquals(2, subject.update.duration.count());
+        assertEquals(1.0, subject.update.rows.sum());
+    }
+
+    @Test
+    void delete() {
+        // Setup
+        doReturn(true).when(delegate).delete(TABLE, KEY);
+        doReturn(Option.none()).when(delegate).delete(TABLE, KEY, RETURNING);
+
+        // Execute
+        boolean                     result1 = subject.delete(TABLE, KEY);
+        Option<Map<String, Object>> result2 = subject.delete(TABLE, KEY, RETURNING);
+
+        // Verify
+        assertEquals(true, result1);
+        assertEquals(Option.none(), result2);
+        assertEquals(1.0, subject.delete.rows.sum());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateWhere() {
+        // Setup
+        View<String> keys = mock(View.class);
+        doReturn(List.of(ROW, ROW)).when(delegate).updateWhere(TABLE, keys, 5, VALUES, RETURNING);
+
+        // Execute
+        List<Map<String, Object>> result = subject.updateWhere(TABLE, keys, 5, VALUES, RETURNING);
+
+        // Verify
+        assertEquals(List.of(ROW, ROW), result);
+        assertEquals(1, subject.update.duration.count());
+        assertEquals(2.0, subject.update.rows.sum());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteWhere_failure() {
+        // Setup
+        View<String> keys = mock(View.class);
+        doThrow(new RuntimeException()).when(delegate).deleteWhere(TABLE, keys, 5, RETURNING);
+
+        // Execute
+        assertThrows(RuntimeException.class, () -> subject.deleteWhere(TABLE, keys, 5, RETURNING));
+
+        // Verify
+        assertEquals(1, subject.delete.duration.count());
+        assertEquals(0, subject.delete.rows.count());
+    }
+
+    @Test
+    void select() {
+        // Setup
+        doReturn(Option.of(ROW)).when(delegate).select(TABLE, KEY, RETURNING);
+
+        // Execute
+        Option<Map<String, Object>> result = subject.select(TABLE, KEY, RETURNING);
+
+        // Verify
+        assertEquals(Option.of(ROW), result);
+        assertTrue(metrics.render().contains("sql_rows_count{operation=\"select\"} 1\n"));
+    }
+}
@@ -0,0 +1,57 @@
+package org.statemach.db.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.util.Http;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+public class MetricsHandler_UnitTest {
+
+    final Metrics        metrics = mock(Metrics.class);
+    final MetricsHandler subject = new MetricsHandler(metrics);
+
+    final HttpExchange          exchange = mock(HttpExchange.class);
+    final Headers               headers  = new Headers();
+    final ByteArrayOutputStream output   = new ByteArrayOutputStream();
+
+    @Test
+    void handle() throws Exception {
+        // Setup
+        doReturn("GET").when(exchange).getRequestMethod();
+        doReturn(headers).when(exchange).getResponseHeaders();
+        doReturn(output).when(exchange).getResponseBody();
+        doReturn("metric 1\n").when(metrics).render();
+
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        verify(exchange).sendResponseHeaders(eq(Http.ErrorCode.OK), anyLong());
+        assertEquals(MetricsHandler.CONTENT_TYPE, headers.getFirst(Http.Header.CONTENT_TYPE));
+        assertEquals("metric 1\n", new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void handle_post() throws Exception {
+        // Setup
+        doReturn("POST").when(exchange).getRequestMethod();
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.METHOD_NOT_ALLOWED, result.errorCode);
+    }
+}
@@ -0,0 +1,221 @@
+package org.statemach.db.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import java.net.URI;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.db.jdbc.CircuitBreaker;
+import org.statemach.db.jdbc.ConcurrencyLimiter;
+import org.statemach.db.jdbc.GroupCommit;
+import org.statemach.db.jdbc.JDBC;
+import org.statemach.db.jdbc.PoolDataSource;
+import org.statemach.db.jdbc.SingleFlight;
+import org.statemach.db.jdbc.Workload;
+import org.statemach.db.sql.postgres.TestSchema;
+import org.statemach.util.Histogram;
+
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import io.vavr.collection.HashMap;
+
+public class Metrics_UnitTest {
+
+    final Metrics subject = Metrics.of(TestSchema.SCHEMA);
+
+    final HttpExchange exchange = mock(HttpExchange.class);
+    final HttpContext  context  = mock(HttpContext.class);
+
+    void prepare(String method, String path) {
+        doReturn(method).when(exchange).getRequestMethod();
+        doReturn(URI.create(path)).when(exchange).getRequestURI();
+        doReturn(context).when(exchange).getHttpContext();
+        doReturn("/rest").when(context).getPath();
+    }
+
+    @Test
+    void measure_table() throws Exception {
+        // Setup
+        prepare("get", "/rest/first/1");
+        HttpHandler handler = subject.measure("rest", true, e -> {});
+
+        // Execute
+        handler.handle(exchange);
+        String result = subject.render();
+
+        // Verify
+        assertTrue(result.contains("# TYPE http_request_duration_seconds histogram\n"));
+        assertTrue(result.contains("http_request_duration_seconds_count{handler=\"rest\",method=\"GET\",table=\"first\"} 1\n"));
+        assertTrue(result.contains(
+                "http_request_duration_seconds_bucket{handler=\"rest\",method=\"GET\",table=\"first\",le=\"+Inf\"} 1\n"));
+        assertFalse(result.contains("table=\"second\""));
+    }
+
+    @Test
+    void measure_unknownTable() throws Exception {
+        // Setup
+        prepare("PROPFIND", "/rest/unknown");
+        HttpHandler handler = subject.measure("rest", true, e -> {});
+
+        // Execute
+        handler.handle(exchange);
+        String result = subject.render();
+
+        // Verify
+        assertTrue(result.contains("http_request_duration_seconds_count{handler=\"rest\",method=\"OTHER\",table=\"\"} 1\n"));
+    }
+
+    @Test
+    void measure_failure() throws Exception {
+        // Setup
+        prepare("POST", "/rest/second");
+        HttpHandler next = mock(HttpHandler.class);
+        doThrow(new RuntimeException()).when(next).handle(exchange);
+        HttpHandler handler = subject.measure("rest", true, next);
+
+        // Execute
+        assertThrows(RuntimeException.class, () -> handler.handle(exchange));
+        String result = subject.render();
+
+        // Verify
+        assertTrue(result.contains("http_request_duration_seconds_count{handler=\"rest\",method=\"POST\",table=\"second\"} 1\n"));
+    }
+
+    @Test
+    void histogram() {
+        // Setup
+        Histogram histogram = subject.histogram("test_rows", "Test rows", Metrics.labels("name", "a\"b"), new double[] { 1 });
+
+        // Execute
+        histogram.observe(0.5);
+        histogram.observe(7);
+        String result = subject.render();
+
+        // Verify
+        assertTrue(result.contains("# HELP test_rows Test rows\n"
+                + "# TYPE test_rows histogram\n"
+                + "test_rows_bucket{name=\"a\\\"b\",le=\"1\"} 1\n"
+                + "test_rows_bucket{name=\"a\\\"b\",le=\"+Inf\"} 2\n"
+                + "test_rows_sum{name=\"a\\\"b\"} 7.5\n"
+                + "test_rows_count{name=\"a\\\"b\"} 2\n"));
+    }
+
+    @Test
+    void pool() {
+        // Setup
+        PoolDataSource pool = mock(PoolDataSource.class);
+        doReturn(3).when(pool).getNumActive();
+        doReturn(2).when(pool).getNumIdle();
+        doReturn(1).when(pool).getNumWaiters();
+        doReturn(250L).when(pool).getMeanBorrowWaitTimeMillis();
+        doReturn(1500L).when(pool).getMaxBorrowWaitTimeMillis();
+
+        // Execute
+        String result = subject.pool(pool).render();
+
+        // Verify
+        assertTrue(result.contains("# TYPE db_pool_active_connections gauge\ndb_pool_active_connections 3\n"));
+        assertTrue(result.contains("db_pool_idle_connections 2\n"));
+        assertTrue(result.contains("db_pool_waiting_threads 1\n"));
+        assertTrue(result.contains("db_pool_borrow_wait_mean_seconds 0.25\n"));
+        assertTrue(result.contains("db_pool_borrow_wait_max_seconds 1.5\n"));
+    }
+
+    @Test
+    void counter() {
+        // Setup
+        subject.counter("test_total", "Test counter", Metrics.labels("name", "a"), () -> 7);
+
+        // Execute
+        String result = subject.render();
+
+        // Verify
+        assertTrue(result.contains("# HELP test_total Test counter\n"
+                + "# TYPE test_total counter\n"
+                + "test_total{name=\"a\"} 7\n"));
+    }
+
+    @Test
+    void lanes() {
+        // Setup
+        ConcurrencyLimiter limiter = ConcurrencyLimiter.of(1, 4, 2, 100, 1);
+
+        // Execute
+        String result = subject.lanes(HashMap.of(Workload.QUERY, new JDBC.Lane(limiter, mock(PoolDataSource.class)))).render();
+
+        // Verify
+        assertTrue(result.contains("# TYPE db_concurrency_limit gauge\n"));
+        assertTrue(result.contains("# TYPE db_concurrency_rejected_total counter\n"
+                + "db_concurrency_rejected_total{workload=\"query\"} 0\n"));
+    }
+
+    @Test
+    void breaker() {
+        // Setup
+        CircuitBreaker breaker = CircuitBreaker.of(2, 1000, 1, () -> true);
+
+        // Execute
+        String result = subject.breaker(breaker).render();
+
+        // Verify
+        assertTrue(result.contains("# TYPE db_circuit_open gauge\ndb_circuit_open 0\n"));
+        assertTrue(result.contains("# TYPE db_circuit_rejected_total counter\ndb_circuit_rejected_total 0\n"));
+    }
+
+    @Test
+    void singleFlight() {
+        // Execute
+        String result = subject.singleFlight(new SingleFlight(true)).render();
+
+        // Verify
+        assertTrue(result.contains("# TYPE db_single_flight_shared_total counter\ndb_single_flight_shared_total 0\n"));
+        assertTrue(result.contains("# TYPE db_single_flight_in_flight gauge\ndb_single_flight_in_flight 0\n"));
+    }
+
+    @Test
+    void groupCommit() {
+        // Execute
+        String result = subject.groupCommit(GroupCommit.of(1000, 10)).render();
+
+        // Verify
+        assertTrue(result.contains("# TYPE db_group_commit_batches_total counter\ndb_group_commit_batches_total 0\n"));
+        assertTrue(result.contains("# TYPE db_group_commit_rows_total counter\ndb_group_commit_rows_total 0\n"));
+        assertTrue(result.contains("# TYPE db_group_commit_fallbacks_total counter\ndb_group_commit_fallbacks_total 0\n"));
+    }
+
+    @Test
+    void render_json() {
+        // Execute
+        String result = subject.render();
+
+        // Verify
+        assertTrue(result.contains("# TYPE json_serialization_seconds histogram\n"));
+        assertTrue(result.contains("# TYPE json_serialization_bytes histogram\n"));
+        assertTrue(result.contains("json_serialization_bytes_count "));
+    }
+
+    @Test
+    void methodIndex() {
+        // Verify
+        assertEquals(0, Metrics.methodIndex("GET"));
+        assertEquals(3, Metrics.methodIndex("patch"));
+        assertEquals(5, Metrics.methodIndex("HEAD"));
+    }
+
+    @Test
+    void tableIndex() {
+        // Verify
+        assertEquals(0, subject.tableIndex("/rest", "/rest"));
+        assertEquals(0, subject.tableIndex("/rest/", "/rest"));
+        assertEquals(subject.tableIndex("/rest/first", "/rest"), subject.tableIndex("/rest/first/1", "/rest"));
+        assertEquals("first", subject.tables[subject.tableIndex("/rest/first", "/rest")]);
+    }
+}
@@ -0,0 +1,79 @@
+package org.statemach.db.rest;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+import org.statemach.db.jdbc.Extract;
+import org.statemach.db.schema.TableInfo;
+import org.statemach.db.sql.DataAccess;
+import org.statemach.db.sql.QueryPlan;
+import org.statemach.db.sql.SQLBuilder;
+import org.statemach.db.sql.View;
+import org.statemach.db.sql.postgres.TestSchema;
+import org.statemach.util.Http;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.control.Option;
+
+public class RestCostGuard_UnitTest {
+
+    static final String SQL_1 = "SELECT 1";
+    static final String SQL_2 = "SELECT 2";
+
+    final DataAccess dataAccess = mock(DataAccess.class);
+    final SQLBuilder sqlBuilder = mock(SQLBuilder.class);
+
+    @SuppressWarnings("unchecked")
+    final View<Tuple2<String, Extract<?>>> view = mock(View.class);
+
+    final TableInfo first  = TestSchema.SCHEMA.tables.get("first").get();
+    final TableInfo second = TestSchema.SCHEMA.tables.get("second").get();
+
+    final RestCostGuard subject = new RestCostGuard(dataAccess,
+            sqlBuilder,
+            HashMap.of("first", 100.0),
+            Option.none());
+
+    @Test
+    void check_cheap() {
+        // Setup
+        doReturn(SQL_1).when(sqlBuilder).querySql(any(), any());
+        doReturn(new QueryPlan(10.0, 1.0, "Index Scan on first")).when(dataAccess).explain(any(), any());
+
+        // Execute
+        subject.check(first, view);
+        subject.check(first, view);
+
+        // Verify
+        verify(dataAccess, times(1)).explain(any(), any());
+    }
+
+    @Test
+    void check_expensive() {
+        // Setup
+        doReturn(SQL_2).when(sqlBuilder).querySql(any(), any());
+        doReturn(new QueryPlan(1000.0, 100.0, "Seq Scan on first")).when(dataAccess).explain(any(), any());
+
+        // Execute & Verify
+        assertThrows(Http.Error.class, () -> subject.check(first, view));
+        assertThrows(Http.Error.class, () -> subject.check(first, view));
+        verify(dataAccess, times(1)).explain(any(), any());
+    }
+
+    @Test
+    void check_no_limit() {
+        // Execute
+        subject.check(second, view);
+
+        // Verify
+        verify(sqlBuilder, never()).querySql(any(), any());
+        verify(dataAccess, never()).explain(any(), any());
+    }
+}
@@ -0,0 +1,48 @@
+package org.statemach.db.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.jdbc.Extract;
+import org.statemach.db.jdbc.Injector;
+import org.statemach.util.Http;
+import org.statemach.util.Java;
+
+import io.vavr.collection.HashMap;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class RestHandler_BATCH_PostgresTest extends RestHandler_Common_PostgresTest {
+
+    @Test
+    void batch() {
+        runTest("post", "$batch", "batch.json", 200, "batch.expect.json", UUID.randomUUID());
+    }
+
+    @Test
+    void batch_rollback() {
+        // Setup
+        URI    uri     = Java.soft(() -> new URI("http://example.com/rest/$batch"));
+        String payload = Java.format(Java.resource("batch.rollback.json"), UUID.randomUUID());
+        doReturn("post").when(exchange).getRequestMethod();
+        doReturn(uri).when(exchange).getRequestURI();
+        doReturn(new ByteArrayInputStream(payload.getBytes())).when(exchange).getRequestBody();
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.handle(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.NOT_FOUND, result.errorCode);
+        assertTrue(result.getMessage().startsWith("Operation 1 of the batch failed"));
+        assertTrue(dataAccess.select("first",
+                HashMap.of("id", Injector.LONG.prepare(22L)),
+                HashMap.of("id", Extract.LONG_AS_STRING)).isEmpty());
+    }
+}
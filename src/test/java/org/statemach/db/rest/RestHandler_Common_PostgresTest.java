@@ -16,6 +16,7 @@ import java.net.URI;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.advisor.AccessPatterns;
 import org.statemach.db.schema.Schema;
 import org.statemach.db.sql.DataAccess;
 import org.statemach.db.sql.SQLBuilder;
@@ -42,10 +43,11 @@ public class RestHandler_Common_PostgresTest {
 
     final Schema schema = Schema.from(schemaAccess);
 
-    final RestHandler subject = new RestHandler(schema, dataAccess, sqlBuilder);
+    final RestHandler subject = new RestHandler(schema, dataAccess, sqlBuilder, RestCostGuard.disabled(dataAccess), AccessPatterns.DISABLED);
 
     final HttpExchange exchange        = mock(HttpExchange.class);
     final HttpContext  context         = mock(HttpContext.class);
+    final Headers      requestHeaders  = new Headers();
     final Headers      responseHeaders = mock(Headers.class);
 
     final String ctxPath = "/rest/";
@@ -67,6 +69,7 @@ public class RestHandler_Common_PostgresTest {
         doReturn(context).when(exchange).getHttpContext();
         doReturn(ctxPath).when(context).getPath();
         doReturn(output).when(exchange).getResponseBody();
+        doReturn(requestHeaders).when(exchange).getRequestHeaders();
         doReturn(responseHeaders).when(exchange).getResponseHeaders();
         doAnswer((inv) -> {
             resultCode.set(inv.getArgument(0));
@@ -57,6 +57,21 @@ public class RestHandler_DELETE_PostgresTest extends RestHandler_Common_Postgres
                 TestData.SECOND_ROW_1_ID);
     }
 
+    @Test
+    void first_where() {
+        runTest("delete",
+                "first?id=" + TestData.FIRST_ROW_2_ID + "&$max=1&$select=varying",
+                "empty.json",
+                200,
+                "delete.first.where.expect.json");
+    }
+
+    @Test
+    void first_where_no_condition() {
+        assertThrows(Http.Error.class,
+                () -> runTest("delete", "first?$max=1", "empty.json", 400, "empty.json"));
+    }
+
     @Test
     void first_not_exists() {
         assertThrows(Http.Error.class,
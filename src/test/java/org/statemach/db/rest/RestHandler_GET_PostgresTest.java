@@ -1,7 +1,12 @@
 package org.statemach.db.rest;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doReturn;
 
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
 import java.util.UUID;
 
 import org.junit.jupiter.api.Test;
@@ -9,10 +14,33 @@ import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 import org.statemach.db.sql.postgres.TestDB;
 import org.statemach.db.sql.postgres.TestData;
 import org.statemach.util.Http;
+import org.statemach.util.Java;
 
 @EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
 public class RestHandler_GET_PostgresTest extends RestHandler_Common_PostgresTest {
 
+    void runNotModifiedTest(String path) {
+        // Setup
+        doReturn("get").when(exchange).getRequestMethod();
+        doReturn(Java.soft(() -> new URI("http://example.com/rest/" + path))).when(exchange).getRequestURI();
+        subject.handle(exchange);
+        String etag = headers.get(Http.Header.ETAG);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        doReturn(output).when(exchange).getResponseBody();
+        requestHeaders.set(Http.Header.IF_NONE_MATCH, etag);
+
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        assertNotNull(etag);
+        assertEquals(etag, headers.get(Http.Header.ETAG));
+        assertEquals(Http.ErrorCode.NOT_MODIFIED, resultCode.get());
+        assertEquals(-1L, resultLength.get());
+        assertEquals(0, output.size());
+    }
+
     void runGetTest(String pathTemplate, String expectedTemplateResource, Object... templateParameters) {
         runTest("get", pathTemplate, "empty.json", 200, expectedTemplateResource, templateParameters);
     }
@@ -22,6 +50,11 @@ public class RestHandler_GET_PostgresTest extends RestHandler_Common_PostgresTes
         runGetTest("", "get.tables.expect.json");
     }
 
+    @Test
+    void top_not_modified() {
+        runNotModifiedTest("");
+    }
+
     @Test
     void table_not_exists() {
         assertThrows(Http.Error.class,
@@ -75,6 +108,49 @@ public class RestHandler_GET_PostgresTest extends RestHandler_Common_PostgresTes
         runGetTest("first/1", "get.first.id.expect.json", TestData.SECOND_ROW_1_ID);
     }
 
+    @Test
+    void first_id_not_modified() {
+        runNotModifiedTest("first/1");
+    }
+
+    @Test
+    void first_id_modified() {
+        // Setup
+        requestHeaders.set(Http.Header.IF_NONE_MATCH, "\"other\"");
+
+        // Execute & Verify
+        runGetTest("first/1", "get.first.id.expect.json", TestData.SECOND_ROW_1_ID);
+        assertNotNull(headers.get(Http.Header.ETAG));
+    }
+
+    @Test
+    void first_ids() {
+        runGetTest("first?$ids=3,22,1&$select=id,varying", "get.first.ids.expect.json");
+    }
+
+    @Test
+    void first_expand() {
+        runGetTest("first?$expand=fk_first_second.fk_second_third&$order=id"
+                + "&$select=id,fk_first_second.int,fk_first_second.fk_second_third.name,fk_first_second.fk_second_third.indx",
+                "get.first.expand.expect.json");
+    }
+
+    @Test
+    void second_expand() {
+        runGetTest("second?$expand=fk_second_first,fk_second_third&$order=int"
+                + "&$select=id,int,fk_second_first.id,fk_second_first.varying,fk_second_third.bool",
+                "get.second.expand.expect.json",
+                TestData.SECOND_ROW_1_ID,
+                TestData.SECOND_ROW_2_ID,
+                TestData.SECOND_ROW_3_ID);
+    }
+
+    @Test
+    void first_expand_not_listed() {
+        assertThrows(Http.Error.class,
+                () -> runGetTest("first?$select=id,fk_first_second.int", "empty.json"));
+    }
+
     @Test
     void first_id_not_exists() {
         assertThrows(Http.Error.class,
@@ -187,6 +263,11 @@ public class RestHandler_GET_PostgresTest extends RestHandler_Common_PostgresTes
         runGetTest("third/Name3:2?$select=name,indx&$select=bool,time", "get.third.id.expect.json");
     }
 
+    @Test
+    void third_ids() {
+        runGetTest("third?$ids=Name3:2,Name3:5&$ids=Name3:2&$select=name,indx,bool", "get.third.ids.expect.json");
+    }
+
     @Test
     void third_id_missing_part() {
         assertThrows(Http.Error.class,
@@ -74,6 +74,38 @@ public class RestHandler_PATCH_PostgresTest extends RestHandler_Common_PostgresT
                 () -> runTest("patch", "first/22", "patch.first.not-exists.json", 404, "empty.json"));
     }
 
+    @Test
+    void first_where() {
+        runTest("patch",
+                "first?id=" + TestData.FIRST_ROW_2_ID + "&$max=1&$select=varying",
+                "patch.first.varying.json",
+                200,
+                "patch.first.where.expect.json",
+                TestData.SECOND_ROW_2_ID);
+    }
+
+    @Test
+    void first_where_over_max() {
+        assertThrows(Http.Error.class,
+                () -> runTest("patch",
+                        "first?id=" + TestData.FIRST_ROW_1_ID + "&id=" + TestData.FIRST_ROW_2_ID + "&$max=1",
+                        "patch.first.varying.json",
+                        422,
+                        "empty.json",
+                        TestData.SECOND_ROW_2_ID));
+    }
+
+    @Test
+    void first_where_no_max() {
+        assertThrows(Http.Error.class,
+                () -> runTest("patch",
+                        "first?id=" + TestData.FIRST_ROW_2_ID,
+                        "patch.first.varying.json",
+                        400,
+                        "empty.json",
+                        TestData.SECOND_ROW_2_ID));
+    }
+
     @Test
     void second_short_all() {
         runTest("patch",
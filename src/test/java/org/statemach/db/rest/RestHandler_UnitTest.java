@@ -1,6 +1,9 @@
 package org.statemach.db.rest;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -11,14 +14,23 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.net.URI;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.statemach.db.advisor.AccessPatterns;
+import org.statemach.db.jdbc.Extract;
+import org.statemach.db.jdbc.Inject;
+import org.statemach.db.jdbc.Workload;
 import org.statemach.db.schema.Schema;
+import org.statemach.db.schema.TableInfo;
+import org.statemach.db.sql.Condition;
 import org.statemach.db.sql.DataAccess;
+import org.statemach.db.sql.Join;
 import org.statemach.db.sql.SQLBuilder;
+import org.statemach.db.sql.View;
 import org.statemach.db.sql.postgres.TestSchema;
 import org.statemach.util.Http;
 import org.statemach.util.Java;
@@ -28,13 +40,23 @@ import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpExchange;
 
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Option;
+
 public class RestHandler_UnitTest {
 
-    final DataAccess dataAccess = mock(DataAccess.class);
-    final SQLBuilder sqlBuilder = mock(SQLBuilder.class);
-    final Schema     schema     = TestSchema.SCHEMA;
+    final DataAccess     dataAccess = mock(DataAccess.class);
+    final SQLBuilder     sqlBuilder = mock(SQLBuilder.class);
+    final RestCostGuard  costGuard  = mock(RestCostGuard.class);
+    final AccessPatterns patterns   = new AccessPatterns(10);
+    final Schema         schema     = TestSchema.SCHEMA;
 
-    final RestHandler subject = spy(new RestHandler(TestSchema.SCHEMA, dataAccess, sqlBuilder));
+    final RestHandler subject = spy(new RestHandler(TestSchema.SCHEMA, dataAccess, sqlBuilder, costGuard, patterns));
 
     final HttpExchange exchange        = mock(HttpExchange.class);
     final HttpContext  context         = mock(HttpContext.class);
@@ -134,6 +156,25 @@ public class RestHandler_UnitTest {
         verify(subject).getRow(exchange, "first", "1");
     }
 
+    @Test
+    void get_row_workload() {
+        // Setup
+        URI               uri      = Java.soft(() -> new URI("http://example.com/rest/first/1"));
+        Mutable<Workload> workload = new Mutable<>(null);
+        doAnswer(a -> {
+            workload.set(Workload.current());
+            return null;
+        }).when(subject).getRow(any(), any(), any());
+        doReturn(uri).when(exchange).getRequestURI();
+
+        // Execute
+        subject.get(exchange);
+
+        // Verify
+        assertEquals(Workload.LOOKUP, workload.get());
+        assertEquals(Workload.QUERY, Workload.current());
+    }
+
     @Test
     void merge_empty() {
         // Setup
@@ -223,4 +264,328 @@ public class RestHandler_UnitTest {
         // Execute && Verify
         assertThrows(Http.Error.class, () -> subject.delete(exchange));
     }
+
+    @Test
+    void get_rows() {
+        // Setup
+        URI uri = Java.soft(() -> new URI("http://example.com/rest/first?$ids=3,1&$ids=5"));
+        doNothing().when(subject).getRows(any(), any(), any());
+        doReturn(uri).when(exchange).getRequestURI();
+
+        // Execute
+        subject.get(exchange);
+
+        // Verify
+        verify(subject).getRows(exchange, "first", List.of("3,1", "5"));
+    }
+
+    @Test
+    void get_row_divider() {
+        // Setup
+        URI uri = Java.soft(() -> new URI("http://example.com/rest/first/3,1"));
+        doNothing().when(subject).getRow(any(), any(), any());
+        doReturn(uri).when(exchange).getRequestURI();
+
+        // Execute
+        subject.get(exchange);
+
+        // Verify
+        verify(subject).getRow(exchange, "first", "3,1");
+    }
+
+    @Test
+    void getRows_limit() {
+        // Setup
+        String ids = String.join(",", java.util.Collections.nCopies(RestHandler.IDS_LIMIT, "1"));
+        URI    uri = Java.soft(() -> new URI("http://example.com/rest/first?$ids=" + ids + "&$ids=1"));
+        doReturn(uri).when(exchange).getRequestURI();
+
+        // Execute && Verify
+        assertThrows(Http.Error.class, () -> subject.getRows(exchange, "first", List.of(ids, "1")));
+    }
+
+    @Test
+    void splitId() {
+        // Setup
+        TableInfo first = schema.tables.get("first").get();
+        TableInfo third = schema.tables.get("third").get();
+
+        // Execute && Verify
+        assertEquals(List.of("1:2"), subject.splitId(first, "1:2"));
+        assertEquals(List.of("Name3", "2"), subject.splitId(third, "Name3:2"));
+        assertThrows(Http.Error.class, () -> subject.splitId(third, "Name3"));
+    }
+
+    @Test
+    void update_where() {
+        // Setup
+        URI uri = Java.soft(() -> new URI("http://example.com/rest/first?id=2&$max=1"));
+        doNothing().when(subject).updateWhere(any(), any());
+        doReturn(uri).when(exchange).getRequestURI();
+
+        // Execute
+        subject.update(exchange);
+
+        // Verify
+        verify(subject).updateWhere(exchange, "first");
+    }
+
+    @Test
+    void delete_where() {
+        // Setup
+        URI uri = Java.soft(() -> new URI("http://example.com/rest/first/?id=2&$max=1"));
+        doNothing().when(subject).deleteWhere(any(), any());
+        doReturn(uri).when(exchange).getRequestURI();
+
+        // Execute
+        subject.delete(exchange);
+
+        // Verify
+        verify(subject).deleteWhere(exchange, "first");
+    }
+
+    @Test
+    void getKeys() {
+        // Setup
+        TableInfo table = schema.tables.get("first").get();
+        Condition where = new Condition("t.id = ?", Inject.NOTHING);
+        doReturn(where).when(subject).getConditions(any(), any());
+
+        // Execute
+        View<String> result = subject.getKeys(HashMap.empty(), table);
+
+        // Verify
+        assertEquals(where, result.where);
+        assertEquals(List.of("id"), result.select.map(s -> s._1));
+        assertEquals(null, result.limit);
+    }
+
+    @Test
+    void getKeys_no_condition() {
+        // Setup
+        TableInfo table = schema.tables.get("first").get();
+        doReturn(Condition.NONE).when(subject).getConditions(any(), any());
+
+        // Execute && Verify
+        assertThrows(Http.Error.class, () -> subject.getKeys(HashMap.empty(), table));
+    }
+
+    @Test
+    void getMax() {
+        // Setup
+        TableInfo table = schema.tables.get("first").get();
+
+        // Execute && Verify
+        assertEquals(5, subject.getMax(HashMap.of("$max", List.of("5")), table));
+        assertThrows(Http.Error.class, () -> subject.getMax(HashMap.empty(), table));
+        assertThrows(Http.Error.class, () -> subject.getMax(HashMap.of("$max", List.of("0")), table));
+        assertEquals(Http.ErrorCode.BAD_REQUEST,
+                assertThrows(Http.Error.class, () -> subject.getMax(HashMap.of("$max", List.of("many")), table)).errorCode);
+        assertEquals(Http.ErrorCode.BAD_REQUEST,
+                assertThrows(Http.Error.class, () -> subject.getMax(HashMap.of("$max", List.of("2147483647")), table)).errorCode);
+    }
+
+    @Test
+    void isDistinct() {
+        // Setup
+        TableInfo table = schema.tables.get("first").get();
+
+        // Execute
+        boolean result1 = subject.isDistinct(table, HashMap.of("id", mock(Extract.class), "fixed", mock(Extract.class)));
+        boolean result2 = subject.isDistinct(table, HashMap.of("fixed", mock(Extract.class)));
+
+        // Verify
+        assertFalse(result1);
+        assertTrue(result2);
+    }
+
+    @Test
+    void getFilterColumns() {
+        // Setup
+        TableInfo table = schema.tables.get("first").get();
+
+        // Execute
+        List<String> result = subject.getFilterColumns(
+                LinkedHashMap.of("varying", List.of("a"), "search", List.of("b"), "$limit", List.of("1"), "id", List.of("2")),
+                table);
+
+        // Verify
+        assertEquals(List.of("varying", "id"), result);
+    }
+
+    @Test
+    void getExpand() {
+        // Setup
+        TableInfo table = schema.tables.get("first").get();
+
+        // Execute
+        var result = subject.getExpand(
+                HashMap.of("$expand", List.of("fk_first_second.fk_second_third,fk_first_second")),
+                table);
+
+        // Verify
+        assertEquals(List.of(List.empty(), List.of("fk_first_second"), List.of("fk_first_second", "fk_second_third")),
+                RestHandler.getPaths(result));
+        assertEquals(Join.Kind.LEFT, result.getLink(List.of("fk_first_second")).get().joinKind);
+        assertEquals("third", result.getNode(List.of("fk_first_second", "fk_second_third")).get().name);
+        assertThrows(Http.Error.class, () -> subject.getExpand(HashMap.of("$expand", List.of("fk_second_third")), table));
+    }
+
+    @Test
+    void getSelect_expand() {
+        // Setup
+        TableInfo table  = schema.tables.get("first").get();
+        var       expand = subject.getExpand(HashMap.of("$expand", List.of("fk_first_second")), table);
+
+        // Execute
+        var result = subject.getSelect(HashMap.of("$select", List.of("id,fk_first_second.int")), expand);
+
+        // Verify
+        assertEquals(HashSet.of("id", "fk_first_second.int"), result.keySet());
+        assertThrows(Http.Error.class,
+                () -> subject.getSelect(HashMap.of("$select", List.of("fk_first_third.name")), expand));
+    }
+
+    @Test
+    void nest() {
+        // Setup
+        TableInfo               table  = schema.tables.get("first").get();
+        var                     expand = subject.getExpand(HashMap.of("$expand", List.of("fk_first_second,fk_first_third")), table);
+        Map<String, Extract<?>> select = HashMap.of("id", mock(Extract.class), "fk_first_second.int", mock(Extract.class));
+        Map<String, Object>     row    = HashMap.<String, Object>of("id", 1, "fk_first_second.int", 2, "fk_first_second.id", "x")
+            .put("fk_first_third.name", null);
+
+        // Execute
+        Map<String, Object> result = subject.nest(row, expand, List.empty(), select);
+
+        // Verify
+        assertEquals(HashMap.<String, Object>of("id", 1, "fk_first_second", HashMap.of("int", 2)).put("fk_first_third", null), result);
+    }
+
+    @Test
+    void nest_order() {
+        // Setup
+        TableInfo               first  = schema.tables.get("first").get();
+        TableInfo               table  = new TableInfo(first.name,
+                first.columns.toList().sortBy(t -> t._1).reverse().toLinkedMap(t -> t),
+                first.primary,
+                first.incoming,
+                first.outgoing);
+        var                     expand = subject.getExpand(HashMap.of("$expand", List.of("fk_first_second")), table);
+        Map<String, Extract<?>> select = table.columns.keySet()
+            .toMap(c -> new Tuple2<String, Extract<?>>(c, mock(Extract.class)))
+            .put("fk_first_second.int", mock(Extract.class));
+        Map<String, Object>     row    = select.keySet()
+            .toMap(c -> new Tuple2<String, Object>(c, c))
+            .put("fk_first_second.id", "x");
+
+        // Execute
+        Map<String, Object> result = subject.nest(row, expand, List.empty(), select);
+
+        // Verify
+        assertEquals(table.columns.keySet().toList().append("fk_first_second"), result.keySet().toList());
+    }
+
+    @Test
+    void post_batch() {
+        // Setup
+        URI               uri      = Java.soft(() -> new URI("http://example.com/rest/$batch"));
+        Mutable<Workload> workload = new Mutable<>(null);
+        doAnswer(a -> {
+            workload.set(Workload.current());
+            return null;
+        }).when(subject).batch(any());
+        doReturn("POST").when(exchange).getRequestMethod();
+        doReturn(uri).when(exchange).getRequestURI();
+
+        // Execute
+        subject.handle(exchange);
+
+        // Verify
+        verify(subject).batch(exchange);
+        assertEquals(Workload.MUTATION, workload.get());
+    }
+
+    @Test
+    void batch_limit() {
+        // Setup
+        String payload = List.range(0, RestHandler.Batch.LIMIT + 1).map(i -> "{}").mkString("[", ",", "]");
+        doReturn(new ByteArrayInputStream(payload.getBytes())).when(exchange).getRequestBody();
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.batch(exchange));
+
+        // Verify
+        assertEquals(Http.ErrorCode.BAD_REQUEST, result.errorCode);
+    }
+
+    @Test
+    void resolve() {
+        // Setup
+        List<Map<String, Object>> results = List.of(HashMap.of("id", 7L), HashMap.of("name", "Name1", "indx", 3));
+
+        // Execute
+        Object result1 = subject.resolve(results, "${0.id}");
+        Object result2 = subject.resolve(results, "${1.name}:${1.indx}");
+        Object result3 = subject.resolve(results, 5);
+        Object result4 = subject.resolve(results, "text");
+
+        // Verify
+        assertEquals(7L, result1);
+        assertEquals("Name1:3", result2);
+        assertEquals(5, result3);
+        assertEquals("text", result4);
+    }
+
+    @Test
+    void resolve_forward() {
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.resolve(List.empty(), "${0.id}"));
+
+        // Verify
+        assertEquals(Http.ErrorCode.BAD_REQUEST, result.errorCode);
+    }
+
+    @Test
+    void resolve_missingColumn() {
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class,
+                () -> subject.resolve(List.of(HashMap.of("id", 7L)), "${0.fixed}"));
+
+        // Verify
+        assertEquals(Http.ErrorCode.BAD_REQUEST, result.errorCode);
+    }
+
+    @Test
+    void execute_notFound() {
+        // Setup
+        RestHandler.Operation operation = new RestHandler.Operation();
+        operation.op = "delete";
+        operation.table = "first";
+        operation.id = "${0.id}";
+        doReturn(Option.none()).when(dataAccess).delete(any(), any(), any());
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class,
+                () -> subject.execute(1, operation, List.of(HashMap.of("id", 7L))));
+
+        // Verify
+        assertEquals(Http.ErrorCode.NOT_FOUND, result.errorCode);
+        assertTrue(result.getMessage().startsWith("Operation 1 of the batch failed"));
+    }
+
+    @Test
+    void execute_unsupported() {
+        // Setup
+        RestHandler.Operation operation = new RestHandler.Operation();
+        operation.op = "upsert";
+        operation.table = "first";
+        operation.id = "1";
+
+        // Execute
+        Http.Error result = assertThrows(Http.Error.class, () -> subject.execute(0, operation, List.empty()));
+
+        // Verify
+        assertEquals(Http.ErrorCode.BAD_REQUEST, result.errorCode);
+    }
 }
@@ -18,11 +18,12 @@ public class ColumnInfo_UnitTest {
     final Option<Integer> SIZE_1        = Option.of(256);
     final Option<Integer> SIZE_2        = Option.none();
 
-    final ColumnInfo subject = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_1);
-    final ColumnInfo other1  = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_1);
-    final ColumnInfo other2  = new ColumnInfo(COLUMN_NAME_2, DATA_TYPE_1, SIZE_1);
-    final ColumnInfo other3  = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_2, SIZE_1);
-    final ColumnInfo other4  = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_2);
+    final ColumnInfo subject = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_1, true);
+    final ColumnInfo other1  = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_1, true);
+    final ColumnInfo other2  = new ColumnInfo(COLUMN_NAME_2, DATA_TYPE_1, SIZE_1, true);
+    final ColumnInfo other3  = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_2, SIZE_1, true);
+    final ColumnInfo other4  = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_2, true);
+    final ColumnInfo other5  = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_1, false);
 
     @Test
     void hashCode_test() {
@@ -42,6 +43,7 @@ public class ColumnInfo_UnitTest {
         boolean result2 = subject.equals(other2);
         boolean result3 = subject.equals(other3);
         boolean result4 = subject.equals(other4);
+        boolean result5 = subject.equals(other5);
 
         // Verify
         assertTrue(result);
@@ -49,6 +51,7 @@ public class ColumnInfo_UnitTest {
         assertFalse(result2);
         assertFalse(result3);
         assertFalse(result4);
+        assertFalse(result5);
     }
 
     @Test
@@ -65,7 +68,7 @@ public class ColumnInfo_UnitTest {
     @Test
     void toString_nosize_test() {
         // Setup
-        final ColumnInfo subject = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_2);
+        final ColumnInfo subject = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, SIZE_2, true);
 
         // Execute
         String result = subject.toString();
@@ -74,4 +77,13 @@ public class ColumnInfo_UnitTest {
         assertTrue(result.contains(COLUMN_NAME_1));
         assertTrue(result.contains(DATA_TYPE_1.toString()));
     }
+
+    @Test
+    void toString_notnull_test() {
+        // Execute
+        String result = other5.toString();
+
+        // Verify
+        assertTrue(result.contains("not null"));
+    }
 }
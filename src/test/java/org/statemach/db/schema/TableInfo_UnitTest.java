@@ -23,9 +23,9 @@ public class TableInfo_UnitTest {
     final DataType DATA_TYPE_2 = DataType.unsupported("DataType2");
     final DataType DATA_TYPE_3 = DataType.unsupported("DataType3");
 
-    final ColumnInfo COLUMN_1 = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, null);
-    final ColumnInfo COLUMN_2 = new ColumnInfo(COLUMN_NAME_2, DATA_TYPE_2, null);
-    final ColumnInfo COLUMN_3 = new ColumnInfo(COLUMN_NAME_3, DATA_TYPE_3, null);
+    final ColumnInfo COLUMN_1 = new ColumnInfo(COLUMN_NAME_1, DATA_TYPE_1, null, false);
+    final ColumnInfo COLUMN_2 = new ColumnInfo(COLUMN_NAME_2, DATA_TYPE_2, null, true);
+    final ColumnInfo COLUMN_3 = new ColumnInfo(COLUMN_NAME_3, DATA_TYPE_3, null, true);
 
     final Map<String, ColumnInfo> COLUMNS_1 = List.of(COLUMN_1, COLUMN_2).toLinkedMap(c -> c.name, c -> c);
     final Map<String, ColumnInfo> COLUMNS_2 = List.of(COLUMN_2, COLUMN_1).toLinkedMap(c -> c.name, c -> c);
@@ -115,6 +115,23 @@ public class TableInfo_UnitTest {
         assertFalse(result12);
     }
 
+    @Test
+    void isNotNull_test() {
+        // Setup
+        ForeignKey foreignKey1 = new ForeignKey("ForeignKey1", TABLE_NAME_1, TABLE_NAME_2,
+                List.of(new ForeignKey.Match(COLUMN_NAME_1, COLUMN_NAME_1)));
+        ForeignKey foreignKey2 = new ForeignKey("ForeignKey2", TABLE_NAME_1, TABLE_NAME_2,
+                List.of(new ForeignKey.Match(COLUMN_NAME_1, COLUMN_NAME_1), new ForeignKey.Match(COLUMN_NAME_2, COLUMN_NAME_2)));
+
+        // Execute
+        boolean result1 = subject.isNotNull(foreignKey1);
+        boolean result2 = subject.isNotNull(foreignKey2);
+
+        // Verify
+        assertTrue(result1);
+        assertFalse(result2);
+    }
+
     @Test
     void toString_test() {
         // Execute
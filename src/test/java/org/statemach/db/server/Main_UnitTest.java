@@ -3,9 +3,14 @@
  */
 package org.statemach.db.server;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
@@ -16,16 +21,29 @@ import static org.mockito.Mockito.verify;
 
 import java.util.function.Supplier;
 
+import org.apache.commons.dbcp2.BasicDataSource;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.jdbc.CircuitBreaker;
+import org.statemach.db.jdbc.GroupCommit;
+import org.statemach.db.jdbc.ConcurrencyLimiter;
 import org.statemach.db.jdbc.JDBC;
+import org.statemach.db.jdbc.PoolDataSource;
+import org.statemach.db.jdbc.Replicas;
+import org.statemach.db.jdbc.SlowQueryLog;
+import org.statemach.db.jdbc.Workload;
+import org.statemach.db.rest.RestCostGuard;
+import org.statemach.db.sql.DataAccess;
 import org.statemach.db.sql.postgres.TestDB;
+import org.statemach.util.Tracer;
 
 import com.sun.net.httpserver.HttpServer;
 
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.control.Option;
 
@@ -65,6 +83,7 @@ public class Main_UnitTest {
     void configJDBC() throws Exception {
         // Setup
         doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.none()).when(config).get(any());
         doReturn(Option.of("admn")).when(config).get(Main.Config.DB_USERNAME);
         doReturn(Option.of("pass")).when(config).get(Main.Config.DB_PASSWORD);
 
@@ -100,6 +119,8 @@ public class Main_UnitTest {
     @Test
     void build() throws Exception {
         // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.none()).when(config).get(any());
         doReturn(TestDB.schema).when(config).getOrElse(eq(Main.Config.DB_SCHEMA), any());
         doReturn(TestDB.jdbc).when(subject).configJDBC();
 
@@ -108,6 +129,274 @@ public class Main_UnitTest {
 
         // Verify
         assertNotNull(result);
+        assertThrows(IllegalArgumentException.class, () -> result.removeContext("/admin/jfr"));
+        assertThrows(IllegalArgumentException.class, () -> result.removeContext("/admin/indexes"));
+    }
+
+    @Test
+    void build_admin() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.none()).when(config).get(any());
+        doReturn(Option.of("secret")).when(config).get(Main.Config.ADMIN_TOKEN);
+        doReturn(TestDB.schema).when(config).getOrElse(eq(Main.Config.DB_SCHEMA), any());
+        doReturn(TestDB.jdbc).when(subject).configJDBC();
+
+        // Execute
+        HttpServer result = subject.build();
+
+        // Verify
+        result.removeContext("/admin/jfr");
+        result.removeContext("/admin/indexes");
+    }
+
+    @Test
+    void configRestCostGuard() throws Exception {
+        // Setup
+        doReturn(Option.of("first=100, second = 200.5")).when(config).get(Main.Config.REST_MAX_COST_BY_TABLE);
+        doReturn(Option.of("1000")).when(config).get(Main.Config.REST_MAX_COST);
+
+        // Execute
+        RestCostGuard result = subject.configRestCostGuard(mock(DataAccess.class));
+
+        // Verify
+        assertEquals(HashMap.of("first", 100.0, "second", 200.5), result.maxCostByTable);
+        assertEquals(Option.of(1000.0), result.maxCost);
+    }
+
+    @Test
+    void configSlowQueryLog() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.of("250")).when(config).get(Main.Config.SLOW_QUERY_MILLIS);
+        doReturn("0.5").when(config).getOrElse(eq(Main.Config.SLOW_QUERY_EXPLAIN_SAMPLE), any());
+        doReturn(new PoolDataSource()).when(subject).configPool(anyInt(), anyInt(), anyInt(), any());
+
+        // Execute
+        SlowQueryLog result = subject.configSlowQueryLog();
+
+        // Verify
+        verify(subject).configPool(1, 1, 0, Option.none());
+        assertEquals(250_000_000L, result.thresholdNanos);
+        assertEquals(0.5, result.explainSample);
+        assertEquals(true, result.redact);
+    }
+
+    @Test
+    void configSlowQueryLog_disabled() throws Exception {
+        // Setup
+        doReturn(Option.none()).when(config).get(Main.Config.SLOW_QUERY_MILLIS);
+
+        // Execute
+        SlowQueryLog result = subject.configSlowQueryLog();
+
+        // Verify
+        assertSame(SlowQueryLog.DISABLED, result);
+    }
+
+    @Test
+    void configLimiter() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.none()).when(config).get(any());
+        doReturn(Option.of("16")).when(config).get("DB_LANE_BULK_QUEUE");
+
+        // Execute
+        ConcurrencyLimiter result1 = subject.configLimiter(Workload.BULK, 8);
+        ConcurrencyLimiter result2 = subject.configLimiter(Workload.LOOKUP, 8);
+
+        // Verify
+        assertEquals(1, result1.minLimit);
+        assertEquals(8, result1.maxLimit);
+        assertEquals(16, result1.queueCapacity);
+        assertEquals(1_000_000_000L, result1.maxWaitNanos);
+        assertEquals(1L, result1.retryAfterSeconds);
+        assertEquals(64, result2.queueCapacity);
+    }
+
+    @Test
+    void configLanes() throws Exception {
+        // Setup
+        PoolDataSource shared = new PoolDataSource();
+        shared.setMaxTotal(8);
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.none()).when(config).get(any());
+        doReturn(Option.of("admn")).when(config).get(Main.Config.DB_USERNAME);
+        doReturn(Option.of("pass")).when(config).get(Main.Config.DB_PASSWORD);
+        doReturn(Option.of("3")).when(config).get("DB_LANE_BULK_POOL_SIZE");
+        doReturn(Option.of("60000")).when(config).get("DB_LANE_BULK_STATEMENT_TIMEOUT");
+
+        // Execute
+        Map<Workload, JDBC.Lane> result = subject.configLanes(shared);
+
+        // Verify
+        assertSame(shared, result.get(Workload.LOOKUP).get().pool);
+        assertSame(shared, result.get(Workload.QUERY).get().pool);
+        assertEquals(8, result.get(Workload.LOOKUP).get().limiter.maxLimit);
+        assertEquals(2, result.get(Workload.QUERY).get().limiter.maxLimit);
+        assertEquals(2, result.get(Workload.MUTATION).get().limiter.maxLimit);
+
+        BasicDataSource bulk = result.get(Workload.BULK).get().pool;
+        assertNotSame(shared, bulk);
+        assertEquals(3, bulk.getMaxTotal());
+        assertEquals(List.of("SET statement_timeout = 60000"), List.ofAll(bulk.getConnectionInitSqls()));
+        assertEquals(3, result.get(Workload.BULK).get().limiter.maxLimit);
+    }
+
+    @Test
+    void defaultQuota() {
+        for (int maxTotal = 4; maxTotal <= 200; maxTotal++) {
+            // Execute
+            int lookup = Main.defaultQuota(Workload.LOOKUP, maxTotal);
+            int others = Main.defaultQuota(Workload.QUERY, maxTotal)
+                    + Main.defaultQuota(Workload.MUTATION, maxTotal)
+                    + Main.defaultQuota(Workload.BULK, maxTotal);
+
+            // Verify
+            assertEquals(maxTotal, lookup);
+            assertTrue(others <= maxTotal - Math.max(1, maxTotal / Main.LOOKUP_RESERVE_SHARE), "maxTotal = " + maxTotal);
+        }
+    }
+
+    @Test
+    void configPool() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.of("admn")).when(config).get(Main.Config.DB_USERNAME);
+        doReturn(Option.of("pass")).when(config).get(Main.Config.DB_PASSWORD);
+        doReturn("250").when(config).getOrElse(eq(Main.Config.DB_BORROW_TIMEOUT_MILLIS), any());
+
+        // Execute
+        PoolDataSource result = subject.configPool(8, 8, 0, Option.none());
+
+        // Verify
+        assertEquals(250L, result.getMaxWaitMillis());
+    }
+
+    @Test
+    void configBreaker() throws Exception {
+        // Setup
+        PoolDataSource dataSource = new PoolDataSource();
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn("3").when(config).getOrElse(eq(Main.Config.DB_CIRCUIT_FAILURES), any());
+
+        // Execute
+        CircuitBreaker result = subject.configBreaker(dataSource);
+
+        // Verify
+        assertEquals(3, result.failureThreshold);
+        assertEquals(1000L, result.probeMillis);
+        assertEquals(5L, result.retryAfterSeconds);
+    }
+
+    @Test
+    void configBreaker_disabled() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn("false").when(config).getOrElse(eq(Main.Config.DB_CIRCUIT_ENABLED), any());
+
+        // Execute
+        CircuitBreaker result = subject.configBreaker(new PoolDataSource());
+
+        // Verify
+        assertSame(CircuitBreaker.DISABLED, result);
+    }
+
+    @Test
+    void configGroupCommit() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.of("500")).when(config).get(Main.Config.DB_GROUP_COMMIT_MICROS);
+
+        // Execute
+        GroupCommit result = subject.configGroupCommit();
+
+        // Verify
+        assertTrue(result.isEnabled());
+        assertEquals(500_000L, result.delayNanos);
+        assertEquals(100, result.maxRows);
+    }
+
+    @Test
+    void configGroupCommit_disabled() throws Exception {
+        // Setup
+        doReturn(Option.none()).when(config).get(Main.Config.DB_GROUP_COMMIT_MICROS);
+
+        // Execute
+        GroupCommit result = subject.configGroupCommit();
+
+        // Verify
+        assertSame(GroupCommit.DISABLED, result);
+    }
+
+    @Test
+    void configReplicas() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.none()).when(config).get(any());
+        doReturn(Option.of("admn")).when(config).get(Main.Config.DB_USERNAME);
+        doReturn(Option.of("pass")).when(config).get(Main.Config.DB_PASSWORD);
+        doReturn(Option.of("localhost:1, localhost")).when(config).get(Main.Config.DB_REPLICAS);
+
+        // Execute
+        Replicas result = subject.configReplicas(new PoolDataSource(), 4, 4, 0);
+
+        // Verify
+        assertEquals(List.of("localhost:1", "localhost"), result.getReplicas().map(r -> r.name));
+        assertEquals("jdbc:postgresql://localhost:1/postgres", result.getReplicas().get(0).pool.getUrl());
+        assertEquals("jdbc:postgresql://localhost:5432/postgres", result.getReplicas().get(1).pool.getUrl());
+        assertEquals(4, result.getReplicas().get(0).pool.getMaxTotal());
+    }
+
+    @Test
+    void configReplicas_none() throws Exception {
+        // Setup
+        doReturn(Option.none()).when(config).get(any());
+
+        // Execute
+        Replicas result = subject.configReplicas(new PoolDataSource(), 4, 4, 0);
+
+        // Verify
+        assertSame(Replicas.NONE, result);
+    }
+
+    @Test
+    void configLimiter_disabled() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn("false").when(config).getOrElse(eq(Main.Config.DB_LIMIT_ENABLED), any());
+
+        // Execute
+        ConcurrencyLimiter result = subject.configLimiter(Workload.QUERY, 8);
+
+        // Verify
+        assertSame(ConcurrencyLimiter.UNLIMITED, result);
+    }
+
+    @Test
+    void configTracer() throws Exception {
+        // Setup
+        doAnswer(a -> a.getArgument(1)).when(config).getOrElse(any(), any());
+        doReturn(Option.none()).when(config).get(Main.Config.TRACE_EXPORT_OTLP);
+        doReturn(Option.of("trace.json")).when(config).get(Main.Config.TRACE_EXPORT_FILE);
+
+        // Execute
+        Tracer result = subject.configTracer();
+
+        // Verify
+        assertNotSame(Tracer.NOOP, result);
+    }
+
+    @Test
+    void configTracer_disabled() throws Exception {
+        // Setup
+        doReturn(Option.none()).when(config).get(any());
+
+        // Execute
+        Tracer result = subject.configTracer();
+
+        // Verify
+        assertSame(Tracer.NOOP, result);
     }
 
     @Test
@@ -121,6 +410,7 @@ public class Main_UnitTest {
         subject.run();
 
         // Verify
+        verify(server).setExecutor(any());
         verify(server).start();
     }
 
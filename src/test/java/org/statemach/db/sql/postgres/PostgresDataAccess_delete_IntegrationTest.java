@@ -2,6 +2,7 @@ package org.statemach.db.sql.postgres;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.AfterEach;
@@ -10,7 +11,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 import org.statemach.db.jdbc.Inject;
 import org.statemach.db.schema.TableInfo;
-
+import org.statemach.db.sql.Condition;
+import org.statemach.db.sql.From;
+import org.statemach.db.sql.Join;
+import org.statemach.db.sql.Select;
+import org.statemach.db.sql.TableLike;
+import org.statemach.db.sql.View;
+import org.statemach.util.Http;
+import org.statemach.util.NodeLinkTree;
+
+import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.control.Option;
 
@@ -159,4 +169,60 @@ public class PostgresDataAccess_delete_IntegrationTest {
         assertEquals(ROW, result);
         assertFalse(result1.isDefined());
     }
+
+    @Test
+    void deleteWhere_first() {
+        // Setup
+        final TableInfo           table = TestSchema.TABLE_INFO_FIRST;
+        final Map<String, Inject> PK    = TestData.toInject(table, TestData.FIRST_ROW_2_PK);
+        final Map<String, Object> ROW   = TestData.FIRST_ROW_2_PK
+            .merge(TestData.FIRST_ROW_2_VAL)
+            .merge(TestData.FIRST_ROW_2_REF);
+
+        // Execute
+        final List<Map<String, Object>> result = subject.deleteWhere(table.name,
+                keys(table, TestData.FIRST_ROW_2_PK, TestData.FIRST_ROW_4_PK),
+                2,
+                TestData.FIRST_EXTRACT);
+
+        // Verify
+        final Option<Map<String, Object>> result1 = subject.select(table.name, PK, TestData.FIRST_EXTRACT);
+        assertEquals(List.of(ROW), result);
+        assertFalse(result1.isDefined());
+    }
+
+    @Test
+    void deleteWhere_first_over_limit() {
+        // Setup
+        final TableInfo           table = TestSchema.TABLE_INFO_FIRST;
+        final Map<String, Inject> PK    = TestData.toInject(table, TestData.FIRST_ROW_2_PK);
+
+        // Execute
+        final Http.Error result = assertThrows(Http.Error.class,
+                () -> subject.deleteWhere(table.name,
+                        keys(table, TestData.FIRST_ROW_2_PK, TestData.FIRST_ROW_3_PK),
+                        1,
+                        TestData.FIRST_EXTRACT));
+
+        // Verify
+        final Option<Map<String, Object>> result1 = subject.select(table.name, PK, TestData.FIRST_EXTRACT);
+        assertEquals(Http.ErrorCode.UNPROCESSABLE_ENTITY, result.errorCode);
+        assertTrue(result1.isDefined());
+    }
+
+    @SafeVarargs
+    final View<String> keys(TableInfo table, Map<String, Object>... primaryKeys) {
+        final String    column = TestSchema.COLUMN_FIRST_ID.name;
+        final Condition where  = subject.builder.in(Select.of("t", column),
+                List.of(primaryKeys).map(pk -> TestData.toInject(table, pk).get(column).get()));
+
+        return new View<>("",
+                NodeLinkTree.<String, From, Join>of(new From(TableLike.of(TestSchema.SCHEMA, table), "t")),
+                where,
+                List.empty(),
+                List.of(Select.of("t", column, column)),
+                false,
+                null,
+                null);
+    }
 }
@@ -0,0 +1,98 @@
+package org.statemach.db.sql.postgres;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.statemach.db.jdbc.GroupCommit;
+import org.statemach.db.jdbc.Inject;
+import org.statemach.db.jdbc.SingleFlight;
+import org.statemach.db.schema.TableInfo;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE", matches = "POSTGRES")
+public class PostgresDataAccess_groupCommit_IntegrationTest {
+
+    final TableInfo table = TestSchema.TABLE_INFO_THIRD;
+
+    final GroupCommit        groupCommit = GroupCommit.of(2_000_000, 4);
+    final PostgresDataAccess subject     = new PostgresDataAccess(
+            TestDB.jdbc,
+            TestDB.schema,
+            new PostgresSQLBuilder(TestDB.schema),
+            SingleFlight.DISABLED,
+            groupCommit);
+
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @BeforeAll
+    static void setup() {
+        TestDB.setup();
+        TestDB.truncateAll();
+        TestDB.insertAll();
+    }
+
+    @AfterEach
+    void cleanup() {
+        executor.shutdownNow();
+    }
+
+    Map<String, Object> row(String name, Integer indx) {
+        return HashMap.ofEntries(
+                new Tuple2<>(TestSchema.COLUMN_THIRD_NAME.name, name),
+                new Tuple2<>(TestSchema.COLUMN_THIRD_INDX.name, indx),
+                new Tuple2<>(TestSchema.COLUMN_THIRD_FIRST.name, null),
+                new Tuple2<>(TestSchema.COLUMN_THIRD_SECOND.name, null),
+                new Tuple2<>(TestSchema.COLUMN_THIRD_BOOL.name, TestData.THIRD_ROW_1_BOOL),
+                new Tuple2<>(TestSchema.COLUMN_THIRD_TIME.name, TestData.THIRD_ROW_1_TIME));
+    }
+
+    CompletableFuture<Map<String, Object>> insert(Map<String, Object> row) {
+        Map<String, Inject> inject = TestData.toInject(table, row);
+        return CompletableFuture.supplyAsync(() -> subject.insert(table.name, inject, TestData.THIRD_EXTRACT), executor);
+    }
+
+    @Test
+    void insert_batch() throws Exception {
+        // Setup
+        List<Map<String, Object>> rows = List.range(0, 4).map(i -> row("Group", i));
+
+        // Execute
+        List<Map<String, Object>> result = rows.map(this::insert).map(CompletableFuture::join);
+
+        // Verify
+        assertEquals(rows, result);
+        assertEquals(1, groupCommit.getBatches());
+        assertEquals(4, groupCommit.getRows());
+        for (Map<String, Object> row : rows) {
+            assertEquals(row, subject.select(table.name, TestData.pkToInject(table, row), TestData.THIRD_EXTRACT).get());
+        }
+    }
+
+    @Test
+    void insert_duplicate() throws Exception {
+        // Setup
+        Map<String, Object> duplicate = row(TestData.THIRD_ROW_1_NAME, TestData.THIRD_ROW_1_INDX);
+        List<Map<String, Object>> rows = List.range(0, 3).map(i -> row("Duplicate", i));
+
+        // Execute
+        List<CompletableFuture<Map<String, Object>>> futures = rows.prepend(duplicate).map(this::insert);
+
+        // Verify
+        assertThrows(ExecutionException.class, () -> futures.head().get());
+        assertEquals(rows, futures.tail().map(CompletableFuture::join));
+        assertEquals(1, groupCommit.getFallbacks());
+    }
+}
@@ -1,6 +1,7 @@
 package org.statemach.db.sql.postgres;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.UUID;
 
@@ -15,6 +16,7 @@ import org.statemach.db.sql.Condition;
 import org.statemach.db.sql.From;
 import org.statemach.db.sql.Join;
 import org.statemach.db.sql.Join.Kind;
+import org.statemach.db.sql.QueryPlan;
 import org.statemach.db.sql.Select;
 import org.statemach.db.sql.TableLike;
 import org.statemach.db.sql.View;
@@ -62,6 +64,29 @@ public class PostgresDataAccess_query_IntegrationTest {
         TestDB.insertAll();
     }
 
+    @Test
+    void explain_first() {
+        // Setup
+        View<Tuple2<String, Extract<?>>> query = new View<Tuple2<String, Extract<?>>>("",
+                NodeLinkTree.<String, From, Join>of(new From(TABLE_FIRST, ALIAS_1)),
+                Condition.NONE,
+                List.of(Select.of(ALIAS_1, TestSchema.COLUMN_FIRST_VARYING.name, Boolean.TRUE)),
+                List.of(
+                        Select.of(ALIAS_1,
+                                TestSchema.COLUMN_FIRST_ID.name,
+                                new Tuple2<>(TestSchema.COLUMN_FIRST_ID.name, Extract.LONG))),
+                false,
+                null,
+                null);
+
+        // Execute
+        QueryPlan result = subject.explain(List.empty(), query);
+
+        // Verify
+        assertTrue(result.cost > 0);
+        assertTrue(result.summary.contains("Seq Scan on first"), result.summary);
+    }
+
     @Test
     void query_first_text_search() {
         // Setup
@@ -2,6 +2,7 @@ package org.statemach.db.sql.postgres;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.AfterEach;
@@ -11,9 +12,18 @@ import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 import org.statemach.db.jdbc.Inject;
 import org.statemach.db.jdbc.Injector;
 import org.statemach.db.schema.TableInfo;
+import org.statemach.db.sql.Condition;
+import org.statemach.db.sql.From;
+import org.statemach.db.sql.Join;
+import org.statemach.db.sql.Select;
+import org.statemach.db.sql.TableLike;
+import org.statemach.db.sql.View;
+import org.statemach.util.Http;
+import org.statemach.util.NodeLinkTree;
 
 import io.vavr.Tuple2;
 import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.control.Option;
 
@@ -615,4 +625,76 @@ public class PostgresDataAccess_update_IntegrationTest {
         assertEquals(ROW, result2);
     }
 
+
+    @Test
+    void updateWhere_first() {
+        // Setup
+        final TableInfo           table  = TestSchema.TABLE_INFO_FIRST;
+        final Map<String, Object> UPDATE = HashMap.ofEntries(
+                new Tuple2<>(TestSchema.COLUMN_FIRST_FIXED.name, TestData.FIRST_ROW_2_FIXED));
+
+        final Map<String, Object> ROW = UPDATE
+            .merge(TestData.FIRST_ROW_1_PK)
+            .merge(TestData.FIRST_ROW_1_VAL)
+            .merge(TestData.FIRST_ROW_1_REF);
+
+        final Map<String, Inject> PK     = TestData.toInject(table, TestData.FIRST_ROW_1_PK);
+        final Map<String, Inject> INJECT = TestData.toInject(table, UPDATE);
+
+        // Execute
+        final List<Map<String, Object>> result = subject.updateWhere(table.name,
+                keys(table, TestData.FIRST_ROW_1_PK),
+                1,
+                INJECT,
+                TestData.FIRST_EXTRACT);
+
+        // Verify
+        final Map<String, Object> result1 = subject.select(table.name, PK, TestData.FIRST_EXTRACT).get();
+        assertEquals(List.of(ROW), result);
+        assertEquals(ROW, result1);
+    }
+
+    @Test
+    void updateWhere_first_over_limit() {
+        // Setup
+        final TableInfo           table  = TestSchema.TABLE_INFO_FIRST;
+        final Map<String, Object> UPDATE = HashMap.ofEntries(
+                new Tuple2<>(TestSchema.COLUMN_FIRST_FIXED.name, TestData.FIRST_ROW_2_FIXED));
+
+        final Map<String, Object> ROW = TestData.FIRST_ROW_1_PK
+            .merge(TestData.FIRST_ROW_1_VAL)
+            .merge(TestData.FIRST_ROW_1_REF);
+
+        final Map<String, Inject> PK     = TestData.toInject(table, TestData.FIRST_ROW_1_PK);
+        final Map<String, Inject> INJECT = TestData.toInject(table, UPDATE);
+
+        // Execute
+        final Http.Error result = assertThrows(Http.Error.class,
+                () -> subject.updateWhere(table.name,
+                        keys(table, TestData.FIRST_ROW_1_PK, TestData.FIRST_ROW_2_PK),
+                        1,
+                        INJECT,
+                        HashMap.empty()));
+
+        // Verify
+        final Map<String, Object> result1 = subject.select(table.name, PK, TestData.FIRST_EXTRACT).get();
+        assertEquals(Http.ErrorCode.UNPROCESSABLE_ENTITY, result.errorCode);
+        assertEquals(ROW, result1);
+    }
+
+    @SafeVarargs
+    final View<String> keys(TableInfo table, Map<String, Object>... primaryKeys) {
+        final String    column = TestSchema.COLUMN_FIRST_ID.name;
+        final Condition where  = subject.builder.in(Select.of("t", column),
+                List.of(primaryKeys).map(pk -> TestData.toInject(table, pk).get(column).get()));
+
+        return new View<>("",
+                NodeLinkTree.<String, From, Join>of(new From(TableLike.of(TestSchema.SCHEMA, table), "t")),
+                where,
+                List.empty(),
+                List.of(Select.of("t", column, column)),
+                false,
+                null,
+                null);
+    }
 }
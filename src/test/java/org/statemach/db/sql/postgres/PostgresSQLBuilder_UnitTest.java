@@ -8,6 +8,9 @@ import org.statemach.db.jdbc.Inject;
 import org.statemach.db.jdbc.Vendor;
 import org.statemach.db.sql.Condition;
 import org.statemach.db.sql.Select;
+import org.statemach.db.sql.TableLike;
+
+import io.vavr.collection.List;
 
 public class PostgresSQLBuilder_UnitTest {
 
@@ -64,4 +67,16 @@ public class PostgresSQLBuilder_UnitTest {
         assertSame(some, result);
     }
 
+    @Test
+    void stringArrayAsTable() {
+        // Execute
+        TableLike result = subject.stringArrayAsTable(
+                List.of(TestSchema.COLUMN_THIRD_NAME, TestSchema.COLUMN_THIRD_INDX),
+                List.of(List.of("Name1", "1"), List.of("Name2", "2")),
+                "ordinality");
+
+        // Verify
+        assertEquals("(SELECT * FROM       UNNEST((?)::name[], (?)::integer[]) WITH ORDINALITY AS u(name, indx, ordinality))",
+                result.sql);
+    }
 }
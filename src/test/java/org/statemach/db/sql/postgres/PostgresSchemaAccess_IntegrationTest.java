@@ -1,6 +1,7 @@
 package org.statemach.db.sql.postgres;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -8,9 +9,11 @@ import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
 import org.statemach.db.jdbc.Vendor;
 import org.statemach.db.schema.ColumnInfo;
 import org.statemach.db.schema.ForeignKey;
+import org.statemach.db.schema.IndexInfo;
 import org.statemach.db.schema.PrimaryKey;
 import org.statemach.db.schema.Schema;
 
+import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
 
@@ -60,6 +63,26 @@ public class PostgresSchemaAccess_IntegrationTest {
         assertEquals(TestSchema.ALL_FOREIGN_KEYS, result.sortBy(f -> f.name));
     }
 
+    @Test
+    void getAllIndexes() {
+        // Execute
+        List<IndexInfo> result = subject.getAllIndexes();
+
+        // Verify
+        assertEquals(TestSchema.ALL_PRIMARY_KEYS.map(p -> new Tuple2<>(p.name, p.columns)),
+                result.filter(i -> i.primary).sortBy(i -> i.name).map(i -> new Tuple2<>(i.name, i.columns)));
+        assertTrue(result.filter(i -> i.primary).forAll(i -> i.unique && 0 < i.sizeBytes));
+    }
+
+    @Test
+    void getAllTableRowEstimates() {
+        // Execute
+        Map<String, Long> result = subject.getAllTableRowEstimates();
+
+        // Verify
+        assertEquals(TestSchema.ALL_TABLES.keySet(), result.keySet());
+    }
+
     @Test
     void schema_from() {
         // Execute
@@ -61,7 +61,7 @@ public interface TestSchema {
             TABLE_NAME_SECOND,
             List.of(new Match("second", "id")));
 
-    static final ColumnInfo COLUMN_FIRST_ID         = ColumnInfo.of("id", PostgresDataType.BIGINT);
+    static final ColumnInfo COLUMN_FIRST_ID         = ColumnInfo.of("id", PostgresDataType.BIGINT, null, false);
     static final ColumnInfo COLUMN_FIRST_SECOND     = ColumnInfo.of("second", PostgresDataType.UUID);
     static final ColumnInfo COLUMN_FIRST_THIRD_NAME = ColumnInfo.of("third_name", PostgresDataType.NAME);
     static final ColumnInfo COLUMN_FIRST_THIRD_INDX = ColumnInfo.of("third_indx", PostgresDataType.INTEGER);
@@ -70,7 +70,7 @@ public interface TestSchema {
     static final ColumnInfo COLUMN_FIRST_UNLIMITED  = ColumnInfo.of("unlimited", PostgresDataType.TEXT);
     static final ColumnInfo COLUMN_FIRST_SEARCH     = ColumnInfo.of("search", PostgresDataType.TSVECTOR);
 
-    static final ColumnInfo COLUMN_SECOND_ID         = ColumnInfo.of("id", PostgresDataType.UUID);
+    static final ColumnInfo COLUMN_SECOND_ID         = ColumnInfo.of("id", PostgresDataType.UUID, null, false);
     static final ColumnInfo COLUMN_SECOND_FIRST      = ColumnInfo.of("first", PostgresDataType.BIGINT);
     static final ColumnInfo COLUMN_SECOND_ONE        = ColumnInfo.of("one", PostgresDataType.UUID);
     static final ColumnInfo COLUMN_SECOND_TWO        = ColumnInfo.of("two", PostgresDataType.UUID);
@@ -81,8 +81,8 @@ public interface TestSchema {
     static final ColumnInfo COLUMN_SECOND_SHORT      = ColumnInfo.of("short", PostgresDataType.SMALLINT);
     static final ColumnInfo COLUMN_SECOND_LONG       = ColumnInfo.of("long", PostgresDataType.BIGINT);
 
-    static final ColumnInfo COLUMN_THIRD_NAME        = ColumnInfo.of("name", PostgresDataType.NAME);
-    static final ColumnInfo COLUMN_THIRD_INDX        = ColumnInfo.of("indx", PostgresDataType.INTEGER);
+    static final ColumnInfo COLUMN_THIRD_NAME        = ColumnInfo.of("name", PostgresDataType.NAME, null, false);
+    static final ColumnInfo COLUMN_THIRD_INDX        = ColumnInfo.of("indx", PostgresDataType.INTEGER, null, false);
     static final ColumnInfo COLUMN_THIRD_FIRST       = ColumnInfo.of("first", PostgresDataType.BIGINT);
     static final ColumnInfo COLUMN_THIRD_SECOND      = ColumnInfo.of("second", PostgresDataType.UUID);
     static final ColumnInfo COLUMN_THIRD_BOOL        = ColumnInfo.of("bool", PostgresDataType.BOOLEAN);
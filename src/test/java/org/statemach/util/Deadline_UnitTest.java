@@ -0,0 +1,146 @@
+package org.statemach.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+public class Deadline_UnitTest {
+
+    @Test
+    void current() {
+        // Execute & Verify
+        assertSame(Deadline.NONE, Deadline.current());
+        assertFalse(Deadline.NONE.isExpired());
+        Deadline.NONE.check();
+    }
+
+    @Test
+    void timeout_header() {
+        // Execute & Verify
+        assertEquals(1000L, Deadline.timeout(null, 1000));
+        assertEquals(200L, Deadline.timeout(" 200 ", 1000));
+        assertEquals(1000L, Deadline.timeout("5000", 1000));
+        assertEquals(Http.ErrorCode.BAD_REQUEST,
+                assertThrows(Http.Error.class, () -> Deadline.timeout("0", 1000)).errorCode);
+        assertEquals(Http.ErrorCode.BAD_REQUEST,
+                assertThrows(Http.Error.class, () -> Deadline.timeout("soon", 1000)).errorCode);
+    }
+
+    @Test
+    void check() {
+        // Setup
+        Deadline subject = Deadline.of(-1);
+
+        // Execute
+        Http.Error error = assertThrows(Http.Error.class, () -> subject.check());
+
+        // Verify
+        assertTrue(subject.isExpired());
+        assertEquals(Http.ErrorCode.GATEWAY_TIMEOUT, error.errorCode);
+    }
+
+    @Test
+    void latest() {
+        // Setup
+        Deadline early = Deadline.of(1000);
+        Deadline late  = Deadline.of(2000);
+
+        // Execute & Verify
+        assertSame(late, Deadline.latest(early, late));
+        assertSame(late, Deadline.latest(late, early));
+        assertSame(Deadline.NONE, Deadline.latest(late, Deadline.NONE));
+        assertSame(Deadline.NONE, Deadline.latest(Deadline.NONE, early));
+    }
+
+    @Test
+    void with() {
+        // Setup
+        Deadline subject = Deadline.of(1000);
+
+        // Execute
+        Deadline result = Deadline.with(subject, Deadline::current);
+
+        // Verify
+        assertSame(subject, result);
+        assertSame(Deadline.NONE, Deadline.current());
+    }
+
+    @Test
+    void attach() throws Exception {
+        // Setup
+        Deadline  subject   = Deadline.of(2500);
+        Statement statement = mock(Statement.class);
+
+        // Execute
+        subject.attach(statement);
+        subject.cancel();
+        subject.detach();
+        subject.cancel();
+
+        // Verify
+        verify(statement).setQueryTimeout(3);
+        verify(statement).cancel();
+    }
+
+    @Test
+    void handler() throws Exception {
+        // Setup
+        HttpExchange       exchange  = mock(HttpExchange.class);
+        Headers            headers   = new Headers();
+        Statement          statement = mock(Statement.class);
+        Mutable<Deadline>  current   = new Mutable<>(null);
+        HttpHandler        next      = e -> {
+                                         current.set(Deadline.current());
+                                         Java.soft(() -> Deadline.current().attach(statement));
+                                         Java.soft(() -> Thread.sleep(500));
+                                     };
+        headers.set(Deadline.HEADER, "50");
+        doReturn(headers).when(exchange).getRequestHeaders();
+
+        // Execute
+        Deadline.handler(1000, next).handle(exchange);
+
+        // Verify
+        assertEquals(50L, current.get().timeoutMillis);
+        assertNull(Deadline.CURRENT.get());
+        verify(statement, timeout(2000)).cancel();
+    }
+
+    @Test
+    void handler_done() throws Exception {
+        // Setup
+        HttpExchange exchange  = mock(HttpExchange.class);
+        Statement    statement = mock(Statement.class);
+        HttpHandler  next      = e -> {
+                                   Deadline deadline = Deadline.current();
+                                   Java.soft(() -> deadline.attach(statement));
+                                   deadline.detach();
+                               };
+        doReturn(new Headers()).when(exchange).getRequestHeaders();
+        doAnswer(a -> null).when(statement).cancel();
+
+        // Execute
+        Deadline.handler(20, next).handle(exchange);
+        Thread.sleep(100);
+
+        // Verify
+        verify(statement, never()).cancel();
+    }
+}
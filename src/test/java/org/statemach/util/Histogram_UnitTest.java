@@ -0,0 +1,57 @@
+package org.statemach.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class Histogram_UnitTest {
+
+    final Histogram subject = new Histogram(new double[] { 1, 10, 100 });
+
+    @Test
+    void observe() {
+        // Execute
+        subject.observe(0.5);
+        subject.observe(1);
+        subject.observe(5);
+        subject.observe(100);
+        subject.observe(1000);
+
+        // Verify
+        assertArrayEquals(new long[] { 2, 3, 4, 5 }, subject.cumulative());
+        assertEquals(5, subject.count());
+        assertEquals(1106.5, subject.sum());
+    }
+
+    @Test
+    void observeNanos() {
+        // Execute
+        subject.observeNanos(2_000_000_000L);
+
+        // Verify
+        assertArrayEquals(new long[] { 0, 1, 1, 1 }, subject.cumulative());
+        assertEquals(2.0, subject.sum());
+    }
+
+    @Test
+    void empty() {
+        // Verify
+        assertArrayEquals(new long[] { 0, 0, 0, 0 }, subject.cumulative());
+        assertEquals(0, subject.count());
+        assertEquals(0.0, subject.sum());
+        assertArrayEquals(new double[] { 1, 10, 100 }, subject.bounds());
+    }
+
+    @Test
+    void toString_test() {
+        // Setup
+        subject.observe(3);
+
+        // Execute
+        String result = subject.toString();
+
+        // Verify
+        assertEquals("Histogram@{count: 1, sum: 3.0}", result);
+    }
+}
@@ -1,17 +1,20 @@
 package org.statemach.util;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -23,6 +26,7 @@ import org.statemach.util.Http.Error;
 import org.statemach.util.Http.ErrorCode;
 import org.statemach.util.Http.ErrorResource;
 import org.statemach.util.Http.Header;
+import org.statemach.util.Http.Overloaded;
 
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpContext;
@@ -118,6 +122,69 @@ public class Http_UnitTest {
         assertEquals("{\n  \"a\" : 2\n}", stream.toString());
     }
 
+    @Test
+    void conditionalJson() throws Exception {
+        // Setup
+        ByteArrayOutputStream stream   = new ByteArrayOutputStream();
+        Headers               request  = new Headers();
+        Headers               response = new Headers();
+        HttpExchange          exchange = mock(HttpExchange.class);
+        doReturn(request).when(exchange).getRequestHeaders();
+        doReturn(response).when(exchange).getResponseHeaders();
+        doReturn(stream).when(exchange).getResponseBody();
+
+        // Execute
+        Http.conditionalJson(exchange, HashMap.of("a", 2));
+
+        // Verify
+        verify(exchange).sendResponseHeaders(200, 13L);
+        assertEquals(Http.etag("{\n  \"a\" : 2\n}".getBytes()), response.getFirst(Header.ETAG));
+        assertEquals("{\n  \"a\" : 2\n}", stream.toString());
+    }
+
+    @Test
+    void conditionalJson_notModified() throws Exception {
+        // Setup
+        ByteArrayOutputStream stream   = new ByteArrayOutputStream();
+        Headers               request  = new Headers();
+        Headers               response = new Headers();
+        HttpExchange          exchange = mock(HttpExchange.class);
+        request.set(Header.IF_NONE_MATCH, "\"other\", W/" + Http.etag("{\n  \"a\" : 2\n}".getBytes()));
+        doReturn(request).when(exchange).getRequestHeaders();
+        doReturn(response).when(exchange).getResponseHeaders();
+        doReturn(stream).when(exchange).getResponseBody();
+
+        // Execute
+        Http.conditionalJson(exchange, HashMap.of("a", 2));
+
+        // Verify
+        verify(exchange).sendResponseHeaders(ErrorCode.NOT_MODIFIED, -1L);
+        assertNull(response.getFirst(Header.CONTENT_TYPE));
+        assertNotNull(response.getFirst(Header.ETAG));
+        assertEquals(0, stream.size());
+    }
+
+    @Test
+    void etag() {
+        // Execute
+        String result = Http.etag("abc".getBytes());
+
+        // Verify
+        assertEquals(result, Http.etag("abc".getBytes()));
+        assertNotEquals(result, Http.etag("abd".getBytes()));
+        assertTrue(result.matches("\"[A-Za-z0-9_-]{22}\""));
+    }
+
+    @Test
+    void matches() {
+        // Execute & Verify
+        assertTrue(Http.matches("\"a\"", "\"a\""));
+        assertTrue(Http.matches("\"b\" , W/\"a\"", "\"a\""));
+        assertTrue(Http.matches("*", "\"a\""));
+        assertFalse(Http.matches("\"b\"", "\"a\""));
+        assertFalse(Http.matches("a", "\"a\""));
+    }
+
     @Test
     void extract() {
         // Setup
@@ -198,15 +265,85 @@ public class Http_UnitTest {
     @Test
     void errorHandler() throws Exception {
         // Setup
-        HttpExchange exchange = mock(HttpExchange.class);
-        HttpHandler  handler  = mock(HttpHandler.class);
-        doNothing().when(handler).handle(exchange);
+        HttpExchange    exchange = mock(HttpExchange.class);
+        HttpHandler     handler  = mock(HttpHandler.class);
+        Mutable<String> origin   = new Mutable<>(null);
+        doReturn("GET").when(exchange).getRequestMethod();
+        doReturn(URI.create("/rest/first?$limit=1")).when(exchange).getRequestURI();
+        doAnswer(a -> {
+            origin.set(Http.ORIGIN.get());
+            return null;
+        }).when(handler).handle(exchange);
+
+        // Execute
+        Http.errorHandler(handler).handle(exchange);
+
+        // Verify
+        verify(exchange).getRequestMethod();
+        verify(exchange).getRequestURI();
+        verifyNoMoreInteractions(exchange);
+        assertEquals("GET /rest/first", origin.get());
+        assertNull(Http.ORIGIN.get());
+    }
+
+    @Test
+    void errorHandler_traced() throws Exception {
+        // Setup
+        Tracer                tracer   = new Tracer(spans -> {}, 1.0, Long.MAX_VALUE, 1);
+        Error                 error    = new Error(ErrorCode.NOT_FOUND, "Message234");
+        ByteArrayOutputStream stream   = new ByteArrayOutputStream();
+        Headers               request  = new Headers();
+        Headers               response = new Headers();
+        HttpExchange          exchange = mock(HttpExchange.class);
+        HttpHandler           handler  = mock(HttpHandler.class);
+
+        request.set(Tracer.TRACEPARENT, "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        doReturn("GET").when(exchange).getRequestMethod();
+        doReturn(URI.create("/rest/first")).when(exchange).getRequestURI();
+        doReturn(request).when(exchange).getRequestHeaders();
+        doReturn(response).when(exchange).getResponseHeaders();
+        doReturn(stream).when(exchange).getResponseBody();
+        doThrow(error).when(handler).handle(exchange);
+
+        // Execute
+        Tracer.install(tracer);
+        try {
+            Http.errorHandler(handler).handle(exchange);
+        } finally {
+            Tracer.install(Tracer.NOOP);
+        }
+
+        // Verify
+        List<Span> spans = tracer.queue.poll();
+        Span       root  = spans.last();
+        assertEquals(List.of("json.write", "GET"), spans.map(s -> s.name));
+        assertEquals("00f067aa0ba902b7", root.parentSpanId);
+        assertEquals("00-4bf92f3577b34da6a3ce929d0e0e4736-" + root.spanId + "-01",
+                response.getFirst(Tracer.TRACEPARENT));
+        assertEquals("/rest/first", root.getAttributes().get("http.target"));
+        assertEquals(ErrorCode.NOT_FOUND, root.getAttributes().get("http.status_code"));
+        assertEquals("Message234", root.getError());
+    }
+
+    @Test
+    void errorHandler_Overloaded() throws Exception {
+        // Setup
+        Overloaded            error    = new Overloaded(5, "Message345");
+        ByteArrayOutputStream stream   = new ByteArrayOutputStream();
+        Headers               headers  = new Headers();
+        HttpExchange          exchange = mock(HttpExchange.class);
+        HttpHandler           handler  = mock(HttpHandler.class);
+
+        doReturn(headers).when(exchange).getResponseHeaders();
+        doReturn(stream).when(exchange).getResponseBody();
+        doThrow(error).when(handler).handle(exchange);
 
         // Execute
         Http.errorHandler(handler).handle(exchange);
 
         // Verify
-        verifyNoInteractions(exchange);
+        verify(exchange).sendResponseHeaders(eq(ErrorCode.SERVICE_UNAVAILABLE), anyLong());
+        assertEquals("5", headers.getFirst(Header.RETRY_AFTER));
     }
 
     @Test
@@ -0,0 +1,136 @@
+package org.statemach.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.vavr.collection.List;
+
+public class SpanExporter_UnitTest {
+
+    final Tracer tracer = new Tracer(s -> {}, 1.0, Long.MAX_VALUE, 1);
+
+    List<Span> trace() {
+        Span root = tracer.startRoot("GET", () -> null).attribute("http.target", "/rest/first");
+        Tracer.start("db.statement").attribute("db.rows", 3).error(new RuntimeException("boom")).close();
+        root.close();
+        return tracer.queue.poll();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void toOtlp() {
+        // Setup
+        List<Span> spans = trace();
+        Span       child = spans.get(0);
+
+        // Execute
+        java.util.Map<String, Object> result = SpanExporter.toOtlp(spans);
+
+        // Verify
+        java.util.Map<String, Object>       resource   = (java.util.Map<String, Object>) ((java.util.List<?>) result
+            .get("resourceSpans")).get(0);
+        java.util.Map<String, Object>       scope      = (java.util.Map<String, Object>) ((java.util.List<?>) resource
+            .get("scopeSpans")).get(0);
+        java.util.List<java.util.Map<?, ?>> otlpSpans  = (java.util.List<java.util.Map<?, ?>>) scope.get("spans");
+        java.util.Map<?, ?>                 otlpChild  = otlpSpans.get(0);
+        java.util.Map<?, ?>                 otlpParent = otlpSpans.get(1);
+
+        assertEquals(2, otlpSpans.size());
+        assertEquals(child.traceId, otlpChild.get("traceId"));
+        assertEquals(child.parentSpanId, otlpChild.get("parentSpanId"));
+        assertEquals(Long.toString(child.startEpochNanos), otlpChild.get("startTimeUnixNano"));
+        assertEquals(SpanExporter.map("code", 2, "message", "boom"), otlpChild.get("status"));
+        assertEquals(java.util.List.of(SpanExporter.map("key", "db.rows", "value", SpanExporter.map("intValue", "3"))),
+                otlpChild.get("attributes"));
+        assertTrue(!otlpParent.containsKey("parentSpanId"));
+        assertEquals(2, otlpParent.get("kind"));
+        assertEquals(SpanExporter.map("code", 1), otlpParent.get("status"));
+    }
+
+    @Test
+    void attribute() {
+        // Verify
+        assertEquals(SpanExporter.map("key", "a", "value", SpanExporter.map("boolValue", true)),
+                SpanExporter.attribute("a", true));
+        assertEquals(SpanExporter.map("key", "a", "value", SpanExporter.map("doubleValue", 1.5)),
+                SpanExporter.attribute("a", 1.5));
+        assertEquals(SpanExporter.map("key", "a", "value", SpanExporter.map("stringValue", "")),
+                SpanExporter.attribute("a", null));
+    }
+
+    @Test
+    void file() throws Exception {
+        // Setup
+        Path path = Files.createTempFile("trace", ".json");
+        Files.delete(path);
+
+        // Execute
+        SpanExporter.file(path).export(trace());
+        SpanExporter.file(path).export(trace());
+
+        // Verify
+        java.util.List<String> lines = Files.readAllLines(path);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"resourceSpans\":"));
+        Files.delete(path);
+    }
+
+    @Test
+    void otlp() throws Exception {
+        // Setup
+        Mutable<String> received = new Mutable<>(null);
+        HttpServer      server   = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/traces", exchange -> {
+            try (InputStream input = exchange.getRequestBody()) {
+                received.set(new String(input.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            URI endpoint = URI.create("http://localhost:" + server.getAddress().getPort() + "/v1/traces");
+
+            // Execute
+            SpanExporter.otlp(endpoint).export(trace());
+
+            // Verify
+            assertTrue(received.get().contains("\"name\":\"db.statement\""));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void otlp_failure() throws Exception {
+        // Setup
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            URI endpoint = URI.create("http://localhost:" + server.getAddress().getPort() + "/v1/traces");
+
+            // Execute & Verify
+            assertThrows(IllegalStateException.class, () -> SpanExporter.otlp(endpoint).export(trace()));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.statemach.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.vavr.collection.List;
+
+public class Tracer_UnitTest {
+
+    static final String TRACE_ID  = "4bf92f3577b34da6a3ce929d0e0e4736";
+    static final String PARENT_ID = "00f067aa0ba902b7";
+
+    final Tracer sampled   = new Tracer(s -> {}, 1.0, Long.MAX_VALUE, 2);
+    final Tracer unsampled = new Tracer(s -> {}, 0.0, Long.MAX_VALUE, 2);
+    final Tracer tail      = new Tracer(s -> {}, 0.0, 0, 2);
+
+    @AfterEach
+    void cleanup() {
+        Tracer.CURRENT.remove();
+    }
+
+    @Test
+    void parse() {
+        // Execute
+        Tracer.Parent result = Tracer.parse("00-" + TRACE_ID + "-" + PARENT_ID + "-01").get();
+
+        // Verify
+        assertEquals(TRACE_ID, result.traceId);
+        assertEquals(PARENT_ID, result.spanId);
+        assertTrue(result.sampled);
+        assertFalse(Tracer.parse("00-" + TRACE_ID + "-" + PARENT_ID + "-00").get().sampled);
+    }
+
+    @Test
+    void parse_invalid() {
+        // Verify
+        assertTrue(Tracer.parse(null).isEmpty());
+        assertTrue(Tracer.parse("").isEmpty());
+        assertTrue(Tracer.parse("ff-" + TRACE_ID + "-" + PARENT_ID + "-01").isEmpty());
+        assertTrue(Tracer.parse("00-" + TRACE_ID.toUpperCase() + "-" + PARENT_ID + "-01").isEmpty());
+        assertTrue(Tracer.parse("00-00000000000000000000000000000000-" + PARENT_ID + "-01").isEmpty());
+        assertTrue(Tracer.parse("00-" + TRACE_ID + "-0000000000000000-01").isEmpty());
+        assertTrue(Tracer.parse("00-" + TRACE_ID + "-" + PARENT_ID).isEmpty());
+    }
+
+    @Test
+    void noop() {
+        // Execute
+        Span root  = Tracer.NOOP.startRoot("GET", () -> null);
+        Span child = Tracer.start("child");
+
+        // Verify
+        assertSame(Span.NOOP, root);
+        assertSame(Span.NOOP, child);
+        assertSame(Span.NOOP, Tracer.current());
+    }
+
+    @Test
+    void nested() {
+        // Execute
+        Span root  = sampled.startRoot("GET", () -> null);
+        Span child = Tracer.start("child");
+        Span inner = Tracer.start("inner", Span.Kind.CLIENT);
+        inner.close();
+        Span current = Tracer.current();
+        child.close();
+        root.close();
+
+        // Verify
+        assertSame(child, current);
+        assertEquals(32, root.traceId.length());
+        assertEquals(16, root.spanId.length());
+        assertNull(root.parentSpanId);
+        assertEquals(root.spanId, child.parentSpanId);
+        assertEquals(child.spanId, inner.parentSpanId);
+        assertEquals(root.traceId, inner.traceId);
+        assertEquals(Span.Kind.SERVER, root.kind);
+        assertEquals(Span.Kind.CLIENT, inner.kind);
+        assertTrue(root.getEndEpochNanos() >= root.startEpochNanos);
+        assertEquals(List.of("inner", "child", "GET"), sampled.queue.poll().map(s -> s.name));
+        assertSame(Span.NOOP, Tracer.current());
+    }
+
+    @Test
+    void span() {
+        // Execute
+        Span   root    = sampled.startRoot("GET", () -> null);
+        String result  = Tracer.span("value", () -> Tracer.current().name);
+        Span[] current = new Span[1];
+        Tracer.span("work", () -> {
+            current[0] = Tracer.current();
+        });
+        root.close();
+
+        // Verify
+        assertEquals("value", result);
+        assertEquals("work", current[0].name);
+        assertEquals(List.of("value", "work", "GET"), sampled.queue.poll().map(s -> s.name));
+    }
+
+    @Test
+    void remoteParent() {
+        // Execute
+        Span root = unsampled.startRoot("GET", () -> "00-" + TRACE_ID + "-" + PARENT_ID + "-01");
+        root.close();
+
+        // Verify
+        assertEquals(TRACE_ID, root.traceId);
+        assertEquals(PARENT_ID, root.parentSpanId);
+        assertEquals("00-" + TRACE_ID + "-" + root.spanId + "-01", root.traceparent());
+        assertEquals(1, unsampled.queue.size());
+    }
+
+    @Test
+    void headSampling_dropped() {
+        // Execute
+        Span root = unsampled.startRoot("GET", () -> null);
+
+        // Verify
+        assertSame(Span.NOOP, root);
+    }
+
+    @Test
+    void tailSampling() {
+        // Execute
+        Span root = tail.startRoot("GET", () -> "00-" + TRACE_ID + "-" + PARENT_ID + "-00");
+        Tracer.start("child").close();
+        root.close();
+
+        // Verify
+        assertEquals(List.of("child", "GET"), tail.queue.poll().map(s -> s.name));
+    }
+
+    @Test
+    void tailSampling_fast() {
+        // Setup
+        Tracer slowOnly = new Tracer(s -> {}, 0.0, Long.MAX_VALUE - 1, 2);
+
+        // Execute
+        Span root = slowOnly.startRoot("GET", () -> null);
+        root.close();
+
+        // Verify
+        assertTrue(root.isRecording());
+        assertTrue(slowOnly.queue.isEmpty());
+    }
+
+    @Test
+    void overflow() {
+        // Execute
+        for (int i = 0; i < 3; i++) {
+            sampled.startRoot("GET", () -> null).close();
+        }
+
+        // Verify
+        assertEquals(2, sampled.queue.size());
+        assertEquals(1, sampled.dropped.sum());
+    }
+
+    @Test
+    void attributes() {
+        // Execute
+        Span root = sampled.startRoot("GET", () -> null)
+            .attribute("http.method", "GET")
+            .error(new RuntimeException("boom"));
+        Span.NOOP.attribute("ignored", 1).error(new RuntimeException());
+        root.close();
+
+        // Verify
+        assertEquals("GET", root.getAttributes().get("http.method"));
+        assertEquals("boom", root.getError());
+        assertTrue(Span.NOOP.getAttributes().isEmpty());
+        assertNull(Span.NOOP.getError());
+    }
+
+    @Test
+    void randomId() {
+        // Verify
+        assertTrue(Tracer.isHex(Tracer.randomId(2), 32));
+        assertTrue(Tracer.isHex(Tracer.randomId(1), 16));
+    }
+}